@@ -1,5 +1,7 @@
 package com.ipam;
 
+import com.ipam.service.LeaseExpiry;
+import com.ipam.service.ReservationExpiry;
 import com.ipam.util.DatabaseManager;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -22,8 +24,12 @@ public class MainApp extends Application {
         try {
             primaryStage = stage;
             
-            // Initialiser la connexion à la base de données
-            DatabaseManager.getConnection();
+            // Initialiser le pool de connexions et le schéma
+            DatabaseManager.initialize();
+            // Baux en cours : chargement et démarrage de leur expiration
+            LeaseExpiry.getInstance();
+            // Réservations échues : retrait périodique
+            ReservationExpiry.getInstance();
             logger.info("Application IPAM Manager démarrée");
 
             // Charger la vue de connexion
@@ -56,6 +62,8 @@ public class MainApp extends Application {
     @Override
     public void stop() {
         logger.info("Fermeture de l'application");
+        LeaseExpiry.shutdown();
+        ReservationExpiry.shutdown();
         DatabaseManager.closeConnection();
     }
 
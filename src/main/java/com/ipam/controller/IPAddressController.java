@@ -212,7 +212,9 @@ public class IPAddressController implements Initializable {
                 throw new IllegalArgumentException("Le nom de l'équipement est obligatoire");
             }
 
-            ipAddressService.assignIP(selectedIP.getId(), assignedTo, macAddress, description);
+            // Les adresses libres des sous-réseaux creux n'ont pas encore de ligne
+            Long ipId = ipAddressService.materialize(selectedIP);
+            ipAddressService.assignIP(ipId, assignedTo, macAddress, description);
             showSuccess("Succès", "IP assignée avec succès");
             clearForm();
             loadAllIPs();
@@ -266,7 +268,8 @@ public class IPAddressController implements Initializable {
                 throw new IllegalArgumentException("Une description est obligatoire pour la réservation");
             }
 
-            ipAddressService.reserveIP(selectedIP.getId(), description);
+            Long ipId = ipAddressService.materialize(selectedIP);
+            ipAddressService.reserveIP(ipId, description);
             showSuccess("Succès", "IP réservée avec succès");
             clearForm();
             loadAllIPs();
@@ -1,5 +1,7 @@
 package com.ipam.controller;
 
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Ipv6Prefix;
 import com.ipam.model.Subnet;
 import com.ipam.service.SubnetService;
 import com.ipam.util.IPCalculator;
@@ -26,6 +28,13 @@ import java.util.ResourceBundle;
 public class SubnetController implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(SubnetController.class);
 
+    private static final ObservableList<Integer> IPV4_CIDRS = FXCollections.observableArrayList(
+        8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30
+    );
+    private static final ObservableList<Integer> IPV6_PREFIX_LENGTHS = FXCollections.observableArrayList(
+        16, 20, 24, 28, 32, 36, 40, 44, 48, 52, 56, 60, 64, 72, 80, 96, 112, 120, 124, 126, 127, 128
+    );
+
     @FXML
     private TableView<Subnet> subnetTable;
 
@@ -202,13 +211,14 @@ public class SubnetController implements Initializable {
         );
 
         // Initialiser le ComboBox CIDR
-        cidrComboBox.setItems(FXCollections.observableArrayList(
-            8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30
-        ));
+        cidrComboBox.setItems(IPV4_CIDRS);
         cidrComboBox.setValue(24); // Valeur par défaut
 
         // Listener pour calculer automatiquement les infos du réseau
-        networkAddressField.textProperty().addListener((obs, old, newVal) -> calculateNetworkInfo());
+        networkAddressField.textProperty().addListener((obs, old, newVal) -> {
+            updateCidrChoices(newVal);
+            calculateNetworkInfo();
+        });
         cidrComboBox.valueProperty().addListener((obs, old, newVal) -> calculateNetworkInfo());
 
         // Charger les données
@@ -381,6 +391,36 @@ public class SubnetController implements Initializable {
         }
     }
 
+    @FXML
+    private void handleExportSummary() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exporter le résumé CIDR des sous-réseaux");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Texte", "*.txt"));
+        chooser.setInitialFileName("summary.txt");
+        java.io.File file = chooser.showSaveDialog(subnetTable.getScene().getWindow());
+        if (file != null) {
+            try {
+                List<Ipv4Prefix> summary = subnetService.summarizeSubnets();
+                com.ipam.util.ExportUtil.exportPrefixesToText(summary, file, "Résumé CIDR des sous-réseaux");
+                showSuccess("Export", summary.size() + " préfixe(s) exporté(s): " + file.getAbsolutePath());
+            } catch (Exception e) {
+                logger.error("Erreur export résumé CIDR", e);
+                showError("Export", "Échec de l'export du résumé: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Propose les longueurs de préfixe IPv6 dès que l'adresse saisie contient ':'
+     */
+    private void updateCidrChoices(String address) {
+        ObservableList<Integer> choices = IPCalculator.isIPv6Notation(address) ? IPV6_PREFIX_LENGTHS : IPV4_CIDRS;
+        if (cidrComboBox.getItems() != choices) {
+            cidrComboBox.setItems(choices);
+            cidrComboBox.setValue(choices == IPV6_PREFIX_LENGTHS ? 64 : 24);
+        }
+    }
+
     private void calculateNetworkInfo() {
         String ip = networkAddressField.getText();
         Integer cidr = cidrComboBox.getValue();
@@ -393,22 +433,31 @@ public class SubnetController implements Initializable {
             return;
         }
 
+        if (IPCalculator.isIPv6Notation(ip)) {
+            if (!IPCalculator.isValidIPv6(ip) || cidr > 128) {
+                firstIpLabel.setText("IP invalide");
+                return;
+            }
+            Ipv6Prefix prefix = Ipv6Prefix.of(ip, cidr);
+            firstIpLabel.setText(prefix.firstUsable().toString());
+            lastIpLabel.setText(prefix.lastUsable().toString());
+            broadcastLabel.setText("-");
+            totalIpsLabel.setText(prefix.hostBits() > 32 ? "2^" + prefix.hostBits() : prefix.size().toString());
+            return;
+        }
+
         if (!IPCalculator.isValidIP(ip)) {
             firstIpLabel.setText("IP invalide");
             return;
         }
 
         try {
-            String networkAddress = IPCalculator.getNetworkAddress(ip, cidr);
-            String firstIp = IPCalculator.getFirstUsableIp(networkAddress, cidr);
-            String lastIp = IPCalculator.getLastUsableIp(networkAddress, cidr);
-            String broadcast = IPCalculator.getBroadcastAddress(networkAddress, cidr);
-            int totalHosts = IPCalculator.getTotalHosts(cidr);
-
-            firstIpLabel.setText(firstIp);
-            lastIpLabel.setText(lastIp);
-            broadcastLabel.setText(broadcast);
-            totalIpsLabel.setText(String.valueOf(totalHosts));
+            Ipv4Prefix prefix = Ipv4Prefix.of(ip, cidr);
+
+            firstIpLabel.setText(IPCalculator.longToIp(prefix.firstUsable()));
+            lastIpLabel.setText(IPCalculator.longToIp(prefix.lastUsable()));
+            broadcastLabel.setText(prefix.getBroadcastAddress());
+            totalIpsLabel.setText(String.valueOf(prefix.usableHosts()));
         } catch (Exception e) {
             firstIpLabel.setText("Erreur");
             lastIpLabel.setText("Erreur");
@@ -432,10 +481,22 @@ public class SubnetController implements Initializable {
     }
 
     private Subnet buildSubnetFromForm() {
-        String networkAddress = IPCalculator.getNetworkAddress(
-            networkAddressField.getText(), cidrComboBox.getValue());
+        if (IPCalculator.isIPv6Notation(networkAddressField.getText())) {
+            Ipv6Prefix prefix = Ipv6Prefix.of(networkAddressField.getText(), cidrComboBox.getValue());
+            Subnet subnet = new Subnet(prefix.getNetworkAddress(), prefix.getLength(), descriptionField.getText());
+            subnet.setGateway(gatewayField.getText());
+            subnet.setDnsServers(dnsServersField.getText());
+
+            String vlanText = vlanIdField.getText();
+            if (!vlanText.isEmpty()) {
+                subnet.setVlanId(Integer.parseInt(vlanText));
+            }
+            return subnet;
+        }
+
+        Ipv4Prefix prefix = Ipv4Prefix.of(networkAddressField.getText(), cidrComboBox.getValue());
 
-        Subnet subnet = new Subnet(networkAddress, cidrComboBox.getValue(), descriptionField.getText());
+        Subnet subnet = new Subnet(prefix.getNetworkAddress(), prefix.getLength(), descriptionField.getText());
         subnet.setGateway(gatewayField.getText());
         subnet.setDnsServers(dnsServersField.getText());
         
@@ -452,7 +513,8 @@ public class SubnetController implements Initializable {
             throw new IllegalArgumentException("L'adresse réseau est obligatoire");
         }
 
-        if (!IPCalculator.isValidIP(networkAddressField.getText())) {
+        String network = networkAddressField.getText();
+        if (!IPCalculator.isValidIP(network) && !IPCalculator.isValidIPv6(network)) {
             throw new IllegalArgumentException("Adresse réseau invalide");
         }
 
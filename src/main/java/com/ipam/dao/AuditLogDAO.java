@@ -25,28 +25,29 @@ public class AuditLogDAO {
             VALUES (?, ?, ?, ?, ?, ?)
         """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, auditLog.getAction());
-            pstmt.setString(2, auditLog.getEntityType());
-            pstmt.setLong(3, auditLog.getEntityId());
-            pstmt.setString(4, auditLog.getDetails());
-            pstmt.setString(5, auditLog.getUsername());
-            pstmt.setString(6, auditLog.getTimestamp().toString());
+                pstmt.setString(1, auditLog.getAction());
+                pstmt.setString(2, auditLog.getEntityType());
+                pstmt.setLong(3, auditLog.getEntityId());
+                pstmt.setString(4, auditLog.getDetails());
+                pstmt.setString(5, auditLog.getUsername());
+                pstmt.setString(6, auditLog.getTimestamp().toString());
 
-            int affected = pstmt.executeUpdate();
+                int affected = pstmt.executeUpdate();
             
-            if (affected > 0) {
-                try (Statement stmt = conn.createStatement();
-                     ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
-                    if (rs.next()) {
-                        auditLog.setId(rs.getLong(1));
+                if (affected > 0) {
+                    try (Statement stmt = conn.createStatement();
+                         ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+                        if (rs.next()) {
+                            auditLog.setId(rs.getLong(1));
+                        }
                     }
                 }
+                return auditLog;
             }
-            return auditLog;
-        }
+        });
     }
 
     /**
@@ -181,14 +182,15 @@ public class AuditLogDAO {
     public int deleteOlderThan(LocalDateTime date) throws SQLException {
         String sql = "DELETE FROM audit_logs WHERE timestamp < ?";
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, date.toString());
-            int deleted = pstmt.executeUpdate();
-            logger.info("Supprimés {} logs antérieurs à {}", deleted, date);
-            return deleted;
-        }
+                pstmt.setString(1, date.toString());
+                int deleted = pstmt.executeUpdate();
+                logger.info("Supprimés {} logs antérieurs à {}", deleted, date);
+                return deleted;
+            }
+        });
     }
 
     /**
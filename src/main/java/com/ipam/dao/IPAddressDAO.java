@@ -2,14 +2,27 @@ package com.ipam.dao;
 
 import com.ipam.model.IPAddress;
 import com.ipam.model.IPStatus;
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Ipv6Address;
+import com.ipam.model.Ipv6Prefix;
+import com.ipam.model.StorageMode;
+import com.ipam.model.Subnet;
 import com.ipam.util.DatabaseManager;
+import com.ipam.util.IPCalculator;
+import com.ipam.util.LongLongHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * DAO pour la gestion des adresses IP
@@ -17,60 +30,158 @@ import java.util.List;
 public class IPAddressDAO {
     private static final Logger logger = LoggerFactory.getLogger(IPAddressDAO.class);
 
+    // Taille maximale des listes non paginées (un /16)
+    public static final int MAX_UNPAGED_ROWS = 65536;
+
+    // Nombre de lignes envoyées par executeBatch
+    private static final int BATCH_SIZE = 1000;
+
+    // Nombre maximal de paramètres d'une clause IN (SQLite en accepte 32766)
+    private static final int MAX_IN_PARAMS = 10000;
+
+    // Bitmaps de statut et compteurs tenus à jour dans la même transaction que les lignes
+    private final IPStatusBitmapDAO statusBitmapDAO = new IPStatusBitmapDAO();
+    private final SubnetUsageDAO usageDAO = new SubnetUsageDAO();
+
     /**
      * Crée une nouvelle adresse IP
      */
     public IPAddress create(IPAddress ipAddress) throws SQLException {
         String sql = """
             INSERT INTO ip_addresses (ip_address, subnet_id, status, assigned_to, 
-                                      mac_address, description, assigned_date, created_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                                      mac_address, description, assigned_date, created_date,
+                                      ip_num, ip_bytes, mac_num)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, ipAddress.getIpAddress());
-            pstmt.setLong(2, ipAddress.getSubnetId());
-            pstmt.setString(3, ipAddress.getStatus().name());
-            pstmt.setString(4, ipAddress.getAssignedTo());
-            pstmt.setString(5, ipAddress.getMacAddress());
-            pstmt.setString(6, ipAddress.getDescription());
+                pstmt.setString(1, ipAddress.getIpAddress());
+                pstmt.setLong(2, ipAddress.getSubnetId());
+                pstmt.setString(3, ipAddress.getStatus().name());
+                pstmt.setString(4, ipAddress.getAssignedTo());
+                pstmt.setString(5, ipAddress.getMacAddress());
+                pstmt.setString(6, ipAddress.getDescription());
             
-            if (ipAddress.getAssignedDate() != null) {
-                pstmt.setString(7, ipAddress.getAssignedDate().toString());
-            } else {
-                pstmt.setNull(7, Types.VARCHAR);
-            }
+                if (ipAddress.getAssignedDate() != null) {
+                    pstmt.setString(7, ipAddress.getAssignedDate().toString());
+                } else {
+                    pstmt.setNull(7, Types.VARCHAR);
+                }
             
-            pstmt.setString(8, ipAddress.getCreatedDate().toString());
+                pstmt.setString(8, ipAddress.getCreatedDate().toString());
+                setAddressColumns(pstmt, 9, ipAddress);
+                setMacColumn(pstmt, 11, ipAddress);
 
-            int affected = pstmt.executeUpdate();
+                int affected = pstmt.executeUpdate();
 
-            if (affected > 0) {
-                boolean idSet = false;
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs != null && rs.next()) {
-                        ipAddress.setId(rs.getLong(1));
-                        idSet = true;
+                if (affected > 0) {
+                    boolean idSet = false;
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (rs != null && rs.next()) {
+                            ipAddress.setId(rs.getLong(1));
+                            idSet = true;
+                        }
+                    } catch (SQLException ex) {
+                        logger.warn("getGeneratedKeys non supporté, on utilise last_insert_rowid(): {}", ex.getMessage());
                     }
-                } catch (SQLException ex) {
-                    logger.warn("getGeneratedKeys non supporté, on utilise last_insert_rowid(): {}", ex.getMessage());
-                }
 
-                if (!idSet) {
-                    try (Statement s = conn.createStatement();
-                         ResultSet rs2 = s.executeQuery("SELECT last_insert_rowid()")) {
-                        if (rs2.next()) {
-                            ipAddress.setId(rs2.getLong(1));
+                    if (!idSet) {
+                        try (Statement s = conn.createStatement();
+                             ResultSet rs2 = s.executeQuery("SELECT last_insert_rowid()")) {
+                            if (rs2.next()) {
+                                ipAddress.setId(rs2.getLong(1));
+                            }
                         }
                     }
+
+                    if (ipAddress.getStatus() != IPStatus.AVAILABLE && !isIpv6(ipAddress)) {
+                        statusBitmapDAO.setStatus(ipAddress.getSubnetId(),
+                            IPCalculator.ipToLong(ipAddress.getIpAddress()), ipAddress.getStatus());
+                    }
+                    usageDAO.add(ipAddress.getSubnetId(), ipAddress.getStatus(), 1);
+
+                    logger.debug("Adresse IP créée: {}", ipAddress.getIpAddress());
+                }
+                return ipAddress;
+            }
+        });
+    }
+
+    /**
+     * Insère un lot d'adresses avec une seule requête préparée, par paquets de
+     * BATCH_SIZE, sans récupérer les clés générées. Exécuté dans la transaction
+     * d'écriture courante.
+     */
+    public int createBatch(List<IPAddress> ipAddresses) throws SQLException {
+        return createBatch(ipAddresses.iterator());
+    }
+
+    /**
+     * Variante en flux : les adresses sont consommées au fil de l'insertion,
+     * seul le paquet en cours est retenu en mémoire
+     */
+    public int createBatch(Iterator<IPAddress> ipAddresses) throws SQLException {
+        String sql = """
+            INSERT INTO ip_addresses (ip_address, subnet_id, status, assigned_to, 
+                                      mac_address, description, assigned_date, created_date,
+                                      ip_num, ip_bytes, mac_num)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+        return DatabaseManager.write(conn -> {
+            int inserted = 0;
+            List<IPAddress> withStatus = new ArrayList<>();
+            SubnetUsageDAO.Delta usage = new SubnetUsageDAO.Delta();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                while (ipAddresses.hasNext()) {
+                    IPAddress ipAddress = ipAddresses.next();
+                    pstmt.setString(1, ipAddress.getIpAddress());
+                    pstmt.setLong(2, ipAddress.getSubnetId());
+                    pstmt.setString(3, ipAddress.getStatus().name());
+                    pstmt.setString(4, ipAddress.getAssignedTo());
+                    pstmt.setString(5, ipAddress.getMacAddress());
+                    pstmt.setString(6, ipAddress.getDescription());
+
+                    if (ipAddress.getAssignedDate() != null) {
+                        pstmt.setString(7, ipAddress.getAssignedDate().toString());
+                    } else {
+                        pstmt.setNull(7, Types.VARCHAR);
+                    }
+
+                    pstmt.setString(8, ipAddress.getCreatedDate().toString());
+                    setAddressColumns(pstmt, 9, ipAddress);
+                    setMacColumn(pstmt, 11, ipAddress);
+                    pstmt.addBatch();
+
+                    if (ipAddress.getStatus() != IPStatus.AVAILABLE && !isIpv6(ipAddress)) {
+                        withStatus.add(ipAddress);
+                    }
+                    usage.add(ipAddress.getSubnetId(), ipAddress.getStatus(), 1);
+
+                    if (++pending == BATCH_SIZE) {
+                        inserted += pending;
+                        pstmt.executeBatch();
+                        pending = 0;
+                    }
                 }
+                if (pending > 0) {
+                    inserted += pending;
+                    pstmt.executeBatch();
+                }
+            }
 
-                logger.debug("Adresse IP créée: {}", ipAddress.getIpAddress());
+            for (IPAddress ipAddress : withStatus) {
+                statusBitmapDAO.setStatus(ipAddress.getSubnetId(),
+                    IPCalculator.ipToLong(ipAddress.getIpAddress()), ipAddress.getStatus());
             }
-            return ipAddress;
-        }
+            usageDAO.apply(usage);
+
+            logger.debug("{} adresses IP créées par lot", inserted);
+            return inserted;
+        });
     }
 
     /**
@@ -82,7 +193,7 @@ public class IPAddressDAO {
             SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
             FROM ip_addresses ip
             LEFT JOIN subnets s ON ip.subnet_id = s.id
-            ORDER BY ip.ip_address
+            ORDER BY ip.ip_num
         """;
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -97,25 +208,57 @@ public class IPAddressDAO {
     }
 
     /**
-     * Récupère toutes les IPs d'un sous-réseau
+     * Récupère les IPs d'un sous-réseau (au plus MAX_UNPAGED_ROWS adresses)
      */
     public List<IPAddress> findBySubnetId(Long subnetId) throws SQLException {
-        List<IPAddress> ipAddresses = new ArrayList<>();
+        return findBySubnetId(subnetId, 0, MAX_UNPAGED_ROWS);
+    }
+
+    /**
+     * Récupère une page des IPs utilisables d'un sous-réseau, par ordre numérique.
+     * Les adresses disponibles non stockées (sous-réseau creux) sont synthétisées
+     * sans ID ; voir materialize. Pour un sous-réseau IPv6, seules les adresses
+     * stockées sont listées : l'espace libre n'est jamais énuméré.
+     */
+    public List<IPAddress> findBySubnetId(Long subnetId, long offset, int limit) throws SQLException {
         String sql = """
             SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
             FROM ip_addresses ip
             LEFT JOIN subnets s ON ip.subnet_id = s.id
-            WHERE ip.subnet_id = ?
-            ORDER BY ip.ip_address
+            WHERE ip.subnet_id = ? AND ip.ip_num BETWEEN ? AND ?
+            ORDER BY ip.ip_num
         """;
 
+        SubnetRange range = findSubnetRange(subnetId);
+        if (range != null && range.ipv6 != null) {
+            return findStoredIpv6BySubnetId(subnetId, offset, limit);
+        }
+        if (range == null || offset < 0 || limit <= 0 || range.first + offset > range.last) {
+            return new ArrayList<>();
+        }
+        long pageFirst = range.first + offset;
+        long pageLast = Math.min(range.last, pageFirst + limit - 1);
+
+        List<IPAddress> ipAddresses = new ArrayList<>((int) (pageLast - pageFirst + 1));
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setLong(1, subnetId);
+            pstmt.setLong(2, pageFirst);
+            pstmt.setLong(3, pageLast);
             try (ResultSet rs = pstmt.executeQuery()) {
+                long next = pageFirst;
                 while (rs.next()) {
-                    ipAddresses.add(mapResultSetToIPAddress(rs));
+                    IPAddress stored = mapResultSetToIPAddress(rs);
+                    long ipNum = rs.getLong("ip_num");
+                    while (next < ipNum) {
+                        ipAddresses.add(synthesize(next++, subnetId, range.name));
+                    }
+                    ipAddresses.add(stored);
+                    next = ipNum + 1;
+                }
+                while (next <= pageLast) {
+                    ipAddresses.add(synthesize(next++, subnetId, range.name));
                 }
             }
         }
@@ -126,17 +269,26 @@ public class IPAddressDAO {
      * Récupère une IP par son adresse
      */
     public IPAddress findByIpAddress(String ipAddress) throws SQLException {
+        boolean ipv6 = IPCalculator.isIPv6Notation(ipAddress);
         String sql = """
             SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
             FROM ip_addresses ip
             LEFT JOIN subnets s ON ip.subnet_id = s.id
-            WHERE ip.ip_address = ?
-        """;
+            WHERE %s = ?
+        """.formatted(ipv6 ? "ip.ip_bytes" : "ip.ip_num");
+
+        if (ipv6 ? !IPCalculator.isValidIPv6(ipAddress) : !IPCalculator.isValidIP(ipAddress)) {
+            return null;
+        }
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, ipAddress);
+            if (ipv6) {
+                pstmt.setBytes(1, Ipv6Address.parse(ipAddress).toBytes());
+            } else {
+                pstmt.setLong(1, IPCalculator.ipToLong(ipAddress));
+            }
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     return mapResultSetToIPAddress(rs);
@@ -146,6 +298,33 @@ public class IPAddressDAO {
         return null;
     }
 
+    /**
+     * Récupère les IPs comprises entre deux adresses (bornes incluses), par ordre numérique
+     */
+    public List<IPAddress> findByRange(String firstIp, String lastIp) throws SQLException {
+        List<IPAddress> ipAddresses = new ArrayList<>();
+        String sql = """
+            SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
+            FROM ip_addresses ip
+            LEFT JOIN subnets s ON ip.subnet_id = s.id
+            WHERE ip.ip_num BETWEEN ? AND ?
+            ORDER BY ip.ip_num
+        """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, IPCalculator.ipToLong(firstIp));
+            pstmt.setLong(2, IPCalculator.ipToLong(lastIp));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ipAddresses.add(mapResultSetToIPAddress(rs));
+                }
+            }
+        }
+        return ipAddresses;
+    }
+
     /**
      * Récupère une IP par son ID
      */
@@ -170,50 +349,339 @@ public class IPAddressDAO {
         return null;
     }
 
+    /**
+     * Attribue une adresse IPv4 si elle est encore disponible dans son
+     * sous-réseau : UPDATE conditionnel de sa ligne, ou insertion si elle
+     * n'est pas stockée (sous-réseau creux)
+     *
+     * @return l'ID de la ligne, null si l'adresse n'est plus disponible
+     */
+    public Long claimAvailable(IPAddress ipAddress) throws SQLException {
+        String updateSql = """
+            UPDATE ip_addresses SET status = ?, assigned_to = ?, mac_address = ?, 
+                                    description = ?, assigned_date = ?, mac_num = ?, lease_expires = NULL
+            WHERE ip_num = ? AND subnet_id = ? AND status = 'AVAILABLE'
+            RETURNING id
+        """;
+        String insertSql = """
+            INSERT INTO ip_addresses (status, assigned_to, mac_address, description, assigned_date,
+                                      mac_num, ip_num, subnet_id, ip_address, created_date)
+            SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
+            WHERE EXISTS (SELECT 1 FROM subnets WHERE id = ? AND ? BETWEEN network_num AND broadcast_num)
+            ON CONFLICT(ip_num) DO NOTHING
+            RETURNING id
+        """;
+
+        long ipNum = IPCalculator.ipToLong(ipAddress.getIpAddress());
+        return DatabaseManager.write(conn -> {
+            Long id = null;
+            try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
+                bindClaim(pstmt, ipAddress, ipNum);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        id = rs.getLong(1);
+                    }
+                }
+            }
+            if (id == null) {
+                // Ligne absente (sous-réseau creux), ou déjà prise : l'insertion ne fait rien ;
+                // de même si le sous-réseau a été supprimé, découpé ou fusionné entre-temps
+                try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                    bindInsertClaim(pstmt, ipAddress, ipNum);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            id = rs.getLong(1);
+                        }
+                    }
+                }
+            }
+            if (id != null) {
+                ipAddress.setId(id);
+                statusBitmapDAO.setStatus(ipAddress.getSubnetId(), ipNum, ipAddress.getStatus());
+                usageDAO.add(ipAddress.getSubnetId(), ipAddress.getStatus(), 1);
+            }
+            return id;
+        });
+    }
+
+    /**
+     * Attribue un lot d'adresses IPv4 d'un même sous-réseau en une transaction :
+     * UPDATE conditionnels par lot, insertion par lot des adresses non stockées,
+     * puis une seule lecture des IDs. Échoue si l'une des adresses n'est plus
+     * disponible (la transaction de l'appelant est alors annulée).
+     *
+     * @param ipAddresses adresses triées par ordre croissant, statut et attribution renseignés
+     */
+    public void claimAvailableBlock(List<IPAddress> ipAddresses) throws SQLException {
+        String updateSql = """
+            UPDATE ip_addresses SET status = ?, assigned_to = ?, mac_address = ?, 
+                                    description = ?, assigned_date = ?, mac_num = ?, lease_expires = NULL
+            WHERE ip_num = ? AND subnet_id = ? AND status = 'AVAILABLE'
+        """;
+        String insertSql = """
+            INSERT INTO ip_addresses (status, assigned_to, mac_address, description, assigned_date,
+                                      mac_num, ip_num, subnet_id, ip_address, created_date)
+            SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
+            WHERE EXISTS (SELECT 1 FROM subnets WHERE id = ? AND ? BETWEEN network_num AND broadcast_num)
+            ON CONFLICT(ip_num) DO NOTHING
+        """;
+        String selectSql = """
+            SELECT id, ip_num FROM ip_addresses
+            WHERE ip_num BETWEEN ? AND ? AND subnet_id = ?
+            ORDER BY ip_num
+        """;
+
+        if (ipAddresses.isEmpty()) {
+            return;
+        }
+        Long subnetId = ipAddresses.get(0).getSubnetId();
+        long[] ipNums = new long[ipAddresses.size()];
+        for (int i = 0; i < ipNums.length; i++) {
+            ipNums[i] = IPCalculator.ipToLong(ipAddresses.get(i).getIpAddress());
+        }
+
+        DatabaseManager.write(conn -> {
+            List<IPAddress> missing = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
+                for (int start = 0; start < ipNums.length; start += BATCH_SIZE) {
+                    int end = Math.min(start + BATCH_SIZE, ipNums.length);
+                    for (int i = start; i < end; i++) {
+                        bindClaim(pstmt, ipAddresses.get(i), ipNums[i]);
+                        pstmt.addBatch();
+                    }
+                    int[] counts = pstmt.executeBatch();
+                    for (int i = start; i < end; i++) {
+                        if (counts[i - start] == 0) {
+                            missing.add(ipAddresses.get(i));
+                        }
+                    }
+                }
+            }
+
+            // Lignes absentes (sous-réseau creux), ou déjà prises : l'insertion ne fait rien ;
+            // de même si le sous-réseau a été supprimé, découpé ou fusionné entre-temps
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                for (int start = 0; start < missing.size(); start += BATCH_SIZE) {
+                    int end = Math.min(start + BATCH_SIZE, missing.size());
+                    for (int i = start; i < end; i++) {
+                        IPAddress ipAddress = missing.get(i);
+                        bindInsertClaim(pstmt, ipAddress, IPCalculator.ipToLong(ipAddress.getIpAddress()));
+                        pstmt.addBatch();
+                    }
+                    int[] counts = pstmt.executeBatch();
+                    for (int i = start; i < end; i++) {
+                        if (counts[i - start] == 0) {
+                            throw new IllegalStateException(
+                                "L'adresse " + missing.get(i).getIpAddress() + " n'est plus disponible");
+                        }
+                    }
+                }
+            }
+
+            // IDs du lot, lus en une seule requête sur la plage triée
+            try (PreparedStatement pstmt = conn.prepareStatement(selectSql)) {
+                pstmt.setLong(1, ipNums[0]);
+                pstmt.setLong(2, ipNums[ipNums.length - 1]);
+                pstmt.setLong(3, subnetId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    int i = 0;
+                    while (i < ipNums.length && rs.next()) {
+                        if (rs.getLong("ip_num") == ipNums[i]) {
+                            ipAddresses.get(i++).setId(rs.getLong("id"));
+                        }
+                    }
+                }
+            }
+
+            statusBitmapDAO.setStatuses(subnetId, ipNums, ipAddresses.get(0).getStatus());
+            usageDAO.add(subnetId, ipAddresses.get(0).getStatus(), ipNums.length);
+            logger.debug("{} adresses IP attribuées par lot", ipNums.length);
+            return null;
+        });
+    }
+
+    private static void bindClaim(PreparedStatement pstmt, IPAddress ipAddress, long ipNum) throws SQLException {
+        pstmt.setString(1, ipAddress.getStatus().name());
+        pstmt.setString(2, ipAddress.getAssignedTo());
+        pstmt.setString(3, ipAddress.getMacAddress());
+        pstmt.setString(4, ipAddress.getDescription());
+        if (ipAddress.getAssignedDate() != null) {
+            pstmt.setString(5, ipAddress.getAssignedDate().toString());
+        } else {
+            pstmt.setNull(5, Types.VARCHAR);
+        }
+        setMacColumn(pstmt, 6, ipAddress);
+        pstmt.setLong(7, ipNum);
+        pstmt.setLong(8, ipAddress.getSubnetId());
+    }
+
+    private static void bindInsertClaim(PreparedStatement pstmt, IPAddress ipAddress, long ipNum) throws SQLException {
+        bindClaim(pstmt, ipAddress, ipNum);
+        pstmt.setString(9, ipAddress.getIpAddress());
+        pstmt.setString(10, ipAddress.getCreatedDate().toString());
+        pstmt.setLong(11, ipAddress.getSubnetId());
+        pstmt.setLong(12, ipNum);
+    }
+
     /**
      * Met à jour une adresse IP
      */
     public void update(IPAddress ipAddress) throws SQLException {
+        updateIfStatus(ipAddress, null);
+    }
+
+    /**
+     * Met à jour une adresse IP seulement si son statut en base est encore
+     * celui attendu (transition atomique, sans lecture préalable)
+     *
+     * @param expected statut attendu, null pour une mise à jour inconditionnelle
+     * @return false si la ligne n'existe pas ou a changé de statut entre-temps
+     */
+    public boolean updateIfStatus(IPAddress ipAddress, IPStatus expected) throws SQLException {
+        return updateIf(ipAddress, expected, false, null);
+    }
+
+    /**
+     * Met à jour une adresse IP seulement si son statut et sa date
+     * d'attribution en base sont encore ceux lus par l'appelant : une
+     * attribution faite entre-temps (libération puis réattribution) n'est
+     * pas écrasée
+     *
+     * @param assignedDate date d'attribution attendue, null pour une adresse non attribuée
+     * @return false si la ligne n'existe pas ou a changé entre-temps
+     */
+    public boolean updateIfUnchanged(IPAddress ipAddress, IPStatus expected, LocalDateTime assignedDate)
+            throws SQLException {
+        return updateIf(ipAddress, expected, true, assignedDate);
+    }
+
+    private boolean updateIf(IPAddress ipAddress, IPStatus expected, boolean checkAssignedDate,
+                             LocalDateTime assignedDate) throws SQLException {
         String sql = """
             UPDATE ip_addresses SET status = ?, assigned_to = ?, mac_address = ?, 
-                                    description = ?, assigned_date = ?
-            WHERE id = ?
+                                    description = ?, assigned_date = ?, mac_num = ?, lease_expires = ?
+            WHERE id = ? AND (? IS NULL OR status = ?) AND (? = 0 OR assigned_date IS ?)
         """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseManager.write(conn -> {
+            // Statut remplacé, pour les compteurs : lu seulement si la mise à jour est inconditionnelle
+            IPStatus previous = expected;
+            if (previous == null) {
+                try (PreparedStatement select = conn.prepareStatement("SELECT status FROM ip_addresses WHERE id = ?")) {
+                    select.setLong(1, ipAddress.getId());
+                    try (ResultSet rs = select.executeQuery()) {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        previous = IPStatus.valueOf(rs.getString("status"));
+                    }
+                }
+            }
 
-            pstmt.setString(1, ipAddress.getStatus().name());
-            pstmt.setString(2, ipAddress.getAssignedTo());
-            pstmt.setString(3, ipAddress.getMacAddress());
-            pstmt.setString(4, ipAddress.getDescription());
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, ipAddress.getStatus().name());
+                pstmt.setString(2, ipAddress.getAssignedTo());
+                pstmt.setString(3, ipAddress.getMacAddress());
+                pstmt.setString(4, ipAddress.getDescription());
             
-            if (ipAddress.getAssignedDate() != null) {
-                pstmt.setString(5, ipAddress.getAssignedDate().toString());
-            } else {
-                pstmt.setNull(5, Types.VARCHAR);
-            }
+                if (ipAddress.getAssignedDate() != null) {
+                    pstmt.setString(5, ipAddress.getAssignedDate().toString());
+                } else {
+                    pstmt.setNull(5, Types.VARCHAR);
+                }
             
-            pstmt.setLong(6, ipAddress.getId());
+                setMacColumn(pstmt, 6, ipAddress);
 
-            pstmt.executeUpdate();
-            logger.debug("Adresse IP mise à jour: {}", ipAddress.getIpAddress());
-        }
+                if (ipAddress.getLeaseExpires() != null) {
+                    pstmt.setString(7, ipAddress.getLeaseExpires().toString());
+                } else {
+                    pstmt.setNull(7, Types.VARCHAR);
+                }
+
+                pstmt.setLong(8, ipAddress.getId());
+                String expectedName = expected != null ? expected.name() : null;
+                pstmt.setString(9, expectedName);
+                pstmt.setString(10, expectedName);
+                pstmt.setInt(11, checkAssignedDate ? 1 : 0);
+                pstmt.setString(12, assignedDate != null ? assignedDate.toString() : null);
+
+                if (pstmt.executeUpdate() == 0) {
+                    return false;
+                }
+                if (!isIpv6(ipAddress)) {
+                    statusBitmapDAO.setStatus(ipAddress.getSubnetId(),
+                        IPCalculator.ipToLong(ipAddress.getIpAddress()), ipAddress.getStatus());
+                }
+                usageDAO.transition(ipAddress.getSubnetId(), previous, ipAddress.getStatus());
+                logger.debug("Adresse IP mise à jour: {}", ipAddress.getIpAddress());
+                return true;
+            }
+        });
     }
 
     /**
      * Supprime une adresse IP
      */
     public void delete(Long id) throws SQLException {
+        deleteIfStatus(id, null);
+    }
+
+    /**
+     * Supprime une adresse IP seulement si son statut en base est encore celui attendu
+     *
+     * @param expected statut attendu, null pour une suppression inconditionnelle
+     * @return false si la ligne n'existe pas ou a changé de statut entre-temps
+     */
+    public boolean deleteIfStatus(Long id, IPStatus expected) throws SQLException {
+        return deleteIf(id, expected, false, null);
+    }
+
+    /**
+     * Supprime une adresse IP seulement si son statut et sa date d'attribution
+     * en base sont encore ceux lus par l'appelant
+     *
+     * @param assignedDate date d'attribution attendue, null pour une adresse non attribuée
+     * @return false si la ligne n'existe pas ou a changé entre-temps
+     */
+    public boolean deleteIfUnchanged(Long id, IPStatus expected, LocalDateTime assignedDate) throws SQLException {
+        return deleteIf(id, expected, true, assignedDate);
+    }
+
+    private boolean deleteIf(Long id, IPStatus expected, boolean checkAssignedDate, LocalDateTime assignedDate)
+            throws SQLException {
         String sql = "DELETE FROM ip_addresses WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseManager.write(conn -> {
+            // L'adresse supprimée redevient disponible dans le bitmap et n'est plus comptée
+            try (PreparedStatement select = conn.prepareStatement(
+                    "SELECT subnet_id, ip_num, status, assigned_date FROM ip_addresses WHERE id = ?")) {
+                select.setLong(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next() || (expected != null && !expected.name().equals(rs.getString("status")))) {
+                        return false;
+                    }
+                    if (checkAssignedDate && !Objects.equals(rs.getString("assigned_date"),
+                            assignedDate != null ? assignedDate.toString() : null)) {
+                        return false;
+                    }
+                    long subnetId = rs.getLong("subnet_id");
+                    long ipNum = rs.getLong("ip_num");
+                    if (!rs.wasNull()) {
+                        statusBitmapDAO.setStatus(subnetId, ipNum, IPStatus.AVAILABLE);
+                    }
+                    usageDAO.add(subnetId, IPStatus.valueOf(rs.getString("status")), -1);
+                }
+            }
 
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
-            logger.debug("Adresse IP supprimée: ID {}", id);
-        }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setLong(1, id);
+                pstmt.executeUpdate();
+                logger.debug("Adresse IP supprimée: ID {}", id);
+            }
+            return true;
+        });
     }
 
     /**
@@ -222,13 +690,148 @@ public class IPAddressDAO {
     public void deleteBySubnetId(Long subnetId) throws SQLException {
         String sql = "DELETE FROM ip_addresses WHERE subnet_id = ?";
 
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setLong(1, subnetId);
+                int deleted = pstmt.executeUpdate();
+                logger.info("Supprimées {} adresses IP du sous-réseau ID {}", deleted, subnetId);
+            }
+            statusBitmapDAO.deleteBySubnetId(subnetId);
+            usageDAO.deleteBySubnetId(subnetId);
+            return null;
+        });
+    }
+
+    /**
+     * Rattache à chaque sous-réseau cible les adresses de sa plage qui
+     * appartiennent encore à fromSubnetId (découpage), et les recompte. Les
+     * bitmaps sont à reconstruire par l'appelant.
+     */
+    public int moveToRanges(Long fromSubnetId, List<Subnet> targets) throws SQLException {
+        String sql = "UPDATE ip_addresses SET subnet_id = ? WHERE subnet_id = ? AND ip_num BETWEEN ? AND ?";
+
+        return DatabaseManager.write(conn -> {
+            int moved = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Subnet target : targets) {
+                    Ipv4Prefix prefix = target.getPrefix();
+                    pstmt.setLong(1, target.getId());
+                    pstmt.setLong(2, fromSubnetId);
+                    pstmt.setLong(3, prefix.first());
+                    pstmt.setLong(4, prefix.last());
+                    moved += pstmt.executeUpdate();
+                }
+            }
+            List<Long> recounted = new ArrayList<>();
+            recounted.add(fromSubnetId);
+            for (Subnet target : targets) {
+                recounted.add(target.getId());
+            }
+            usageDAO.recount(recounted);
+            logger.debug("{} adresses IP rattachées à {} sous-réseau(x)", moved, targets.size());
+            return moved;
+        });
+    }
+
+    /**
+     * Rattache toutes les adresses de plusieurs sous-réseaux à un seul (fusion),
+     * et les recompte. Les bitmaps sont à reconstruire par l'appelant.
+     */
+    public int moveAll(List<Long> fromSubnetIds, Long toSubnetId) throws SQLException {
+        String sql = "UPDATE ip_addresses SET subnet_id = ? WHERE subnet_id = ?";
+
+        return DatabaseManager.write(conn -> {
+            int moved = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Long fromSubnetId : fromSubnetIds) {
+                    pstmt.setLong(1, toSubnetId);
+                    pstmt.setLong(2, fromSubnetId);
+                    moved += pstmt.executeUpdate();
+                }
+            }
+            List<Long> recounted = new ArrayList<>(fromSubnetIds);
+            recounted.add(toSubnetId);
+            usageDAO.recount(recounted);
+            logger.debug("{} adresses IP rattachées au sous-réseau ID {}", moved, toSubnetId);
+            return moved;
+        });
+    }
+
+    /**
+     * Statut des adresses IPv4 stockées parmi celles demandées (absentes de la map si non stockées)
+     */
+    public Map<Long, IPStatus> findStatusByIpNums(long[] ipNums) throws SQLException {
+        Map<Long, IPStatus> statuses = new HashMap<>();
+        String sql = "SELECT status FROM ip_addresses WHERE ip_num = ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (long ipNum : ipNums) {
+                pstmt.setLong(1, ipNum);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        statuses.put(ipNum, IPStatus.valueOf(rs.getString("status")));
+                    }
+                }
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Supprime des adresses disponibles par valeur numérique ; échoue si
+     * l'une d'elles n'est plus disponible (attribuée entre-temps)
+     */
+    public void deleteAvailable(List<Long> ipNums) throws SQLException {
+        String sql = "DELETE FROM ip_addresses WHERE ip_num = ? AND status = 'AVAILABLE'";
+
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (long ipNum : ipNums) {
+                    pstmt.setLong(1, ipNum);
+                    if (pstmt.executeUpdate() == 0) {
+                        throw new IllegalStateException(
+                            "L'adresse " + IPCalculator.longToIp(ipNum) + " n'est plus disponible");
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Supprime les adresses disponibles stockées d'un sous-réseau (passage en mode creux)
+     */
+    public int deleteAvailableBySubnetId(Long subnetId) throws SQLException {
+        String sql = "DELETE FROM ip_addresses WHERE subnet_id = ? AND status = 'AVAILABLE'";
+
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, subnetId);
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Compte les lignes stockées d'un sous-réseau
+     */
+    public int countBySubnetId(Long subnetId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM ip_addresses WHERE subnet_id = ?";
+
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setLong(1, subnetId);
-            int deleted = pstmt.executeUpdate();
-            logger.info("Supprimées {} adresses IP du sous-réseau ID {}", deleted, subnetId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
         }
+        return 0;
     }
 
     /**
@@ -253,6 +856,24 @@ public class IPAddressDAO {
         return 0;
     }
 
+    /**
+     * Compte les adresses IPv6 stockées par statut
+     */
+    public Map<IPStatus, Long> countIpv6ByStatus() throws SQLException {
+        Map<IPStatus, Long> counts = new EnumMap<>(IPStatus.class);
+        String sql = "SELECT status, COUNT(*) FROM ip_addresses WHERE ip_bytes IS NOT NULL GROUP BY status";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                counts.put(IPStatus.valueOf(rs.getString(1)), rs.getLong(2));
+            }
+        }
+        return counts;
+    }
+
     /**
      * Recherche des IPs par critères
      */
@@ -266,7 +887,8 @@ public class IPAddressDAO {
                OR ip.assigned_to LIKE ? 
                OR ip.mac_address LIKE ?
                OR ip.description LIKE ?
-            ORDER BY ip.ip_address
+               OR ip.mac_num = ?
+            ORDER BY ip.ip_num
         """;
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -277,6 +899,8 @@ public class IPAddressDAO {
             pstmt.setString(2, pattern);
             pstmt.setString(3, pattern);
             pstmt.setString(4, pattern);
+            // Une MAC dans n'importe quelle notation est cherchée sur l'index
+            pstmt.setLong(5, IPCalculator.parseMAC(searchTerm.trim()));
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -288,22 +912,333 @@ public class IPAddressDAO {
     }
 
     /**
-     * Récupère les IPs disponibles d'un sous-réseau
+     * Récupère les IPs disponibles d'un sous-réseau (au plus MAX_UNPAGED_ROWS)
      */
     public List<IPAddress> findAvailableBySubnet(Long subnetId) throws SQLException {
+        return findAvailableBySubnet(subnetId, 0, MAX_UNPAGED_ROWS);
+    }
+
+    /**
+     * Récupère une page des IPs disponibles d'un sous-réseau, par ordre numérique.
+     * Les positions libres sont lues dans le bitmap de statut ; seules les lignes
+     * existantes de la page sont chargées, les autres sont synthétisées.
+     */
+    public List<IPAddress> findAvailableBySubnet(Long subnetId, long offset, int limit) throws SQLException {
+        String sql = """
+            SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
+            FROM ip_addresses ip
+            LEFT JOIN subnets s ON ip.subnet_id = s.id
+            WHERE ip.subnet_id = ? AND ip.ip_num BETWEEN ? AND ? AND ip.status = 'AVAILABLE'
+        """;
+
+        SubnetRange range = findSubnetRange(subnetId);
+        if (range == null || offset < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (range.ipv6 != null) {
+            return findAvailableIpv6(subnetId, range, offset, limit);
+        }
+        long[] free = statusBitmapDAO.findAvailable(subnetId, range.first, range.last, offset, limit);
+        if (free.length == 0) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, IPAddress> stored = new HashMap<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, subnetId);
+            pstmt.setLong(2, free[0]);
+            pstmt.setLong(3, free[free.length - 1]);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    stored.put(rs.getLong("ip_num"), mapResultSetToIPAddress(rs));
+                }
+            }
+        }
+
+        List<IPAddress> ipAddresses = new ArrayList<>(free.length);
+        for (long ipNum : free) {
+            IPAddress ipAddress = stored.get(ipNum);
+            ipAddresses.add(ipAddress != null ? ipAddress : synthesize(ipNum, subnetId, range.name));
+        }
+        return ipAddresses;
+    }
+
+    /**
+     * Récupère les adresses qui portent une MAC (recherche sur l'index mac_num)
+     */
+    public List<IPAddress> findByMacNum(long macNum) throws SQLException {
+        List<IPAddress> ipAddresses = new ArrayList<>();
+        String sql = """
+            SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
+            FROM ip_addresses ip
+            LEFT JOIN subnets s ON ip.subnet_id = s.id
+            WHERE ip.mac_num = ?
+            ORDER BY ip.ip_num
+        """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, macNum);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ipAddresses.add(mapResultSetToIPAddress(rs));
+                }
+            }
+        }
+        return ipAddresses;
+    }
+
+    /**
+     * Toutes les MAC stockées, associées à l'ID de l'adresse qui les porte
+     */
+    public LongLongHashMap findAllMacOwners() throws SQLException {
+        String sql = "SELECT id, mac_num FROM ip_addresses WHERE mac_num IS NOT NULL";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            LongLongHashMap owners = new LongLongHashMap();
+            while (rs.next()) {
+                owners.put(rs.getLong("mac_num"), rs.getLong("id"));
+            }
+            return owners;
+        }
+    }
+
+    /**
+     * Parmi les MAC demandées, celles déjà portées par une adresse, associées à son ID
+     * (une requête par paquet de MAX_IN_PARAMS valeurs)
+     */
+    public LongLongHashMap findMacOwners(long[] macNums) throws SQLException {
+        LongLongHashMap owners = new LongLongHashMap(macNums.length);
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            for (int from = 0; from < macNums.length; from += MAX_IN_PARAMS) {
+                int count = Math.min(MAX_IN_PARAMS, macNums.length - from);
+                String sql = "SELECT id, mac_num FROM ip_addresses WHERE mac_num IN ("
+                    + "?,".repeat(count - 1) + "?)";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < count; i++) {
+                        pstmt.setLong(i + 1, macNums[from + i]);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            owners.put(rs.getLong("mac_num"), rs.getLong("id"));
+                        }
+                    }
+                }
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Fin de bail de toutes les attributions à durée limitée, en millisecondes
+     * depuis l'époque (heure locale), indexée par ID
+     */
+    public LongLongHashMap findLeaseExpirations() throws SQLException {
+        String sql = "SELECT id, lease_expires FROM ip_addresses WHERE lease_expires IS NOT NULL";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            LongLongHashMap leases = new LongLongHashMap();
+            ZoneId zone = ZoneId.systemDefault();
+            while (rs.next()) {
+                leases.put(rs.getLong("id"),
+                    LocalDateTime.parse(rs.getString("lease_expires")).atZone(zone).toInstant().toEpochMilli());
+            }
+            return leases;
+        }
+    }
+
+    /**
+     * Reporte la fin du bail d'une adresse attribuée avec un bail en cours
+     *
+     * @return false si l'adresse n'est plus attribuée ou n'a pas de bail
+     */
+    public boolean renewLease(Long id, LocalDateTime leaseExpires) throws SQLException {
+        String sql = """
+            UPDATE ip_addresses SET lease_expires = ?
+            WHERE id = ? AND status = 'ASSIGNED' AND lease_expires IS NOT NULL
+        """;
+
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, leaseExpires.toString());
+                pstmt.setLong(2, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Libère en une transaction les adresses dont le bail a expiré parmi celles
+     * demandées : les lignes des sous-réseaux creux sont supprimées, les autres
+     * redeviennent disponibles, et chaque bloc de statut touché est réécrit une
+     * fois. Une adresse libérée ou dont le bail a été renouvelé entre-temps
+     * n'est pas touchée.
+     *
+     * @param cutoff fin de bail maximale, null pour expirer les baux sans attendre
+     * @return les adresses libérées, avec leur attribution d'avant l'expiration
+     */
+    public List<IPAddress> expireLeases(long[] ids, LocalDateTime cutoff) throws SQLException {
+        String cutoffText = cutoff != null ? cutoff.toString() : null;
+        return releaseMatching(ids,
+            "ip.status = 'ASSIGNED' AND ip.lease_expires IS NOT NULL AND (? IS NULL OR ip.lease_expires <= ?)",
+            cutoffText, cutoffText);
+    }
+
+    /**
+     * Libère en une transaction celles des adresses demandées qui sont encore
+     * réservées (expiration ou retrait de leurs réservations), comme expireLeases
+     *
+     * @return les adresses libérées, avec leur statut et leur description d'avant
+     */
+    public List<IPAddress> releaseReserved(long[] ids) throws SQLException {
+        return releaseMatching(ids, "ip.status = 'RESERVED'");
+    }
+
+    /**
+     * Rend disponibles celles des adresses demandées qui vérifient filter
+     * (suppression en mode creux, mise à jour sinon) et réécrit une fois
+     * chaque bloc de statut touché
+     */
+    private List<IPAddress> releaseMatching(long[] ids, String filter, String... filterParams) throws SQLException {
+        return DatabaseManager.write(conn -> {
+            List<IPAddress> released = new ArrayList<>();
+            List<Long> sparseIds = new ArrayList<>();
+            List<Long> denseIds = new ArrayList<>();
+            Map<Long, List<Long>> ipNumsBySubnet = new HashMap<>();
+            SubnetUsageDAO.Delta usage = new SubnetUsageDAO.Delta();
+
+            for (int from = 0; from < ids.length; from += MAX_IN_PARAMS) {
+                int count = Math.min(MAX_IN_PARAMS, ids.length - from);
+                String sql = """
+                    SELECT ip.id, ip.ip_address, ip.subnet_id, ip.ip_num, ip.mac_num, ip.status, ip.assigned_to,
+                           ip.description, ip.lease_expires, s.storage_mode
+                    FROM ip_addresses ip JOIN subnets s ON s.id = ip.subnet_id
+                    WHERE\s""" + filter + " AND ip.id IN ("
+                    + "?,".repeat(count - 1) + "?) ORDER BY ip.subnet_id, ip.ip_num";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (String param : filterParams) {
+                        pstmt.setString(index++, param);
+                    }
+                    for (int i = 0; i < count; i++) {
+                        pstmt.setLong(index++, ids[from + i]);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            IPAddress ipAddress = new IPAddress(rs.getString("ip_address"), rs.getLong("subnet_id"));
+                            ipAddress.setId(rs.getLong("id"));
+                            ipAddress.setStatus(IPStatus.valueOf(rs.getString("status")));
+                            ipAddress.setAssignedTo(rs.getString("assigned_to"));
+                            ipAddress.setDescription(rs.getString("description"));
+                            long macNum = rs.getLong("mac_num");
+                            if (!rs.wasNull()) {
+                                ipAddress.setMacNum(macNum);
+                            }
+                            String leaseExpires = rs.getString("lease_expires");
+                            if (leaseExpires != null) {
+                                ipAddress.setLeaseExpires(LocalDateTime.parse(leaseExpires));
+                            }
+                            released.add(ipAddress);
+                            usage.add(ipAddress.getSubnetId(), ipAddress.getStatus(), -1);
+
+                            if (StorageMode.SPARSE.name().equals(rs.getString("storage_mode"))) {
+                                sparseIds.add(ipAddress.getId());
+                            } else {
+                                denseIds.add(ipAddress.getId());
+                            }
+                            long ipNum = rs.getLong("ip_num");
+                            if (!rs.wasNull()) {
+                                ipNumsBySubnet.computeIfAbsent(ipAddress.getSubnetId(), k -> new ArrayList<>()).add(ipNum);
+                            }
+                        }
+                    }
+                }
+            }
+
+            executeForIds(conn, "DELETE FROM ip_addresses WHERE id IN (", sparseIds);
+            executeForIds(conn, """
+                UPDATE ip_addresses SET status = 'AVAILABLE', assigned_to = NULL, mac_address = NULL,
+                                        description = NULL, assigned_date = NULL, mac_num = NULL,
+                                        lease_expires = NULL
+                WHERE id IN (""", denseIds);
+
+            for (Map.Entry<Long, List<Long>> entry : ipNumsBySubnet.entrySet()) {
+                long[] ipNums = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+                statusBitmapDAO.setStatuses(entry.getKey(), ipNums, IPStatus.AVAILABLE);
+            }
+            usageDAO.apply(usage);
+
+            logger.debug("{} adresse(s) rendue(s) disponible(s)", released.size());
+            return released;
+        });
+    }
+
+    /**
+     * Exécute une requête terminée par une liste d'IDs (une par paquet de MAX_IN_PARAMS)
+     */
+    private static void executeForIds(Connection conn, String sqlPrefix, List<Long> ids) throws SQLException {
+        for (int from = 0; from < ids.size(); from += MAX_IN_PARAMS) {
+            int count = Math.min(MAX_IN_PARAMS, ids.size() - from);
+            try (PreparedStatement pstmt = conn.prepareStatement(sqlPrefix + "?,".repeat(count - 1) + "?)")) {
+                for (int i = 0; i < count; i++) {
+                    pstmt.setLong(i + 1, ids.get(from + i));
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Crée la ligne d'une adresse synthétisée (sans ID) et renvoie son ID ;
+     * renvoie l'ID existant si la ligne a été créée entre-temps
+     */
+    public Long materialize(IPAddress ipAddress) throws SQLException {
+        if (ipAddress.getId() != null) {
+            return ipAddress.getId();
+        }
+        return DatabaseManager.write(conn -> {
+            IPAddress existing = findByIpAddress(ipAddress.getIpAddress());
+            if (existing != null) {
+                ipAddress.setId(existing.getId());
+                return existing.getId();
+            }
+            return create(ipAddress).getId();
+        });
+    }
+
+    /**
+     * Page des adresses IPv6 stockées d'un sous-réseau, par ordre numérique
+     */
+    private List<IPAddress> findStoredIpv6BySubnetId(Long subnetId, long offset, int limit) throws SQLException {
         List<IPAddress> ipAddresses = new ArrayList<>();
         String sql = """
             SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
             FROM ip_addresses ip
             LEFT JOIN subnets s ON ip.subnet_id = s.id
-            WHERE ip.subnet_id = ? AND ip.status = 'AVAILABLE'
-            ORDER BY ip.ip_address
+            WHERE ip.subnet_id = ? AND ip.ip_bytes IS NOT NULL
+            ORDER BY ip.ip_bytes
+            LIMIT ? OFFSET ?
         """;
 
+        if (offset < 0 || limit <= 0) {
+            return ipAddresses;
+        }
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setLong(1, subnetId);
+            pstmt.setInt(2, limit);
+            pstmt.setLong(3, offset);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     ipAddresses.add(mapResultSetToIPAddress(rs));
@@ -313,6 +1248,162 @@ public class IPAddressDAO {
         return ipAddresses;
     }
 
+    /**
+     * Page des adresses IPv6 libres : les trous entre adresses stockées sont
+     * parcourus par arithmétique sur 128 bits, sans jamais énumérer le préfixe
+     */
+    private List<IPAddress> findAvailableIpv6(Long subnetId, SubnetRange range, long offset, int limit)
+            throws SQLException {
+        String sql = """
+            SELECT ip_bytes FROM ip_addresses
+            WHERE subnet_id = ? AND ip_bytes BETWEEN ? AND ?
+            ORDER BY ip_bytes
+        """;
+
+        Ipv6Address last = range.ipv6.lastUsable();
+        List<IPAddress> ipAddresses = new ArrayList<>(limit);
+        long[] remaining = {offset};
+        Ipv6Address cursor = range.ipv6.firstUsable();
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, subnetId);
+            pstmt.setBytes(2, cursor.toBytes());
+            pstmt.setBytes(3, last.toBytes());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (cursor != null && ipAddresses.size() < limit && rs.next()) {
+                    Ipv6Address stored = Ipv6Address.fromBytes(rs.getBytes("ip_bytes"));
+                    if (stored.compareTo(cursor) > 0) {
+                        addFreeIpv6(ipAddresses, cursor, stored, false, remaining, limit, subnetId, range.name);
+                    }
+                    cursor = stored.equals(last) ? null : stored.plus(1);
+                }
+            }
+        }
+        if (cursor != null && ipAddresses.size() < limit) {
+            addFreeIpv6(ipAddresses, cursor, last, true, remaining, limit, subnetId, range.name);
+        }
+        return ipAddresses;
+    }
+
+    /**
+     * Ajoute les adresses libres de [from, to[ (ou [from, to] si inclusive),
+     * après en avoir sauté remaining[0]
+     */
+    private void addFreeIpv6(List<IPAddress> ipAddresses, Ipv6Address from, Ipv6Address to, boolean inclusive,
+                             long[] remaining, int limit, Long subnetId, String subnetName) {
+        long gapSize = from.distanceTo(to);
+        if (inclusive && gapSize != Long.MAX_VALUE) {
+            gapSize++;
+        }
+        if (remaining[0] >= gapSize) {
+            remaining[0] -= gapSize;
+            return;
+        }
+        Ipv6Address address = from.plus(remaining[0]);
+        remaining[0] = 0;
+        while (ipAddresses.size() < limit) {
+            int cmp = address.compareTo(to);
+            if (cmp > 0 || (cmp == 0 && !inclusive)) {
+                break;
+            }
+            IPAddress ipAddress = new IPAddress(address.toString(), subnetId);
+            ipAddress.setSubnetName(subnetName);
+            ipAddresses.add(ipAddress);
+            if (cmp == 0) {
+                break;
+            }
+            address = address.plus(1);
+        }
+    }
+
+    /**
+     * Adresse disponible non stockée, construite à la volée
+     */
+    private IPAddress synthesize(long ipNum, Long subnetId, String subnetName) {
+        IPAddress ipAddress = new IPAddress(IPCalculator.longToIp(ipNum), subnetId);
+        ipAddress.setSubnetName(subnetName);
+        return ipAddress;
+    }
+
+    /**
+     * Renseigne ip_num (IPv4) ou ip_bytes (IPv6) à partir de l'index donné
+     */
+    private void setAddressColumns(PreparedStatement pstmt, int index, IPAddress ipAddress) throws SQLException {
+        if (isIpv6(ipAddress)) {
+            pstmt.setNull(index, Types.INTEGER);
+            pstmt.setBytes(index + 1, Ipv6Address.parse(ipAddress.getIpAddress()).toBytes());
+        } else {
+            pstmt.setLong(index, IPCalculator.ipToLong(ipAddress.getIpAddress()));
+            pstmt.setNull(index + 1, Types.BLOB);
+        }
+    }
+
+    /**
+     * Renseigne mac_num (NULL si l'adresse n'a pas de MAC valide)
+     */
+    private static void setMacColumn(PreparedStatement pstmt, int index, IPAddress ipAddress) throws SQLException {
+        if (ipAddress.getMacNum() != IPAddress.NO_MAC) {
+            pstmt.setLong(index, ipAddress.getMacNum());
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static boolean isIpv6(IPAddress ipAddress) {
+        return IPCalculator.isIPv6Notation(ipAddress.getIpAddress());
+    }
+
+    /**
+     * Bornes numériques des adresses utilisables d'un sous-réseau
+     */
+    private SubnetRange findSubnetRange(Long subnetId) throws SQLException {
+        String sql = "SELECT network_address, cidr FROM subnets WHERE id = ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, subnetId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String network = rs.getString("network_address");
+                    if (IPCalculator.isIPv6Notation(network)) {
+                        Ipv6Prefix prefix = Ipv6Prefix.of(network, rs.getInt("cidr"));
+                        return new SubnetRange(prefix, prefix.toString());
+                    }
+                    Ipv4Prefix prefix = Ipv4Prefix.of(network, rs.getInt("cidr"));
+                    return new SubnetRange(prefix.firstUsable(), prefix.lastUsable(), prefix.toString());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Plage utilisable d'un sous-réseau (ipv6 renseigné pour un sous-réseau IPv6)
+     */
+    private static class SubnetRange {
+        private final long first;
+        private final long last;
+        private final Ipv6Prefix ipv6;
+        private final String name;
+
+        private SubnetRange(long first, long last, String name) {
+            this.first = first;
+            this.last = last;
+            this.ipv6 = null;
+            this.name = name;
+        }
+
+        private SubnetRange(Ipv6Prefix ipv6, String name) {
+            this.first = -1;
+            this.last = -1;
+            this.ipv6 = ipv6;
+            this.name = name;
+        }
+    }
+
     /**
      * Mappe un ResultSet vers un objet IPAddress
      */
@@ -323,13 +1414,23 @@ public class IPAddressDAO {
         ipAddress.setSubnetId(rs.getLong("subnet_id"));
         ipAddress.setStatus(IPStatus.valueOf(rs.getString("status")));
         ipAddress.setAssignedTo(rs.getString("assigned_to"));
-        ipAddress.setMacAddress(rs.getString("mac_address"));
+        long macNum = rs.getLong("mac_num");
+        if (!rs.wasNull()) {
+            ipAddress.setMacNum(macNum); // Texte formaté à la demande
+        } else {
+            ipAddress.setMacAddress(rs.getString("mac_address"));
+        }
         ipAddress.setDescription(rs.getString("description"));
         
         String assignedDate = rs.getString("assigned_date");
         if (assignedDate != null) {
             ipAddress.setAssignedDate(LocalDateTime.parse(assignedDate));
         }
+
+        String leaseExpires = rs.getString("lease_expires");
+        if (leaseExpires != null) {
+            ipAddress.setLeaseExpires(LocalDateTime.parse(leaseExpires));
+        }
         
         ipAddress.setCreatedDate(LocalDateTime.parse(rs.getString("created_date")));
         
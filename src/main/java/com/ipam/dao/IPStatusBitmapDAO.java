@@ -0,0 +1,370 @@
+package com.ipam.dao;
+
+import com.ipam.model.IPStatus;
+import com.ipam.util.DatabaseManager;
+import com.ipam.util.FreeBitmap;
+import com.ipam.util.StatusBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DAO des bitmaps de statut : 2 bits par adresse, par blocs de
+ * StatusBitmap.CHUNK_SIZE adresses. Seuls les blocs contenant au moins une
+ * adresse non disponible sont stockés.
+ */
+public class IPStatusBitmapDAO {
+    private static final Logger logger = LoggerFactory.getLogger(IPStatusBitmapDAO.class);
+
+    /**
+     * Enregistre le statut d'une adresse dans le bitmap de son sous-réseau
+     */
+    public void setStatus(Long subnetId, long ipNum, IPStatus status) throws SQLException {
+        long chunkIndex = StatusBitmap.chunkIndex(ipNum);
+
+        DatabaseManager.write(conn -> {
+            StatusBitmap bitmap = loadChunk(conn, subnetId, chunkIndex);
+            if (bitmap == null) {
+                if (status == IPStatus.AVAILABLE) {
+                    return null; // bloc absent = déjà disponible
+                }
+                bitmap = new StatusBitmap();
+            }
+            bitmap.set(StatusBitmap.offset(ipNum), status);
+            saveChunk(conn, subnetId, chunkIndex, bitmap);
+            return null;
+        });
+    }
+
+    /**
+     * Enregistre le même statut pour plusieurs adresses d'un sous-réseau :
+     * chaque bloc concerné est lu et réécrit une seule fois
+     *
+     * @param ipNums adresses triées par ordre croissant
+     */
+    public void setStatuses(Long subnetId, long[] ipNums, IPStatus status) throws SQLException {
+        DatabaseManager.write(conn -> {
+            int i = 0;
+            while (i < ipNums.length) {
+                long chunkIndex = StatusBitmap.chunkIndex(ipNums[i]);
+                StatusBitmap bitmap = loadChunk(conn, subnetId, chunkIndex);
+                if (bitmap == null && status == IPStatus.AVAILABLE) {
+                    // bloc absent = déjà disponible
+                    while (i < ipNums.length && StatusBitmap.chunkIndex(ipNums[i]) == chunkIndex) {
+                        i++;
+                    }
+                    continue;
+                }
+                if (bitmap == null) {
+                    bitmap = new StatusBitmap();
+                }
+                while (i < ipNums.length && StatusBitmap.chunkIndex(ipNums[i]) == chunkIndex) {
+                    bitmap.set(StatusBitmap.offset(ipNums[i]), status);
+                    i++;
+                }
+                saveChunk(conn, subnetId, chunkIndex, bitmap);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Supprime les bitmaps d'un sous-réseau
+     */
+    public void deleteBySubnetId(Long subnetId) throws SQLException {
+        String sql = "DELETE FROM ip_status_bitmaps WHERE subnet_id = ?";
+
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setLong(1, subnetId);
+                int deleted = pstmt.executeUpdate();
+                logger.debug("Supprimés {} blocs de statut du sous-réseau ID {}", deleted, subnetId);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reconstruit depuis ip_addresses les bitmaps de la plage [firstNum, lastNum]
+     * après un changement de rattachement (découpage, fusion) : les bitmaps des
+     * sous-réseaux disparus sont supprimés, ceux des sous-réseaux de la plage
+     * recalculés. Les adresses d'autres sous-réseaux ne sont pas touchées.
+     */
+    public void rebuildRange(List<Long> staleSubnetIds, Collection<Long> subnetIds, long firstNum, long lastNum)
+            throws SQLException {
+        Set<Long> owners = new HashSet<>(subnetIds);
+        String select = """
+            SELECT subnet_id, ip_num, status FROM ip_addresses
+            WHERE ip_num BETWEEN ? AND ? AND status <> 'AVAILABLE'
+            ORDER BY ip_num
+        """;
+
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement delete = conn.prepareStatement(
+                    "DELETE FROM ip_status_bitmaps WHERE subnet_id = ?")) {
+                for (Long subnetId : owners) {
+                    delete.setLong(1, subnetId);
+                    delete.addBatch();
+                }
+                for (Long subnetId : staleSubnetIds) {
+                    delete.setLong(1, subnetId);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+
+            int chunks = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(select);
+                 PreparedStatement insert = conn.prepareStatement(
+                     "INSERT OR REPLACE INTO ip_status_bitmaps (subnet_id, chunk_index, bits) VALUES (?, ?, ?)")) {
+                pstmt.setLong(1, firstNum);
+                pstmt.setLong(2, lastNum);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    long subnetId = -1;
+                    long chunkIndex = -1;
+                    StatusBitmap bitmap = null;
+                    while (rs.next()) {
+                        long rowSubnet = rs.getLong("subnet_id");
+                        if (!owners.contains(rowSubnet)) {
+                            continue;
+                        }
+                        long ipNum = rs.getLong("ip_num");
+                        if (bitmap == null || rowSubnet != subnetId || StatusBitmap.chunkIndex(ipNum) != chunkIndex) {
+                            if (bitmap != null) {
+                                addChunk(insert, subnetId, chunkIndex, bitmap);
+                                chunks++;
+                            }
+                            subnetId = rowSubnet;
+                            chunkIndex = StatusBitmap.chunkIndex(ipNum);
+                            bitmap = new StatusBitmap();
+                        }
+                        bitmap.set(StatusBitmap.offset(ipNum), IPStatus.valueOf(rs.getString("status")));
+                    }
+                    if (bitmap != null) {
+                        addChunk(insert, subnetId, chunkIndex, bitmap);
+                        chunks++;
+                    }
+                }
+                insert.executeBatch();
+            }
+            logger.debug("Reconstruits {} blocs de statut sur la plage {} - {}", chunks, firstNum, lastNum);
+            return null;
+        });
+    }
+
+    /**
+     * Compte les adresses par statut d'un sous-réseau ; les disponibles sont
+     * déduites du nombre d'hôtes utilisables
+     */
+    public Map<IPStatus, Long> countByStatus(Long subnetId, long usableHosts) throws SQLException {
+        String sql = "SELECT bits FROM ip_status_bitmaps WHERE subnet_id = ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, subnetId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return countChunks(rs, usableHosts);
+            }
+        }
+    }
+
+    /**
+     * Compte les adresses par statut sur l'ensemble des sous-réseaux
+     */
+    public Map<IPStatus, Long> countAllByStatus(long usableHosts) throws SQLException {
+        String sql = "SELECT bits FROM ip_status_bitmaps";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return countChunks(rs, usableHosts);
+        }
+    }
+
+    /**
+     * Première adresse disponible de [firstNum, lastNum], -1 si la plage est pleine
+     */
+    public long findFirstAvailable(Long subnetId, long firstNum, long lastNum) throws SQLException {
+        long[] found = findAvailable(subnetId, firstNum, lastNum, 0, 1);
+        return found.length > 0 ? found[0] : -1;
+    }
+
+    /**
+     * Adresses disponibles de [firstNum, lastNum] par ordre numérique, après en
+     * avoir sauté skip. Les blocs absents (entièrement disponibles) sont sautés
+     * d'un coup, les blocs présents par comptage de bits.
+     */
+    public long[] findAvailable(Long subnetId, long firstNum, long lastNum, long skip, int limit) throws SQLException {
+        String sql = """
+            SELECT chunk_index, bits FROM ip_status_bitmaps
+            WHERE subnet_id = ? AND chunk_index BETWEEN ? AND ?
+            ORDER BY chunk_index
+        """;
+
+        long[] found = new long[limit];
+        int size = 0;
+        long remaining = skip;
+        long cursor = firstNum;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, subnetId);
+            pstmt.setLong(2, StatusBitmap.chunkIndex(firstNum));
+            pstmt.setLong(3, StatusBitmap.chunkIndex(lastNum));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (size < limit && cursor <= lastNum) {
+                    long chunkIndex = -1;
+                    StatusBitmap bitmap = null;
+                    if (rs.next()) {
+                        chunkIndex = rs.getLong("chunk_index");
+                        bitmap = StatusBitmap.fromBytes(rs.getBytes("bits"));
+                    }
+
+                    // Plage libre avant le prochain bloc stocké (ou jusqu'à la fin)
+                    long gapEnd = bitmap != null ? StatusBitmap.chunkStart(chunkIndex) - 1 : lastNum;
+                    if (cursor <= gapEnd) {
+                        long gapSize = gapEnd - cursor + 1;
+                        if (remaining >= gapSize) {
+                            remaining -= gapSize;
+                        } else {
+                            long address = cursor + remaining;
+                            remaining = 0;
+                            while (size < limit && address <= gapEnd) {
+                                found[size++] = address++;
+                            }
+                        }
+                        cursor = gapEnd + 1;
+                    }
+                    if (bitmap == null || size == limit) {
+                        break;
+                    }
+
+                    long start = StatusBitmap.chunkStart(chunkIndex);
+                    int from = (int) (cursor - start);
+                    int to = (int) (Math.min(lastNum + 1, start + StatusBitmap.CHUNK_SIZE) - start);
+                    int free = bitmap.count(IPStatus.AVAILABLE, from, to);
+                    if (remaining >= free) {
+                        remaining -= free;
+                    } else {
+                        int position = bitmap.next(IPStatus.AVAILABLE, from, to);
+                        while (position >= 0 && size < limit) {
+                            if (remaining > 0) {
+                                remaining--;
+                            } else {
+                                found[size++] = start + position;
+                            }
+                            position = bitmap.next(IPStatus.AVAILABLE, position + 1, to);
+                        }
+                    }
+                    cursor = start + to;
+                }
+            }
+        }
+        return size == limit ? found : Arrays.copyOf(found, size);
+    }
+
+    /**
+     * Bitmap en mémoire des adresses libres de [firstNum, lastNum], construit à
+     * partir des blocs stockés (les blocs absents sont entièrement libres)
+     */
+    public FreeBitmap loadFreeBitmap(Long subnetId, long firstNum, long lastNum) throws SQLException {
+        String sql = """
+            SELECT chunk_index, bits FROM ip_status_bitmaps
+            WHERE subnet_id = ? AND chunk_index BETWEEN ? AND ?
+        """;
+
+        FreeBitmap free = new FreeBitmap(firstNum, lastNum);
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, subnetId);
+            pstmt.setLong(2, StatusBitmap.chunkIndex(firstNum));
+            pstmt.setLong(3, StatusBitmap.chunkIndex(lastNum));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long start = StatusBitmap.chunkStart(rs.getLong("chunk_index"));
+                    StatusBitmap bitmap = StatusBitmap.fromBytes(rs.getBytes("bits"));
+                    int from = (int) (Math.max(firstNum, start) - start);
+                    int to = (int) (Math.min(lastNum + 1, start + StatusBitmap.CHUNK_SIZE) - start);
+                    for (int offset = from; offset < to; offset++) {
+                        if (bitmap.get(offset) != IPStatus.AVAILABLE) {
+                            free.markUsed(start + offset);
+                        }
+                    }
+                }
+            }
+        }
+        return free;
+    }
+
+    private StatusBitmap loadChunk(Connection conn, Long subnetId, long chunkIndex) throws SQLException {
+        String sql = "SELECT bits FROM ip_status_bitmaps WHERE subnet_id = ? AND chunk_index = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, subnetId);
+            pstmt.setLong(2, chunkIndex);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return StatusBitmap.fromBytes(rs.getBytes("bits"));
+                }
+            }
+        }
+        return null;
+    }
+
+    private void saveChunk(Connection conn, Long subnetId, long chunkIndex, StatusBitmap bitmap) throws SQLException {
+        if (bitmap.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM ip_status_bitmaps WHERE subnet_id = ? AND chunk_index = ?")) {
+                pstmt.setLong(1, subnetId);
+                pstmt.setLong(2, chunkIndex);
+                pstmt.executeUpdate();
+            }
+            return;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT OR REPLACE INTO ip_status_bitmaps (subnet_id, chunk_index, bits) VALUES (?, ?, ?)")) {
+            pstmt.setLong(1, subnetId);
+            pstmt.setLong(2, chunkIndex);
+            pstmt.setBytes(3, bitmap.toBytes());
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static void addChunk(PreparedStatement insert, long subnetId, long chunkIndex,
+                                 StatusBitmap bitmap) throws SQLException {
+        insert.setLong(1, subnetId);
+        insert.setLong(2, chunkIndex);
+        insert.setBytes(3, bitmap.toBytes());
+        insert.addBatch();
+    }
+
+    private Map<IPStatus, Long> countChunks(ResultSet rs, long usableHosts) throws SQLException {
+        Map<IPStatus, Long> counts = new EnumMap<>(IPStatus.class);
+        long assigned = 0;
+        long reserved = 0;
+        long blocked = 0;
+        while (rs.next()) {
+            StatusBitmap bitmap = StatusBitmap.fromBytes(rs.getBytes("bits"));
+            assigned += bitmap.count(IPStatus.ASSIGNED);
+            reserved += bitmap.count(IPStatus.RESERVED);
+            blocked += bitmap.count(IPStatus.BLOCKED);
+        }
+        counts.put(IPStatus.AVAILABLE, Math.max(0, usableHosts - assigned - reserved - blocked));
+        counts.put(IPStatus.ASSIGNED, assigned);
+        counts.put(IPStatus.RESERVED, reserved);
+        counts.put(IPStatus.BLOCKED, blocked);
+        return counts;
+    }
+}
@@ -0,0 +1,230 @@
+package com.ipam.dao;
+
+import com.ipam.model.Reservation;
+import com.ipam.util.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO pour la gestion des réservations d'adresses IP (une au plus par adresse).
+ * Les recherches par échéance parcourent une plage de l'index partiel
+ * idx_reservations_expiration, dans l'ordre des échéances.
+ */
+public class ReservationDAO {
+    private static final Logger logger = LoggerFactory.getLogger(ReservationDAO.class);
+
+    private static final String SELECT_WITH_ADDRESS = """
+        SELECT r.*, ip.ip_address
+        FROM reservations r LEFT JOIN ip_addresses ip ON ip.id = r.ip_address_id
+        """;
+
+    /**
+     * Enregistre la réservation d'une adresse, en remplaçant celle qui existait
+     */
+    public Reservation save(Reservation reservation) throws SQLException {
+        String sql = """
+            INSERT INTO reservations (ip_address_id, reserved_by, reason, expiration_date, created_date)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT(ip_address_id) DO UPDATE SET
+                reserved_by = excluded.reserved_by, reason = excluded.reason,
+                expiration_date = excluded.expiration_date, created_date = excluded.created_date
+            RETURNING id
+        """;
+
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setLong(1, reservation.getIpAddressId());
+                pstmt.setString(2, reservation.getReservedBy());
+                pstmt.setString(3, reservation.getReason());
+                pstmt.setString(4, toText(reservation.getExpirationDate()));
+                pstmt.setString(5, reservation.getCreatedDate().toString());
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        reservation.setId(rs.getLong(1));
+                    }
+                }
+                logger.debug("Réservation enregistrée pour l'IP ID {}", reservation.getIpAddressId());
+                return reservation;
+            }
+        });
+    }
+
+    /**
+     * Récupère la réservation d'une adresse, null si elle n'est pas réservée
+     */
+    public Reservation findByIpAddressId(Long ipAddressId) throws SQLException {
+        String sql = SELECT_WITH_ADDRESS + "WHERE r.ip_address_id = ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, ipAddressId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapResultSetToReservation(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Récupère toutes les réservations, les plus proches de leur échéance en
+     * premier (les réservations sans échéance à la fin)
+     */
+    public List<Reservation> findAll() throws SQLException {
+        String sql = SELECT_WITH_ADDRESS
+            + "ORDER BY r.expiration_date IS NULL, r.expiration_date, r.id";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            return mapAll(pstmt);
+        }
+    }
+
+    /**
+     * Réservations dont l'échéance tombe dans ]from, to], par échéance croissante
+     */
+    public List<Reservation> findExpiringBetween(LocalDateTime from, LocalDateTime to, int limit)
+            throws SQLException {
+        String sql = SELECT_WITH_ADDRESS + """
+            WHERE r.expiration_date > ? AND r.expiration_date <= ?
+            ORDER BY r.expiration_date
+            LIMIT ?
+            """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            pstmt.setInt(3, limit);
+            return mapAll(pstmt);
+        }
+    }
+
+    /**
+     * Réservations échues au plus tard à cutoff, les plus anciennes en premier
+     */
+    public List<Reservation> findExpired(LocalDateTime cutoff, int limit) throws SQLException {
+        String sql = SELECT_WITH_ADDRESS + """
+            WHERE r.expiration_date <= ?
+            ORDER BY r.expiration_date
+            LIMIT ?
+            """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, cutoff.toString());
+            pstmt.setInt(2, limit);
+            return mapAll(pstmt);
+        }
+    }
+
+    /**
+     * Modifie l'échéance de la réservation d'une adresse
+     *
+     * @param expirationDate nouvelle échéance, null pour une réservation sans limite
+     * @return false si l'adresse n'a pas de réservation
+     */
+    public boolean updateExpiration(Long ipAddressId, LocalDateTime expirationDate) throws SQLException {
+        String sql = "UPDATE reservations SET expiration_date = ? WHERE ip_address_id = ?";
+
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, toText(expirationDate));
+                pstmt.setLong(2, ipAddressId);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Supprime la réservation d'une adresse
+     *
+     * @return false si l'adresse n'avait pas de réservation
+     */
+    public boolean deleteByIpAddressId(Long ipAddressId) throws SQLException {
+        String sql = "DELETE FROM reservations WHERE ip_address_id = ?";
+
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, ipAddressId);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Supprime des réservations par ID, en un lot
+     */
+    public void deleteAll(List<Reservation> reservations) throws SQLException {
+        String sql = "DELETE FROM reservations WHERE id = ?";
+
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Reservation reservation : reservations) {
+                    pstmt.setLong(1, reservation.getId());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Supprime les réservations des adresses d'un sous-réseau
+     */
+    public void deleteBySubnetId(Long subnetId) throws SQLException {
+        String sql = "DELETE FROM reservations WHERE ip_address_id IN (SELECT id FROM ip_addresses WHERE subnet_id = ?)";
+
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, subnetId);
+                int deleted = pstmt.executeUpdate();
+                logger.debug("Supprimées {} réservation(s) du sous-réseau ID {}", deleted, subnetId);
+            }
+            return null;
+        });
+    }
+
+    private List<Reservation> mapAll(PreparedStatement pstmt) throws SQLException {
+        List<Reservation> reservations = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                reservations.add(mapResultSetToReservation(rs));
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Mappe un ResultSet vers un objet Reservation
+     */
+    private Reservation mapResultSetToReservation(ResultSet rs) throws SQLException {
+        Reservation reservation = new Reservation();
+        reservation.setId(rs.getLong("id"));
+        reservation.setIpAddressId(rs.getLong("ip_address_id"));
+        reservation.setReservedBy(rs.getString("reserved_by"));
+        reservation.setReason(rs.getString("reason"));
+
+        String expirationDate = rs.getString("expiration_date");
+        if (expirationDate != null) {
+            reservation.setExpirationDate(LocalDateTime.parse(expirationDate));
+        }
+        reservation.setCreatedDate(LocalDateTime.parse(rs.getString("created_date")));
+        reservation.setIpAddress(rs.getString("ip_address"));
+
+        return reservation;
+    }
+
+    private static String toText(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toString() : null;
+    }
+}
@@ -1,14 +1,20 @@
 package com.ipam.dao;
 
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Ipv6Prefix;
+import com.ipam.model.StorageMode;
 import com.ipam.model.Subnet;
 import com.ipam.util.DatabaseManager;
+import com.ipam.util.IPCalculator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO pour la gestion des sous-réseaux
@@ -16,70 +22,82 @@ import java.util.List;
 public class SubnetDAO {
     private static final Logger logger = LoggerFactory.getLogger(SubnetDAO.class);
 
+    private static final String INSERT_SQL = """
+        INSERT INTO subnets (network_address, subnet_mask, cidr, description, vlan_id, 
+                             gateway, dns_servers, created_date, modified_date,
+                             network_num, broadcast_num, storage_mode, network_bytes, last_bytes,
+                             pool_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
     /**
      * Crée un nouveau sous-réseau
      */
     public Subnet create(Subnet subnet) throws SQLException {
-        String sql = """
-            INSERT INTO subnets (network_address, subnet_mask, cidr, description, vlan_id, 
-                                 gateway, dns_servers, created_date, modified_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
-
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+
+                bindInsert(pstmt, subnet);
+                int affected = pstmt.executeUpdate();
+
+                if (affected > 0) {
+                    boolean idSet = false;
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (rs != null && rs.next()) {
+                            subnet.setId(rs.getLong(1));
+                            idSet = true;
+                        }
+                    } catch (SQLException ex) {
+                        // Certains drivers SQLite n'implémentent pas getGeneratedKeys
+                        logger.warn("Récupération de clé générée non supportée, tentative last_insert_rowid(): {}", ex.getMessage());
+                    }
 
-            pstmt.setString(1, subnet.getNetworkAddress());
-            pstmt.setString(2, subnet.getSubnetMask());
-            pstmt.setInt(3, subnet.getCidr());
-            pstmt.setString(4, subnet.getDescription());
-            
-            if (subnet.getVlanId() != null) {
-                pstmt.setInt(5, subnet.getVlanId());
-            } else {
-                pstmt.setNull(5, Types.INTEGER);
-            }
-            
-            pstmt.setString(6, subnet.getGateway());
-            pstmt.setString(7, subnet.getDnsServers());
-            pstmt.setString(8, subnet.getCreatedDate().toString());
-            pstmt.setString(9, subnet.getModifiedDate().toString());
-
-            int affected = pstmt.executeUpdate();
-
-            if (affected > 0) {
-                boolean idSet = false;
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs != null && rs.next()) {
-                        subnet.setId(rs.getLong(1));
-                        idSet = true;
+                    if (!idSet) {
+                        try (Statement s = conn.createStatement();
+                             ResultSet rs2 = s.executeQuery("SELECT last_insert_rowid()")) {
+                            if (rs2.next()) {
+                                subnet.setId(rs2.getLong(1));
+                            }
+                        }
                     }
-                } catch (SQLException ex) {
-                    // Certains drivers SQLite n'implémentent pas getGeneratedKeys
-                    logger.warn("Récupération de clé générée non supportée, tentative last_insert_rowid(): {}", ex.getMessage());
+
+                    logger.info("Sous-réseau créé: {}", subnet.getNetworkCidr());
                 }
+                return subnet;
+            }
+        });
+    }
 
-                if (!idSet) {
-                    try (Statement s = conn.createStatement();
-                         ResultSet rs2 = s.executeQuery("SELECT last_insert_rowid()")) {
-                        if (rs2.next()) {
-                            subnet.setId(rs2.getLong(1));
+    /**
+     * Crée plusieurs sous-réseaux avec une seule requête préparée, dans la
+     * transaction d'écriture courante ; l'ID de chacun est renseigné
+     */
+    public List<Subnet> createAll(List<Subnet> subnets) throws SQLException {
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL);
+                 PreparedStatement lastId = conn.prepareStatement("SELECT last_insert_rowid()")) {
+
+                for (Subnet subnet : subnets) {
+                    bindInsert(pstmt, subnet);
+                    pstmt.executeUpdate();
+                    try (ResultSet rs = lastId.executeQuery()) {
+                        if (rs.next()) {
+                            subnet.setId(rs.getLong(1));
                         }
                     }
                 }
-
-                logger.info("Sous-réseau créé: {}", subnet.getNetworkCidr());
             }
-            return subnet;
-        }
+            logger.info("{} sous-réseau(x) créé(s)", subnets.size());
+            return subnets;
+        });
     }
 
     /**
-     * Récupère tous les sous-réseaux
+     * Récupère tous les sous-réseaux (IPv4 puis IPv6, par ordre numérique)
      */
     public List<Subnet> findAll() throws SQLException {
         List<Subnet> subnets = new ArrayList<>();
-        String sql = "SELECT * FROM subnets ORDER BY network_address";
+        String sql = "SELECT * FROM subnets ORDER BY network_num IS NULL, network_num, network_bytes, cidr";
 
         try (Connection conn = DatabaseManager.getConnection();
              Statement stmt = conn.createStatement();
@@ -92,6 +110,68 @@ public class SubnetDAO {
         return subnets;
     }
 
+    /**
+     * Récupère le préfixe de chaque sous-réseau IPv4, indexé par ID, sans charger les lignes complètes
+     */
+    public Map<Long, Ipv4Prefix> findAllPrefixes() throws SQLException {
+        Map<Long, Ipv4Prefix> prefixes = new LinkedHashMap<>();
+        String sql = """
+            SELECT id, network_num, cidr FROM subnets
+            WHERE network_num IS NOT NULL
+            ORDER BY network_num, cidr
+        """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                prefixes.put(rs.getLong("id"), Ipv4Prefix.of((int) rs.getLong("network_num"), rs.getInt("cidr")));
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Récupère le préfixe des sous-réseaux IPv4 d'un VLAN
+     */
+    public List<Ipv4Prefix> findPrefixesByVlan(int vlanId) throws SQLException {
+        List<Ipv4Prefix> prefixes = new ArrayList<>();
+        String sql = "SELECT network_num, cidr FROM subnets WHERE vlan_id = ? AND network_num IS NOT NULL";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, vlanId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    prefixes.add(Ipv4Prefix.of((int) rs.getLong("network_num"), rs.getInt("cidr")));
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Récupère les sous-réseaux découpés dans un pool
+     */
+    public List<Subnet> findByPoolId(Long poolId) throws SQLException {
+        List<Subnet> subnets = new ArrayList<>();
+        String sql = "SELECT * FROM subnets WHERE pool_id = ? ORDER BY network_num, cidr";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, poolId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    subnets.add(mapResultSetToSubnet(rs));
+                }
+            }
+        }
+        return subnets;
+    }
+
     /**
      * Récupère un sous-réseau par son ID
      */
@@ -118,34 +198,40 @@ public class SubnetDAO {
         String sql = """
             UPDATE subnets SET network_address = ?, subnet_mask = ?, cidr = ?, 
                                description = ?, vlan_id = ?, gateway = ?, 
-                               dns_servers = ?, modified_date = ?
+                               dns_servers = ?, modified_date = ?,
+                               network_num = ?, broadcast_num = ?,
+                               network_bytes = ?, last_bytes = ?
             WHERE id = ?
         """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            subnet.setModifiedDate(LocalDateTime.now());
+                subnet.setModifiedDate(LocalDateTime.now());
 
-            pstmt.setString(1, subnet.getNetworkAddress());
-            pstmt.setString(2, subnet.getSubnetMask());
-            pstmt.setInt(3, subnet.getCidr());
-            pstmt.setString(4, subnet.getDescription());
+                pstmt.setString(1, subnet.getNetworkAddress());
+                pstmt.setString(2, subnet.getSubnetMask());
+                pstmt.setInt(3, subnet.getCidr());
+                pstmt.setString(4, subnet.getDescription());
             
-            if (subnet.getVlanId() != null) {
-                pstmt.setInt(5, subnet.getVlanId());
-            } else {
-                pstmt.setNull(5, Types.INTEGER);
-            }
+                if (subnet.getVlanId() != null) {
+                    pstmt.setInt(5, subnet.getVlanId());
+                } else {
+                    pstmt.setNull(5, Types.INTEGER);
+                }
             
-            pstmt.setString(6, subnet.getGateway());
-            pstmt.setString(7, subnet.getDnsServers());
-            pstmt.setString(8, subnet.getModifiedDate().toString());
-            pstmt.setLong(9, subnet.getId());
-
-            pstmt.executeUpdate();
-            logger.info("Sous-réseau mis à jour: {}", subnet.getNetworkCidr());
-        }
+                pstmt.setString(6, subnet.getGateway());
+                pstmt.setString(7, subnet.getDnsServers());
+                pstmt.setString(8, subnet.getModifiedDate().toString());
+                setRangeBounds(pstmt, 9, subnet);
+                setIpv6RangeBounds(pstmt, 11, subnet);
+                pstmt.setLong(13, subnet.getId());
+
+                pstmt.executeUpdate();
+                logger.info("Sous-réseau mis à jour: {}", subnet.getNetworkCidr());
+            }
+            return null;
+        });
     }
 
     /**
@@ -154,25 +240,53 @@ public class SubnetDAO {
     public void delete(Long id) throws SQLException {
         String sql = "DELETE FROM subnets WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
-            logger.info("Sous-réseau supprimé: ID {}", id);
-        }
+                pstmt.setLong(1, id);
+                pstmt.executeUpdate();
+                logger.info("Sous-réseau supprimé: ID {}", id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Supprime plusieurs sous-réseaux (lignes de subnets uniquement)
+     */
+    public void deleteAll(List<Long> ids) throws SQLException {
+        String sql = "DELETE FROM subnets WHERE id = ?";
+
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Long id : ids) {
+                    pstmt.setLong(1, id);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            logger.info("{} sous-réseau(x) supprimé(s)", ids.size());
+            return null;
+        });
     }
 
     /**
      * Vérifie si un sous-réseau existe déjà
      */
     public boolean exists(String networkAddress, int cidr) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM subnets WHERE network_address = ? AND cidr = ?";
+        boolean ipv6 = IPCalculator.isIPv6Notation(networkAddress);
+        String sql = ipv6
+            ? "SELECT COUNT(*) FROM subnets WHERE network_bytes = ? AND cidr = ?"
+            : "SELECT COUNT(*) FROM subnets WHERE network_num = ? AND cidr = ?";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, networkAddress);
+            if (ipv6) {
+                pstmt.setBytes(1, Ipv6Prefix.of(networkAddress, cidr).first().toBytes());
+            } else {
+                pstmt.setLong(1, IPCalculator.ipToLong(networkAddress));
+            }
             pstmt.setInt(2, cidr);
 
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -184,6 +298,96 @@ public class SubnetDAO {
         return false;
     }
 
+    /**
+     * Récupère les sous-réseaux qui chevauchent un préfixe
+     */
+    public List<Subnet> findOverlapping(Ipv4Prefix prefix) throws SQLException {
+        return findOverlapping(prefix.first(), prefix.last());
+    }
+
+    /**
+     * Récupère les sous-réseaux qui chevauchent la plage [firstIp, lastIp]
+     */
+    public List<Subnet> findOverlapping(String firstIp, String lastIp) throws SQLException {
+        return findOverlapping(IPCalculator.ipToLong(firstIp), IPCalculator.ipToLong(lastIp));
+    }
+
+    /**
+     * Récupère les sous-réseaux IPv6 qui chevauchent un préfixe (comparaison des BLOB big-endian)
+     */
+    public List<Subnet> findOverlapping(Ipv6Prefix prefix) throws SQLException {
+        List<Subnet> subnets = new ArrayList<>();
+        String sql = """
+            SELECT * FROM subnets
+            WHERE network_bytes <= ? AND last_bytes >= ?
+            ORDER BY network_bytes, cidr
+        """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setBytes(1, prefix.last().toBytes());
+            pstmt.setBytes(2, prefix.first().toBytes());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    subnets.add(mapResultSetToSubnet(rs));
+                }
+            }
+        }
+        return subnets;
+    }
+
+    private List<Subnet> findOverlapping(long firstNum, long lastNum) throws SQLException {
+        List<Subnet> subnets = new ArrayList<>();
+        String sql = """
+            SELECT * FROM subnets
+            WHERE network_num <= ? AND broadcast_num >= ?
+            ORDER BY network_num, cidr
+        """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, lastNum);
+            pstmt.setLong(2, firstNum);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    subnets.add(mapResultSetToSubnet(rs));
+                }
+            }
+        }
+        return subnets;
+    }
+
+    /**
+     * Récupère les sous-réseaux contenant une adresse, du plus spécifique au plus large
+     */
+    public List<Subnet> findContaining(String ipAddress) throws SQLException {
+        List<Subnet> subnets = new ArrayList<>();
+        String sql = """
+            SELECT * FROM subnets
+            WHERE network_num <= ? AND broadcast_num >= ?
+            ORDER BY cidr DESC
+        """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            long ip = IPCalculator.ipToLong(ipAddress);
+            pstmt.setLong(1, ip);
+            pstmt.setLong(2, ip);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    subnets.add(mapResultSetToSubnet(rs));
+                }
+            }
+        }
+        return subnets;
+    }
+
     /**
      * Recherche des sous-réseaux par critères
      */
@@ -194,7 +398,7 @@ public class SubnetDAO {
             WHERE network_address LIKE ? 
                OR description LIKE ? 
                OR gateway LIKE ?
-            ORDER BY network_address
+            ORDER BY network_num IS NULL, network_num, network_bytes, cidr
         """;
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -214,6 +418,61 @@ public class SubnetDAO {
         return subnets;
     }
 
+    private void bindInsert(PreparedStatement pstmt, Subnet subnet) throws SQLException {
+        pstmt.setString(1, subnet.getNetworkAddress());
+        pstmt.setString(2, subnet.getSubnetMask());
+        pstmt.setInt(3, subnet.getCidr());
+        pstmt.setString(4, subnet.getDescription());
+
+        if (subnet.getVlanId() != null) {
+            pstmt.setInt(5, subnet.getVlanId());
+        } else {
+            pstmt.setNull(5, Types.INTEGER);
+        }
+
+        pstmt.setString(6, subnet.getGateway());
+        pstmt.setString(7, subnet.getDnsServers());
+        pstmt.setString(8, subnet.getCreatedDate().toString());
+        pstmt.setString(9, subnet.getModifiedDate().toString());
+        setRangeBounds(pstmt, 10, subnet);
+        pstmt.setString(12, subnet.getStorageMode().name());
+        setIpv6RangeBounds(pstmt, 13, subnet);
+
+        if (subnet.getPoolId() != null) {
+            pstmt.setLong(15, subnet.getPoolId());
+        } else {
+            pstmt.setNull(15, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Renseigne les bornes numériques (réseau, broadcast) à partir de l'index donné
+     */
+    private void setRangeBounds(PreparedStatement pstmt, int index, Subnet subnet) throws SQLException {
+        if (subnet.isIpv6()) {
+            pstmt.setNull(index, Types.INTEGER);
+            pstmt.setNull(index + 1, Types.INTEGER);
+            return;
+        }
+        Ipv4Prefix prefix = subnet.getPrefix();
+        pstmt.setLong(index, prefix.first());
+        pstmt.setLong(index + 1, prefix.last());
+    }
+
+    /**
+     * Renseigne les bornes IPv6 sur 16 octets (NULL pour un sous-réseau IPv4)
+     */
+    private void setIpv6RangeBounds(PreparedStatement pstmt, int index, Subnet subnet) throws SQLException {
+        if (!subnet.isIpv6()) {
+            pstmt.setNull(index, Types.BLOB);
+            pstmt.setNull(index + 1, Types.BLOB);
+            return;
+        }
+        Ipv6Prefix prefix = subnet.getIpv6Prefix();
+        pstmt.setBytes(index, prefix.first().toBytes());
+        pstmt.setBytes(index + 1, prefix.last().toBytes());
+    }
+
     /**
      * Mappe un ResultSet vers un objet Subnet
      */
@@ -234,6 +493,12 @@ public class SubnetDAO {
         subnet.setDnsServers(rs.getString("dns_servers"));
         subnet.setCreatedDate(LocalDateTime.parse(rs.getString("created_date")));
         subnet.setModifiedDate(LocalDateTime.parse(rs.getString("modified_date")));
+        subnet.setStorageMode(StorageMode.valueOf(rs.getString("storage_mode")));
+
+        long poolId = rs.getLong("pool_id");
+        if (!rs.wasNull()) {
+            subnet.setPoolId(poolId);
+        }
 
         return subnet;
     }
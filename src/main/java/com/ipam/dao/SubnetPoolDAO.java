@@ -0,0 +1,167 @@
+package com.ipam.dao;
+
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.SubnetPool;
+import com.ipam.util.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO pour la gestion des pools de sous-réseaux
+ */
+public class SubnetPoolDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SubnetPoolDAO.class);
+
+    /**
+     * Crée un nouveau pool
+     */
+    public SubnetPool create(SubnetPool pool) throws SQLException {
+        String sql = """
+            INSERT INTO subnet_pools (name, network_address, cidr, network_num, broadcast_num,
+                                      description, created_date)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+        return DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                Ipv4Prefix prefix = pool.getPrefix();
+                pstmt.setString(1, pool.getName());
+                pstmt.setString(2, pool.getNetworkAddress());
+                pstmt.setInt(3, pool.getCidr());
+                pstmt.setLong(4, prefix.first());
+                pstmt.setLong(5, prefix.last());
+                pstmt.setString(6, pool.getDescription());
+                pstmt.setString(7, pool.getCreatedDate().toString());
+                pstmt.executeUpdate();
+
+                try (Statement s = conn.createStatement();
+                     ResultSet rs = s.executeQuery("SELECT last_insert_rowid()")) {
+                    if (rs.next()) {
+                        pool.setId(rs.getLong(1));
+                    }
+                }
+
+                logger.info("Pool créé: {} ({})", pool.getName(), pool.getNetworkCidr());
+                return pool;
+            }
+        });
+    }
+
+    /**
+     * Récupère tous les pools
+     */
+    public List<SubnetPool> findAll() throws SQLException {
+        List<SubnetPool> pools = new ArrayList<>();
+        String sql = "SELECT * FROM subnet_pools ORDER BY network_num, cidr";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                pools.add(mapResultSetToPool(rs));
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Récupère un pool par son ID
+     */
+    public SubnetPool findById(Long id) throws SQLException {
+        String sql = "SELECT * FROM subnet_pools WHERE id = ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToPool(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Récupère un pool par son nom
+     */
+    public SubnetPool findByName(String name) throws SQLException {
+        String sql = "SELECT * FROM subnet_pools WHERE name = ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToPool(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Récupère les pools qui chevauchent un préfixe
+     */
+    public List<SubnetPool> findOverlapping(Ipv4Prefix prefix) throws SQLException {
+        List<SubnetPool> pools = new ArrayList<>();
+        String sql = "SELECT * FROM subnet_pools WHERE network_num <= ? AND broadcast_num >= ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, prefix.last());
+            pstmt.setLong(2, prefix.first());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    pools.add(mapResultSetToPool(rs));
+                }
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Supprime un pool ; les sous-réseaux déjà découpés sont conservés et détachés
+     */
+    public void delete(Long id) throws SQLException {
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement detach = conn.prepareStatement(
+                     "UPDATE subnets SET pool_id = NULL WHERE pool_id = ?");
+                 PreparedStatement pstmt = conn.prepareStatement(
+                     "DELETE FROM subnet_pools WHERE id = ?")) {
+
+                detach.setLong(1, id);
+                detach.executeUpdate();
+                pstmt.setLong(1, id);
+                pstmt.executeUpdate();
+                logger.info("Pool supprimé: ID {}", id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Mappe un ResultSet vers un objet SubnetPool
+     */
+    private SubnetPool mapResultSetToPool(ResultSet rs) throws SQLException {
+        SubnetPool pool = new SubnetPool();
+        pool.setId(rs.getLong("id"));
+        pool.setName(rs.getString("name"));
+        pool.setNetworkAddress(rs.getString("network_address"));
+        pool.setCidr(rs.getInt("cidr"));
+        pool.setDescription(rs.getString("description"));
+        pool.setCreatedDate(LocalDateTime.parse(rs.getString("created_date")));
+        return pool;
+    }
+}
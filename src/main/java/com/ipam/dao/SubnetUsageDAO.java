@@ -0,0 +1,252 @@
+package com.ipam.dao;
+
+import com.ipam.model.IPStatus;
+import com.ipam.model.SubnetUsage;
+import com.ipam.util.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO des compteurs d'adresses par sous-réseau et par statut (table
+ * subnet_usage). IPAddressDAO les ajuste dans la transaction de chaque
+ * changement de statut, un ajustement par statut et par lot ; les adresses
+ * disponibles ne sont pas comptées.
+ */
+public class SubnetUsageDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SubnetUsageDAO.class);
+
+    private static final String SELECT_WITH_SUBNET = """
+        SELECT s.id, s.network_address, s.cidr, u.status, u.ip_count
+        FROM subnets s LEFT JOIN subnet_usage u ON u.subnet_id = s.id AND u.ip_count <> 0
+        """;
+
+    // Compteurs stockés face aux comptages réels, en une lecture (un seul instantané)
+    private static final String MISMATCHES = """
+        SELECT subnet_id, status, SUM(stored) AS stored, SUM(actual) AS actual FROM (
+            SELECT subnet_id, status, ip_count AS stored, 0 AS actual FROM subnet_usage
+            UNION ALL
+            SELECT subnet_id, status, 0, COUNT(*) FROM ip_addresses
+            WHERE status <> 'AVAILABLE' GROUP BY subnet_id, status
+        )
+        GROUP BY subnet_id, status
+        HAVING SUM(stored) <> SUM(actual)
+        ORDER BY subnet_id, status
+        """;
+
+    /**
+     * Ajoute delta au compteur d'un statut (sans effet pour AVAILABLE) ;
+     * exécuté dans la transaction d'écriture courante
+     */
+    public void add(Long subnetId, IPStatus status, long delta) throws SQLException {
+        if (status == IPStatus.AVAILABLE || delta == 0) {
+            return;
+        }
+        String sql = """
+            INSERT INTO subnet_usage (subnet_id, status, ip_count) VALUES (?, ?, ?)
+            ON CONFLICT (subnet_id, status) DO UPDATE SET ip_count = ip_count + excluded.ip_count
+        """;
+
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, subnetId);
+                pstmt.setString(2, status.name());
+                pstmt.setLong(3, delta);
+                pstmt.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reporte le changement de statut d'une adresse
+     */
+    public void transition(Long subnetId, IPStatus from, IPStatus to) throws SQLException {
+        if (from == to) {
+            return;
+        }
+        DatabaseManager.write(conn -> {
+            add(subnetId, from, -1);
+            add(subnetId, to, 1);
+            return null;
+        });
+    }
+
+    /**
+     * Reporte les ajustements cumulés d'un lot
+     */
+    public void apply(Delta delta) throws SQLException {
+        if (delta.counts.isEmpty()) {
+            return;
+        }
+        DatabaseManager.write(conn -> {
+            for (Map.Entry<Long, long[]> entry : delta.counts.entrySet()) {
+                for (IPStatus status : IPStatus.values()) {
+                    add(entry.getKey(), status, entry.getValue()[status.ordinal()]);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Recompte les adresses de quelques sous-réseaux (adresses déplacées en bloc)
+     */
+    public void recount(Collection<Long> subnetIds) throws SQLException {
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement delete = conn.prepareStatement("DELETE FROM subnet_usage WHERE subnet_id = ?");
+                 PreparedStatement insert = conn.prepareStatement("""
+                     INSERT INTO subnet_usage (subnet_id, status, ip_count)
+                     SELECT subnet_id, status, COUNT(*) FROM ip_addresses
+                     WHERE subnet_id = ? AND status <> 'AVAILABLE'
+                     GROUP BY status
+                 """)) {
+                for (Long subnetId : subnetIds) {
+                    delete.setLong(1, subnetId);
+                    delete.executeUpdate();
+                    insert.setLong(1, subnetId);
+                    insert.executeUpdate();
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Supprime les compteurs d'un sous-réseau
+     */
+    public void deleteBySubnetId(Long subnetId) throws SQLException {
+        DatabaseManager.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM subnet_usage WHERE subnet_id = ?")) {
+                pstmt.setLong(1, subnetId);
+                pstmt.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Compteurs de tous les sous-réseaux, en une lecture
+     */
+    public List<SubnetUsage> findAll() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_WITH_SUBNET + "ORDER BY s.id")) {
+            return mapAll(pstmt);
+        }
+    }
+
+    /**
+     * Compteurs d'un sous-réseau, null s'il n'existe pas
+     */
+    public SubnetUsage findBySubnetId(Long subnetId) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_WITH_SUBNET + "WHERE s.id = ?")) {
+            pstmt.setLong(1, subnetId);
+            List<SubnetUsage> usages = mapAll(pstmt);
+            return usages.isEmpty() ? null : usages.get(0);
+        }
+    }
+
+    /**
+     * Compare les compteurs aux adresses stockées (parcours complet de ip_addresses)
+     *
+     * @return les compteurs faux, vide si tout concorde
+     */
+    public List<Mismatch> findMismatches() throws SQLException {
+        List<Mismatch> mismatches = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(MISMATCHES)) {
+            while (rs.next()) {
+                mismatches.add(new Mismatch(rs.getLong("subnet_id"), IPStatus.valueOf(rs.getString("status")),
+                    rs.getLong("stored"), rs.getLong("actual")));
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Recalcule tous les compteurs depuis les adresses stockées
+     *
+     * @return le nombre de compteurs écrits
+     */
+    public int rebuild() throws SQLException {
+        return DatabaseManager.write(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM subnet_usage");
+                int rebuilt = stmt.executeUpdate("""
+                    INSERT INTO subnet_usage (subnet_id, status, ip_count)
+                    SELECT subnet_id, status, COUNT(*) FROM ip_addresses
+                    WHERE status <> 'AVAILABLE'
+                    GROUP BY subnet_id, status
+                    """);
+                logger.info("Compteurs d'utilisation reconstruits: {} compteur(s)", rebuilt);
+                return rebuilt;
+            }
+        });
+    }
+
+    private List<SubnetUsage> mapAll(PreparedStatement pstmt) throws SQLException {
+        Map<Long, SubnetUsage> usages = new LinkedHashMap<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                long subnetId = rs.getLong("id");
+                SubnetUsage usage = usages.get(subnetId);
+                if (usage == null) {
+                    usage = new SubnetUsage(subnetId, rs.getString("network_address"), rs.getInt("cidr"));
+                    usages.put(subnetId, usage);
+                }
+                String status = rs.getString("status");
+                if (status != null) {
+                    usage.setCount(IPStatus.valueOf(status), rs.getLong("ip_count"));
+                }
+            }
+        }
+        return new ArrayList<>(usages.values());
+    }
+
+    /**
+     * Ajustements de compteurs cumulés pendant un lot, par sous-réseau et par statut
+     */
+    public static final class Delta {
+        private final Map<Long, long[]> counts = new HashMap<>();
+
+        public void add(Long subnetId, IPStatus status, long delta) {
+            counts.computeIfAbsent(subnetId, k -> new long[IPStatus.values().length])[status.ordinal()] += delta;
+        }
+    }
+
+    /**
+     * Compteur en désaccord avec les adresses stockées
+     */
+    public static class Mismatch {
+        private final long subnetId;
+        private final IPStatus status;
+        private final long stored;
+        private final long actual;
+
+        public Mismatch(long subnetId, IPStatus status, long stored, long actual) {
+            this.subnetId = subnetId;
+            this.status = status;
+            this.stored = stored;
+            this.actual = actual;
+        }
+
+        public long getSubnetId() { return subnetId; }
+        public IPStatus getStatus() { return status; }
+        public long getStored() { return stored; }
+        public long getActual() { return actual; }
+
+        @Override
+        public String toString() {
+            return String.format("sous-réseau %d, %s: compteur %d, réel %d", subnetId, status.name(), stored, actual);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ipam.model;
 
+import com.ipam.util.IPCalculator;
+
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -7,14 +9,19 @@ import java.util.Objects;
  * Représente une adresse IP
  */
 public class IPAddress {
+    /** Valeur de macNum quand aucune adresse MAC n'est renseignée */
+    public static final long NO_MAC = -1;
+
     private Long id;
     private String ipAddress;
     private Long subnetId;
     private IPStatus status;
     private String assignedTo;      // Nom de l'équipement/utilisateur
-    private String macAddress;
+    private String macAddress;      // Forme texte, produite à la demande
+    private long macNum = NO_MAC;   // MAC sur 48 bits, stockée en DB
     private String description;
     private LocalDateTime assignedDate;
+    private LocalDateTime leaseExpires; // Fin du bail, null si l'attribution n'expire pas
     private LocalDateTime createdDate;
     
     // Champs non stockés en DB
@@ -73,11 +80,27 @@ public class IPAddress {
     }
 
     public String getMacAddress() {
+        if (macAddress == null && macNum != NO_MAC) {
+            macAddress = IPCalculator.formatMAC(macNum);
+        }
         return macAddress;
     }
 
     public void setMacAddress(String macAddress) {
         this.macAddress = macAddress;
+        this.macNum = macAddress == null ? NO_MAC : IPCalculator.parseMAC(macAddress);
+    }
+
+    /**
+     * Adresse MAC sur 48 bits, NO_MAC si absente ou invalide
+     */
+    public long getMacNum() {
+        return macNum;
+    }
+
+    public void setMacNum(long macNum) {
+        this.macNum = macNum;
+        this.macAddress = null;
     }
 
     public String getDescription() {
@@ -96,6 +119,14 @@ public class IPAddress {
         this.assignedDate = assignedDate;
     }
 
+    public LocalDateTime getLeaseExpires() {
+        return leaseExpires;
+    }
+
+    public void setLeaseExpires(LocalDateTime leaseExpires) {
+        this.leaseExpires = leaseExpires;
+    }
+
     public LocalDateTime getCreatedDate() {
         return createdDate;
     }
@@ -1,24 +1,37 @@
 package com.ipam.model;
 
 /**
- * Statut d'une adresse IP
+ * Statut d'une adresse IP.
+ * Le code sur 2 bits est stocké dans les bitmaps de statut : ne pas le modifier.
  */
 public enum IPStatus {
-    AVAILABLE("Disponible"),
-    ASSIGNED("Assignée"),
-    RESERVED("Réservée"),
-    BLOCKED("Bloquée");
+    AVAILABLE("Disponible", 0),
+    ASSIGNED("Assignée", 1),
+    RESERVED("Réservée", 2),
+    BLOCKED("Bloquée", 3);
+
+    private static final IPStatus[] BY_CODE = { AVAILABLE, ASSIGNED, RESERVED, BLOCKED };
 
     private final String displayName;
+    private final int code;
 
-    IPStatus(String displayName) {
+    IPStatus(String displayName, int code) {
         this.displayName = displayName;
+        this.code = code;
     }
 
     public String getDisplayName() {
         return displayName;
     }
 
+    public int getCode() {
+        return code;
+    }
+
+    public static IPStatus fromCode(int code) {
+        return BY_CODE[code & 0b11];
+    }
+
     @Override
     public String toString() {
         return displayName;
@@ -0,0 +1,71 @@
+package com.ipam.model;
+
+import com.ipam.util.IPCalculator;
+
+/**
+ * Adresse IPv4 immuable stockée sur un int (non signé)
+ */
+public final class Ipv4Address implements Comparable<Ipv4Address> {
+    private final int value;
+
+    private Ipv4Address(int value) {
+        this.value = value;
+    }
+
+    public static Ipv4Address of(int value) {
+        return new Ipv4Address(value);
+    }
+
+    public static Ipv4Address of(long value) {
+        if (value < 0 || value > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Adresse IPv4 hors plage: " + value);
+        }
+        return new Ipv4Address((int) value);
+    }
+
+    public static Ipv4Address parse(CharSequence text) {
+        long value = IPCalculator.parseIPv4(text);
+        if (value < 0) {
+            throw new IllegalArgumentException("Adresse IP invalide: " + text);
+        }
+        return new Ipv4Address((int) value);
+    }
+
+    /**
+     * Valeur brute sur 32 bits (à interpréter comme non signée)
+     */
+    public int intValue() {
+        return value;
+    }
+
+    /**
+     * Valeur numérique entre 0 et 2^32 - 1, telle que stockée dans ip_num
+     */
+    public long toLong() {
+        return Integer.toUnsignedLong(value);
+    }
+
+    public boolean isIn(Ipv4Prefix prefix) {
+        return prefix.contains(this);
+    }
+
+    @Override
+    public int compareTo(Ipv4Address other) {
+        return Integer.compareUnsigned(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Ipv4Address other && value == other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return IPCalculator.longToIp(toLong());
+    }
+}
@@ -0,0 +1,201 @@
+package com.ipam.model;
+
+import com.ipam.util.HostSpliterator;
+import com.ipam.util.IPCalculator;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Préfixe IPv4 immuable (réseau sur un int, longueur sur un octet).
+ * Tous les calculs de plage se font sur des entiers, sans passer par les chaînes.
+ */
+public final class Ipv4Prefix implements Comparable<Ipv4Prefix> {
+    private final int network;
+    private final byte length;
+
+    private Ipv4Prefix(int network, int length) {
+        this.network = network & (int) IPCalculator.prefixMask(length);
+        this.length = (byte) length;
+    }
+
+    /**
+     * Préfixe contenant l'adresse donnée ; les bits d'hôte sont mis à zéro
+     */
+    public static Ipv4Prefix of(int address, int length) {
+        if (length < 0 || length > 32) {
+            throw new IllegalArgumentException("CIDR doit être entre 0 et 32");
+        }
+        return new Ipv4Prefix(address, length);
+    }
+
+    public static Ipv4Prefix of(Ipv4Address address, int length) {
+        return of(address.intValue(), length);
+    }
+
+    public static Ipv4Prefix of(String address, int length) {
+        return of(Ipv4Address.parse(address).intValue(), length);
+    }
+
+    /**
+     * Analyse la notation "a.b.c.d/n"
+     */
+    public static Ipv4Prefix parse(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Notation CIDR invalide: " + text);
+        }
+        long address = IPCalculator.parseIPv4(text, 0, slash);
+        if (address < 0) {
+            throw new IllegalArgumentException("Adresse IP invalide: " + text);
+        }
+        int length;
+        try {
+            length = Integer.parseInt(text, slash + 1, text.length(), 10);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Notation CIDR invalide: " + text);
+        }
+        return of((int) address, length);
+    }
+
+    public Ipv4Address getNetwork() {
+        return Ipv4Address.of(network);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int networkInt() {
+        return network;
+    }
+
+    public long mask() {
+        return IPCalculator.prefixMask(length);
+    }
+
+    /**
+     * Première adresse du préfixe (adresse réseau)
+     */
+    public long first() {
+        return Integer.toUnsignedLong(network);
+    }
+
+    /**
+     * Dernière adresse du préfixe (broadcast)
+     */
+    public long last() {
+        return first() | (~mask() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Nombre total d'adresses
+     */
+    public long size() {
+        return 1L << (32 - length);
+    }
+
+    public long firstUsable() {
+        return length >= 31 ? first() : first() + 1;
+    }
+
+    public long lastUsable() {
+        return length >= 31 ? last() : last() - 1;
+    }
+
+    /**
+     * Nombre d'hôtes utilisables (réseau et broadcast exclus, sauf /31 et /32)
+     */
+    public long usableHosts() {
+        return length >= 31 ? size() : size() - 2;
+    }
+
+    public boolean contains(long address) {
+        return address >= first() && address <= last();
+    }
+
+    public boolean contains(Ipv4Address address) {
+        return contains(address.toLong());
+    }
+
+    /**
+     * Vrai si other est inclus dans ce préfixe (ou égal)
+     */
+    public boolean contains(Ipv4Prefix other) {
+        return other.length >= length && ((other.network ^ network) & (int) mask()) == 0;
+    }
+
+    public boolean overlaps(Ipv4Prefix other) {
+        return contains(other) || other.contains(this);
+    }
+
+    /**
+     * Hôtes utilisables, dans l'ordre, sous forme d'int non signés ; le flux
+     * est paresseux et se découpe pour un traitement parallèle
+     */
+    public IntStream hosts() {
+        return StreamSupport.intStream(hostSpliterator(), false);
+    }
+
+    public PrimitiveIterator.OfInt hostIterator() {
+        return Spliterators.iterator(hostSpliterator());
+    }
+
+    public Spliterator.OfInt hostSpliterator() {
+        return new HostSpliterator(firstUsable(), lastUsable());
+    }
+
+    /**
+     * Applique action à chaque hôte utilisable, dans l'ordre, sans allocation
+     */
+    public void forEachHost(IntConsumer action) {
+        long end = lastUsable();
+        for (long address = firstUsable(); address <= end; address++) {
+            action.accept((int) address);
+        }
+    }
+
+    public String getNetworkAddress() {
+        return IPCalculator.longToIp(first());
+    }
+
+    public String getBroadcastAddress() {
+        return IPCalculator.longToIp(last());
+    }
+
+    public String getSubnetMask() {
+        return IPCalculator.longToIp(mask());
+    }
+
+    @Override
+    public int compareTo(Ipv4Prefix other) {
+        int byNetwork = Integer.compareUnsigned(network, other.network);
+        return byNetwork != 0 ? byNetwork : Integer.compare(length, other.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Ipv4Prefix other && network == other.network && length == other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        return network * 31 + length;
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[IPCalculator.MAX_IPV4_LENGTH + 3];
+        int end = IPCalculator.formatIPv4(first(), buffer, 0);
+        buffer[end++] = '/';
+        if (length >= 10) {
+            buffer[end++] = (char) ('0' + length / 10);
+        }
+        buffer[end++] = (char) ('0' + length % 10);
+        return new String(buffer, 0, end);
+    }
+}
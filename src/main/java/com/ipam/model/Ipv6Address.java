@@ -0,0 +1,117 @@
+package com.ipam.model;
+
+import com.ipam.util.IPCalculator;
+
+/**
+ * Adresse IPv6 immuable stockée sur deux long (64 bits de poids fort, 64 bits
+ * de poids faible, à interpréter comme non signés)
+ */
+public final class Ipv6Address implements Comparable<Ipv6Address> {
+    public static final int BYTES = 16;
+
+    private final long high;
+    private final long low;
+
+    private Ipv6Address(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static Ipv6Address of(long high, long low) {
+        return new Ipv6Address(high, low);
+    }
+
+    public static Ipv6Address parse(CharSequence text) {
+        long[] halves = new long[2];
+        if (!IPCalculator.parseIPv6(text, halves)) {
+            throw new IllegalArgumentException("Adresse IPv6 invalide: " + text);
+        }
+        return new Ipv6Address(halves[0], halves[1]);
+    }
+
+    /**
+     * Adresse lue sur 16 octets big-endian (format de stockage)
+     */
+    public static Ipv6Address fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BYTES) {
+            throw new IllegalArgumentException("Une adresse IPv6 occupe 16 octets");
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (bytes[i] & 0xFF);
+            low = (low << 8) | (bytes[i + 8] & 0xFF);
+        }
+        return new Ipv6Address(high, low);
+    }
+
+    /**
+     * 16 octets big-endian : l'ordre des BLOB en base est l'ordre numérique
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BYTES];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (high >>> (56 - 8 * i));
+            bytes[i + 8] = (byte) (low >>> (56 - 8 * i));
+        }
+        return bytes;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Adresse située n adresses plus loin (n >= 0), avec retenue sur les 64 bits de poids fort
+     */
+    public Ipv6Address plus(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Décalage négatif: " + n);
+        }
+        long sum = low + n;
+        long carry = Long.compareUnsigned(sum, low) < 0 ? 1 : 0;
+        return new Ipv6Address(high + carry, sum);
+    }
+
+    /**
+     * Nombre d'adresses de this à other (other >= this), plafonné à Long.MAX_VALUE
+     */
+    public long distanceTo(Ipv6Address other) {
+        long lowDiff = other.low - low;
+        long borrow = Long.compareUnsigned(other.low, low) < 0 ? 1 : 0;
+        long highDiff = other.high - high - borrow;
+        if (highDiff != 0 || lowDiff < 0) {
+            return Long.MAX_VALUE;
+        }
+        return lowDiff;
+    }
+
+    public boolean isIn(Ipv6Prefix prefix) {
+        return prefix.contains(this);
+    }
+
+    @Override
+    public int compareTo(Ipv6Address other) {
+        int byHigh = Long.compareUnsigned(high, other.high);
+        return byHigh != 0 ? byHigh : Long.compareUnsigned(low, other.low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Ipv6Address other && high == other.high && low == other.low);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
+    }
+
+    @Override
+    public String toString() {
+        return IPCalculator.formatIPv6(high, low);
+    }
+}
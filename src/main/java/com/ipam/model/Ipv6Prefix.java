@@ -0,0 +1,177 @@
+package com.ipam.model;
+
+import com.ipam.util.IPCalculator;
+
+import java.math.BigInteger;
+
+/**
+ * Préfixe IPv6 immuable (réseau sur deux long, longueur de 0 à 128).
+ * Un /48 ou un /64 n'est jamais énuméré : toutes les bornes se calculent
+ * par masquage sur 128 bits.
+ */
+public final class Ipv6Prefix implements Comparable<Ipv6Prefix> {
+    private final long high;
+    private final long low;
+    private final int length;
+
+    private Ipv6Prefix(long high, long low, int length) {
+        this.high = high & highMask(length);
+        this.low = low & lowMask(length);
+        this.length = length;
+    }
+
+    /**
+     * Préfixe contenant l'adresse donnée ; les bits d'hôte sont mis à zéro
+     */
+    public static Ipv6Prefix of(Ipv6Address address, int length) {
+        if (length < 0 || length > 128) {
+            throw new IllegalArgumentException("Longueur de préfixe IPv6 entre 0 et 128");
+        }
+        return new Ipv6Prefix(address.getHigh(), address.getLow(), length);
+    }
+
+    public static Ipv6Prefix of(String address, int length) {
+        return of(Ipv6Address.parse(address), length);
+    }
+
+    /**
+     * Analyse la notation "2001:db8::/32"
+     */
+    public static Ipv6Prefix parse(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Notation CIDR invalide: " + text);
+        }
+        int length;
+        try {
+            length = Integer.parseInt(text, slash + 1, text.length(), 10);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Notation CIDR invalide: " + text);
+        }
+        return of(Ipv6Address.parse(text.substring(0, slash)), length);
+    }
+
+    public Ipv6Address getNetwork() {
+        return Ipv6Address.of(high, low);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int hostBits() {
+        return 128 - length;
+    }
+
+    /**
+     * Première adresse du préfixe (bits d'hôte à zéro)
+     */
+    public Ipv6Address first() {
+        return Ipv6Address.of(high, low);
+    }
+
+    /**
+     * Dernière adresse du préfixe (bits d'hôte à un)
+     */
+    public Ipv6Address last() {
+        return Ipv6Address.of(high | ~highMask(length), low | ~lowMask(length));
+    }
+
+    /**
+     * Première adresse attribuable : l'anycast routeur du sous-réseau (bits
+     * d'hôte à zéro) est exclue, sauf pour les /127 et /128 (RFC 6164)
+     */
+    public Ipv6Address firstUsable() {
+        return length >= 127 ? first() : first().plus(1);
+    }
+
+    /**
+     * Dernière adresse attribuable (IPv6 n'a pas de broadcast)
+     */
+    public Ipv6Address lastUsable() {
+        return last();
+    }
+
+    /**
+     * Nombre exact d'adresses (2^hostBits)
+     */
+    public BigInteger size() {
+        return BigInteger.ONE.shiftLeft(hostBits());
+    }
+
+    /**
+     * Nombre d'adresses plafonné à Long.MAX_VALUE
+     */
+    public long saturatedSize() {
+        return hostBits() >= 63 ? Long.MAX_VALUE : 1L << hostBits();
+    }
+
+    public boolean contains(Ipv6Address address) {
+        return (address.getHigh() & highMask(length)) == high
+            && (address.getLow() & lowMask(length)) == low;
+    }
+
+    /**
+     * Vrai si other est inclus dans ce préfixe (ou égal)
+     */
+    public boolean contains(Ipv6Prefix other) {
+        return other.length >= length
+            && (other.high & highMask(length)) == high
+            && (other.low & lowMask(length)) == low;
+    }
+
+    public boolean overlaps(Ipv6Prefix other) {
+        return contains(other) || other.contains(this);
+    }
+
+    public String getNetworkAddress() {
+        return IPCalculator.formatIPv6(high, low);
+    }
+
+    public String getLastAddress() {
+        return last().toString();
+    }
+
+    /**
+     * Masque en notation IPv6 (ex. "ffff:ffff:ffff:ffff::" pour un /64)
+     */
+    public String getSubnetMask() {
+        return IPCalculator.formatIPv6(highMask(length), lowMask(length));
+    }
+
+    private static long highMask(int length) {
+        if (length == 0) {
+            return 0;
+        }
+        return length >= 64 ? -1L : -1L << (64 - length);
+    }
+
+    private static long lowMask(int length) {
+        if (length <= 64) {
+            return 0;
+        }
+        return length == 128 ? -1L : -1L << (128 - length);
+    }
+
+    @Override
+    public int compareTo(Ipv6Prefix other) {
+        int byNetwork = first().compareTo(other.first());
+        return byNetwork != 0 ? byNetwork : Integer.compare(length, other.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Ipv6Prefix other
+            && high == other.high && low == other.low && length == other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        return (Long.hashCode(high) * 31 + Long.hashCode(low)) * 31 + length;
+    }
+
+    @Override
+    public String toString() {
+        return getNetworkAddress() + "/" + length;
+    }
+}
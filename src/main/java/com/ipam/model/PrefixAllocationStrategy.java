@@ -0,0 +1,24 @@
+package com.ipam.model;
+
+/**
+ * Choix du bloc libre lors du découpage d'un sous-réseau dans un pool
+ */
+public enum PrefixAllocationStrategy {
+    FIRST_FIT("Premier bloc libre"),   // Adresse la plus basse, quelle que soit la taille du bloc libre
+    BEST_FIT("Plus petit bloc libre"); // Bloc libre le plus petit qui convient : limite la fragmentation
+
+    private final String displayName;
+
+    PrefixAllocationStrategy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
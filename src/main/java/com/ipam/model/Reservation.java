@@ -69,6 +69,7 @@ public class Reservation {
 
     public void setExpirationDate(LocalDateTime expirationDate) {
         this.expirationDate = expirationDate;
+        this.expired = false;
     }
 
     public LocalDateTime getCreatedDate() {
@@ -87,9 +88,15 @@ public class Reservation {
         this.ipAddress = ipAddress;
     }
 
+    /**
+     * Calculé au premier appel qui le constate puis mémorisé : une réservation
+     * échue le reste tant que son échéance n'est pas modifiée
+     */
     public boolean isExpired() {
-        if (expirationDate == null) return false;
-        return LocalDateTime.now().isAfter(expirationDate);
+        if (!expired && expirationDate != null && !LocalDateTime.now().isBefore(expirationDate)) {
+            expired = true;
+        }
+        return expired;
     }
 
     public void setExpired(boolean expired) {
@@ -0,0 +1,24 @@
+package com.ipam.model;
+
+/**
+ * Mode de stockage des adresses d'un sous-réseau
+ */
+public enum StorageMode {
+    DENSE("Complet"),   // Une ligne par adresse utilisable, générée à la création
+    SPARSE("Creux");    // Seules les adresses non disponibles sont stockées
+
+    private final String displayName;
+
+    StorageMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
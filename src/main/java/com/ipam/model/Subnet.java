@@ -17,8 +17,12 @@ public class Subnet {
     private String dnsServers;      // Séparés par virgule
     private LocalDateTime createdDate;
     private LocalDateTime modifiedDate;
+    private StorageMode storageMode;
+    private Long poolId;            // Pool d'origine, null si créé manuellement
     
     // Champs calculés (non stockés en DB)
+    private transient Ipv4Prefix prefix;
+    private transient Ipv6Prefix ipv6Prefix;
     private transient String firstUsableIp;
     private transient String lastUsableIp;
     private transient String broadcastAddress;
@@ -28,6 +32,7 @@ public class Subnet {
     public Subnet() {
         this.createdDate = LocalDateTime.now();
         this.modifiedDate = LocalDateTime.now();
+        this.storageMode = StorageMode.DENSE;
     }
 
     public Subnet(String networkAddress, int cidr, String description) {
@@ -52,6 +57,8 @@ public class Subnet {
 
     public void setNetworkAddress(String networkAddress) {
         this.networkAddress = networkAddress;
+        this.prefix = null;
+        this.ipv6Prefix = null;
     }
 
     public String getSubnetMask() {
@@ -68,6 +75,49 @@ public class Subnet {
 
     public void setCidr(int cidr) {
         this.cidr = cidr;
+        this.prefix = null;
+        this.ipv6Prefix = null;
+    }
+
+    /**
+     * Vrai pour un sous-réseau IPv6 (adresse réseau en notation IPv6)
+     */
+    public boolean isIpv6() {
+        return networkAddress != null && networkAddress.indexOf(':') >= 0;
+    }
+
+    /**
+     * Préfixe numérique d'un sous-réseau IPv4, calculé une fois à partir de l'adresse et du CIDR
+     */
+    public Ipv4Prefix getPrefix() {
+        if (prefix == null) {
+            prefix = Ipv4Prefix.of(networkAddress, cidr);
+        }
+        return prefix;
+    }
+
+    public void setPrefix(Ipv4Prefix prefix) {
+        this.networkAddress = prefix.getNetworkAddress();
+        this.cidr = prefix.getLength();
+        this.prefix = prefix;
+        this.ipv6Prefix = null;
+    }
+
+    /**
+     * Préfixe numérique d'un sous-réseau IPv6
+     */
+    public Ipv6Prefix getIpv6Prefix() {
+        if (ipv6Prefix == null) {
+            ipv6Prefix = Ipv6Prefix.of(networkAddress, cidr);
+        }
+        return ipv6Prefix;
+    }
+
+    public void setIpv6Prefix(Ipv6Prefix ipv6Prefix) {
+        this.networkAddress = ipv6Prefix.getNetworkAddress();
+        this.cidr = ipv6Prefix.getLength();
+        this.prefix = null;
+        this.ipv6Prefix = ipv6Prefix;
     }
 
     public String getDescription() {
@@ -118,6 +168,26 @@ public class Subnet {
         this.modifiedDate = modifiedDate;
     }
 
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    public void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    public boolean isSparse() {
+        return storageMode == StorageMode.SPARSE;
+    }
+
+    public Long getPoolId() {
+        return poolId;
+    }
+
+    public void setPoolId(Long poolId) {
+        this.poolId = poolId;
+    }
+
     public String getFirstUsableIp() {
         return firstUsableIp;
     }
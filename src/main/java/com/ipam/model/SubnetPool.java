@@ -0,0 +1,118 @@
+package com.ipam.model;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Pool d'adresses IPv4 (super-réseau) dans lequel les sous-réseaux enfants
+ * sont découpés automatiquement. Ex: 10.0.0.0/8 "datacenter"
+ */
+public class SubnetPool {
+    private Long id;
+    private String name;
+    private String networkAddress;
+    private int cidr;
+    private String description;
+    private LocalDateTime createdDate;
+
+    // Champ calculé (non stocké en DB)
+    private transient Ipv4Prefix prefix;
+
+    public SubnetPool() {
+        this.createdDate = LocalDateTime.now();
+    }
+
+    public SubnetPool(String name, String networkAddress, int cidr, String description) {
+        this();
+        this.name = name;
+        this.networkAddress = networkAddress;
+        this.cidr = cidr;
+        this.description = description;
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getNetworkAddress() {
+        return networkAddress;
+    }
+
+    public void setNetworkAddress(String networkAddress) {
+        this.networkAddress = networkAddress;
+        this.prefix = null;
+    }
+
+    public int getCidr() {
+        return cidr;
+    }
+
+    public void setCidr(int cidr) {
+        this.cidr = cidr;
+        this.prefix = null;
+    }
+
+    public Ipv4Prefix getPrefix() {
+        if (prefix == null) {
+            prefix = Ipv4Prefix.of(networkAddress, cidr);
+        }
+        return prefix;
+    }
+
+    public void setPrefix(Ipv4Prefix prefix) {
+        this.networkAddress = prefix.getNetworkAddress();
+        this.cidr = prefix.getLength();
+        this.prefix = prefix;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(LocalDateTime createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public String getNetworkCidr() {
+        return networkAddress + "/" + cidr;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SubnetPool pool = (SubnetPool) o;
+        return Objects.equals(id, pool.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s/%d)", name, networkAddress, cidr);
+    }
+}
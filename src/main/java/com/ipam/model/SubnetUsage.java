@@ -0,0 +1,68 @@
+package com.ipam.model;
+
+import java.util.Arrays;
+
+/**
+ * Compteurs d'adresses d'un sous-réseau par statut (table subnet_usage).
+ * Seuls les statuts autres que AVAILABLE sont comptés ; en IPv4 les adresses
+ * disponibles s'en déduisent (adresses utilisables moins les autres), en IPv6
+ * elles ne sont pas comptées.
+ */
+public class SubnetUsage {
+    private final Long subnetId;
+    private final String networkAddress;
+    private final int cidr;
+    private final long[] counts = new long[IPStatus.values().length];
+
+    public SubnetUsage(Long subnetId, String networkAddress, int cidr) {
+        this.subnetId = subnetId;
+        this.networkAddress = networkAddress;
+        this.cidr = cidr;
+    }
+
+    public Long getSubnetId() {
+        return subnetId;
+    }
+
+    public String getNetworkAddress() {
+        return networkAddress;
+    }
+
+    public int getCidr() {
+        return cidr;
+    }
+
+    public boolean isIpv6() {
+        return networkAddress != null && networkAddress.indexOf(':') >= 0;
+    }
+
+    /**
+     * Adresses utilisables du sous-réseau (0 en IPv6)
+     */
+    public long getUsableHosts() {
+        return isIpv6() ? 0 : Ipv4Prefix.of(networkAddress, cidr).usableHosts();
+    }
+
+    public long getCount(IPStatus status) {
+        if (status == IPStatus.AVAILABLE) {
+            return isIpv6() ? 0 : Math.max(0, getUsableHosts() - getUsedHosts() - counts[IPStatus.BLOCKED.ordinal()]);
+        }
+        return counts[status.ordinal()];
+    }
+
+    public void setCount(IPStatus status, long count) {
+        counts[status.ordinal()] = count;
+    }
+
+    /**
+     * Adresses attribuées ou réservées
+     */
+    public long getUsedHosts() {
+        return counts[IPStatus.ASSIGNED.ordinal()] + counts[IPStatus.RESERVED.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Utilisation %s/%d: %s", networkAddress, cidr, Arrays.toString(counts));
+    }
+}
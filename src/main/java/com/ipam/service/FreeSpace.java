@@ -0,0 +1,202 @@
+package com.ipam.service;
+
+import com.ipam.dao.IPStatusBitmapDAO;
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Subnet;
+import com.ipam.util.AllocationStrategy;
+import com.ipam.util.FreeBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Adresses libres de chaque sous-réseau IPv4 (un bit par adresse), partagées
+ * par les services. Les pages de 4096 adresses entièrement libres ne sont pas
+ * allouées (FreeBitmap) : un sous-réseau creux ne coûte que ses pages occupées
+ * et sa table de pages, au plus 4 à 8 Mio pour un /0 au lieu de 512 Mio.
+ * Le bitmap d'un sous-réseau est construit à sa première allocation à partir
+ * des bitmaps de statut, puis tenu à jour après chaque changement de statut
+ * validé. Les adresses à prendre sont choisies par une
+ * stratégie d'attribution (AllocationStrategy). La base reste l'arbitre : une
+ * adresse prise ici n'est attribuée que si l'UPDATE conditionnel réussit,
+ * sinon elle reste marquée occupée et l'allocation passe à la suivante.
+ * Chaque bitmap est protégé par le verrou de son sous-réseau (SubnetLocks) :
+ * les allocations dans des sous-réseaux différents ne s'attendent pas.
+ */
+public final class FreeSpace {
+    private static final Logger logger = LoggerFactory.getLogger(FreeSpace.class);
+
+    private static final FreeSpace INSTANCE = new FreeSpace();
+
+    private final Map<Long, FreeBitmap> subnets = new ConcurrentHashMap<>();
+    private final IPStatusBitmapDAO statusBitmapDAO = new IPStatusBitmapDAO();
+
+    private FreeSpace() {}
+
+    public static FreeSpace getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Prend une adresse libre du sous-réseau, choisie par la stratégie
+     *
+     * @return l'adresse réservée en mémoire, -1 si le sous-réseau est plein
+     */
+    public long take(Subnet subnet, AllocationStrategy strategy) throws SQLException {
+        Lock lock = SubnetLocks.forSubnet(subnet.getId());
+        lock.lock();
+        try {
+            FreeBitmap free = load(subnet);
+            long address = strategy.select(free, 1);
+            if (address >= 0) {
+                free.take(address, 1);
+            }
+            return address;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prend count adresses libres du sous-réseau choisies par la stratégie :
+     * une suite de count adresses consécutives si contiguous, sinon count
+     * adresses choisies une à une
+     *
+     * @return les adresses réservées en mémoire, par ordre croissant, null si
+     *         le sous-réseau n'a pas assez de place
+     */
+    public long[] takeBlock(Subnet subnet, int count, boolean contiguous, AllocationStrategy strategy)
+            throws SQLException {
+        Lock lock = SubnetLocks.forSubnet(subnet.getId());
+        lock.lock();
+        try {
+            FreeBitmap free = load(subnet);
+            if (count > free.getFreeCount()) {
+                return null;
+            }
+            long[] taken = new long[count];
+            if (contiguous) {
+                long start = strategy.select(free, count);
+                if (start < 0) {
+                    return null;
+                }
+                free.take(start, count);
+                for (int i = 0; i < count; i++) {
+                    taken[i] = start + i;
+                }
+                return taken;
+            }
+            for (int i = 0; i < count; i++) {
+                taken[i] = strategy.select(free, 1);
+                free.take(taken[i], 1);
+            }
+            Arrays.sort(taken);
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marque une adresse occupée (sans effet si le sous-réseau n'est pas chargé)
+     */
+    public void markUsed(Long subnetId, long ipNum) {
+        Lock lock = SubnetLocks.forSubnet(subnetId);
+        lock.lock();
+        try {
+            FreeBitmap free = subnets.get(subnetId);
+            if (free != null) {
+                free.markUsed(ipNum);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marque une adresse libre (sans effet si le sous-réseau n'est pas chargé)
+     */
+    public void markFree(Long subnetId, long ipNum) {
+        Lock lock = SubnetLocks.forSubnet(subnetId);
+        lock.lock();
+        try {
+            FreeBitmap free = subnets.get(subnetId);
+            if (free != null) {
+                free.markFree(ipNum);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rend des adresses au bitmap (sans effet si le sous-réseau n'est pas chargé)
+     */
+    public void markFree(Long subnetId, long[] ipNums) {
+        Lock lock = SubnetLocks.forSubnet(subnetId);
+        lock.lock();
+        try {
+            FreeBitmap free = subnets.get(subnetId);
+            if (free != null) {
+                for (long ipNum : ipNums) {
+                    free.markFree(ipNum);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Oublie le bitmap d'un sous-réseau (reconstruit à la prochaine allocation),
+     * par ex. après sa suppression ou un changement de préfixe
+     */
+    public void forget(Long subnetId) {
+        Lock lock = SubnetLocks.forSubnet(subnetId);
+        lock.lock();
+        try {
+            subnets.remove(subnetId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Oublie tous les bitmaps, par ex. après une réinitialisation de la base
+     */
+    public void clear() {
+        for (Long subnetId : subnets.keySet()) {
+            forget(subnetId);
+        }
+    }
+
+    /**
+     * Nombre d'adresses encore libres dans le sous-réseau
+     */
+    public long getFreeCount(Subnet subnet) throws SQLException {
+        Lock lock = SubnetLocks.forSubnet(subnet.getId());
+        lock.lock();
+        try {
+            return load(subnet).getFreeCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Appelée sous le verrou du sous-réseau
+    private FreeBitmap load(Subnet subnet) throws SQLException {
+        FreeBitmap free = subnets.get(subnet.getId());
+        if (free == null) {
+            Ipv4Prefix prefix = subnet.getPrefix();
+            free = statusBitmapDAO.loadFreeBitmap(subnet.getId(), prefix.firstUsable(), prefix.lastUsable());
+            subnets.put(subnet.getId(), free);
+            logger.debug("Adresses libres du sous-réseau {} chargées: {}", subnet.getNetworkCidr(), free.getFreeCount());
+        }
+        return free;
+    }
+}
@@ -2,29 +2,60 @@ package com.ipam.service;
 
 import com.ipam.dao.AuditLogDAO;
 import com.ipam.dao.IPAddressDAO;
+import com.ipam.dao.ReservationDAO;
+import com.ipam.dao.SubnetDAO;
+import com.ipam.dao.SubnetUsageDAO;
 import com.ipam.model.AuditLog;
 import com.ipam.model.IPAddress;
 import com.ipam.model.IPStatus;
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Ipv6Address;
+import com.ipam.model.Reservation;
+import com.ipam.model.Subnet;
+import com.ipam.model.SubnetUsage;
+import com.ipam.util.AllocationStrategy;
+import com.ipam.util.AuthManager;
+import com.ipam.util.DatabaseManager;
 import com.ipam.util.IPCalculator;
+import com.ipam.util.LongLongHashMap;
+import com.ipam.util.SqlWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Service pour la gestion des adresses IP
  */
 public class IPAddressService {
     private static final Logger logger = LoggerFactory.getLogger(IPAddressService.class);
+
+    // Tentatives d'attribution automatique IPv6 face aux appels concurrents
+    private static final int MAX_ASSIGN_ATTEMPTS = 8;
+
+    // Tentatives d'attribution par bloc (la seconde après rechargement du bitmap)
+    private static final int MAX_BLOCK_ATTEMPTS = 2;
     
     private final IPAddressDAO ipAddressDAO;
     private final AuditLogDAO auditLogDAO;
+    private final SubnetDAO subnetDAO;
+    private final ReservationDAO reservationDAO;
+    private final SubnetUsageDAO usageDAO;
 
     public IPAddressService() {
         this.ipAddressDAO = new IPAddressDAO();
         this.auditLogDAO = new AuditLogDAO();
+        this.subnetDAO = new SubnetDAO();
+        this.reservationDAO = new ReservationDAO();
+        this.usageDAO = new SubnetUsageDAO();
     }
 
     /**
@@ -41,6 +72,21 @@ public class IPAddressService {
         return ipAddressDAO.findBySubnetId(subnetId);
     }
 
+    /**
+     * Récupère une page des IPs d'un sous-réseau
+     */
+    public List<IPAddress> getIPsBySubnet(Long subnetId, long offset, int limit) throws SQLException {
+        return ipAddressDAO.findBySubnetId(subnetId, offset, limit);
+    }
+
+    /**
+     * Renvoie l'ID d'une IP, en créant sa ligne si elle a été synthétisée
+     * (adresse disponible d'un sous-réseau creux)
+     */
+    public Long materialize(IPAddress ipAddress) throws SQLException {
+        return ipAddressDAO.materialize(ipAddress);
+    }
+
     /**
      * Récupère une IP par son adresse
      */
@@ -53,19 +99,26 @@ public class IPAddressService {
      */
     public void assignIP(Long ipId, String assignedTo, String macAddress, String description) 
             throws SQLException {
+        assignIP(ipId, assignedTo, macAddress, description, null);
+    }
+
+    /**
+     * Assigne une adresse IP avec un bail : l'adresse est libérée
+     * automatiquement à son expiration, sauf renouvellement (renewLease)
+     *
+     * @param leaseDuration durée du bail, null pour une attribution sans limite
+     */
+    public void assignIP(Long ipId, String assignedTo, String macAddress, String description,
+                         Duration leaseDuration) throws SQLException {
+        if (leaseDuration != null && (leaseDuration.isZero() || leaseDuration.isNegative())) {
+            throw new IllegalArgumentException("La durée du bail doit être positive");
+        }
         
         IPAddress ipAddress = ipAddressDAO.findById(ipId);
         if (ipAddress == null) {
             throw new IllegalArgumentException("Adresse IP introuvable");
         }
 
-        if (ipAddress.getStatus() != IPStatus.AVAILABLE) {
-            throw new IllegalStateException(
-                String.format("L'IP %s n'est pas disponible (statut: %s)", 
-                    ipAddress.getIpAddress(), ipAddress.getStatus())
-            );
-        }
-
         // Validation de l'adresse MAC
         if (macAddress != null && !macAddress.isEmpty()) {
             if (!IPCalculator.isValidMAC(macAddress)) {
@@ -74,23 +127,54 @@ public class IPAddressService {
             macAddress = IPCalculator.formatMAC(macAddress);
         }
 
-        // Vérifier qu'il n'y a pas de conflit MAC
-        if (macAddress != null && !macAddress.isEmpty()) {
-            checkMACConflict(macAddress, ipId);
-        }
-
-        // Mettre à jour l'IP
-        ipAddress.setStatus(IPStatus.ASSIGNED);
-        ipAddress.setAssignedTo(assignedTo);
-        ipAddress.setMacAddress(macAddress);
-        ipAddress.setDescription(description);
-        ipAddress.setAssignedDate(LocalDateTime.now());
+        Lock lock = SubnetLocks.forSubnet(ipAddress.getSubnetId());
+        lock.lock();
+        try {
+            if (ipAddress.getStatus() != IPStatus.AVAILABLE) {
+                throw new IllegalStateException(
+                    String.format("L'IP %s n'est pas disponible (statut: %s)", 
+                        ipAddress.getIpAddress(), ipAddress.getStatus())
+                );
+            }
 
-        ipAddressDAO.update(ipAddress);
+            // Vérifier qu'il n'y a pas de conflit MAC
+            if (macAddress != null && !macAddress.isEmpty()) {
+                checkMACConflict(IPCalculator.parseMAC(macAddress), ipId);
+            }
 
-        // Audit log
-        auditLogDAO.create(new AuditLog("ASSIGN", "IP", ipId, 
-            String.format("IP %s assignée à %s", ipAddress.getIpAddress(), assignedTo)));
+            // Mettre à jour l'IP
+            long previousMac = ipAddress.getMacNum();
+            ipAddress.setStatus(IPStatus.ASSIGNED);
+            ipAddress.setAssignedTo(assignedTo);
+            ipAddress.setMacAddress(macAddress);
+            ipAddress.setDescription(description);
+            ipAddress.setAssignedDate(LocalDateTime.now());
+            ipAddress.setLeaseExpires(leaseDuration != null ? ipAddress.getAssignedDate().plus(leaseDuration) : null);
+
+            // Mise à jour conditionnelle et audit dans la même transaction
+            boolean assigned = writeAssignment(conn -> {
+                if (!ipAddressDAO.updateIfStatus(ipAddress, IPStatus.AVAILABLE)) {
+                    return false;
+                }
+                String details = String.format("IP %s assignée à %s", ipAddress.getIpAddress(), assignedTo);
+                if (ipAddress.getLeaseExpires() != null) {
+                    details += String.format(" (bail jusqu'au %s)", ipAddress.getLeaseExpires());
+                }
+                auditLogDAO.create(new AuditLog("ASSIGN", "IP", ipId, details));
+                return true;
+            });
+            if (!assigned) {
+                throw new IllegalStateException(
+                    String.format("L'IP %s vient d'être prise par une autre opération", ipAddress.getIpAddress()));
+            }
+            updateMacIndex(ipId, previousMac, ipAddress.getMacNum());
+            updateFreeSpace(ipAddress);
+            if (ipAddress.getLeaseExpires() != null) {
+                LeaseExpiry.getInstance().schedule(ipId, ipAddress.getLeaseExpires());
+            }
+        } finally {
+            lock.unlock();
+        }
 
         logger.info("IP {} assignée à {}", ipAddress.getIpAddress(), assignedTo);
     }
@@ -99,104 +183,540 @@ public class IPAddressService {
      * Libère une adresse IP
      */
     public void releaseIP(Long ipId) throws SQLException {
+        IPAddress found = ipAddressDAO.findById(ipId);
+        if (found == null) {
+            throw new IllegalArgumentException("Adresse IP introuvable");
+        }
+
+        Lock lock = SubnetLocks.forSubnet(found.getSubnetId());
+        lock.lock();
+        try {
+            // Relue sous le verrou : une libération suivie d'une réattribution a pu passer pendant l'attente
+            // (en mode creux, la ligne d'une adresse libérée n'existe plus)
+            IPAddress ipAddress = ipAddressDAO.findById(ipId);
+            if (ipAddress == null || ipAddress.getStatus() == IPStatus.AVAILABLE) {
+                throw new IllegalStateException("L'IP est déjà disponible");
+            }
+
+            IPStatus previousStatus = ipAddress.getStatus();
+            String previousAssignedTo = ipAddress.getAssignedTo();
+            long previousMac = ipAddress.getMacNum();
+            LocalDateTime previousAssignedDate = ipAddress.getAssignedDate();
+
+            // Réinitialiser l'IP
+            ipAddress.setStatus(IPStatus.AVAILABLE);
+            ipAddress.setAssignedTo(null);
+            ipAddress.setMacAddress(null);
+            ipAddress.setDescription(null);
+            ipAddress.setAssignedDate(null);
+            ipAddress.setLeaseExpires(null);
+
+            boolean released = DatabaseManager.write(conn -> {
+                if (!saveReleased(ipAddress, previousStatus, previousAssignedDate)) {
+                    return false;
+                }
+                if (previousStatus == IPStatus.RESERVED) {
+                    reservationDAO.deleteByIpAddressId(ipId);
+                }
+                auditLogDAO.create(new AuditLog("RELEASE", "IP", ipId, 
+                    String.format("IP %s libérée (était assignée à %s)", 
+                        ipAddress.getIpAddress(), previousAssignedTo)));
+                return true;
+            });
+            if (!released) {
+                throw new IllegalStateException(
+                    String.format("L'IP %s a changé de statut entre-temps", ipAddress.getIpAddress()));
+            }
+            updateMacIndex(ipId, previousMac, IPAddress.NO_MAC);
+            updateFreeSpace(ipAddress);
+        } finally {
+            lock.unlock();
+        }
+
+        logger.info("IP {} libérée", found.getIpAddress());
+    }
+
+    /**
+     * Réserve une adresse IP sans échéance, au nom de l'utilisateur connecté
+     */
+    public void reserveIP(Long ipId, String description) throws SQLException {
+        String reservedBy = AuthManager.getCurrentUser() != null
+            ? AuthManager.getCurrentUser() : System.getProperty("user.name");
+        reserveIP(ipId, reservedBy, description, null);
+    }
+
+    /**
+     * Réserve une adresse IP : l'adresse et sa réservation sont enregistrées
+     * dans la même transaction. Une réservation échue est retirée
+     * automatiquement (ReservationExpiry).
+     *
+     * @param expirationDate échéance de la réservation, null pour une réservation sans limite
+     * @return la réservation enregistrée
+     */
+    public Reservation reserveIP(Long ipId, String reservedBy, String reason, LocalDateTime expirationDate)
+            throws SQLException {
+        if (reservedBy == null || reservedBy.isBlank()) {
+            throw new IllegalArgumentException("L'auteur de la réservation est obligatoire");
+        }
+        if (expirationDate != null && !expirationDate.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("L'échéance de la réservation doit être dans le futur");
+        }
+
         IPAddress ipAddress = ipAddressDAO.findById(ipId);
         if (ipAddress == null) {
             throw new IllegalArgumentException("Adresse IP introuvable");
         }
 
-        if (ipAddress.getStatus() == IPStatus.AVAILABLE) {
-            throw new IllegalStateException("L'IP est déjà disponible");
+        Reservation reservation = new Reservation(ipId, reservedBy, reason, expirationDate);
+        reservation.setIpAddress(ipAddress.getIpAddress());
+
+        Lock lock = SubnetLocks.forSubnet(ipAddress.getSubnetId());
+        lock.lock();
+        try {
+            if (ipAddress.getStatus() != IPStatus.AVAILABLE) {
+                throw new IllegalStateException(
+                    String.format("L'IP %s n'est pas disponible (statut: %s)", 
+                        ipAddress.getIpAddress(), ipAddress.getStatus())
+                );
+            }
+
+            ipAddress.setStatus(IPStatus.RESERVED);
+
+            boolean reserved = DatabaseManager.write(conn -> {
+                if (!ipAddressDAO.updateIfStatus(ipAddress, IPStatus.AVAILABLE)) {
+                    return false;
+                }
+                reservationDAO.save(reservation);
+                String details = String.format("IP %s réservée par %s: %s", ipAddress.getIpAddress(), reservedBy, reason);
+                if (expirationDate != null) {
+                    details += String.format(" (jusqu'au %s)", expirationDate);
+                }
+                auditLogDAO.create(new AuditLog("RESERVE", "IP", ipId, details));
+                return true;
+            });
+            if (!reserved) {
+                throw new IllegalStateException(
+                    String.format("L'IP %s vient d'être prise par une autre opération", ipAddress.getIpAddress()));
+            }
+            updateFreeSpace(ipAddress);
+        } finally {
+            lock.unlock();
         }
 
-        String previousAssignedTo = ipAddress.getAssignedTo();
+        logger.info("IP {} réservée", ipAddress.getIpAddress());
+        return reservation;
+    }
 
-        // Réinitialiser l'IP
-        ipAddress.setStatus(IPStatus.AVAILABLE);
-        ipAddress.setAssignedTo(null);
-        ipAddress.setMacAddress(null);
-        ipAddress.setDescription(null);
-        ipAddress.setAssignedDate(null);
+    /**
+     * Retire une réservation
+     */
+    public void unreserveIP(Long ipId) throws SQLException {
+        IPAddress found = ipAddressDAO.findById(ipId);
+        if (found == null) {
+            throw new IllegalArgumentException("Adresse IP introuvable");
+        }
 
-        ipAddressDAO.update(ipAddress);
+        Lock lock = SubnetLocks.forSubnet(found.getSubnetId());
+        lock.lock();
+        try {
+            IPAddress ipAddress = ipAddressDAO.findById(ipId);
+            if (ipAddress == null || ipAddress.getStatus() != IPStatus.RESERVED) {
+                throw new IllegalStateException("L'IP n'est pas réservée");
+            }
 
-        // Audit log
-        auditLogDAO.create(new AuditLog("RELEASE", "IP", ipId, 
-            String.format("IP %s libérée (était assignée à %s)", 
-                ipAddress.getIpAddress(), previousAssignedTo)));
+            ipAddress.setStatus(IPStatus.AVAILABLE);
+            ipAddress.setDescription(null);
+
+            boolean unreserved = DatabaseManager.write(conn -> {
+                if (!saveReleased(ipAddress, IPStatus.RESERVED, ipAddress.getAssignedDate())) {
+                    return false;
+                }
+                reservationDAO.deleteByIpAddressId(ipId);
+                auditLogDAO.create(new AuditLog("UNRESERVE", "IP", ipId, 
+                    String.format("Réservation de l'IP %s retirée", ipAddress.getIpAddress())));
+                return true;
+            });
+            if (!unreserved) {
+                throw new IllegalStateException(
+                    String.format("L'IP %s a changé de statut entre-temps", ipAddress.getIpAddress()));
+            }
+            updateFreeSpace(ipAddress);
+        } finally {
+            lock.unlock();
+        }
 
-        logger.info("IP {} libérée", ipAddress.getIpAddress());
+        logger.info("Réservation de l'IP {} retirée", found.getIpAddress());
     }
 
     /**
-     * Réserve une adresse IP
+     * Prolonge le bail d'une adresse attribuée : il expire leaseDuration après maintenant
      */
-    public void reserveIP(Long ipId, String description) throws SQLException {
+    public void renewLease(Long ipId, Duration leaseDuration) throws SQLException {
+        if (leaseDuration == null || leaseDuration.isZero() || leaseDuration.isNegative()) {
+            throw new IllegalArgumentException("La durée du bail doit être positive");
+        }
         IPAddress ipAddress = ipAddressDAO.findById(ipId);
         if (ipAddress == null) {
             throw new IllegalArgumentException("Adresse IP introuvable");
         }
 
-        if (ipAddress.getStatus() != IPStatus.AVAILABLE) {
+        LocalDateTime leaseExpires = LocalDateTime.now().plus(leaseDuration);
+        boolean renewed = DatabaseManager.write(conn -> {
+            if (!ipAddressDAO.renewLease(ipId, leaseExpires)) {
+                return false;
+            }
+            auditLogDAO.create(new AuditLog("RENEW", "IP", ipId, 
+                String.format("Bail de l'IP %s prolongé jusqu'au %s", ipAddress.getIpAddress(), leaseExpires)));
+            return true;
+        });
+        if (!renewed) {
             throw new IllegalStateException(
-                String.format("L'IP %s n'est pas disponible (statut: %s)", 
-                    ipAddress.getIpAddress(), ipAddress.getStatus())
-            );
+                String.format("L'IP %s n'a pas de bail en cours", ipAddress.getIpAddress()));
         }
+        LeaseExpiry.getInstance().schedule(ipId, leaseExpires);
 
-        ipAddress.setStatus(IPStatus.RESERVED);
-        ipAddress.setDescription(description);
-
-        ipAddressDAO.update(ipAddress);
-
-        // Audit log
-        auditLogDAO.create(new AuditLog("RESERVE", "IP", ipId, 
-            String.format("IP %s réservée: %s", ipAddress.getIpAddress(), description)));
-
-        logger.info("IP {} réservée", ipAddress.getIpAddress());
+        logger.info("Bail de l'IP {} prolongé jusqu'au {}", ipAddress.getIpAddress(), leaseExpires);
     }
 
     /**
-     * Retire une réservation
+     * Fait expirer sans attendre le bail d'une adresse attribuée, qui redevient disponible
      */
-    public void unreserveIP(Long ipId) throws SQLException {
+    public void expireLease(Long ipId) throws SQLException {
         IPAddress ipAddress = ipAddressDAO.findById(ipId);
         if (ipAddress == null) {
             throw new IllegalArgumentException("Adresse IP introuvable");
         }
-
-        if (ipAddress.getStatus() != IPStatus.RESERVED) {
-            throw new IllegalStateException("L'IP n'est pas réservée");
+        if (expireLeases(new long[] {ipId}, null) == 0) {
+            throw new IllegalStateException(
+                String.format("L'IP %s n'a pas de bail en cours", ipAddress.getIpAddress()));
         }
+        LeaseExpiry.getInstance().cancel(ipId);
+    }
+
+    /**
+     * Libère en une transaction celles des adresses demandées dont le bail est
+     * échu (appelée par LeaseExpiry, par lots), avec une entrée d'audit par
+     * sous-réseau
+     *
+     * @return le nombre d'adresses libérées
+     */
+    public int expireLeases(long[] ipIds) throws SQLException {
+        return expireLeases(ipIds, LocalDateTime.now());
+    }
+
+    private int expireLeases(long[] ipIds, LocalDateTime cutoff) throws SQLException {
+        List<IPAddress> expired = DatabaseManager.write(conn -> {
+            List<IPAddress> released = ipAddressDAO.expireLeases(ipIds, cutoff);
+            Map<Long, List<IPAddress>> bySubnet = new HashMap<>();
+            for (IPAddress ipAddress : released) {
+                bySubnet.computeIfAbsent(ipAddress.getSubnetId(), k -> new ArrayList<>()).add(ipAddress);
+            }
+            for (Map.Entry<Long, List<IPAddress>> entry : bySubnet.entrySet()) {
+                List<IPAddress> addresses = entry.getValue();
+                String details = addresses.size() == 1
+                    ? String.format("Bail de l'IP %s expiré (était assignée à %s)",
+                        addresses.get(0).getIpAddress(), addresses.get(0).getAssignedTo())
+                    : String.format("%d baux expirés (%s ... %s)", addresses.size(),
+                        addresses.get(0).getIpAddress(), addresses.get(addresses.size() - 1).getIpAddress());
+                auditLogDAO.create(new AuditLog("EXPIRE", "SUBNET", entry.getKey(), details));
+            }
+            return released;
+        });
 
-        ipAddress.setStatus(IPStatus.AVAILABLE);
-        ipAddress.setDescription(null);
+        for (IPAddress ipAddress : expired) {
+            updateMacIndex(ipAddress.getId(), ipAddress.getMacNum(), IPAddress.NO_MAC);
+            ipAddress.setStatus(IPStatus.AVAILABLE);
+            updateFreeSpace(ipAddress);
+        }
+        return expired.size();
+    }
 
-        ipAddressDAO.update(ipAddress);
+    /**
+     * Retire en une transaction au plus limit réservations échues, les plus
+     * anciennes d'abord : leurs adresses encore réservées redeviennent
+     * disponibles, avec une entrée d'audit par sous-réseau (appelée par
+     * ReservationExpiry)
+     *
+     * @return le nombre de réservations retirées
+     */
+    public int expireReservations(int limit) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        List<IPAddress> released = new ArrayList<>();
+        int expired = DatabaseManager.write(conn -> {
+            List<Reservation> due = reservationDAO.findExpired(now, limit);
+            if (due.isEmpty()) {
+                return 0;
+            }
+            long[] ipIds = due.stream().mapToLong(Reservation::getIpAddressId).sorted().toArray();
+            released.addAll(ipAddressDAO.releaseReserved(ipIds));
+            // Les réservations d'adresses qui ne sont plus réservées sont retirées aussi
+            reservationDAO.deleteAll(due);
+
+            Map<Long, List<IPAddress>> bySubnet = new HashMap<>();
+            for (IPAddress ipAddress : released) {
+                bySubnet.computeIfAbsent(ipAddress.getSubnetId(), k -> new ArrayList<>()).add(ipAddress);
+            }
+            for (Map.Entry<Long, List<IPAddress>> entry : bySubnet.entrySet()) {
+                List<IPAddress> addresses = entry.getValue();
+                String details = addresses.size() == 1
+                    ? String.format("Réservation de l'IP %s expirée", addresses.get(0).getIpAddress())
+                    : String.format("%d réservations expirées (%s ... %s)", addresses.size(),
+                        addresses.get(0).getIpAddress(), addresses.get(addresses.size() - 1).getIpAddress());
+                auditLogDAO.create(new AuditLog("EXPIRE", "SUBNET", entry.getKey(), details));
+            }
+            return due.size();
+        });
 
-        // Audit log
-        auditLogDAO.create(new AuditLog("UNRESERVE", "IP", ipId, 
-            String.format("Réservation de l'IP %s retirée", ipAddress.getIpAddress())));
+        for (IPAddress ipAddress : released) {
+            ipAddress.setStatus(IPStatus.AVAILABLE);
+            updateFreeSpace(ipAddress);
+        }
+        return expired;
+    }
 
-        logger.info("Réservation de l'IP {} retirée", ipAddress.getIpAddress());
+    /**
+     * Enregistre une IP redevenue disponible si son statut et sa date
+     * d'attribution en base sont encore ceux lus sous le verrou (les
+     * expirations et les attributions automatiques ne le prennent pas) ; en
+     * mode creux sa ligne est supprimée
+     *
+     * @return false si l'adresse a changé entre-temps
+     */
+    private boolean saveReleased(IPAddress ipAddress, IPStatus expected, LocalDateTime assignedDate)
+            throws SQLException {
+        Subnet subnet = subnetDAO.findById(ipAddress.getSubnetId());
+        if (subnet != null && subnet.isSparse()) {
+            return ipAddressDAO.deleteIfUnchanged(ipAddress.getId(), expected, assignedDate);
+        }
+        return ipAddressDAO.updateIfUnchanged(ipAddress, expected, assignedDate);
     }
 
+
     /**
      * Attribue automatiquement la première IP disponible
      */
     public IPAddress assignFirstAvailableIP(Long subnetId, String assignedTo, 
                                            String macAddress, String description) 
             throws SQLException {
+        return assignAvailableIP(subnetId, AllocationStrategy.FIRST_FIT, assignedTo, macAddress, description);
+    }
+
+    /**
+     * Attribue automatiquement une IP disponible choisie par la stratégie
+     * (IPv4 ; en IPv6, toujours la première adresse disponible)
+     */
+    public IPAddress assignAvailableIP(Long subnetId, AllocationStrategy strategy, String assignedTo,
+                                      String macAddress, String description) throws SQLException {
         
-        List<IPAddress> availableIPs = ipAddressDAO.findAvailableBySubnet(subnetId);
-        
-        if (availableIPs.isEmpty()) {
-            throw new IllegalStateException("Aucune adresse IP disponible dans ce sous-réseau");
+        Subnet subnet = subnetDAO.findById(subnetId);
+        if (subnet == null) {
+            throw new IllegalArgumentException("Sous-réseau introuvable");
         }
 
-        IPAddress firstAvailable = availableIPs.get(0);
-        assignIP(firstAvailable.getId(), assignedTo, macAddress, description);
-        
-        return ipAddressDAO.findById(firstAvailable.getId());
+        if (subnet.isIpv6()) {
+            for (int attempt = 1; ; attempt++) {
+                // Plus petite adresse absente de la table, trouvée entre les lignes stockées
+                List<IPAddress> free = ipAddressDAO.findAvailableBySubnet(subnetId, 0, 1);
+                if (free.isEmpty()) {
+                    throw new IllegalStateException("Aucune adresse IP disponible dans ce sous-réseau");
+                }
+                Long ipId = ipAddressDAO.materialize(free.get(0));
+                try {
+                    assignIP(ipId, assignedTo, macAddress, description);
+                    return ipAddressDAO.findById(ipId);
+                } catch (IllegalStateException e) {
+                    // Prise par un appel concurrent : nouvelle recherche
+                    if (attempt == MAX_ASSIGN_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        long macNum = IPAddress.NO_MAC;
+        if (macAddress != null && !macAddress.isEmpty()) {
+            macNum = IPCalculator.parseMAC(macAddress);
+            if (macNum < 0) {
+                throw new IllegalArgumentException("Adresse MAC invalide");
+            }
+            checkMACConflict(macNum, null);
+        }
+
+        // Choix dans le bitmap des adresses libres en mémoire, puis UPDATE conditionnel
+        FreeSpace space = FreeSpace.getInstance();
+        for (int attempt = 1; ; attempt++) {
+            long freeNum = space.take(subnet, strategy);
+            if (freeNum < 0) {
+                throw new IllegalStateException("Aucune adresse IP disponible dans ce sous-réseau");
+            }
+
+            IPAddress ipAddress = new IPAddress(IPCalculator.longToIp(freeNum), subnetId);
+            ipAddress.setStatus(IPStatus.ASSIGNED);
+            ipAddress.setAssignedTo(assignedTo);
+            ipAddress.setMacNum(macNum);
+            ipAddress.setDescription(description);
+            ipAddress.setAssignedDate(LocalDateTime.now());
+            ipAddress.setSubnetName(subnet.getNetworkCidr());
+
+            Long ipId;
+            try {
+                ipId = writeAssignment(conn -> {
+                    Long id = ipAddressDAO.claimAvailable(ipAddress);
+                    if (id != null) {
+                        auditLogDAO.create(new AuditLog("ASSIGN", "IP", id, 
+                            String.format("IP %s assignée à %s", ipAddress.getIpAddress(), assignedTo)));
+                    }
+                    return id;
+                });
+            } catch (SQLException | RuntimeException e) {
+                space.markFree(subnetId, freeNum);
+                throw e;
+            }
+
+            if (ipId != null) {
+                updateMacIndex(ipId, IPAddress.NO_MAC, macNum);
+                logger.info("IP {} assignée à {}", ipAddress.getIpAddress(), assignedTo);
+                return ipAddress;
+            }
+            // Prise entre-temps hors de ce bitmap (autre processus) : il est rechargé depuis la base
+            space.forget(subnetId);
+            if (attempt == MAX_ASSIGN_ATTEMPTS) {
+                throw new IllegalStateException(String.format(
+                    "Aucune IP attribuée dans %s : adresses prises entre-temps", subnet.getNetworkCidr()));
+            }
+            logger.debug("IP {} déjà prise, adresse suivante", ipAddress.getIpAddress());
+        }
+    }
+
+    /**
+     * Attribue d'un seul appel un bloc de count adresses IPv4 d'un sous-réseau
+     * (mise en service d'une baie), en prenant les premières adresses libres
+     */
+    public List<IPAddress> assignBlock(Long subnetId, int count, boolean contiguous, List<String> assignees)
+            throws SQLException {
+        return assignBlock(subnetId, count, contiguous, AllocationStrategy.FIRST_FIT, assignees);
+    }
+
+    /**
+     * Attribue d'un seul appel un bloc de count adresses IPv4 d'un sous-réseau
+     * (mise en service d'une baie) : le bloc est choisi par la stratégie dans
+     * le bitmap des adresses libres, toutes les lignes sont écrites par lots
+     * dans une même transaction et une seule entrée d'audit résume le bloc.
+     *
+     * @param contiguous exiger count adresses consécutives
+     * @param assignees un attributaire pour tout le bloc, ou un par adresse
+     * @return les adresses attribuées, par ordre croissant
+     */
+    public List<IPAddress> assignBlock(Long subnetId, int count, boolean contiguous, AllocationStrategy strategy,
+                                       List<String> assignees) throws SQLException {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Le nombre d'adresses doit être positif");
+        }
+        if (assignees == null || (assignees.size() != 1 && assignees.size() != count)) {
+            throw new IllegalArgumentException("Il faut un attributaire pour tout le bloc ou un par adresse");
+        }
+        for (String assignedTo : assignees) {
+            if (assignedTo == null || assignedTo.trim().isEmpty()) {
+                throw new IllegalArgumentException("Le champ 'Assigné à' est obligatoire");
+            }
+        }
+
+        Subnet subnet = subnetDAO.findById(subnetId);
+        if (subnet == null) {
+            throw new IllegalArgumentException("Sous-réseau introuvable");
+        }
+        if (subnet.isIpv6()) {
+            throw new IllegalArgumentException("L'attribution par bloc est réservée aux sous-réseaux IPv4");
+        }
+
+        FreeSpace space = FreeSpace.getInstance();
+        for (int attempt = 1; ; attempt++) {
+            long[] ipNums = space.takeBlock(subnet, count, contiguous, strategy);
+            if (ipNums == null) {
+                throw new IllegalStateException(contiguous
+                    ? String.format("Aucune suite de %d adresses consécutives disponible dans ce sous-réseau", count)
+                    : String.format("Moins de %d adresses disponibles dans ce sous-réseau", count));
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            List<IPAddress> block = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                IPAddress ipAddress = new IPAddress(IPCalculator.longToIp(ipNums[i]), subnetId);
+                ipAddress.setStatus(IPStatus.ASSIGNED);
+                ipAddress.setAssignedTo(assignees.get(assignees.size() == 1 ? 0 : i));
+                ipAddress.setAssignedDate(now);
+                ipAddress.setSubnetName(subnet.getNetworkCidr());
+                block.add(ipAddress);
+            }
+            String details = String.format("%d IP assignées (%s - %s) %s", count,
+                block.get(0).getIpAddress(), block.get(count - 1).getIpAddress(),
+                assignees.size() == 1 ? "à " + assignees.get(0) : "à " + count + " attributaires");
+
+            try {
+                DatabaseManager.write(conn -> {
+                    ipAddressDAO.claimAvailableBlock(block);
+                    auditLogDAO.create(new AuditLog("ASSIGN_BLOCK", "SUBNET", subnetId, details));
+                    return null;
+                });
+            } catch (IllegalStateException e) {
+                // Une adresse a été prise hors de ce bitmap : il est rechargé depuis la base
+                space.forget(subnetId);
+                if (attempt == MAX_BLOCK_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Bloc de {} IP dans {} pris en partie entre-temps, nouvel essai",
+                    count, subnet.getNetworkCidr());
+                continue;
+            } catch (SQLException | RuntimeException e) {
+                space.markFree(subnetId, ipNums);
+                throw e;
+            }
+
+            logger.info("Bloc de {} IP assigné dans {} ({} - {})", count, subnet.getNetworkCidr(),
+                block.get(0).getIpAddress(), block.get(count - 1).getIpAddress());
+            return block;
+        }
+    }
+
+    /**
+     * Attribue une adresse précise d'un sous-réseau (IPv4 ou IPv6), en créant
+     * sa ligne si elle n'est pas stockée
+     */
+    public IPAddress assignAddress(Long subnetId, String address, String assignedTo,
+                                   String macAddress, String description) throws SQLException {
+        Subnet subnet = subnetDAO.findById(subnetId);
+        if (subnet == null) {
+            throw new IllegalArgumentException("Sous-réseau introuvable");
+        }
+
+        String canonical;
+        if (subnet.isIpv6()) {
+            if (!IPCalculator.isValidIPv6(address)) {
+                throw new IllegalArgumentException("Adresse IPv6 invalide");
+            }
+            Ipv6Address ipv6 = Ipv6Address.parse(address);
+            if (!subnet.getIpv6Prefix().contains(ipv6)) {
+                throw new IllegalArgumentException("L'adresse doit appartenir au sous-réseau");
+            }
+            canonical = ipv6.toString();
+        } else {
+            if (!IPCalculator.isValidIP(address)) {
+                throw new IllegalArgumentException("Adresse IP invalide");
+            }
+            if (!subnet.getPrefix().contains(IPCalculator.ipToLong(address))) {
+                throw new IllegalArgumentException("L'adresse doit appartenir au sous-réseau");
+            }
+            canonical = IPCalculator.longToIp(IPCalculator.ipToLong(address));
+        }
+
+        IPAddress ipAddress = ipAddressDAO.findByIpAddress(canonical);
+        if (ipAddress == null) {
+            ipAddress = new IPAddress(canonical, subnetId);
+        }
+        Long ipId = ipAddressDAO.materialize(ipAddress);
+        assignIP(ipId, assignedTo, macAddress, description);
+
+        return ipAddressDAO.findById(ipId);
     }
 
     /**
@@ -207,66 +727,148 @@ public class IPAddressService {
     }
 
     /**
-     * Vérifie les conflits d'adresse MAC
+     * Vérifie les conflits d'adresse MAC : une recherche dans l'index en
+     * mémoire, la base n'est lue qu'en cas de conflit apparent
      */
-    private void checkMACConflict(String macAddress, Long excludeIpId) throws SQLException {
-        List<IPAddress> allIPs = ipAddressDAO.findAll();
-        
-        for (IPAddress ip : allIPs) {
-            if (!ip.getId().equals(excludeIpId) && 
-                macAddress.equalsIgnoreCase(ip.getMacAddress())) {
+    private void checkMACConflict(long macNum, Long excludeIpId) throws SQLException {
+        MacIndex index = MacIndex.getInstance();
+        Long ownerId = index.findOwner(macNum);
+        if (ownerId == null || ownerId.equals(excludeIpId)) {
+            return;
+        }
+        IPAddress owner = ipAddressDAO.findById(ownerId);
+        if (owner == null || owner.getMacNum() != macNum) {
+            // Entrée périmée (adresse supprimée avec son sous-réseau, par ex.)
+            index.remove(macNum, ownerId);
+            return;
+        }
+        throw new IllegalArgumentException(
+            String.format("Conflit MAC: l'adresse %s est déjà utilisée par %s (%s)", 
+                IPCalculator.formatMAC(macNum), owner.getIpAddress(), owner.getAssignedTo())
+        );
+    }
+
+    /**
+     * Vérifie en une requête les MAC d'une attribution en masse : validité,
+     * doublons dans le lot et conflits avec les adresses déjà enregistrées
+     *
+     * @param macByIpId MAC demandée (toute notation) pour chaque ID d'adresse IP
+     * @return les MAC sur 48 bits, dans le même ordre
+     */
+    public long[] checkMACConflicts(Map<Long, String> macByIpId) throws SQLException {
+        long[] macNums = new long[macByIpId.size()];
+        LongLongHashMap requested = new LongLongHashMap(macByIpId.size());
+        int i = 0;
+        for (Map.Entry<Long, String> entry : macByIpId.entrySet()) {
+            long macNum = IPCalculator.parseMAC(entry.getValue().trim());
+            if (macNum < 0) {
+                throw new IllegalArgumentException("Adresse MAC invalide: " + entry.getValue());
+            }
+            if (requested.put(macNum, entry.getKey()) != LongLongHashMap.MISSING) {
                 throw new IllegalArgumentException(
-                    String.format("Conflit MAC: l'adresse %s est déjà utilisée par %s (%s)", 
-                        macAddress, ip.getIpAddress(), ip.getAssignedTo())
-                );
+                    String.format("Conflit MAC: l'adresse %s apparaît deux fois dans le lot",
+                        IPCalculator.formatMAC(macNum)));
+            }
+            macNums[i++] = macNum;
+        }
+
+        LongLongHashMap owners = ipAddressDAO.findMacOwners(macNums);
+        for (long macNum : macNums) {
+            long ownerId = owners.get(macNum);
+            if (ownerId != LongLongHashMap.MISSING && ownerId != requested.get(macNum)) {
+                IPAddress owner = ipAddressDAO.findById(ownerId);
+                throw new IllegalArgumentException(
+                    String.format("Conflit MAC: l'adresse %s est déjà utilisée par %s (%s)",
+                        IPCalculator.formatMAC(macNum), owner.getIpAddress(), owner.getAssignedTo()));
             }
         }
+        return macNums;
+    }
+
+    /**
+     * Écriture d'une attribution : la violation de l'index unique des MAC
+     * (même MAC attribuée par un appel concurrent) devient un conflit MAC
+     */
+    private static <T> T writeAssignment(SqlWork<T> work) throws SQLException {
+        try {
+            return DatabaseManager.write(work);
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().contains("ip_addresses.mac_num")) {
+                throw new IllegalArgumentException(
+                    "Conflit MAC: l'adresse vient d'être attribuée à une autre IP", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reporte dans le bitmap des adresses libres le statut validé d'une adresse IPv4
+     */
+    private static void updateFreeSpace(IPAddress ipAddress) {
+        if (IPCalculator.isIPv6Notation(ipAddress.getIpAddress())) {
+            return;
+        }
+        long ipNum = IPCalculator.ipToLong(ipAddress.getIpAddress());
+        if (ipAddress.getStatus() == IPStatus.AVAILABLE) {
+            FreeSpace.getInstance().markFree(ipAddress.getSubnetId(), ipNum);
+        } else {
+            FreeSpace.getInstance().markUsed(ipAddress.getSubnetId(), ipNum);
+        }
+    }
+
+    /**
+     * Reporte dans l'index des MAC le changement validé d'une adresse IP
+     */
+    private static void updateMacIndex(long ipId, long previousMac, long newMac) throws SQLException {
+        if (previousMac == newMac) {
+            return;
+        }
+        MacIndex index = MacIndex.getInstance();
+        index.remove(previousMac, ipId);
+        index.put(newMac, ipId);
     }
 
     /**
      * Obtient des statistiques par statut
      */
     public IPStatistics getStatistics() throws SQLException {
-        List<IPAddress> allIPs = ipAddressDAO.findAll();
-        
-        int available = 0;
-        int assigned = 0;
-        int reserved = 0;
-        int blocked = 0;
-        
-        for (IPAddress ip : allIPs) {
-            switch (ip.getStatus()) {
-                case AVAILABLE -> available++;
-                case ASSIGNED -> assigned++;
-                case RESERVED -> reserved++;
-                case BLOCKED -> blocked++;
+        // Une lecture des compteurs par sous-réseau et statut ; les adresses
+        // disponibles ne sont comptées qu'en IPv4
+        Map<IPStatus, Long> counts = new EnumMap<>(IPStatus.class);
+        for (IPStatus status : IPStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (SubnetUsage usage : usageDAO.findAll()) {
+            for (IPStatus status : IPStatus.values()) {
+                counts.merge(status, usage.getCount(status), Long::sum);
             }
         }
         
-        return new IPStatistics(available, assigned, reserved, blocked);
+        return new IPStatistics(counts.get(IPStatus.AVAILABLE), counts.get(IPStatus.ASSIGNED),
+            counts.get(IPStatus.RESERVED), counts.get(IPStatus.BLOCKED));
     }
 
     /**
      * Classe interne pour les statistiques
      */
     public static class IPStatistics {
-        private final int available;
-        private final int assigned;
-        private final int reserved;
-        private final int blocked;
+        private final long available;
+        private final long assigned;
+        private final long reserved;
+        private final long blocked;
 
-        public IPStatistics(int available, int assigned, int reserved, int blocked) {
+        public IPStatistics(long available, long assigned, long reserved, long blocked) {
             this.available = available;
             this.assigned = assigned;
             this.reserved = reserved;
             this.blocked = blocked;
         }
 
-        public int getAvailable() { return available; }
-        public int getAssigned() { return assigned; }
-        public int getReserved() { return reserved; }
-        public int getBlocked() { return blocked; }
-        public int getTotal() { return available + assigned + reserved + blocked; }
+        public long getAvailable() { return available; }
+        public long getAssigned() { return assigned; }
+        public long getReserved() { return reserved; }
+        public long getBlocked() { return blocked; }
+        public long getTotal() { return available + assigned + reserved + blocked; }
     }
 
     /**
@@ -284,14 +886,25 @@ public class IPAddressService {
                 throw new IllegalArgumentException("Adresse MAC invalide");
             }
             ipAddress.setMacAddress(IPCalculator.formatMAC(ipAddress.getMacAddress()));
-            checkMACConflict(ipAddress.getMacAddress(), ipAddress.getId());
+            checkMACConflict(ipAddress.getMacNum(), ipAddress.getId());
         }
 
-        ipAddressDAO.update(ipAddress);
+        // Seule une adresse attribuée peut garder un bail
+        if (ipAddress.getStatus() != IPStatus.ASSIGNED) {
+            ipAddress.setLeaseExpires(null);
+        }
 
-        // Audit log
-        auditLogDAO.create(new AuditLog("UPDATE", "IP", ipAddress.getId(), 
-            String.format("IP %s mise à jour", ipAddress.getIpAddress())));
+        writeAssignment(conn -> {
+            ipAddressDAO.update(ipAddress);
+            if (existing.getStatus() == IPStatus.RESERVED && ipAddress.getStatus() != IPStatus.RESERVED) {
+                reservationDAO.deleteByIpAddressId(ipAddress.getId());
+            }
+            auditLogDAO.create(new AuditLog("UPDATE", "IP", ipAddress.getId(), 
+                String.format("IP %s mise à jour", ipAddress.getIpAddress())));
+            return null;
+        });
+        updateMacIndex(ipAddress.getId(), existing.getMacNum(), ipAddress.getMacNum());
+        updateFreeSpace(ipAddress);
 
         logger.info("IP {} mise à jour", ipAddress.getIpAddress());
     }
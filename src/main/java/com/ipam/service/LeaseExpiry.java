@@ -0,0 +1,181 @@
+package com.ipam.service;
+
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.util.LongLongHashMap;
+import com.ipam.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expiration des baux : les fins de bail sont rangées dans une roue
+ * temporelle (TimingWheel) chargée depuis la base au démarrage, puis tenue à
+ * jour à chaque attribution avec bail ou renouvellement. Chaque seconde, un
+ * thread fait avancer la roue et libère les adresses échues par lots de
+ * BATCH_SIZE, une transaction par lot : aucun balayage périodique de la
+ * table. La base reste l'arbitre : un bail renouvelé ou une adresse libérée
+ * entre-temps n'est pas touché, une échéance périmée ne coûte qu'une lecture.
+ */
+public final class LeaseExpiry {
+    private static final Logger logger = LoggerFactory.getLogger(LeaseExpiry.class);
+
+    private static final long TICK_MS = 1000;
+
+    // Adresses libérées par transaction
+    private static final int BATCH_SIZE = 500;
+
+    private static volatile LeaseExpiry instance;
+
+    private final TimingWheel wheel; // protégé par this
+    private final IPAddressService ipAddressService = new IPAddressService();
+    private final ScheduledExecutorService ticker;
+
+    private LeaseExpiry(LongLongHashMap leases) {
+        this.wheel = new TimingWheel(TICK_MS, System.currentTimeMillis());
+        // Les baux déjà échus sont libérés au premier tick
+        leases.forEach(wheel::schedule);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ipam-lease-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Expiration partagée, chargée depuis la base et démarrée au premier appel
+     */
+    public static LeaseExpiry getInstance() throws SQLException {
+        LeaseExpiry current = instance;
+        if (current != null) {
+            return current;
+        }
+        synchronized (LeaseExpiry.class) {
+            if (instance == null) {
+                LongLongHashMap leases = new IPAddressDAO().findLeaseExpirations();
+                LeaseExpiry created = new LeaseExpiry(leases);
+                logger.info("Baux chargés: {} attribution(s) à durée limitée", leases.size());
+                created.ticker.scheduleWithFixedDelay(created::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+                instance = created;
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Arrête le thread d'expiration (fermeture de l'application)
+     */
+    public static void shutdown() {
+        synchronized (LeaseExpiry.class) {
+            if (instance != null) {
+                instance.ticker.shutdownNow();
+                instance = null;
+            }
+        }
+    }
+
+    /**
+     * Recharge les baux depuis la base si l'expiration est démarrée, par ex.
+     * après une réinitialisation ; sans effet sinon
+     */
+    public static void reload() throws SQLException {
+        synchronized (LeaseExpiry.class) {
+            if (instance != null) {
+                shutdown();
+                getInstance();
+            }
+        }
+    }
+
+    /**
+     * Planifie (ou replanifie) l'expiration du bail d'une adresse
+     */
+    public synchronized void schedule(long ipId, LocalDateTime leaseExpires) {
+        wheel.schedule(ipId, leaseExpires.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Retire le bail d'une adresse de la roue
+     */
+    public synchronized void cancel(long ipId) {
+        wheel.cancel(ipId);
+    }
+
+    /**
+     * Nombre de baux en attente d'expiration
+     */
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    /**
+     * Avance la roue jusqu'à maintenant et libère les adresses échues, par lots
+     *
+     * @return le nombre d'adresses libérées
+     */
+    public int expireDue() {
+        long[] due;
+        synchronized (this) {
+            LongCollector collector = new LongCollector();
+            wheel.advance(System.currentTimeMillis(), collector::add);
+            due = collector.toArray();
+        }
+        // Lots d'IDs voisins : lignes et blocs de statut proches dans chaque transaction
+        Arrays.sort(due);
+
+        int released = 0;
+        for (int from = 0; from < due.length; from += BATCH_SIZE) {
+            long[] batch = Arrays.copyOfRange(due, from, Math.min(from + BATCH_SIZE, due.length));
+            try {
+                released += ipAddressService.expireLeases(batch);
+            } catch (SQLException | RuntimeException e) {
+                // Ce lot et les suivants sont remis à la seconde suivante
+                logger.warn("Échec de l'expiration de {} bail(s), nouvel essai: {}", due.length - from, e.getMessage());
+                long retry = System.currentTimeMillis() + TICK_MS;
+                synchronized (this) {
+                    for (int i = from; i < due.length; i++) {
+                        wheel.schedule(due[i], retry);
+                    }
+                }
+                break;
+            }
+        }
+        return released;
+    }
+
+    private void tick() {
+        try {
+            int released = expireDue();
+            if (released > 0) {
+                logger.info("{} bail(s) expiré(s)", released);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors de l'expiration des baux", e);
+        }
+    }
+
+    /**
+     * Tableau extensible d'identifiants échus
+     */
+    private static final class LongCollector {
+        private long[] values = new long[16];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
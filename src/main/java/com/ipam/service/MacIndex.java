@@ -0,0 +1,81 @@
+package com.ipam.service;
+
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.util.LongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+
+/**
+ * Index en mémoire MAC → ID de l'adresse IP qui la porte, partagé par les
+ * services. Chargé à la première utilisation puis tenu à jour après la
+ * validation de chaque attribution, modification ou libération. L'index
+ * unique de la base reste l'arbitre : une entrée trouvée ici est vérifiée
+ * avant de signaler un conflit.
+ */
+public final class MacIndex {
+    private static final Logger logger = LoggerFactory.getLogger(MacIndex.class);
+
+    private static volatile MacIndex instance;
+
+    private final LongLongHashMap owners;
+
+    private MacIndex(LongLongHashMap owners) {
+        this.owners = owners;
+    }
+
+    /**
+     * Index partagé, chargé depuis la base au premier appel
+     */
+    public static MacIndex getInstance() throws SQLException {
+        MacIndex current = instance;
+        if (current != null) {
+            return current;
+        }
+        synchronized (MacIndex.class) {
+            if (instance == null) {
+                LongLongHashMap owners = new IPAddressDAO().findAllMacOwners();
+                logger.info("Index des adresses MAC chargé: {} adresse(s)", owners.size());
+                instance = new MacIndex(owners);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Oublie l'index (rechargé au prochain appel), par ex. après une suppression en masse
+     */
+    public static void invalidate() {
+        synchronized (MacIndex.class) {
+            instance = null;
+        }
+    }
+
+    /**
+     * ID de l'adresse IP qui porte cette MAC, null si aucune
+     */
+    public synchronized Long findOwner(long macNum) {
+        long owner = owners.get(macNum);
+        return owner == LongLongHashMap.MISSING ? null : owner;
+    }
+
+    public synchronized void put(long macNum, long ipId) {
+        if (macNum >= 0) {
+            owners.put(macNum, ipId);
+        }
+    }
+
+    /**
+     * Retire la MAC si elle est encore associée à cette adresse IP
+     */
+    public synchronized void remove(long macNum, long ipId) {
+        if (owners.get(macNum) == ipId) {
+            owners.remove(macNum);
+        }
+    }
+
+    public synchronized int size() {
+        return owners.size();
+    }
+}
@@ -0,0 +1,132 @@
+package com.ipam.service;
+
+import com.ipam.dao.SubnetDAO;
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.PrefixAllocationStrategy;
+import com.ipam.model.Subnet;
+import com.ipam.model.SubnetPool;
+import com.ipam.util.BuddyAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Espace libre de chaque pool (allocateur compagnon), partagé par les
+ * services. L'espace d'un pool est chargé à sa première allocation à partir
+ * des sous-réseaux existants, puis tenu à jour après chaque création ou
+ * suppression de sous-réseau, qu'il vienne du pool ou non.
+ */
+public final class PoolSpace {
+    private static final Logger logger = LoggerFactory.getLogger(PoolSpace.class);
+
+    private static final PoolSpace INSTANCE = new PoolSpace();
+
+    private final Map<Long, PoolEntry> pools = new HashMap<>();
+
+    private PoolSpace() {}
+
+    public static PoolSpace getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Prend le prochain bloc libre de la longueur demandée dans le pool
+     *
+     * @return le préfixe réservé en mémoire, null si le pool est plein
+     */
+    public synchronized Ipv4Prefix allocate(SubnetPool pool, int prefixLength, PrefixAllocationStrategy strategy)
+            throws SQLException {
+        PoolEntry entry = load(pool);
+        long network = entry.space.allocate(prefixLength, strategy == PrefixAllocationStrategy.BEST_FIT);
+        return network < 0 ? null : Ipv4Prefix.of((int) network, prefixLength);
+    }
+
+    /**
+     * Marque un préfixe comme occupé dans tous les pools chargés qu'il touche (idempotent)
+     */
+    public synchronized void reserve(Ipv4Prefix prefix) {
+        for (PoolEntry entry : pools.values()) {
+            if (entry.prefix.overlaps(prefix)) {
+                reserveClipped(entry, prefix);
+            }
+        }
+    }
+
+    /**
+     * Rend un préfixe à l'espace libre des pools chargés qui le contiennent.
+     * À n'appeler que si plus aucun sous-réseau n'occupe ce préfixe.
+     */
+    public synchronized void release(Ipv4Prefix prefix) {
+        for (PoolEntry entry : pools.values()) {
+            if (entry.prefix.contains(prefix)) {
+                entry.space.release(prefix.first(), prefix.getLength());
+            } else if (prefix.contains(entry.prefix)) {
+                entry.space.release(entry.prefix.first(), entry.prefix.getLength());
+            }
+        }
+    }
+
+    /**
+     * Oublie l'espace des pools qui touchent ce préfixe (rechargé à la prochaine allocation)
+     */
+    public synchronized void invalidate(Ipv4Prefix prefix) {
+        pools.values().removeIf(entry -> entry.prefix.overlaps(prefix));
+    }
+
+    /**
+     * Oublie l'espace d'un pool, par ex. après sa suppression
+     */
+    public synchronized void forget(Long poolId) {
+        pools.remove(poolId);
+    }
+
+    /**
+     * Oublie l'espace de tous les pools, par ex. après une réinitialisation de la base
+     */
+    public synchronized void clear() {
+        pools.clear();
+    }
+
+    /**
+     * Nombre d'adresses encore libres dans le pool
+     */
+    public synchronized long getFreeAddresses(SubnetPool pool) throws SQLException {
+        return load(pool).space.getFreeAddresses();
+    }
+
+    private PoolEntry load(SubnetPool pool) throws SQLException {
+        PoolEntry entry = pools.get(pool.getId());
+        if (entry == null) {
+            Ipv4Prefix prefix = pool.getPrefix();
+            entry = new PoolEntry(prefix, new BuddyAllocator(prefix.first(), prefix.getLength()));
+            List<Subnet> existing = new SubnetDAO().findOverlapping(prefix);
+            for (Subnet subnet : existing) {
+                reserveClipped(entry, subnet.getPrefix());
+            }
+            pools.put(pool.getId(), entry);
+            logger.info("Espace du pool {} chargé: {} sous-réseau(x), {} adresse(s) libre(s)",
+                pool.getName(), existing.size(), entry.space.getFreeAddresses());
+        }
+        return entry;
+    }
+
+    private static void reserveClipped(PoolEntry entry, Ipv4Prefix prefix) {
+        // Un sous-réseau plus large que le pool l'occupe entièrement
+        Ipv4Prefix block = prefix.getLength() < entry.prefix.getLength() ? entry.prefix : prefix;
+        entry.space.reserve(block.first(), block.getLength());
+    }
+
+    private static final class PoolEntry {
+        final Ipv4Prefix prefix;
+        final BuddyAllocator space;
+
+        PoolEntry(Ipv4Prefix prefix, BuddyAllocator space) {
+            this.prefix = prefix;
+            this.space = space;
+        }
+    }
+}
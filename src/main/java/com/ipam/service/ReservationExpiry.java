@@ -0,0 +1,79 @@
+package com.ipam.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retrait des réservations échues : toutes les POLL_SECONDS, un thread lit
+ * les réservations dont l'échéance est passée, dans l'ordre de l'index des
+ * échéances (une plage, jamais un balayage de la table), et les retire par
+ * lots bornés, une transaction par lot. Contrairement aux baux, les
+ * réservations durent des jours : une minute de retard au plus ne justifie
+ * pas de tenir leurs échéances en mémoire.
+ */
+public final class ReservationExpiry {
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExpiry.class);
+
+    private static final long POLL_SECONDS = 30;
+
+    private static volatile ReservationExpiry instance;
+
+    private final ReservationService reservationService = new ReservationService();
+    private final ScheduledExecutorService ticker;
+
+    private ReservationExpiry() {
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ipam-reservation-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Expiration partagée, démarrée au premier appel ; les réservations échues
+     * pendant l'arrêt de l'application sont retirées aussitôt
+     */
+    public static ReservationExpiry getInstance() {
+        ReservationExpiry current = instance;
+        if (current != null) {
+            return current;
+        }
+        synchronized (ReservationExpiry.class) {
+            if (instance == null) {
+                ReservationExpiry created = new ReservationExpiry();
+                created.ticker.scheduleWithFixedDelay(created::tick, 0, POLL_SECONDS, TimeUnit.SECONDS);
+                instance = created;
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Arrête le thread d'expiration (fermeture de l'application)
+     */
+    public static void shutdown() {
+        synchronized (ReservationExpiry.class) {
+            if (instance != null) {
+                instance.ticker.shutdownNow();
+                instance = null;
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            int released = reservationService.releaseExpired();
+            if (released > 0) {
+                logger.info("{} réservation(s) expirée(s)", released);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Nouvel essai au passage suivant
+            logger.error("Erreur lors de l'expiration des réservations", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ipam.service;
+
+import com.ipam.dao.AuditLogDAO;
+import com.ipam.dao.ReservationDAO;
+import com.ipam.model.AuditLog;
+import com.ipam.model.Reservation;
+import com.ipam.util.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service pour la gestion des réservations d'adresses IP. La pose et le
+ * retrait d'une réservation passent par IPAddressService (reserveIP,
+ * unreserveIP), qui change le statut de l'adresse dans la même transaction.
+ */
+public class ReservationService {
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+    // Réservations retirées par transaction
+    private static final int BATCH_SIZE = 500;
+
+    // Taille maximale des listes d'échéances
+    private static final int DEFAULT_LIMIT = 1000;
+
+    private final ReservationDAO reservationDAO;
+    private final AuditLogDAO auditLogDAO;
+    private final IPAddressService ipAddressService;
+
+    public ReservationService() {
+        this.reservationDAO = new ReservationDAO();
+        this.auditLogDAO = new AuditLogDAO();
+        this.ipAddressService = new IPAddressService();
+    }
+
+    /**
+     * Récupère toutes les réservations, par échéance croissante
+     */
+    public List<Reservation> getAllReservations() throws SQLException {
+        return reservationDAO.findAll();
+    }
+
+    /**
+     * Récupère la réservation d'une adresse, null si elle n'en a pas
+     */
+    public Reservation getReservation(Long ipId) throws SQLException {
+        return reservationDAO.findByIpAddressId(ipId);
+    }
+
+    /**
+     * Réservations qui expirent d'ici within, la plus proche en premier
+     */
+    public List<Reservation> getExpiringSoon(Duration within) throws SQLException {
+        return getExpiringSoon(within, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Réservations qui expirent d'ici within, la plus proche en premier
+     */
+    public List<Reservation> getExpiringSoon(Duration within, int limit) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        return reservationDAO.findExpiringBetween(now, now.plus(within), limit);
+    }
+
+    /**
+     * Réservations échues pas encore retirées, la plus ancienne en premier
+     */
+    public List<Reservation> getExpiredReservations() throws SQLException {
+        return reservationDAO.findExpired(LocalDateTime.now(), DEFAULT_LIMIT);
+    }
+
+    /**
+     * Modifie l'échéance de la réservation d'une adresse
+     *
+     * @param expirationDate nouvelle échéance, null pour une réservation sans limite
+     */
+    public void extendReservation(Long ipId, LocalDateTime expirationDate) throws SQLException {
+        if (expirationDate != null && !expirationDate.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("L'échéance de la réservation doit être dans le futur");
+        }
+        Reservation reservation = reservationDAO.findByIpAddressId(ipId);
+        if (reservation == null) {
+            throw new IllegalStateException("L'IP n'a pas de réservation");
+        }
+
+        boolean extended = DatabaseManager.write(conn -> {
+            if (!reservationDAO.updateExpiration(ipId, expirationDate)) {
+                return false;
+            }
+            auditLogDAO.create(new AuditLog("RENEW", "IP", ipId, expirationDate != null
+                ? String.format("Réservation de l'IP %s prolongée jusqu'au %s", reservation.getIpAddress(), expirationDate)
+                : String.format("Réservation de l'IP %s désormais sans échéance", reservation.getIpAddress())));
+            return true;
+        });
+        if (!extended) {
+            throw new IllegalStateException(
+                String.format("La réservation de l'IP %s a été retirée entre-temps", reservation.getIpAddress()));
+        }
+
+        logger.info("Réservation de l'IP {} prolongée jusqu'au {}", reservation.getIpAddress(), expirationDate);
+    }
+
+    /**
+     * Retire les réservations échues par lots de BATCH_SIZE, une transaction
+     * par lot, jusqu'à épuisement
+     *
+     * @return le nombre de réservations retirées
+     */
+    public int releaseExpired() throws SQLException {
+        int total = 0;
+        int expired;
+        do {
+            expired = ipAddressService.expireReservations(BATCH_SIZE);
+            total += expired;
+        } while (expired == BATCH_SIZE);
+        return total;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ipam.service;
+
+import com.ipam.dao.SubnetDAO;
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Subnet;
+import com.ipam.util.PrefixTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index en mémoire des préfixes de tous les sous-réseaux (arbre Patricia),
+ * partagé par les services. Chargé à la première utilisation puis tenu à jour
+ * après la validation de chaque création, modification ou suppression.
+ */
+public final class SubnetIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SubnetIndex.class);
+
+    private static volatile SubnetIndex instance;
+
+    private final PrefixTrie<Long> trie = new PrefixTrie<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SubnetIndex() {}
+
+    /**
+     * Index partagé, chargé depuis la base au premier appel
+     */
+    public static SubnetIndex getInstance() throws SQLException {
+        SubnetIndex current = instance;
+        if (current != null) {
+            return current;
+        }
+        synchronized (SubnetIndex.class) {
+            if (instance == null) {
+                SubnetIndex loaded = new SubnetIndex();
+                Map<Long, Ipv4Prefix> prefixes = new SubnetDAO().findAllPrefixes();
+                prefixes.forEach((id, prefix) -> loaded.trie.put(prefix.networkInt(), prefix.getLength(), id));
+                logger.info("Index des préfixes chargé: {} sous-réseau(x)", prefixes.size());
+                instance = loaded;
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Oublie l'index (rechargé au prochain appel), par ex. après une réinitialisation
+     */
+    public static void invalidate() {
+        synchronized (SubnetIndex.class) {
+            instance = null;
+        }
+    }
+
+    public void add(Subnet subnet) {
+        lock.writeLock().lock();
+        try {
+            trie.put(subnet.getPrefix().networkInt(), subnet.getCidr(), subnet.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Ipv4Prefix prefix) {
+        lock.writeLock().lock();
+        try {
+            trie.remove(prefix.networkInt(), prefix.getLength());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vrai si un sous-réseau existant chevauche ce préfixe
+     */
+    public boolean overlaps(Ipv4Prefix prefix) {
+        lock.readLock().lock();
+        try {
+            return trie.overlaps(prefix.networkInt(), prefix.getLength());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs des sous-réseaux qui chevauchent ce préfixe (englobants puis inclus)
+     */
+    public List<Long> findOverlapping(Ipv4Prefix prefix) {
+        lock.readLock().lock();
+        try {
+            return trie.overlapping(prefix.networkInt(), prefix.getLength());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs des sous-réseaux qui contiennent ce préfixe, du plus large au plus spécifique
+     */
+    public List<Long> findCovering(Ipv4Prefix prefix) {
+        lock.readLock().lock();
+        try {
+            return trie.covering(prefix.networkInt(), prefix.getLength());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ID du sous-réseau le plus spécifique contenant l'adresse (null si aucun)
+     */
+    public Long findLongestMatch(long address) {
+        lock.readLock().lock();
+        try {
+            return trie.longestMatch((int) address);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trie.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ipam.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrous par sous-réseau répartis sur un nombre fixe de bandes : les
+ * opérations sur un même sous-réseau sont sérialisées, celles sur deux
+ * sous-réseaux différents ne se bloquent que s'ils partagent une bande.
+ * Réentrants : un service qui tient le verrou peut appeler FreeSpace.
+ */
+public final class SubnetLocks {
+    private static final int STRIPES = 64;
+
+    private static final Lock[] LOCKS = new Lock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    private SubnetLocks() {}
+
+    /**
+     * Verrou de la bande du sous-réseau
+     */
+    public static Lock forSubnet(long subnetId) {
+        // Mélange des bits pour répartir les IDs consécutifs
+        long h = subnetId * 0x9E3779B97F4A7C15L;
+        return LOCKS[(int) (h >>> 58)];
+    }
+}
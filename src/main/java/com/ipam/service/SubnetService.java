@@ -2,17 +2,37 @@ package com.ipam.service;
 
 import com.ipam.dao.AuditLogDAO;
 import com.ipam.dao.IPAddressDAO;
+import com.ipam.dao.IPStatusBitmapDAO;
+import com.ipam.dao.ReservationDAO;
 import com.ipam.dao.SubnetDAO;
+import com.ipam.dao.SubnetPoolDAO;
+import com.ipam.dao.SubnetUsageDAO;
 import com.ipam.model.AuditLog;
 import com.ipam.model.IPAddress;
 import com.ipam.model.IPStatus;
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Ipv6Address;
+import com.ipam.model.Ipv6Prefix;
+import com.ipam.model.PrefixAllocationStrategy;
+import com.ipam.model.StorageMode;
 import com.ipam.model.Subnet;
+import com.ipam.model.SubnetPool;
+import com.ipam.model.SubnetUsage;
+import com.ipam.util.CidrAggregator;
+import com.ipam.util.DatabaseManager;
 import com.ipam.util.IPCalculator;
+import com.ipam.util.SubnetLookupTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * Service pour la gestion des sous-réseaux
@@ -23,17 +43,35 @@ public class SubnetService {
     private final SubnetDAO subnetDAO;
     private final IPAddressDAO ipAddressDAO;
     private final AuditLogDAO auditLogDAO;
+    private final IPStatusBitmapDAO statusBitmapDAO;
+    private final SubnetPoolDAO poolDAO;
+    private final ReservationDAO reservationDAO;
+    private final SubnetUsageDAO usageDAO;
+
+    // Préfixe à partir duquel un sous-réseau est stocké en mode creux (plus grand qu'un /16)
+    private static final int SPARSE_CIDR_THRESHOLD = 16;
+
+    // Au-delà, un découpage produirait trop de lignes dans subnets
+    private static final int MAX_SPLIT_SUBNETS = 65536;
 
     public SubnetService() {
         this.subnetDAO = new SubnetDAO();
         this.ipAddressDAO = new IPAddressDAO();
         this.auditLogDAO = new AuditLogDAO();
+        this.statusBitmapDAO = new IPStatusBitmapDAO();
+        this.poolDAO = new SubnetPoolDAO();
+        this.reservationDAO = new ReservationDAO();
+        this.usageDAO = new SubnetUsageDAO();
     }
 
     /**
      * Crée un nouveau sous-réseau avec toutes ses IPs
      */
     public Subnet createSubnet(Subnet subnet) throws SQLException {
+        if (IPCalculator.isIPv6Notation(subnet.getNetworkAddress())) {
+            return createIpv6Subnet(subnet);
+        }
+
         // Validation
         if (!IPCalculator.isValidIP(subnet.getNetworkAddress())) {
             throw new IllegalArgumentException("Adresse réseau invalide");
@@ -43,63 +81,186 @@ public class SubnetService {
             throw new IllegalArgumentException("CIDR invalide (doit être entre 0 et 32)");
         }
 
-        // Calculer les informations du sous-réseau
-        String networkAddress = IPCalculator.getNetworkAddress(subnet.getNetworkAddress(), subnet.getCidr());
-        subnet.setNetworkAddress(networkAddress);
-        subnet.setSubnetMask(IPCalculator.cidrToSubnetMask(subnet.getCidr()));
+        // Calculer les informations du sous-réseau (bits d'hôte remis à zéro)
+        Ipv4Prefix prefix = Ipv4Prefix.of(subnet.getNetworkAddress(), subnet.getCidr());
+        subnet.setPrefix(prefix);
+        subnet.setSubnetMask(prefix.getSubnetMask());
 
         // Vérifier si le sous-réseau existe déjà
-        if (subnetDAO.exists(networkAddress, subnet.getCidr())) {
+        if (subnetDAO.exists(prefix.getNetworkAddress(), prefix.getLength())) {
             throw new IllegalArgumentException("Ce sous-réseau existe déjà");
         }
 
-        // Créer le sous-réseau
-        Subnet created = subnetDAO.create(subnet);
+        // Au-delà d'un /16, mode creux : aucune adresse n'est pré-générée
+        if (subnet.getCidr() < SPARSE_CIDR_THRESHOLD) {
+            subnet.setStorageMode(StorageMode.SPARSE);
+        }
+
+        // Sous-réseau, adresses et audit validés ensemble, en une seule transaction
+        Subnet created = DatabaseManager.write(conn -> {
+            Subnet inserted = subnetDAO.create(subnet);
+
+            if (inserted.isSparse()) {
+                // Seule la gateway est stockée ; les adresses libres sont synthétisées à la lecture
+                reserveGateway(inserted);
+            } else {
+                // Générer toutes les adresses IP du sous-réseau
+                generateIPAddresses(inserted);
+            }
 
-        // Générer toutes les adresses IP du sous-réseau
-        generateIPAddresses(created);
+            auditLogDAO.create(new AuditLog("CREATE", "SUBNET", inserted.getId(), 
+                String.format("Sous-réseau créé: %s", inserted.getNetworkCidr())));
+            return inserted;
+        });
 
-        // Audit log
-        auditLogDAO.create(new AuditLog("CREATE", "SUBNET", created.getId(), 
-            String.format("Sous-réseau créé: %s", created.getNetworkCidr())));
+        SubnetIndex.getInstance().add(created);
+        PoolSpace.getInstance().reserve(created.getPrefix());
 
         logger.info("Sous-réseau créé avec succès: {}", created.getNetworkCidr());
         return created;
     }
 
     /**
-     * Génère toutes les adresses IP d'un sous-réseau
+     * Crée un sous-réseau IPv6 : toujours creux, seules la gateway puis les
+     * adresses attribuées et les préfixes délégués sont stockés
+     */
+    private Subnet createIpv6Subnet(Subnet subnet) throws SQLException {
+        if (!IPCalculator.isValidIPv6(subnet.getNetworkAddress())) {
+            throw new IllegalArgumentException("Adresse réseau IPv6 invalide");
+        }
+
+        if (subnet.getCidr() < 0 || subnet.getCidr() > 128) {
+            throw new IllegalArgumentException("Longueur de préfixe invalide (doit être entre 0 et 128)");
+        }
+
+        // Forme canonique, bits d'hôte remis à zéro
+        Ipv6Prefix prefix = Ipv6Prefix.of(subnet.getNetworkAddress(), subnet.getCidr());
+        subnet.setIpv6Prefix(prefix);
+        subnet.setSubnetMask(prefix.getSubnetMask());
+        subnet.setStorageMode(StorageMode.SPARSE);
+
+        if (subnetDAO.exists(prefix.getNetworkAddress(), prefix.getLength())) {
+            throw new IllegalArgumentException("Ce sous-réseau existe déjà");
+        }
+
+        Subnet created = DatabaseManager.write(conn -> {
+            Subnet inserted = subnetDAO.create(subnet);
+            reserveGateway(inserted);
+            auditLogDAO.create(new AuditLog("CREATE", "SUBNET", inserted.getId(),
+                String.format("Sous-réseau créé: %s", inserted.getNetworkCidr())));
+            return inserted;
+        });
+
+        logger.info("Sous-réseau IPv6 créé avec succès: {}", created.getNetworkCidr());
+        return created;
+    }
+
+    /**
+     * Délègue un préfixe IPv6 pris dans un sous-réseau existant : le préfixe
+     * délégué est stocké comme un sous-réseau inclus dans son parent
+     */
+    public Subnet delegatePrefix(Long parentId, String networkAddress, int prefixLength, String description)
+            throws SQLException {
+        Subnet parent = subnetDAO.findById(parentId);
+        if (parent == null) {
+            throw new IllegalArgumentException("Sous-réseau parent introuvable");
+        }
+        if (!parent.isIpv6()) {
+            throw new IllegalArgumentException("La délégation de préfixe ne concerne que les sous-réseaux IPv6");
+        }
+        if (!IPCalculator.isValidIPv6(networkAddress)) {
+            throw new IllegalArgumentException("Adresse réseau IPv6 invalide");
+        }
+        if (prefixLength <= parent.getCidr() || prefixLength > 128) {
+            throw new IllegalArgumentException(String.format(
+                "Longueur de préfixe invalide (doit être entre %d et 128)", parent.getCidr() + 1));
+        }
+
+        Ipv6Prefix delegated = Ipv6Prefix.of(networkAddress, prefixLength);
+        if (!parent.getIpv6Prefix().contains(delegated)) {
+            throw new IllegalArgumentException("Le préfixe délégué doit appartenir au sous-réseau parent");
+        }
+
+        // Seuls le parent et ses ancêtres peuvent le chevaucher (pas une autre délégation)
+        for (Subnet other : subnetDAO.findOverlapping(delegated)) {
+            if (!other.getIpv6Prefix().contains(parent.getIpv6Prefix())) {
+                throw new IllegalArgumentException(String.format(
+                    "Le préfixe %s chevauche %s", delegated, other.getNetworkCidr()));
+            }
+        }
+
+        Subnet child = new Subnet(delegated.getNetworkAddress(), prefixLength,
+            description != null ? description : "Délégué depuis " + parent.getNetworkCidr());
+        child.setVlanId(parent.getVlanId());
+        child.setDnsServers(parent.getDnsServers());
+        return createIpv6Subnet(child);
+    }
+
+    /**
+     * Génère toutes les adresses IP d'un sous-réseau (insertion par lots) : les
+     * hôtes sont produits à la demande, sans liste intermédiaire
      */
     private void generateIPAddresses(Subnet subnet) throws SQLException {
-        List<String> allIps = IPCalculator.getAllUsableIps(subnet.getNetworkAddress(), subnet.getCidr());
-        
-        for (String ip : allIps) {
-            IPAddress ipAddress = new IPAddress(ip, subnet.getId());
+        Ipv4Prefix prefix = subnet.getPrefix();
+        long gateway = subnet.getGateway() != null && IPCalculator.isValidIP(subnet.getGateway())
+            ? IPCalculator.ipToLong(subnet.getGateway()) : -1;
+
+        Iterator<IPAddress> ipAddresses = prefix.hosts().mapToObj(host -> {
+            long ipNum = Integer.toUnsignedLong(host);
+            IPAddress ipAddress = new IPAddress(IPCalculator.longToIp(ipNum), subnet.getId());
             ipAddress.setStatus(IPStatus.AVAILABLE);
-            
+
             // Marquer la gateway comme réservée si elle est définie
-            if (ip.equals(subnet.getGateway())) {
+            if (ipNum == gateway) {
                 ipAddress.setStatus(IPStatus.RESERVED);
                 ipAddress.setDescription("Gateway");
             }
-            
-            ipAddressDAO.create(ipAddress);
-        }
+            return ipAddress;
+        }).iterator();
+
+        int generated = ipAddressDAO.createBatch(ipAddresses);
         
-        logger.info("Générées {} adresses IP pour le sous-réseau {}", allIps.size(), subnet.getNetworkCidr());
+        logger.info("Générées {} adresses IP pour le sous-réseau {}", generated, subnet.getNetworkCidr());
+    }
+
+    /**
+     * Stocke la gateway d'un sous-réseau creux comme adresse réservée
+     */
+    private void reserveGateway(Subnet subnet) throws SQLException {
+        String gateway = subnet.getGateway();
+        if (!isGatewayInSubnet(subnet, gateway)) {
+            return;
+        }
+        if (subnet.isIpv6()) {
+            gateway = Ipv6Address.parse(gateway).toString();
+        }
+        IPAddress ipAddress = new IPAddress(gateway, subnet.getId());
+        ipAddress.setStatus(IPStatus.RESERVED);
+        ipAddress.setDescription("Gateway");
+        ipAddressDAO.create(ipAddress);
+    }
+
+    /**
+     * Vrai si la gateway est une adresse valide de la famille du sous-réseau et lui appartient
+     */
+    private boolean isGatewayInSubnet(Subnet subnet, String gateway) {
+        if (subnet.isIpv6()) {
+            return IPCalculator.isValidIPv6(gateway)
+                && subnet.getIpv6Prefix().contains(Ipv6Address.parse(gateway));
+        }
+        return IPCalculator.isValidIP(gateway)
+            && subnet.getPrefix().contains(IPCalculator.ipToLong(gateway));
     }
 
     /**
      * Assure que les IPs ont été générées pour un sous-réseau donné.
      * Si aucune IP n'existe encore pour ce sous-réseau, les IPs sont générées.
+     * Sans effet sur un sous-réseau creux.
      */
     public void ensureIpsGenerated(Long subnetId) throws SQLException {
-        List<IPAddress> existing = ipAddressDAO.findBySubnetId(subnetId);
-        if (existing.isEmpty()) {
-            Subnet subnet = subnetDAO.findById(subnetId);
-            if (subnet != null) {
-                generateIPAddresses(subnet);
-            }
+        Subnet subnet = subnetDAO.findById(subnetId);
+        if (subnet != null && !subnet.isSparse() && ipAddressDAO.countBySubnetId(subnetId) == 0) {
+            generateIPAddresses(subnet);
         }
     }
 
@@ -108,26 +269,49 @@ public class SubnetService {
      */
     public List<Subnet> getAllSubnets() throws SQLException {
         List<Subnet> subnets = subnetDAO.findAll();
-        
+        enrichSubnetsWithStats(subnets);
+        return subnets;
+    }
+
+    /**
+     * Enrichit des sous-réseaux avec leurs statistiques, lues en une fois
+     */
+    private void enrichSubnetsWithStats(List<Subnet> subnets) throws SQLException {
+        Map<Long, SubnetUsage> usages = new HashMap<>();
+        for (SubnetUsage usage : usageDAO.findAll()) {
+            usages.put(usage.getSubnetId(), usage);
+        }
         for (Subnet subnet : subnets) {
-            enrichSubnetWithStats(subnet);
+            enrichSubnetWithStats(subnet, usages.get(subnet.getId()));
         }
-        
-        return subnets;
     }
 
     /**
      * Enrichit un sous-réseau avec ses statistiques
+     *
+     * @param usage compteurs du sous-réseau, null s'il vient d'être créé
      */
-    private void enrichSubnetWithStats(Subnet subnet) throws SQLException {
-        // Calculs IP
-        subnet.setFirstUsableIp(IPCalculator.getFirstUsableIp(subnet.getNetworkAddress(), subnet.getCidr()));
-        subnet.setLastUsableIp(IPCalculator.getLastUsableIp(subnet.getNetworkAddress(), subnet.getCidr()));
-        subnet.setBroadcastAddress(IPCalculator.getBroadcastAddress(subnet.getNetworkAddress(), subnet.getCidr()));
-        subnet.setTotalHosts(IPCalculator.getTotalHosts(subnet.getCidr()));
+    private void enrichSubnetWithStats(Subnet subnet, SubnetUsage usage) {
+        int usedHosts = usage != null ? (int) usage.getUsedHosts() : 0;
+        if (subnet.isIpv6()) {
+            // Pas de broadcast ni de bitmap en IPv6 : seules les adresses stockées sont comptées
+            Ipv6Prefix prefix = subnet.getIpv6Prefix();
+            subnet.setFirstUsableIp(prefix.firstUsable().toString());
+            subnet.setLastUsableIp(prefix.lastUsable().toString());
+            subnet.setBroadcastAddress(null);
+            subnet.setTotalHosts((int) Math.min(Integer.MAX_VALUE, prefix.saturatedSize()));
+            subnet.setUsedHosts(usedHosts);
+            return;
+        }
+
+        // Calculs IP sur le préfixe numérique
+        Ipv4Prefix prefix = subnet.getPrefix();
+        subnet.setFirstUsableIp(IPCalculator.longToIp(prefix.firstUsable()));
+        subnet.setLastUsableIp(IPCalculator.longToIp(prefix.lastUsable()));
+        subnet.setBroadcastAddress(prefix.getBroadcastAddress());
+        subnet.setTotalHosts((int) Math.min(Integer.MAX_VALUE, prefix.usableHosts()));
         
-        // Statistiques d'utilisation
-        int usedHosts = ipAddressDAO.countUsedIpsBySubnet(subnet.getId());
+        // Statistiques d'utilisation (compteurs tenus à jour par statut)
         subnet.setUsedHosts(usedHosts);
     }
 
@@ -137,7 +321,7 @@ public class SubnetService {
     public Subnet getSubnetById(Long id) throws SQLException {
         Subnet subnet = subnetDAO.findById(id);
         if (subnet != null) {
-            enrichSubnetWithStats(subnet);
+            enrichSubnetWithStats(subnet, usageDAO.findBySubnetId(id));
         }
         return subnet;
     }
@@ -153,20 +337,33 @@ public class SubnetService {
 
         // Validation de la gateway
         if (subnet.getGateway() != null && !subnet.getGateway().isEmpty()) {
-            if (!IPCalculator.isValidIP(subnet.getGateway())) {
+            boolean valid = subnet.isIpv6()
+                ? IPCalculator.isValidIPv6(subnet.getGateway())
+                : IPCalculator.isValidIP(subnet.getGateway());
+            if (!valid) {
                 throw new IllegalArgumentException("Gateway invalide");
             }
             
-            if (!IPCalculator.isIpInSubnet(subnet.getGateway(), subnet.getNetworkAddress(), subnet.getCidr())) {
+            if (!isGatewayInSubnet(subnet, subnet.getGateway())) {
                 throw new IllegalArgumentException("La gateway doit appartenir au sous-réseau");
             }
         }
 
-        subnetDAO.update(subnet);
-
-        // Audit log
-        auditLogDAO.create(new AuditLog("UPDATE", "SUBNET", subnet.getId(), 
-            String.format("Sous-réseau modifié: %s", subnet.getNetworkCidr())));
+        DatabaseManager.write(conn -> {
+            subnetDAO.update(subnet);
+            auditLogDAO.create(new AuditLog("UPDATE", "SUBNET", subnet.getId(), 
+                String.format("Sous-réseau modifié: %s", subnet.getNetworkCidr())));
+            return null;
+        });
+
+        if (!existing.isIpv6() && !existing.getPrefix().equals(subnet.getPrefix())) {
+            SubnetIndex index = SubnetIndex.getInstance();
+            index.remove(existing.getPrefix());
+            index.add(subnet);
+            PoolSpace.getInstance().invalidate(existing.getPrefix());
+            PoolSpace.getInstance().invalidate(subnet.getPrefix());
+            FreeSpace.getInstance().forget(subnet.getId());
+        }
 
         logger.info("Sous-réseau mis à jour: {}", subnet.getNetworkCidr());
     }
@@ -180,15 +377,30 @@ public class SubnetService {
             throw new IllegalArgumentException("Sous-réseau introuvable");
         }
 
-        // Supprimer toutes les IPs associées
-        ipAddressDAO.deleteBySubnetId(id);
-
-        // Supprimer le sous-réseau
-        subnetDAO.delete(id);
-
-        // Audit log
-        auditLogDAO.create(new AuditLog("DELETE", "SUBNET", id, 
-            String.format("Sous-réseau supprimé: %s", subnet.getNetworkCidr())));
+        DatabaseManager.write(conn -> {
+            // Supprimer toutes les IPs associées et leurs réservations
+            reservationDAO.deleteBySubnetId(id);
+            ipAddressDAO.deleteBySubnetId(id);
+
+            // Supprimer le sous-réseau
+            subnetDAO.delete(id);
+
+            auditLogDAO.create(new AuditLog("DELETE", "SUBNET", id, 
+                String.format("Sous-réseau supprimé: %s", subnet.getNetworkCidr())));
+            return null;
+        });
+
+        if (!subnet.isIpv6()) {
+            SubnetIndex index = SubnetIndex.getInstance();
+            index.remove(subnet.getPrefix());
+            // Bloc rendu au pool sauf s'il reste partiellement occupé (sous-réseaux imbriqués)
+            if (index.overlaps(subnet.getPrefix())) {
+                PoolSpace.getInstance().invalidate(subnet.getPrefix());
+            } else {
+                PoolSpace.getInstance().release(subnet.getPrefix());
+            }
+            FreeSpace.getInstance().forget(id);
+        }
 
         logger.info("Sous-réseau supprimé: {}", subnet.getNetworkCidr());
     }
@@ -198,11 +410,7 @@ public class SubnetService {
      */
     public List<Subnet> searchSubnets(String searchTerm) throws SQLException {
         List<Subnet> subnets = subnetDAO.search(searchTerm);
-        
-        for (Subnet subnet : subnets) {
-            enrichSubnetWithStats(subnet);
-        }
-        
+        enrichSubnetsWithStats(subnets);
         return subnets;
     }
 
@@ -210,54 +418,518 @@ public class SubnetService {
      * Vérifie si un sous-réseau se chevauche avec d'autres
      */
     public boolean checkOverlap(String networkAddress, int cidr) throws SQLException {
-        List<Subnet> allSubnets = subnetDAO.findAll();
-        
-        for (Subnet existing : allSubnets) {
-            if (IPCalculator.subnetsOverlap(networkAddress, cidr, 
-                    existing.getNetworkAddress(), existing.getCidr())) {
-                logger.warn("Chevauchement détecté avec le sous-réseau {}", existing.getNetworkCidr());
+        if (IPCalculator.isIPv6Notation(networkAddress)) {
+            // Recherche par plage sur les bornes IPv6 (BLOB big-endian indexés)
+            List<Subnet> overlapping = subnetDAO.findOverlapping(Ipv6Prefix.of(networkAddress, cidr));
+            if (!overlapping.isEmpty()) {
+                logger.warn("Chevauchement détecté avec le sous-réseau {}", overlapping.get(0).getNetworkCidr());
                 return true;
             }
+            return false;
+        }
+
+        Ipv4Prefix prefix = Ipv4Prefix.of(networkAddress, cidr);
+
+        // Recherche dans l'arbre des préfixes en mémoire : O(32), sans requête
+        List<Long> overlapping = SubnetIndex.getInstance().findOverlapping(prefix);
+        if (!overlapping.isEmpty()) {
+            logger.warn("Chevauchement détecté avec le sous-réseau ID {}", overlapping.get(0));
+            return true;
         }
         return false;
     }
 
+    /**
+     * Sous-réseau le plus spécifique contenant une adresse (longest-prefix match)
+     */
+    public Subnet findOwningSubnet(String ipAddress) throws SQLException {
+        Long id = SubnetIndex.getInstance().findLongestMatch(IPCalculator.ipToLong(ipAddress));
+        return id != null ? getSubnetById(id) : null;
+    }
+
+    /**
+     * Table de correspondance adresse → sous-réseau pour la résolution en masse,
+     * construite à partir des préfixes IPv4 ; à réutiliser pour plusieurs lots
+     */
+    public SubnetLookupTable buildLookupTable() throws SQLException {
+        return SubnetLookupTable.build(subnetDAO.findAllPrefixes());
+    }
+
+    /**
+     * Sous-réseau propriétaire de chaque adresse (IPv4 sur 32 bits), résolu en
+     * parallèle ; SubnetLookupTable.NO_SUBNET pour une adresse hors sous-réseau
+     */
+    public long[] findOwningSubnetIds(int[] addresses) throws SQLException {
+        return buildLookupTable().lookupAllParallel(addresses);
+    }
+
+    /**
+     * Sous-réseaux englobant un préfixe, du plus large au plus spécifique
+     */
+    public List<Subnet> findCoveringSubnets(String networkAddress, int cidr) throws SQLException {
+        List<Subnet> subnets = new ArrayList<>();
+        for (Long id : SubnetIndex.getInstance().findCovering(Ipv4Prefix.of(networkAddress, cidr))) {
+            Subnet subnet = getSubnetById(id);
+            if (subnet != null) {
+                subnets.add(subnet);
+            }
+        }
+        return subnets;
+    }
+
+    /**
+     * Découpe un sous-réseau IPv4 en sous-réseaux de longueur newCidr. Les
+     * adresses existantes (et leurs attributions) sont rattachées aux
+     * nouveaux sous-réseaux dans une seule transaction, avec une seule entrée
+     * d'audit. Les sous-réseaux enfants héritent de la description, du VLAN,
+     * des DNS, du pool et du mode de stockage ; seul celui qui contient la
+     * gateway la conserve.
+     *
+     * @throws IllegalArgumentException si une adresse non disponible deviendrait
+     *                                  l'adresse réseau ou broadcast d'un enfant
+     */
+    public List<Subnet> splitSubnet(Long subnetId, int newCidr) throws SQLException {
+        Subnet parent = subnetDAO.findById(subnetId);
+        if (parent == null) {
+            throw new IllegalArgumentException("Sous-réseau introuvable");
+        }
+        if (parent.isIpv6()) {
+            throw new IllegalArgumentException("Le découpage n'est disponible que pour les sous-réseaux IPv4");
+        }
+        if (newCidr <= parent.getCidr() || newCidr > 32) {
+            throw new IllegalArgumentException(String.format(
+                "Le nouveau CIDR doit être entre %d et 32", parent.getCidr() + 1));
+        }
+        if (newCidr - parent.getCidr() > 16
+                || IPCalculator.getNumberOfSubnets(parent.getCidr(), newCidr) > MAX_SPLIT_SUBNETS) {
+            throw new IllegalArgumentException(String.format(
+                "Découpage limité à %d sous-réseaux", MAX_SPLIT_SUBNETS));
+        }
+
+        Ipv4Prefix prefix = parent.getPrefix();
+        int count = IPCalculator.getNumberOfSubnets(parent.getCidr(), newCidr);
+        long childSize = 1L << (32 - newCidr);
+        long gateway = parent.getGateway() != null && IPCalculator.isValidIP(parent.getGateway())
+            ? IPCalculator.ipToLong(parent.getGateway()) : -1;
+
+        List<Subnet> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Ipv4Prefix childPrefix = Ipv4Prefix.of((int) (prefix.first() + i * childSize), newCidr);
+            Subnet child = new Subnet(childPrefix.getNetworkAddress(), newCidr, parent.getDescription());
+            child.setPrefix(childPrefix);
+            child.setSubnetMask(childPrefix.getSubnetMask());
+            child.setVlanId(parent.getVlanId());
+            child.setDnsServers(parent.getDnsServers());
+            child.setPoolId(parent.getPoolId());
+            child.setStorageMode(parent.getStorageMode());
+            if (childPrefix.contains(gateway)) {
+                child.setGateway(parent.getGateway());
+            }
+            children.add(child);
+        }
+
+        BoundaryPlan plan = planBoundaries(List.of(prefix), children);
+
+        int moved = DatabaseManager.write(conn -> {
+            subnetDAO.createAll(children);
+            ipAddressDAO.deleteAvailable(plan.toDelete);
+            int rehomed = ipAddressDAO.moveToRanges(subnetId, children);
+            ipAddressDAO.createBatch(plan.newAddresses());
+            subnetDAO.delete(subnetId);
+            statusBitmapDAO.rebuildRange(List.of(subnetId), subnetIds(children), prefix.first(), prefix.last());
+
+            auditLogDAO.create(new AuditLog("SPLIT", "SUBNET", subnetId,
+                String.format("Sous-réseau %s découpé en %d /%d (%d adresse(s) rattachée(s))",
+                    parent.getNetworkCidr(), count, newCidr, rehomed)));
+            return rehomed;
+        });
+
+        SubnetIndex index = SubnetIndex.getInstance();
+        index.remove(prefix);
+        children.forEach(index::add);
+        FreeSpace.getInstance().forget(subnetId);
+
+        logger.info("Sous-réseau {} découpé en {} /{} ({} adresses rattachées)",
+            parent.getNetworkCidr(), count, newCidr, moved);
+        return children;
+    }
+
+    /**
+     * Fusionne des sous-réseaux IPv4 contigus formant exactement un bloc CIDR.
+     * Les adresses sont rattachées au sous-réseau fusionné dans une seule
+     * transaction, avec une seule entrée d'audit ; ses attributs sont ceux du
+     * sous-réseau d'adresse la plus basse.
+     */
+    public Subnet mergeSubnets(List<Long> subnetIds) throws SQLException {
+        if (subnetIds.size() < 2) {
+            throw new IllegalArgumentException("Au moins deux sous-réseaux sont nécessaires");
+        }
+
+        List<Subnet> parts = new ArrayList<>(subnetIds.size());
+        for (Long id : subnetIds) {
+            Subnet subnet = subnetDAO.findById(id);
+            if (subnet == null) {
+                throw new IllegalArgumentException("Sous-réseau introuvable: ID " + id);
+            }
+            if (subnet.isIpv6()) {
+                throw new IllegalArgumentException("La fusion n'est disponible que pour les sous-réseaux IPv4");
+            }
+            parts.add(subnet);
+        }
+        parts.sort((a, b) -> a.getPrefix().compareTo(b.getPrefix()));
+
+        long[] summary = CidrAggregator.aggregate(pack(parts.stream().map(Subnet::getPrefix).toList()));
+        long total = parts.stream().mapToLong(subnet -> subnet.getPrefix().size()).sum();
+        if (summary.length != 1) {
+            throw new IllegalArgumentException("Les sous-réseaux ne forment pas un bloc CIDR unique");
+        }
+        Ipv4Prefix prefix = CidrAggregator.unpack(summary[0]);
+        if (total != prefix.size()) {
+            throw new IllegalArgumentException("Les sous-réseaux se chevauchent");
+        }
+        if (subnetDAO.exists(prefix.getNetworkAddress(), prefix.getLength())) {
+            throw new IllegalArgumentException("Ce sous-réseau existe déjà");
+        }
+
+        Subnet first = parts.get(0);
+        Subnet merged = new Subnet(prefix.getNetworkAddress(), prefix.getLength(), first.getDescription());
+        merged.setPrefix(prefix);
+        merged.setSubnetMask(prefix.getSubnetMask());
+        merged.setVlanId(first.getVlanId());
+        merged.setDnsServers(first.getDnsServers());
+        merged.setPoolId(first.getPoolId());
+        merged.setGateway(parts.stream().map(Subnet::getGateway)
+            .filter(gateway -> gateway != null && !gateway.isEmpty()).findFirst().orElse(null));
+        boolean sparse = prefix.getLength() < SPARSE_CIDR_THRESHOLD || parts.stream().anyMatch(Subnet::isSparse);
+        merged.setStorageMode(sparse ? StorageMode.SPARSE : StorageMode.DENSE);
+
+        List<Long> ids = subnetIds(parts);
+        BoundaryPlan plan = planBoundaries(parts.stream().map(Subnet::getPrefix).toList(), List.of(merged));
+
+        int moved = DatabaseManager.write(conn -> {
+            subnetDAO.create(merged);
+            ipAddressDAO.deleteAvailable(plan.toDelete);
+            int rehomed = ipAddressDAO.moveAll(ids, merged.getId());
+            if (merged.isSparse()) {
+                // Mode creux : seules les adresses non disponibles restent stockées
+                ipAddressDAO.deleteAvailableBySubnetId(merged.getId());
+            }
+            ipAddressDAO.createBatch(plan.newAddresses());
+            subnetDAO.deleteAll(ids);
+            statusBitmapDAO.rebuildRange(ids, List.of(merged.getId()), prefix.first(), prefix.last());
+
+            auditLogDAO.create(new AuditLog("MERGE", "SUBNET", merged.getId(),
+                String.format("%d sous-réseaux fusionnés en %s (%d adresse(s) rattachée(s))",
+                    parts.size(), merged.getNetworkCidr(), rehomed)));
+            return rehomed;
+        });
+
+        SubnetIndex index = SubnetIndex.getInstance();
+        parts.forEach(part -> index.remove(part.getPrefix()));
+        index.add(merged);
+        parts.forEach(part -> FreeSpace.getInstance().forget(part.getId()));
+
+        logger.info("{} sous-réseaux fusionnés en {} ({} adresses rattachées)",
+            parts.size(), merged.getNetworkCidr(), moved);
+        return merged;
+    }
+
+    /**
+     * Adresses réseau et broadcast avant et après un découpage ou une fusion :
+     * seules ces adresses changent de nature (utilisable ou non). Les autres
+     * lignes sont simplement rattachées à leur nouveau sous-réseau.
+     */
+    private BoundaryPlan planBoundaries(List<Ipv4Prefix> before, List<Subnet> after) throws SQLException {
+        TreeSet<Long> boundaries = new TreeSet<>();
+        for (Ipv4Prefix prefix : before) {
+            boundaries.add(prefix.first());
+            boundaries.add(prefix.last());
+        }
+        for (Subnet subnet : after) {
+            boundaries.add(subnet.getPrefix().first());
+            boundaries.add(subnet.getPrefix().last());
+        }
+
+        long[] ipNums = boundaries.stream().mapToLong(Long::longValue).toArray();
+        Map<Long, IPStatus> statuses = ipAddressDAO.findStatusByIpNums(ipNums);
+
+        BoundaryPlan plan = new BoundaryPlan();
+        for (long ipNum : ipNums) {
+            Subnet target = findContainingSubnet(after, ipNum);
+            Ipv4Prefix prefix = target.getPrefix();
+            boolean usable = ipNum >= prefix.firstUsable() && ipNum <= prefix.lastUsable();
+            IPStatus status = statuses.get(ipNum);
+
+            if (status == null) {
+                if (usable && !target.isSparse()) {
+                    plan.toInsert.add(ipNum);
+                    plan.insertTargets.add(target);
+                }
+            } else if (status == IPStatus.AVAILABLE) {
+                if (!usable) {
+                    plan.toDelete.add(ipNum);
+                }
+            } else if (!usable) {
+                throw new IllegalArgumentException(String.format(
+                    "L'adresse %s (%s) deviendrait l'adresse réseau ou broadcast de %s",
+                    IPCalculator.longToIp(ipNum), status.getDisplayName(), target.getNetworkCidr()));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Sous-réseau de la liste (triée, contiguë) contenant l'adresse
+     */
+    private static Subnet findContainingSubnet(List<Subnet> sorted, long ipNum) {
+        int low = 0;
+        int high = sorted.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (sorted.get(middle).getPrefix().first() <= ipNum) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return sorted.get(low);
+    }
+
+    private static List<Long> subnetIds(List<Subnet> subnets) {
+        List<Long> ids = new ArrayList<>(subnets.size());
+        for (Subnet subnet : subnets) {
+            ids.add(subnet.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Lignes à supprimer (adresses devenues réseau ou broadcast) et à créer
+     * (adresses devenues utilisables) lors d'un découpage ou d'une fusion
+     */
+    private static final class BoundaryPlan {
+        private final List<Long> toDelete = new ArrayList<>();
+        private final List<Long> toInsert = new ArrayList<>();
+        private final List<Subnet> insertTargets = new ArrayList<>();
+
+        /**
+         * Adresses à créer ; à appeler une fois les sous-réseaux cibles insérés (ID connus)
+         */
+        List<IPAddress> newAddresses() {
+            List<IPAddress> addresses = new ArrayList<>(toInsert.size());
+            for (int i = 0; i < toInsert.size(); i++) {
+                IPAddress ipAddress = new IPAddress(IPCalculator.longToIp(toInsert.get(i)), insertTargets.get(i).getId());
+                ipAddress.setStatus(IPStatus.AVAILABLE);
+                addresses.add(ipAddress);
+            }
+            return addresses;
+        }
+    }
+
+    /**
+     * Résumé CIDR de tous les sous-réseaux IPv4 : liste minimale de préfixes
+     * couvrant exactement les mêmes adresses
+     */
+    public List<Ipv4Prefix> summarizeSubnets() throws SQLException {
+        return summarize(subnetDAO.findAllPrefixes().values());
+    }
+
+    /**
+     * Résumé CIDR des sous-réseaux IPv4 d'un VLAN
+     */
+    public List<Ipv4Prefix> summarizeVlan(int vlanId) throws SQLException {
+        return summarize(subnetDAO.findPrefixesByVlan(vlanId));
+    }
+
+    /**
+     * Espace libre d'un préfixe (aucun sous-réseau), sous forme de liste minimale de CIDR
+     */
+    public List<Ipv4Prefix> summarizeFreeSpace(Ipv4Prefix within) throws SQLException {
+        long[] packed = pack(subnetDAO.findAllPrefixes().values());
+        return CidrAggregator.toPrefixes(CidrAggregator.complement(packed, within.first(), within.getLength()));
+    }
+
+    /**
+     * Liste minimale de CIDR couvrant l'union d'un ensemble quelconque de préfixes
+     */
+    public List<Ipv4Prefix> summarize(Collection<Ipv4Prefix> prefixes) {
+        return CidrAggregator.toPrefixes(CidrAggregator.aggregate(pack(prefixes)));
+    }
+
+    private static long[] pack(Collection<Ipv4Prefix> prefixes) {
+        long[] packed = new long[prefixes.size()];
+        int i = 0;
+        for (Ipv4Prefix prefix : prefixes) {
+            packed[i++] = CidrAggregator.pack(prefix);
+        }
+        return packed;
+    }
+
+    /**
+     * Crée un pool IPv4 dans lequel les sous-réseaux seront découpés
+     */
+    public SubnetPool createPool(SubnetPool pool) throws SQLException {
+        if (pool.getName() == null || pool.getName().isBlank()) {
+            throw new IllegalArgumentException("Le nom du pool est obligatoire");
+        }
+
+        if (!IPCalculator.isValidIP(pool.getNetworkAddress())) {
+            throw new IllegalArgumentException("Adresse réseau invalide");
+        }
+
+        if (pool.getCidr() < 0 || pool.getCidr() > 32) {
+            throw new IllegalArgumentException("CIDR invalide (doit être entre 0 et 32)");
+        }
+
+        Ipv4Prefix prefix = Ipv4Prefix.of(pool.getNetworkAddress(), pool.getCidr());
+        pool.setPrefix(prefix);
+
+        if (poolDAO.findByName(pool.getName()) != null) {
+            throw new IllegalArgumentException("Un pool porte déjà ce nom");
+        }
+
+        List<SubnetPool> overlapping = poolDAO.findOverlapping(prefix);
+        if (!overlapping.isEmpty()) {
+            throw new IllegalArgumentException("Ce pool chevauche le pool " + overlapping.get(0));
+        }
+
+        SubnetPool created = DatabaseManager.write(conn -> {
+            SubnetPool inserted = poolDAO.create(pool);
+            auditLogDAO.create(new AuditLog("CREATE", "POOL", inserted.getId(),
+                String.format("Pool créé: %s (%s)", inserted.getName(), inserted.getNetworkCidr())));
+            return inserted;
+        });
+
+        logger.info("Pool créé avec succès: {}", created);
+        return created;
+    }
+
+    /**
+     * Récupère tous les pools
+     */
+    public List<SubnetPool> getAllPools() throws SQLException {
+        return poolDAO.findAll();
+    }
+
+    /**
+     * Récupère un pool par son nom (null si inconnu)
+     */
+    public SubnetPool getPoolByName(String name) throws SQLException {
+        return poolDAO.findByName(name);
+    }
+
+    /**
+     * Supprime un pool ; les sous-réseaux déjà découpés sont conservés
+     */
+    public void deletePool(Long id) throws SQLException {
+        SubnetPool pool = poolDAO.findById(id);
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool introuvable");
+        }
+
+        DatabaseManager.write(conn -> {
+            poolDAO.delete(id);
+            auditLogDAO.create(new AuditLog("DELETE", "POOL", id,
+                String.format("Pool supprimé: %s (%s)", pool.getName(), pool.getNetworkCidr())));
+            return null;
+        });
+
+        PoolSpace.getInstance().forget(id);
+        logger.info("Pool supprimé: {}", pool);
+    }
+
+    /**
+     * Découpe dans le pool le prochain bloc libre de la longueur demandée et
+     * le crée comme sous-réseau. Le bloc est choisi dans l'espace libre en
+     * mémoire (allocateur compagnon, O(log n)), sans parcourir les sous-réseaux.
+     *
+     * @throws IllegalStateException si le pool n'a plus de bloc libre de cette taille
+     */
+    public Subnet allocateChildSubnet(SubnetPool pool, int prefixLength, PrefixAllocationStrategy strategy)
+            throws SQLException {
+        if (prefixLength < pool.getCidr() || prefixLength > 32) {
+            throw new IllegalArgumentException(String.format(
+                "Longueur de préfixe invalide (doit être entre %d et 32)", pool.getCidr()));
+        }
+
+        PoolSpace space = PoolSpace.getInstance();
+        Ipv4Prefix block = space.allocate(pool, prefixLength, strategy);
+        if (block == null) {
+            throw new IllegalStateException(String.format(
+                "Plus de /%d libre dans le pool %s", prefixLength, pool.getName()));
+        }
+
+        Subnet subnet = new Subnet(block.getNetworkAddress(), prefixLength,
+            String.format("Alloué depuis le pool %s", pool.getName()));
+        subnet.setPoolId(pool.getId());
+
+        try {
+            return createSubnet(subnet);
+        } catch (SQLException | RuntimeException e) {
+            // Espace rechargé depuis la base à la prochaine allocation : le bloc redevient libre s'il n'a pas été validé
+            space.invalidate(block);
+            throw e;
+        }
+    }
+
     /**
      * Obtient des statistiques globales
      */
     public SubnetStatistics getGlobalStatistics() throws SQLException {
-        List<Subnet> allSubnets = getAllSubnets();
+        // Une lecture des compteurs : une ligne par sous-réseau et statut utilisé
+        List<SubnetUsage> usages = usageDAO.findAll();
         
-        int totalSubnets = allSubnets.size();
-        int totalIps = 0;
-        int usedIps = 0;
+        int totalSubnets = usages.size();
+        long totalIps = 0;
+        long usedIps = 0;
         
-        for (Subnet subnet : allSubnets) {
-            totalIps += subnet.getTotalHosts();
-            usedIps += subnet.getUsedHosts();
+        for (SubnetUsage usage : usages) {
+            // Un préfixe IPv6 compte 2^64 adresses ou plus : les totaux portent sur IPv4
+            if (usage.isIpv6()) {
+                continue;
+            }
+            totalIps += usage.getUsableHosts();
+            usedIps += usage.getUsedHosts();
         }
         
         return new SubnetStatistics(totalSubnets, totalIps, usedIps);
     }
 
+    /**
+     * Vérifie les compteurs d'utilisation par un comptage complet des adresses
+     * stockées et, si repair, les reconstruit en cas d'écart
+     *
+     * @return les compteurs trouvés faux
+     */
+    public List<SubnetUsageDAO.Mismatch> checkUsageCounters(boolean repair) throws SQLException {
+        List<SubnetUsageDAO.Mismatch> mismatches = usageDAO.findMismatches();
+        for (SubnetUsageDAO.Mismatch mismatch : mismatches) {
+            logger.warn("Compteur d'utilisation incohérent: {}", mismatch);
+        }
+        if (repair && !mismatches.isEmpty()) {
+            usageDAO.rebuild();
+        }
+        return mismatches;
+    }
+
     /**
      * Classe interne pour les statistiques
      */
     public static class SubnetStatistics {
         private final int totalSubnets;
-        private final int totalIps;
-        private final int usedIps;
+        private final long totalIps;
+        private final long usedIps;
 
-        public SubnetStatistics(int totalSubnets, int totalIps, int usedIps) {
+        public SubnetStatistics(int totalSubnets, long totalIps, long usedIps) {
             this.totalSubnets = totalSubnets;
             this.totalIps = totalIps;
             this.usedIps = usedIps;
         }
 
         public int getTotalSubnets() { return totalSubnets; }
-        public int getTotalIps() { return totalIps; }
-        public int getUsedIps() { return usedIps; }
-        public int getAvailableIps() { return totalIps - usedIps; }
+        public long getTotalIps() { return totalIps; }
+        public long getUsedIps() { return usedIps; }
+        public long getAvailableIps() { return totalIps - usedIps; }
         public double getUsagePercentage() { 
             return totalIps > 0 ? (usedIps * 100.0 / totalIps) : 0; 
         }
@@ -0,0 +1,27 @@
+package com.ipam.util;
+
+/**
+ * Politique de choix des adresses libres d'un sous-réseau IPv4, appliquée au
+ * bitmap des adresses libres. Une stratégie ne modifie pas le bitmap :
+ * l'appelant prend ensuite les adresses choisies (FreeBitmap.take).
+ */
+public interface AllocationStrategy {
+    /** Adresse la plus basse : simple, mais concentre les attributions en bas du sous-réseau */
+    AllocationStrategy FIRST_FIT = new FirstFitStrategy();
+    /** Plus petite plage libre qui convient : préserve les grandes plages pour les blocs contigus */
+    AllocationStrategy BEST_FIT = new BestFitStrategy();
+    /** Position aléatoire : répartit les attributions et libérations fréquentes (type DHCP) */
+    AllocationStrategy RANDOM = new RandomStrategy();
+    /** Reprend après la dernière adresse prise : une adresse libérée n'est pas réattribuée aussitôt */
+    AllocationStrategy ROUND_ROBIN = new RoundRobinStrategy();
+
+    /**
+     * Choisit le début d'une suite de count adresses libres consécutives
+     * (une seule adresse si count = 1)
+     *
+     * @return la première adresse de la suite, -1 s'il n'y en a pas
+     */
+    long select(FreeBitmap free, int count);
+
+    String getName();
+}
@@ -0,0 +1,39 @@
+package com.ipam.util;
+
+/**
+ * Plus petite plage libre pouvant contenir la suite demandée, la plus basse
+ * en cas d'égalité. Parcourt toutes les plages libres, sauf si l'une a
+ * exactement la taille voulue.
+ */
+final class BestFitStrategy implements AllocationStrategy {
+
+    @Override
+    public long select(FreeBitmap free, int count) {
+        long best = -1;
+        long bestLength = Long.MAX_VALUE;
+        long start = free.nextFree(free.getFirst());
+        while (start >= 0) {
+            long end = free.nextUsed(start);
+            long length = end - start;
+            if (length >= count && length < bestLength) {
+                best = start;
+                bestLength = length;
+                if (length == count) {
+                    break;
+                }
+            }
+            start = free.nextFree(end);
+        }
+        return best;
+    }
+
+    @Override
+    public String getName() {
+        return "Plus petite plage libre";
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,201 @@
+package com.ipam.util;
+
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Allocateur compagnon (buddy) de blocs IPv4 alignés dans un préfixe de base.
+ * L'espace libre est rangé par longueur de préfixe : pour chaque longueur, un
+ * ensemble trié des adresses réseau des blocs libres. Allouer, réserver et
+ * libérer coûtent au plus 33 opérations O(log n) ; deux blocs compagnons
+ * libres sont fusionnés dès la libération. Non synchronisé.
+ */
+public class BuddyAllocator {
+    private final long base;
+    private final int baseLength;
+    @SuppressWarnings("unchecked")
+    private final NavigableSet<Long>[] free = new NavigableSet[33];
+    private long freeAddresses;
+
+    public BuddyAllocator(long network, int length) {
+        if (length < 0 || length > 32) {
+            throw new IllegalArgumentException("CIDR doit être entre 0 et 32");
+        }
+        this.base = network & IPCalculator.prefixMask(length);
+        this.baseLength = length;
+        for (int l = length; l <= 32; l++) {
+            free[l] = new TreeSet<>();
+        }
+        free[length].add(base);
+        freeAddresses = blockSize(length);
+    }
+
+    /**
+     * Prend un bloc libre de la longueur demandée et renvoie son adresse réseau,
+     * -1 si aucun bloc assez grand n'est libre
+     *
+     * @param bestFit true : découpe le plus petit bloc libre qui convient ;
+     *                false : prend l'adresse la plus basse possible
+     */
+    public long allocate(int length, boolean bestFit) {
+        checkLength(length);
+        int from = -1;
+        long block = -1;
+        if (bestFit) {
+            for (int l = length; l >= baseLength; l--) {
+                if (!free[l].isEmpty()) {
+                    from = l;
+                    block = free[l].first();
+                    break;
+                }
+            }
+        } else {
+            for (int l = baseLength; l <= length; l++) {
+                if (!free[l].isEmpty() && (block < 0 || free[l].first() < block)) {
+                    from = l;
+                    block = free[l].first();
+                }
+            }
+        }
+        if (block < 0) {
+            return -1;
+        }
+        free[from].remove(block);
+        // Découper : la moitié haute de chaque niveau reste libre
+        for (int l = from + 1; l <= length; l++) {
+            free[l].add(block + blockSize(l));
+        }
+        freeAddresses -= blockSize(length);
+        return block;
+    }
+
+    /**
+     * Retire de l'espace libre un bloc déjà occupé (sous-réseau existant).
+     * Sans effet sur la partie déjà occupée.
+     *
+     * @return le nombre d'adresses effectivement retirées de l'espace libre
+     */
+    public long reserve(long network, int length) {
+        checkLength(length);
+        long block = network & IPCalculator.prefixMask(length);
+
+        // Cas courant : le bloc est inclus dans un seul bloc libre, à découper
+        for (int l = length; l >= baseLength; l--) {
+            long candidate = block & IPCalculator.prefixMask(l);
+            if (free[l].remove(candidate)) {
+                for (int k = l + 1; k <= length; k++) {
+                    long half = blockSize(k);
+                    // Garder libre la moitié qui ne contient pas le bloc réservé
+                    free[k].add((block & half) == 0 ? (block & IPCalculator.prefixMask(k)) + half
+                                                    : (block & IPCalculator.prefixMask(k)) - half);
+                }
+                freeAddresses -= blockSize(length);
+                return blockSize(length);
+            }
+        }
+
+        // Sinon, retirer les blocs libres plus petits qu'il recouvre
+        long last = block + blockSize(length) - 1;
+        long removed = 0;
+        for (int l = length + 1; l <= 32; l++) {
+            NavigableSet<Long> covered = free[l].subSet(block, true, last, true);
+            removed += covered.size() * blockSize(l);
+            covered.clear();
+        }
+        freeAddresses -= removed;
+        return removed;
+    }
+
+    /**
+     * Rend un bloc à l'espace libre en le fusionnant avec ses compagnons
+     * libres. Sans effet sur la partie déjà libre (double libération, bloc
+     * englobant un bloc déjà rendu).
+     *
+     * @return le nombre d'adresses effectivement rendues à l'espace libre
+     */
+    public long release(long network, int length) {
+        checkLength(length);
+        long block = network & IPCalculator.prefixMask(length);
+        if ((block & IPCalculator.prefixMask(baseLength)) != base) {
+            throw new IllegalArgumentException("Bloc hors de l'espace de l'allocateur");
+        }
+        if (isFree(block, length)) {
+            return 0;
+        }
+
+        // Les blocs libres plus petits qu'il recouvre sont absorbés
+        long last = block + blockSize(length) - 1;
+        long alreadyFree = 0;
+        for (int l = length + 1; l <= 32; l++) {
+            NavigableSet<Long> covered = free[l].subSet(block, true, last, true);
+            alreadyFree += covered.size() * blockSize(l);
+            covered.clear();
+        }
+        long released = blockSize(length) - alreadyFree;
+        freeAddresses += released;
+
+        int l = length;
+        while (l > baseLength) {
+            long buddy = block ^ blockSize(l);
+            if (!free[l].remove(buddy)) {
+                break;
+            }
+            block = Math.min(block, buddy);
+            l--;
+        }
+        free[l].add(block);
+        return released;
+    }
+
+    /**
+     * Vrai si le bloc est entièrement libre
+     */
+    public boolean isFree(long network, int length) {
+        checkLength(length);
+        long block = network & IPCalculator.prefixMask(length);
+        for (int l = length; l >= baseLength; l--) {
+            if (free[l].contains(block & IPCalculator.prefixMask(l))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getFreeAddresses() {
+        return freeAddresses;
+    }
+
+    /**
+     * Nombre de blocs libres (mesure de la fragmentation)
+     */
+    public int getFreeBlockCount() {
+        int count = 0;
+        for (int l = baseLength; l <= 32; l++) {
+            count += free[l].size();
+        }
+        return count;
+    }
+
+    /**
+     * Longueur du plus grand bloc libre, -1 si l'espace est plein
+     */
+    public int getLargestFreeLength() {
+        for (int l = baseLength; l <= 32; l++) {
+            if (!free[l].isEmpty()) {
+                return l;
+            }
+        }
+        return -1;
+    }
+
+    private void checkLength(int length) {
+        if (length < baseLength || length > 32) {
+            throw new IllegalArgumentException(String.format(
+                "Longueur de préfixe invalide (doit être entre %d et 32)", baseLength));
+        }
+    }
+
+    private static long blockSize(int length) {
+        return 1L << (32 - length);
+    }
+}
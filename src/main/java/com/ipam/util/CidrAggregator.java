@@ -0,0 +1,157 @@
+package com.ipam.util;
+
+import com.ipam.model.Ipv4Prefix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Agrégation de préfixes IPv4 : liste minimale de CIDR couvrant exactement
+ * la même union d'adresses (résumé de routes, ACL compactes).
+ * <p>
+ * Les préfixes sont manipulés sous forme compacte dans des tableaux de long
+ * ({@code réseau << 6 | longueur}) : un tri primitif O(n log n), puis un
+ * seul passage qui fusionne les plages qui se chevauchent ou se touchent et
+ * découpe chaque plage en blocs alignés (au plus 62 par plage).
+ */
+public final class CidrAggregator {
+    private static final long MAX_ADDRESS = 0xFFFFFFFFL;
+
+    private CidrAggregator() {}
+
+    /**
+     * Forme compacte d'un préfixe (bits d'hôte remis à zéro)
+     */
+    public static long pack(long network, int length) {
+        if (length < 0 || length > 32) {
+            throw new IllegalArgumentException("CIDR doit être entre 0 et 32");
+        }
+        return ((network & IPCalculator.prefixMask(length)) << 6) | length;
+    }
+
+    public static long pack(Ipv4Prefix prefix) {
+        return pack(prefix.first(), prefix.getLength());
+    }
+
+    public static long network(long packed) {
+        return packed >>> 6;
+    }
+
+    public static int length(long packed) {
+        return (int) (packed & 0x3F);
+    }
+
+    public static Ipv4Prefix unpack(long packed) {
+        return Ipv4Prefix.of((int) network(packed), length(packed));
+    }
+
+    /**
+     * Liste minimale de CIDR couvrant l'union des préfixes, triée par adresse.
+     * Le tableau d'entrée est trié en place.
+     */
+    public static long[] aggregate(long[] packed) {
+        Arrays.sort(packed);
+        LongList out = new LongList(Math.max(16, packed.length / 4));
+        long start = -1;
+        long end = -1;
+        for (long p : packed) {
+            long first = network(p);
+            long last = first + blockSize(length(p)) - 1;
+            if (start >= 0 && first <= end + 1) {
+                end = Math.max(end, last);
+            } else {
+                if (start >= 0) {
+                    appendRange(out, start, end);
+                }
+                start = first;
+                end = last;
+            }
+        }
+        if (start >= 0) {
+            appendRange(out, start, end);
+        }
+        return out.toArray();
+    }
+
+    /**
+     * Liste minimale de CIDR couvrant les adresses du préfixe englobant qui
+     * ne sont couvertes par aucun des préfixes (espace libre). Le tableau
+     * d'entrée est trié en place.
+     */
+    public static long[] complement(long[] packed, long network, int length) {
+        long low = network & IPCalculator.prefixMask(length);
+        long high = low + blockSize(length) - 1;
+        Arrays.sort(packed);
+        LongList out = new LongList(16);
+        long next = low; // Première adresse pas encore couverte
+        for (long p : packed) {
+            long first = network(p);
+            long last = first + blockSize(length(p)) - 1;
+            if (last < next) {
+                continue;
+            }
+            if (first > high) {
+                break;
+            }
+            if (first > next) {
+                appendRange(out, next, first - 1);
+            }
+            next = last + 1;
+            if (next > high) {
+                return out.toArray();
+            }
+        }
+        appendRange(out, next, high);
+        return out.toArray();
+    }
+
+    public static List<Ipv4Prefix> toPrefixes(long[] packed) {
+        List<Ipv4Prefix> prefixes = new ArrayList<>(packed.length);
+        for (long p : packed) {
+            prefixes.add(unpack(p));
+        }
+        return prefixes;
+    }
+
+    /**
+     * Découpe la plage [start, end] en blocs alignés, du plus bas au plus haut
+     */
+    private static void appendRange(LongList out, long start, long end) {
+        while (start <= end && start <= MAX_ADDRESS) {
+            // Plus grand bloc aligné sur start qui ne dépasse pas end
+            int hostBits = start == 0 ? 32 : Long.numberOfTrailingZeros(start);
+            int fit = 63 - Long.numberOfLeadingZeros(end - start + 1);
+            hostBits = Math.min(Math.min(hostBits, fit), 32);
+            out.add((start << 6) | (32 - hostBits));
+            start += 1L << hostBits;
+        }
+    }
+
+    private static long blockSize(int length) {
+        return 1L << (32 - length);
+    }
+
+    /**
+     * Tableau de long extensible, sans boxing
+     */
+    private static final class LongList {
+        private long[] values;
+        private int size;
+
+        LongList(int capacity) {
+            values = new long[capacity];
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.ipam.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de connexions SQLite.
+ * Conserve un nombre borné de connexions de lecture (lecture seule) et une
+ * connexion d'écriture dédiée : SQLite n'accepte qu'un seul écrivain à la fois,
+ * les autres lisent en parallèle grâce au mode WAL.
+ */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    private static final long BORROW_TIMEOUT_MS = 30_000;
+    private static final long VALIDATION_INTERVAL_MS = 30_000;
+    private static final long MAINTENANCE_PERIOD_MS = 60_000;
+    private static final int MIN_IDLE_READERS = 1;
+
+    private final String url;
+    private final int maxReaders;
+    private final long idleTimeoutMillis;
+
+    private final Deque<PooledEntry> idleReaders = new ArrayDeque<>();
+    private final Semaphore readerPermits;
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private final ScheduledExecutorService maintenance;
+
+    private PooledEntry writer; // protégé par writerLock
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, int maxReaders, long idleTimeoutMillis) {
+        this.url = url;
+        this.maxReaders = maxReaders;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.readerPermits = new Semaphore(maxReaders, true);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ipam-db-pool");
+            t.setDaemon(true);
+            return t;
+        });
+        this.maintenance.scheduleWithFixedDelay(this::runMaintenance,
+            MAINTENANCE_PERIOD_MS, MAINTENANCE_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion de lecture. La fermer la rend au pool.
+     */
+    public Connection borrowReader() throws SQLException {
+        ensureOpen();
+        try {
+            if (!readerPermits.tryAcquire(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Aucune connexion de lecture disponible (pool de " + maxReaders + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente d'une connexion interrompue", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = pollIdleReader()) != null) {
+                if (isHealthy(entry)) {
+                    return wrap(entry, false);
+                }
+                closeQuietly(entry);
+            }
+            return wrap(new PooledEntry(openConnection(true)), false);
+        } catch (SQLException | RuntimeException e) {
+            readerPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Emprunte la connexion d'écriture dédiée. Bloque tant qu'un autre thread la détient ;
+     * un même thread peut l'emprunter plusieurs fois (emprunts imbriqués).
+     */
+    public Connection borrowWriter() throws SQLException {
+        ensureOpen();
+        try {
+            if (!writerLock.tryLock(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Connexion d'écriture indisponible");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente de la connexion d'écriture interrompue", e);
+        }
+
+        try {
+            if (writer == null || !isHealthy(writer)) {
+                if (writer != null) {
+                    logger.warn("Connexion d'écriture invalide, réouverture");
+                    closeQuietly(writer);
+                }
+                writer = new PooledEntry(openConnection(false));
+            }
+            return wrap(writer, true);
+        } catch (SQLException | RuntimeException e) {
+            writerLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Ferme toutes les connexions et arrête la maintenance.
+     * Les connexions encore empruntées sont fermées à leur restitution.
+     */
+    public void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        maintenance.shutdownNow();
+
+        synchronized (idleReaders) {
+            for (PooledEntry entry : idleReaders) {
+                closeQuietly(entry);
+            }
+            idleReaders.clear();
+        }
+
+        try {
+            if (writerLock.tryLock(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                try {
+                    if (writer != null) {
+                        closeQuietly(writer);
+                        writer = null;
+                    }
+                } finally {
+                    writerLock.unlock();
+                }
+            } else {
+                logger.warn("Connexion d'écriture toujours utilisée à l'arrêt du pool");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Pool de connexions fermé");
+    }
+
+    /**
+     * Éviction des lecteurs inactifs et contrôle de santé périodique.
+     */
+    private void runMaintenance() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        synchronized (idleReaders) {
+            // Les plus anciens sont en fin de file (restitution en tête)
+            Iterator<PooledEntry> it = idleReaders.descendingIterator();
+            while (it.hasNext()) {
+                PooledEntry entry = it.next();
+                boolean expired = idleReaders.size() > MIN_IDLE_READERS
+                    && now - entry.lastUsed > idleTimeoutMillis;
+                if (expired || !isValid(entry)) {
+                    it.remove();
+                    closeQuietly(entry);
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("{} connexion(s) de lecture inactive(s) fermée(s)", evicted);
+        }
+
+        if (writerLock.tryLock()) {
+            try {
+                if (writer != null && !isValid(writer)) {
+                    logger.warn("Connexion d'écriture invalide détectée, elle sera rouverte");
+                    closeQuietly(writer);
+                    writer = null;
+                }
+            } finally {
+                writerLock.unlock();
+            }
+        }
+    }
+
+    private PooledEntry pollIdleReader() {
+        synchronized (idleReaders) {
+            return idleReaders.pollFirst();
+        }
+    }
+
+    private void release(PooledEntry entry, boolean isWriter) {
+        if (isWriter) {
+            try {
+                // Dernier emprunt imbriqué : remettre la connexion dans un état propre
+                if (writerLock.getHoldCount() == 1) {
+                    resetState(entry);
+                    if (closed) {
+                        closeQuietly(entry);
+                        writer = null;
+                    }
+                }
+            } finally {
+                writerLock.unlock();
+            }
+            return;
+        }
+
+        try {
+            if (closed || !resetState(entry)) {
+                closeQuietly(entry);
+            } else {
+                entry.lastUsed = System.currentTimeMillis();
+                synchronized (idleReaders) {
+                    idleReaders.addFirst(entry);
+                }
+            }
+        } finally {
+            readerPermits.release();
+        }
+    }
+
+    /**
+     * Annule une transaction laissée ouverte par l'emprunteur.
+     */
+    private boolean resetState(PooledEntry entry) {
+        try {
+            if (entry.connection.isClosed()) {
+                return false;
+            }
+            if (!entry.connection.getAutoCommit()) {
+                logger.warn("Transaction non terminée à la restitution, annulation");
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Connexion inutilisable à la restitution: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isHealthy(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastUsed < VALIDATION_INTERVAL_MS) {
+            try {
+                return !entry.connection.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+        return isValid(entry);
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openConnection(boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        config.setReadOnly(readOnly);
+        if (!readOnly) {
+            // WAL : les lecteurs ne sont pas bloqués par l'écrivain
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        }
+        Connection conn = DriverManager.getConnection(url, config.toProperties());
+        logger.debug("Nouvelle connexion {} ouverte", readOnly ? "de lecture" : "d'écriture");
+        return conn;
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Le pool de connexions est fermé");
+        }
+    }
+
+    private void closeQuietly(PooledEntry entry) {
+        try {
+            entry.connection.close();
+        } catch (SQLException e) {
+            logger.debug("Erreur à la fermeture d'une connexion: {}", e.getMessage());
+        }
+    }
+
+    private Connection wrap(PooledEntry entry, boolean isWriter) {
+        return (Connection) Proxy.newProxyInstance(
+            ConnectionPool.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            new PooledConnectionHandler(entry, isWriter));
+    }
+
+    /**
+     * Connexion physique et date de dernière utilisation
+     */
+    private static final class PooledEntry {
+        private final Connection connection;
+        private volatile long lastUsed;
+
+        private PooledEntry(Connection connection) {
+            this.connection = connection;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Intercepte close() pour rendre la connexion au pool au lieu de la fermer
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private final boolean isWriter;
+        private boolean returned;
+
+        private PooledConnectionHandler(PooledEntry entry, boolean isWriter) {
+            this.entry = entry;
+            this.isWriter = isWriter;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(entry, isWriter);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || entry.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled" + (isWriter ? "Writer" : "Reader") + "[" + entry.connection + "]";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connexion déjà rendue au pool");
+                    }
+                    try {
+                        return method.invoke(entry.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.ipam.util;
 
+import com.ipam.service.FreeSpace;
+import com.ipam.service.LeaseExpiry;
+import com.ipam.service.MacIndex;
+import com.ipam.service.PoolSpace;
+import com.ipam.service.SubnetIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Gestionnaire de connexion à la base de données SQLite
@@ -13,41 +19,88 @@ import java.time.LocalDateTime;
 public class DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
     private static final String DB_NAME = "ipam.db";
-    // Chemin de base de données modifié selon la demande
-    private static final String DB_PATH = "C:\\Users\\Drisstein\\Downloads\\ipam-manager-2026\\.ipam\\" + DB_NAME;
-    private static volatile boolean initialized = false;
+    // Chemin de base de données modifié selon la demande (surchargeable via -Dipam.db.path)
+    private static final String DB_PATH = System.getProperty("ipam.db.path",
+        "C:\\Users\\Drisstein\\Downloads\\ipam-manager-2026\\.ipam\\" + DB_NAME);
+    private static final int MAX_READ_CONNECTIONS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final long IDLE_TIMEOUT_MS = 5 * 60_000;
+    private static volatile ConnectionPool pool;
+    private static volatile WriteQueue writeQueue;
 
     /**
-     * Obtient une connexion à la base de données
+     * Obtient une connexion de lecture du pool (à fermer pour la restituer).
+     * Appelée depuis une écriture en cours, renvoie la connexion d'écriture
+     * afin de lire les modifications non encore validées.
      */ 
     public static Connection getConnection() throws SQLException {
-        try {
-            // Créer le dossier si nécessaire
-            File dbFile = new File(DB_PATH);
-            File parentDir = dbFile.getParentFile();
-            if (!parentDir.exists()) {
-                parentDir.mkdirs();
-            }
+        ConnectionPool current = getPool();
+        if (writeQueue.isWriterThread()) {
+            return current.borrowWriter();
+        }
+        return current.borrowReader();
+    }
+
+    /**
+     * Exécute une écriture via le thread écrivain unique et attend sa validation.
+     * Les écritures concurrentes sont regroupées dans une même transaction ;
+     * une écriture appelée depuis une autre écriture rejoint sa transaction.
+     */
+    public static <T> T write(SqlWork<T> work) throws SQLException {
+        getPool();
+        return writeQueue.execute(work);
+    }
+
+    /**
+     * Exécute une écriture exclusive via le thread écrivain : seule, hors
+     * transaction de lot, elle gère ses propres transactions
+     */
+    public static <T> T writeExclusive(SqlWork<T> work) throws SQLException {
+        getPool();
+        return writeQueue.executeExclusive(work);
+    }
 
-            // Connexion SQLite (nouvelle connexion par appel)
-            String url = "jdbc:sqlite:" + DB_PATH;
-            Connection conn = DriverManager.getConnection(url);
+    /**
+     * Soumet une écriture sans attendre ; le futur est complété après le COMMIT
+     */
+    public static <T> CompletableFuture<T> writeAsync(SqlWork<T> work) throws SQLException {
+        getPool();
+        return writeQueue.submit(work);
+    }
 
-            // Initialiser le schéma une seule fois
-            if (!initialized) {
-                synchronized (DatabaseManager.class) {
-                    if (!initialized) {
-                        initializeSchema(conn);
-                        initialized = true;
-                        logger.info("Schéma de base de données initialisé avec succès");
-                    }
+    /**
+     * Ouvre le pool et initialise le schéma si ce n'est pas encore fait
+     */
+    public static void initialize() throws SQLException {
+        getPool();
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (DatabaseManager.class) {
+            if (pool == null) {
+                // Créer le dossier si nécessaire (une seule fois)
+                File parentDir = new File(DB_PATH).getAbsoluteFile().getParentFile();
+                if (parentDir != null && !parentDir.exists()) {
+                    parentDir.mkdirs();
                 }
-            }
 
-            return conn;
-        } catch (SQLException e) {
-            logger.error("Erreur lors de la connexion à la base de données", e);
-            throw e;
+                ConnectionPool created = new ConnectionPool("jdbc:sqlite:" + DB_PATH,
+                    MAX_READ_CONNECTIONS, IDLE_TIMEOUT_MS);
+                try (Connection conn = created.borrowWriter()) {
+                    initializeSchema(conn);
+                } catch (SQLException e) {
+                    created.shutdown();
+                    logger.error("Erreur lors de la connexion à la base de données", e);
+                    throw e;
+                }
+                writeQueue = new WriteQueue(created);
+                pool = created;
+                logger.info("Schéma de base de données initialisé avec succès");
+            }
+            return pool;
         }
     }
 
@@ -55,75 +108,11 @@ public class DatabaseManager {
      * Initialise le schéma de la base de données
      */
     private static void initializeSchema(Connection connection) throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
-            // Table Subnets
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS subnets (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    network_address TEXT NOT NULL,
-                    subnet_mask TEXT NOT NULL,
-                    cidr INTEGER NOT NULL,
-                    description TEXT,
-                    vlan_id INTEGER,
-                    gateway TEXT,
-                    dns_servers TEXT,
-                    created_date TEXT NOT NULL,
-                    modified_date TEXT NOT NULL,
-                    UNIQUE(network_address, cidr)
-                )
-            """);
-
-            // Table IPAddresses
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS ip_addresses (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    ip_address TEXT NOT NULL,
-                    subnet_id INTEGER NOT NULL,
-                    status TEXT NOT NULL,
-                    assigned_to TEXT,
-                    mac_address TEXT,
-                    description TEXT,
-                    assigned_date TEXT,
-                    created_date TEXT NOT NULL,
-                    FOREIGN KEY (subnet_id) REFERENCES subnets(id) ON DELETE CASCADE,
-                    UNIQUE(ip_address)
-                )
-            """);
-
-            // Table Reservations
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS reservations (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    ip_address_id INTEGER NOT NULL,
-                    reserved_by TEXT NOT NULL,
-                    reason TEXT,
-                    expiration_date TEXT,
-                    created_date TEXT NOT NULL,
-                    FOREIGN KEY (ip_address_id) REFERENCES ip_addresses(id) ON DELETE CASCADE
-                )
-            """);
+        // Migrations versionnées (table schema_version)
+        new SchemaMigrator(connection, SchemaMigrations.all()).migrate();
 
-            // Table AuditLogs
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS audit_logs (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    action TEXT NOT NULL,
-                    entity_type TEXT NOT NULL,
-                    entity_id INTEGER NOT NULL,
-                    details TEXT,
-                    username TEXT NOT NULL,
-                    timestamp TEXT NOT NULL
-                )
-            """);
-
-            // Index pour améliorer les performances
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ip_subnet ON ip_addresses(subnet_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ip_status ON ip_addresses(status)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_audit_timestamp ON audit_logs(timestamp)");
-
-            // Peupler la base avec quelques données d'exemple si elle est vide
-            seedInitialData(connection);
-        }
+        // Peupler la base avec quelques données d'exemple si elle est vide
+        seedInitialData(connection);
     }
 
     /**
@@ -143,9 +132,10 @@ public class DatabaseManager {
 
         // Préparation des requêtes d'insertion
         String insertSubnetSql = "INSERT INTO subnets (network_address, subnet_mask, cidr, description, vlan_id, " +
-                "gateway, dns_servers, created_date, modified_date) VALUES (?,?,?,?,?,?,?,?,?)";
+                "gateway, dns_servers, created_date, modified_date, network_num, broadcast_num) " +
+                "VALUES (?,?,?,?,?,?,?,?,?,?,?)";
         String insertIpSql = "INSERT INTO ip_addresses (ip_address, subnet_id, status, assigned_to, " +
-                "mac_address, description, assigned_date, created_date) VALUES (?,?,?,?,?,?,?,?)";
+                "mac_address, description, assigned_date, created_date, ip_num, mac_num) VALUES (?,?,?,?,?,?,?,?,?,?)";
 
         connection.setAutoCommit(false);
         try {
@@ -166,6 +156,8 @@ public class DatabaseManager {
                 ps.setString(7, "8.8.8.8,8.8.4.4");
                 ps.setString(8, now);
                 ps.setString(9, now);
+                ps.setLong(10, IPCalculator.ipToLong("192.168.1.0"));
+                ps.setLong(11, IPCalculator.ipToLong(IPCalculator.getBroadcastAddress("192.168.1.0", cidr)));
                 ps.executeUpdate();
 
                 try (ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
@@ -187,6 +179,8 @@ public class DatabaseManager {
                 ps.setString(7, "1.1.1.1,1.0.0.1");
                 ps.setString(8, now);
                 ps.setString(9, now);
+                ps.setLong(10, IPCalculator.ipToLong("192.168.2.0"));
+                ps.setLong(11, IPCalculator.ipToLong(IPCalculator.getBroadcastAddress("192.168.2.0", cidr)));
                 ps.executeUpdate();
 
                 try (ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
@@ -208,6 +202,8 @@ public class DatabaseManager {
                 ps.setString(7, "9.9.9.9,149.112.112.112");
                 ps.setString(8, now);
                 ps.setString(9, now);
+                ps.setLong(10, IPCalculator.ipToLong("10.0.0.0"));
+                ps.setLong(11, IPCalculator.ipToLong(IPCalculator.getBroadcastAddress("10.0.0.0", cidr)));
                 ps.executeUpdate();
 
                 try (ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
@@ -227,6 +223,8 @@ public class DatabaseManager {
                 psIp.setString(6, "Serveur de fichiers principal");
                 psIp.setString(7, now);
                 psIp.setString(8, now);
+                psIp.setLong(9, IPCalculator.ipToLong("192.168.1.10"));
+                psIp.setLong(10, IPCalculator.parseMAC("AA:BB:CC:DD:EE:01"));
                 psIp.executeUpdate();
 
                 psIp.setString(1, "192.168.1.20");
@@ -237,6 +235,8 @@ public class DatabaseManager {
                 psIp.setString(6, "Poste libre");
                 psIp.setNull(7, Types.VARCHAR);
                 psIp.setString(8, now);
+                psIp.setLong(9, IPCalculator.ipToLong("192.168.1.20"));
+                psIp.setNull(10, Types.INTEGER);
                 psIp.executeUpdate();
 
                 // Invités
@@ -248,6 +248,8 @@ public class DatabaseManager {
                 psIp.setString(6, "Client invité");
                 psIp.setString(7, now);
                 psIp.setString(8, now);
+                psIp.setLong(9, IPCalculator.ipToLong("192.168.2.50"));
+                psIp.setLong(10, IPCalculator.parseMAC("AA:BB:CC:DD:EE:02"));
                 psIp.executeUpdate();
 
                 // Serveurs
@@ -259,9 +261,15 @@ public class DatabaseManager {
                 psIp.setString(6, "Serveur d'applications");
                 psIp.setString(7, now);
                 psIp.setString(8, now);
+                psIp.setLong(9, IPCalculator.ipToLong("10.0.0.10"));
+                psIp.setLong(10, IPCalculator.parseMAC("AA:BB:CC:DD:EE:03"));
                 psIp.executeUpdate();
             }
 
+            // Bitmaps de statut et compteurs des adresses insérées
+            SchemaMigrations.rebuildStatusBitmaps(connection);
+            SchemaMigrations.rebuildSubnetUsage(connection);
+
             connection.commit();
             logger.info("Données d'exemple insérées dans la base IPAM");
         } catch (SQLException e) {
@@ -274,24 +282,46 @@ public class DatabaseManager {
     }
 
     /**
-     * Ferme la connexion à la base de données
+     * Ferme le pool de connexions (appelé à l'arrêt de l'application)
      */
     public static void closeConnection() {
-        // Les connexions sont gérées via try-with-resources dans les DAO ; rien à fermer ici.
+        synchronized (DatabaseManager.class) {
+            if (pool != null) {
+                writeQueue.shutdown();
+                pool.shutdown();
+                writeQueue = null;
+                pool = null;
+            }
+        }
     }
 
     /**
-     * Réinitialise la base de données (ATTENTION: supprime toutes les données)
+     * Réinitialise la base de données (ATTENTION: supprime toutes les données).
+     * Passe par le thread écrivain (les migrations valident elles-mêmes, d'où
+     * une écriture exclusive), puis oublie les index et espaces libres en
+     * mémoire, qui décrivent l'ancienne base.
      */
     public static void resetDatabase() throws SQLException {
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            stmt.execute("DROP TABLE IF EXISTS audit_logs");
-            stmt.execute("DROP TABLE IF EXISTS reservations");
-            stmt.execute("DROP TABLE IF EXISTS ip_addresses");
-            stmt.execute("DROP TABLE IF EXISTS subnets");
+        writeExclusive(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS ip_status_bitmaps");
+                stmt.execute("DROP TABLE IF EXISTS subnet_usage");
+                stmt.execute("DROP TABLE IF EXISTS audit_logs");
+                stmt.execute("DROP TABLE IF EXISTS reservations");
+                stmt.execute("DROP TABLE IF EXISTS ip_addresses");
+                stmt.execute("DROP TABLE IF EXISTS subnets");
+                stmt.execute("DROP TABLE IF EXISTS subnet_pools");
+                stmt.execute("DROP TABLE IF EXISTS schema_version");
+            }
             logger.info("Base de données réinitialisée");
             initializeSchema(conn);
-        }
+            return null;
+        });
+        SubnetIndex.invalidate();
+        MacIndex.invalidate();
+        FreeSpace.getInstance().clear();
+        PoolSpace.getInstance().clear();
+        LeaseExpiry.reload();
     }
 
     /**
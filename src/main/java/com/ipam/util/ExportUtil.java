@@ -1,5 +1,6 @@
 package com.ipam.util;
 
+import com.ipam.model.Ipv4Prefix;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import org.apache.poi.ss.usermodel.Cell;
@@ -17,6 +18,9 @@ import com.lowagie.text.pdf.PdfWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -95,6 +99,19 @@ public final class ExportUtil {
         }
     }
 
+    /**
+     * Exporte une liste de préfixes en texte, un CIDR par ligne (résumé de routes, ACL)
+     */
+    public static void exportPrefixesToText(List<Ipv4Prefix> prefixes, File file, String title) throws Exception {
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write("# " + title + " (" + now() + ")\n");
+            for (Ipv4Prefix prefix : prefixes) {
+                out.write(prefix.toString());
+                out.write('\n');
+            }
+        }
+    }
+
     private static String now() {
         return DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").format(LocalDateTime.now());
     }
@@ -0,0 +1,22 @@
+package com.ipam.util;
+
+/**
+ * Première suite libre assez longue, par adresse croissante
+ */
+final class FirstFitStrategy implements AllocationStrategy {
+
+    @Override
+    public long select(FreeBitmap free, int count) {
+        return free.nextRun(free.getFirst(), count);
+    }
+
+    @Override
+    public String getName() {
+        return "Première adresse libre";
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,323 @@
+package com.ipam.util;
+
+import java.util.Arrays;
+
+/**
+ * Bitmap des adresses libres d'une plage [first, last] : un bit par adresse,
+ * 1 = libre, découpé en pages de 4096 adresses (64 mots longs). Une page
+ * entièrement libre n'est pas allouée : seules les pages qui contiennent une
+ * adresse occupée coûtent de la mémoire (528 octets), et une page redevenue
+ * entièrement libre est rendue. Un /8 creux tient ainsi en quelques pages
+ * plus sa table (4096 références), au lieu de 2 Mio ; un /0 coûte au plus
+ * sa table de pages (2^20 références) tant qu'il reste creux. Deux résumés
+ * à chaque niveau (un bit par mot dans chaque page, un bit par page pour la
+ * plage) indexent ce qui contient au moins une adresse libre et au moins une
+ * adresse occupée : la recherche de la prochaine adresse libre ou occupée
+ * saute 64 adresses par bit de résumé de page et 4096 par bit de résumé de
+ * plage. Les stratégies d'attribution (AllocationStrategy) parcourent
+ * les plages libres avec nextFree et nextUsed. Non synchronisé.
+ */
+public class FreeBitmap {
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_WORDS = 1 << (PAGE_SHIFT - 6);
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    // Après les mots d'une page : bit i levé si le mot i contient une adresse libre, puis occupée
+    private static final int FREE_WORDS = PAGE_WORDS;
+    private static final int USED_WORDS = PAGE_WORDS + 1;
+
+    private final long first;
+    private final long size;
+    // Page i : null si entièrement libre, sinon ses mots suivis de ses deux
+    // résumés ; la dernière page, si elle est partielle, est toujours allouée
+    // (ses bits hors plage sont à 0)
+    private final long[][] pages;
+    // Bit i : la page i contient au moins une adresse libre
+    private final long[] withFree;
+    // Bit i : la page i contient au moins une adresse occupée (ou hors plage)
+    private final long[] withUsed;
+    private long freeCount;
+    private int allocatedPages;
+    // Dernière adresse prise, first - 1 avant la première
+    private long lastTaken;
+
+    /**
+     * Plage entièrement libre
+     */
+    public FreeBitmap(long first, long last) {
+        if (last < first || last - first >= 1L << 32) {
+            throw new IllegalArgumentException("Plage d'adresses invalide");
+        }
+        this.first = first;
+        this.size = last - first + 1;
+        int pageCount = (int) ((size + PAGE_MASK) >>> PAGE_SHIFT);
+        this.pages = new long[pageCount][];
+        this.withFree = new long[(pageCount + 63) >>> 6];
+        this.withUsed = new long[withFree.length];
+        Arrays.fill(withFree, -1L);
+        if ((pageCount & 63) != 0) {
+            withFree[withFree.length - 1] = (1L << (pageCount & 63)) - 1;
+        }
+        int tail = (int) (size & PAGE_MASK);
+        if (tail != 0) {
+            long[] page = new long[PAGE_WORDS + 2];
+            Arrays.fill(page, 0, tail >>> 6, -1L);
+            if ((tail & 63) != 0) {
+                page[tail >>> 6] = (1L << (tail & 63)) - 1;
+            }
+            int fullWords = tail >>> 6;
+            int freeWords = (tail + 63) >>> 6;
+            page[FREE_WORDS] = freeWords == 64 ? -1L : (1L << freeWords) - 1;
+            page[USED_WORDS] = -1L << fullWords;
+            pages[pageCount - 1] = page;
+            allocatedPages = 1;
+            setBit(withUsed, pageCount - 1, true);
+        }
+        this.freeCount = size;
+        this.lastTaken = first - 1;
+    }
+
+    /**
+     * Première adresse libre à partir de from (inclus), -1 s'il n'y en a plus
+     */
+    public long nextFree(long from) {
+        if (from < first) {
+            from = first;
+        }
+        long offset = from - first;
+        if (offset >= size) {
+            return -1;
+        }
+        int index = (int) (offset >>> PAGE_SHIFT);
+        long found = scanPage(index, (int) (offset & PAGE_MASK), false);
+        if (found < 0) {
+            index = nextPage(withFree, index + 1);
+            if (index < 0) {
+                return -1;
+            }
+            found = scanPage(index, 0, false);
+        }
+        return first + found;
+    }
+
+    /**
+     * Première adresse occupée à partir de from (inclus), last + 1 s'il n'y en a pas
+     */
+    public long nextUsed(long from) {
+        if (from < first) {
+            from = first;
+        }
+        long offset = from - first;
+        if (offset >= size) {
+            return first + size;
+        }
+        int index = (int) (offset >>> PAGE_SHIFT);
+        long found = scanPage(index, (int) (offset & PAGE_MASK), true);
+        if (found < 0) {
+            index = nextPage(withUsed, index + 1);
+            if (index < 0) {
+                return first + size;
+            }
+            found = scanPage(index, 0, true);
+        }
+        // Les bits au-delà de la plage comptent comme occupés
+        return Math.min(first + found, first + size);
+    }
+
+    /**
+     * Début de la première suite de count adresses libres consécutives
+     * commençant à from ou après, -1 s'il n'y en a pas : chaque plage libre
+     * est mesurée puis sautée si elle est trop courte
+     */
+    public long nextRun(long from, int count) {
+        long start = nextFree(from);
+        while (start >= 0) {
+            long end = nextUsed(start);
+            if (end - start >= count) {
+                return start;
+            }
+            start = nextFree(end);
+        }
+        return -1;
+    }
+
+    /**
+     * Prend la première adresse libre de la plage, -1 si elle est pleine
+     */
+    public long takeFirst() {
+        long address = nextFree(first);
+        if (address >= 0) {
+            take(address, 1);
+        }
+        return address;
+    }
+
+    /**
+     * Prend count adresses consécutives à partir de start, qui doivent être libres
+     */
+    public void take(long start, int count) {
+        for (long address = start; address < start + count; address++) {
+            if (!markUsed(address)) {
+                throw new IllegalStateException("Adresse déjà occupée: " + address);
+            }
+        }
+        lastTaken = start + count - 1;
+    }
+
+    /**
+     * Marque une adresse comme occupée
+     *
+     * @return true si elle était libre
+     */
+    public boolean markUsed(long address) {
+        if (!inRange(address)) {
+            return false;
+        }
+        long offset = address - first;
+        int index = (int) (offset >>> PAGE_SHIFT);
+        long[] page = pages[index];
+        if (page == null) {
+            page = new long[PAGE_WORDS + 2];
+            Arrays.fill(page, 0, FREE_WORDS + 1, -1L);
+            pages[index] = page;
+            allocatedPages++;
+        }
+        int word = (int) (offset & PAGE_MASK) >>> 6;
+        long bit = 1L << (offset & 63);
+        if ((page[word] & bit) == 0) {
+            return false;
+        }
+        page[word] &= ~bit;
+        page[USED_WORDS] |= 1L << word;
+        setBit(withUsed, index, true);
+        if (page[word] == 0) {
+            page[FREE_WORDS] &= ~(1L << word);
+            setBit(withFree, index, page[FREE_WORDS] != 0);
+        }
+        freeCount--;
+        return true;
+    }
+
+    /**
+     * Marque une adresse comme libre
+     *
+     * @return true si elle était occupée
+     */
+    public boolean markFree(long address) {
+        if (!inRange(address)) {
+            return false;
+        }
+        long offset = address - first;
+        int index = (int) (offset >>> PAGE_SHIFT);
+        long[] page = pages[index];
+        int word = (int) (offset & PAGE_MASK) >>> 6;
+        long bit = 1L << (offset & 63);
+        if (page == null || (page[word] & bit) != 0) {
+            return false;
+        }
+        page[word] |= bit;
+        page[FREE_WORDS] |= 1L << word;
+        setBit(withFree, index, true);
+        if (page[word] == -1L) {
+            page[USED_WORDS] &= ~(1L << word);
+        }
+        if (page[USED_WORDS] == 0) {
+            // Page redevenue entièrement libre : rendue
+            setBit(withUsed, index, false);
+            pages[index] = null;
+            allocatedPages--;
+        }
+        freeCount++;
+        return true;
+    }
+
+    public boolean isFree(long address) {
+        if (!inRange(address)) {
+            return false;
+        }
+        long offset = address - first;
+        long[] page = pages[(int) (offset >>> PAGE_SHIFT)];
+        return page == null || (page[(int) (offset & PAGE_MASK) >>> 6] & (1L << (offset & 63))) != 0;
+    }
+
+    public long getFreeCount() {
+        return freeCount;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLast() {
+        return first + size - 1;
+    }
+
+    /**
+     * Dernière adresse prise par take, first - 1 si aucune
+     */
+    public long getLastTaken() {
+        return lastTaken;
+    }
+
+    /**
+     * Nombre de pages allouées (512 octets chacune), les pages entièrement libres n'en font pas partie
+     */
+    public int getAllocatedPages() {
+        return allocatedPages;
+    }
+
+    private boolean inRange(long address) {
+        return address >= first && address - first < size;
+    }
+
+    /**
+     * Première adresse libre (ou occupée si used) de la page index à partir de
+     * l'adresse from de la page, en décalage depuis first ; -1 s'il n'y en a pas
+     */
+    private long scanPage(int index, int from, boolean used) {
+        long base = (long) index << PAGE_SHIFT;
+        long[] page = pages[index];
+        if (page == null) {
+            return used ? -1 : base + from;
+        }
+        int i = from >>> 6;
+        long word = (used ? ~page[i] : page[i]) & (-1L << (from & 63));
+        if (word == 0) {
+            if (i == PAGE_WORDS - 1) {
+                return -1;
+            }
+            long words = page[used ? USED_WORDS : FREE_WORDS] & (-1L << (i + 1));
+            if (words == 0) {
+                return -1;
+            }
+            i = Long.numberOfTrailingZeros(words);
+            word = used ? ~page[i] : page[i];
+        }
+        return base + ((long) i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << (index & 63);
+        } else {
+            bits[index >>> 6] &= ~(1L << (index & 63));
+        }
+    }
+
+    /**
+     * Première page à partir de index (inclus) dont le bit de résumé est levé, -1 s'il n'y en a pas
+     */
+    private int nextPage(long[] summary, int index) {
+        if (index >= pages.length) {
+            return -1;
+        }
+        int s = index >>> 6;
+        long bits = summary[s] & (-1L << (index & 63));
+        while (bits == 0) {
+            if (++s == summary.length) {
+                return -1;
+            }
+            bits = summary[s];
+        }
+        return (s << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
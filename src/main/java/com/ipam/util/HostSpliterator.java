@@ -0,0 +1,69 @@
+package com.ipam.util;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Parcours paresseux d'une plage d'adresses IPv4 [first, last] sous forme
+ * d'int (valeurs à interpréter comme non signées). Aucune chaîne n'est
+ * construite ; la plage se coupe en deux moitiés pour les flux parallèles.
+ */
+public final class HostSpliterator implements Spliterator.OfInt {
+    // En dessous, découper coûte plus que parcourir
+    private static final long MIN_SPLIT_SIZE = 1024;
+
+    private long next;
+    private final long last;
+
+    /**
+     * @param first première adresse (0 à 2^32 - 1)
+     * @param last  dernière adresse incluse ; plage vide si last < first
+     */
+    public HostSpliterator(long first, long last) {
+        if (first < 0 || last > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Plage IPv4 invalide: " + first + ".." + last);
+        }
+        this.next = first;
+        this.last = last;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (next > last) {
+            return false;
+        }
+        action.accept((int) next++);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        long end = last;
+        for (long address = next; address <= end; address++) {
+            action.accept((int) address);
+        }
+        next = end + 1;
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+        long remaining = estimateSize();
+        if (remaining < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        long middle = next + remaining / 2;
+        HostSpliterator prefix = new HostSpliterator(next, middle - 1);
+        next = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(0, last - next + 1);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
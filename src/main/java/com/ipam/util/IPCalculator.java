@@ -1,49 +1,342 @@
 package com.ipam.util;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Pattern;
+import com.ipam.model.Ipv4Prefix;
+
+import java.util.stream.IntStream;
 
 /**
  * Utilitaire pour les calculs réseau IP
  */
 public class IPCalculator {
     
-    private static final Pattern IP_PATTERN = Pattern.compile(
-        "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$"
-    );
-    
-    private static final Pattern MAC_PATTERN = Pattern.compile(
-        "^([0-9A-Fa-f]{2}[:-]){5}([0-9A-Fa-f]{2})$"
-    );
+    // Longueur maximale d'une adresse IPv4 en notation pointée ("255.255.255.255")
+    public static final int MAX_IPV4_LENGTH = 15;
+
+    // Longueur maximale d'une adresse IPv6 en notation texte ("ffff:...:ffff:255.255.255.255")
+    public static final int MAX_IPV6_LENGTH = 45;
+
+    // Longueur d'une adresse MAC formatée ("AA:BB:CC:DD:EE:FF")
+    public static final int MAC_LENGTH = 17;
+
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
 
     /**
      * Valide une adresse IP
      */
     public static boolean isValidIP(String ip) {
-        return ip != null && IP_PATTERN.matcher(ip).matches();
+        return ip != null && parseIPv4(ip) >= 0;
+    }
+
+    /**
+     * Valide une adresse IPv6 (notation RFC 4291, "::" et IPv4 finale acceptés)
+     */
+    public static boolean isValidIPv6(String ip) {
+        return ip != null && parseIPv6(ip, new long[2]);
+    }
+
+    /**
+     * Vrai si la chaîne est écrite en notation IPv6 (contient ':'), sans la valider
+     */
+    public static boolean isIPv6Notation(String ip) {
+        return ip != null && ip.indexOf(':') >= 0;
     }
 
     /**
-     * Valide une adresse MAC
+     * Valide une adresse MAC (voir parseMAC pour les notations acceptées)
      */
     public static boolean isValidMAC(String mac) {
-        return mac != null && MAC_PATTERN.matcher(mac).matches();
+        return mac != null && parseMAC(mac) >= 0;
+    }
+
+    /**
+     * Analyse une adresse MAC en une passe et sans allocation. Notations
+     * acceptées, chiffres hexadécimaux en majuscules ou minuscules :
+     * "AA:BB:CC:DD:EE:FF", "AA-BB-CC-DD-EE-FF", "AABB.CCDD.EEFF" (Cisco) et
+     * "AABBCCDDEEFF". Le séparateur doit être le même partout.
+     *
+     * @return la valeur sur 48 bits, ou -1 si la chaîne n'est pas une adresse valide
+     */
+    public static long parseMAC(CharSequence text) {
+        int length = text.length();
+        int group;
+        char separator;
+        if (length == 17) {
+            group = 2;
+            separator = text.charAt(2);
+            if (separator != ':' && separator != '-') {
+                return -1;
+            }
+        } else if (length == 14) {
+            group = 4;
+            separator = '.';
+        } else if (length == 12) {
+            group = 12;
+            separator = 0;
+        } else {
+            return -1;
+        }
+
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (digits == group) {
+                // Séparateur attendu entre deux groupes
+                if (c != separator) {
+                    return -1;
+                }
+                digits = 0;
+                continue;
+            }
+            int digit = hexDigit(c);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+            digits++;
+        }
+        return value;
+    }
+
+    /**
+     * Formate une adresse MAC sur 48 bits en "AA:BB:CC:DD:EE:FF"
+     */
+    public static String formatMAC(long mac) {
+        char[] buffer = new char[MAC_LENGTH];
+        for (int i = 0; i < 6; i++) {
+            int octet = (int) (mac >>> (40 - 8 * i)) & 0xFF;
+            int position = i * 3;
+            buffer[position] = HEX_UPPER[octet >>> 4];
+            buffer[position + 1] = HEX_UPPER[octet & 0xF];
+            if (i < 5) {
+                buffer[position + 2] = ':';
+            }
+        }
+        return new String(buffer);
+    }
+
+    /**
+     * Analyse une adresse IPv4 en notation pointée, en une passe et sans allocation.
+     * Accepte 1 à 3 chiffres par octet (zéros non significatifs compris).
+     *
+     * @return la valeur sur 32 bits, ou -1 si la chaîne n'est pas une adresse valide
+     */
+    public static long parseIPv4(CharSequence text) {
+        return parseIPv4(text, 0, text.length());
+    }
+
+    /**
+     * Analyse l'adresse IPv4 occupant text[start, end[
+     *
+     * @return la valeur sur 32 bits, ou -1 si invalide
+     */
+    public static long parseIPv4(CharSequence text, int start, int end) {
+        if (end - start < 7 || end - start > MAX_IPV4_LENGTH) {
+            return -1;
+        }
+        long result = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && digits > 0 && dots < 3) {
+                result = (result << 8) | octet;
+                octet = 0;
+                digits = 0;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || digits == 0) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    /**
+     * Analyse une adresse IPv6 : huit groupes de 1 à 4 chiffres hexadécimaux,
+     * au plus un "::" et éventuellement une adresse IPv4 pointée à la fin.
+     * Les identifiants de zone ("%eth0") sont refusés.
+     *
+     * @param out reçoit les 64 bits de poids fort (out[0]) et de poids faible (out[1])
+     * @return false si la chaîne n'est pas une adresse valide
+     */
+    public static boolean parseIPv6(CharSequence text, long[] out) {
+        int end = text.length();
+        if (end < 2 || end > MAX_IPV6_LENGTH) {
+            return false;
+        }
+        int[] groups = new int[8];
+        int count = 0;
+        int gap = -1;
+        int i = 0;
+        if (text.charAt(0) == ':') {
+            if (text.charAt(1) != ':') {
+                return false;
+            }
+            gap = 0;
+            i = 2;
+        }
+        while (i < end) {
+            int start = i;
+            int value = 0;
+            int digit;
+            while (i < end && i - start < 4 && (digit = hexDigit(text.charAt(i))) >= 0) {
+                value = (value << 4) | digit;
+                i++;
+            }
+            if (i < end && text.charAt(i) == '.') {
+                // IPv4 finale : occupe les deux derniers groupes
+                long ipv4 = parseIPv4(text, start, end);
+                if (ipv4 < 0 || count > 6) {
+                    return false;
+                }
+                groups[count++] = (int) (ipv4 >>> 16);
+                groups[count++] = (int) (ipv4 & 0xFFFF);
+                break;
+            }
+            if (i == start || count == 8) {
+                return false;
+            }
+            groups[count++] = value;
+            if (i == end) {
+                break;
+            }
+            if (text.charAt(i++) != ':' || i == end) {
+                return false;
+            }
+            if (text.charAt(i) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = count;
+                i++;
+            }
+        }
+        if (gap < 0 ? count != 8 : count > 7) {
+            return false;
+        }
+
+        // Les groupes qui suivent "::" sont alignés à droite
+        long high = 0;
+        long low = 0;
+        int tail = gap < 0 ? 0 : count - gap;
+        for (int k = 0; k < 8; k++) {
+            int source;
+            if (gap < 0 || k < gap) {
+                source = k;
+            } else if (k >= 8 - tail) {
+                source = gap + (k - (8 - tail));
+            } else {
+                source = -1;
+            }
+            long group = source >= 0 ? groups[source] : 0;
+            if (k < 4) {
+                high = (high << 16) | group;
+            } else {
+                low = (low << 16) | group;
+            }
+        }
+        out[0] = high;
+        out[1] = low;
+        return true;
+    }
+
+    /**
+     * Formate une adresse IPv6 sous sa forme canonique (RFC 5952) : minuscules,
+     * sans zéros non significatifs, plus longue suite d'au moins deux groupes nuls
+     * remplacée par "::"
+     */
+    public static String formatIPv6(long high, long low) {
+        int[] groups = new int[8];
+        for (int k = 0; k < 8; k++) {
+            long half = k < 4 ? high : low;
+            groups[k] = (int) (half >>> (48 - 16 * (k & 3))) & 0xFFFF;
+        }
+
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int k = 0; k < 8; ) {
+            if (groups[k] != 0) {
+                k++;
+                continue;
+            }
+            int start = k;
+            while (k < 8 && groups[k] == 0) {
+                k++;
+            }
+            if (k - start > bestLength) {
+                bestStart = start;
+                bestLength = k - start;
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(39);
+        for (int k = 0; k < 8; k++) {
+            if (k == bestStart) {
+                builder.append("::");
+                k += bestLength - 1;
+                continue;
+            }
+            if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ':') {
+                builder.append(':');
+            }
+            builder.append(Integer.toHexString(groups[k]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Écrit une adresse IPv4 dans buffer à partir de offset, sans allocation
+     *
+     * @return la position qui suit le dernier caractère écrit
+     */
+    public static int formatIPv4(long ip, char[] buffer, int offset) {
+        int pos = offset;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            int octet = (int) (ip >>> shift) & 0xFF;
+            if (octet >= 100) {
+                buffer[pos++] = (char) ('0' + octet / 100);
+                buffer[pos++] = (char) ('0' + octet / 10 % 10);
+            } else if (octet >= 10) {
+                buffer[pos++] = (char) ('0' + octet / 10);
+            }
+            buffer[pos++] = (char) ('0' + octet % 10);
+            if (shift > 0) {
+                buffer[pos++] = '.';
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Ajoute une adresse IPv4 à un StringBuilder réutilisable
+     */
+    public static StringBuilder appendIPv4(StringBuilder builder, long ip) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            builder.append((int) (ip >>> shift) & 0xFF);
+            if (shift > 0) {
+                builder.append('.');
+            }
+        }
+        return builder;
     }
 
     /**
      * Convertit une adresse IP en entier long
      */
     public static long ipToLong(String ip) {
-        if (!isValidIP(ip)) {
+        long result = ip != null ? parseIPv4(ip) : -1;
+        if (result < 0) {
             throw new IllegalArgumentException("Adresse IP invalide: " + ip);
         }
-        
-        String[] octets = ip.split("\\.");
-        long result = 0;
-        for (int i = 0; i < 4; i++) {
-            result = (result << 8) | Integer.parseInt(octets[i]);
-        }
         return result;
     }
 
@@ -51,12 +344,15 @@ public class IPCalculator {
      * Convertit un entier long en adresse IP
      */
     public static String longToIp(long ip) {
-        return String.format("%d.%d.%d.%d",
-            (ip >> 24) & 0xFF,
-            (ip >> 16) & 0xFF,
-            (ip >> 8) & 0xFF,
-            ip & 0xFF
-        );
+        char[] buffer = new char[MAX_IPV4_LENGTH];
+        return new String(buffer, 0, formatIPv4(ip, buffer, 0));
+    }
+
+    /**
+     * Masque réseau sur 32 bits d'un CIDR
+     */
+    public static long prefixMask(int cidr) {
+        return cidr == 0 ? 0 : (0xFFFFFFFFL << (32 - cidr)) & 0xFFFFFFFFL;
     }
 
     /**
@@ -67,8 +363,7 @@ public class IPCalculator {
             throw new IllegalArgumentException("CIDR doit être entre 0 et 32");
         }
         
-        long mask = ((1L << cidr) - 1) << (32 - cidr);
-        return longToIp(mask);
+        return longToIp(prefixMask(cidr));
     }
 
     /**
@@ -91,20 +386,16 @@ public class IPCalculator {
      * Calcule l'adresse réseau à partir d'une IP et d'un CIDR
      */
     public static String getNetworkAddress(String ip, int cidr) {
-        long ipLong = ipToLong(ip);
-        long maskLong = ipToLong(cidrToSubnetMask(cidr));
-        long networkLong = ipLong & maskLong;
-        return longToIp(networkLong);
+        checkCidr(cidr);
+        return longToIp(ipToLong(ip) & prefixMask(cidr));
     }
 
     /**
      * Calcule l'adresse de broadcast
      */
     public static String getBroadcastAddress(String networkAddress, int cidr) {
-        long networkLong = ipToLong(networkAddress);
-        long maskLong = ipToLong(cidrToSubnetMask(cidr));
-        long broadcastLong = networkLong | (~maskLong & 0xFFFFFFFFL);
-        return longToIp(broadcastLong);
+        checkCidr(cidr);
+        return longToIp(ipToLong(networkAddress) | (~prefixMask(cidr) & 0xFFFFFFFFL));
     }
 
     /**
@@ -125,11 +416,11 @@ public class IPCalculator {
         if (cidr == 32) {
             return networkAddress; // /32 = une seule IP
         }
-        String broadcast = getBroadcastAddress(networkAddress, cidr);
-        long broadcastLong = ipToLong(broadcast);
+        checkCidr(cidr);
+        long broadcastLong = ipToLong(networkAddress) | (~prefixMask(cidr) & 0xFFFFFFFFL);
         
         if (cidr == 31) {
-            return broadcast; // /31 utilise les deux IPs
+            return longToIp(broadcastLong); // /31 utilise les deux IPs
         }
         return longToIp(broadcastLong - 1);
     }
@@ -147,67 +438,53 @@ public class IPCalculator {
      * Vérifie si une IP appartient à un sous-réseau
      */
     public static boolean isIpInSubnet(String ip, String networkAddress, int cidr) {
-        long ipLong = ipToLong(ip);
-        long networkLong = ipToLong(networkAddress);
-        long maskLong = ipToLong(cidrToSubnetMask(cidr));
-        
-        return (ipLong & maskLong) == (networkLong & maskLong);
+        checkCidr(cidr);
+        long maskLong = prefixMask(cidr);
+        return (ipToLong(ip) & maskLong) == (ipToLong(networkAddress) & maskLong);
     }
 
     /**
-     * Génère toutes les adresses IP utilisables d'un sous-réseau
+     * Adresses utilisables d'un sous-réseau, produites à la demande (int non
+     * signés, voir longToIp) ; aucune liste intermédiaire, aucune limite de taille
      */
-    public static List<String> getAllUsableIps(String networkAddress, int cidr) {
-        List<String> ips = new ArrayList<>();
-        
-        String firstIp = getFirstUsableIp(networkAddress, cidr);
-        String lastIp = getLastUsableIp(networkAddress, cidr);
-        
-        long start = ipToLong(firstIp);
-        long end = ipToLong(lastIp);
-        
-        // Limite de sécurité pour éviter les gros sous-réseaux
-        int maxIps = 65536; // /16 au maximum
-        int count = 0;
-        
-        for (long i = start; i <= end && count < maxIps; i++) {
-            ips.add(longToIp(i));
-            count++;
-        }
-        
-        return ips;
+    public static IntStream usableHosts(String networkAddress, int cidr) {
+        return Ipv4Prefix.of(networkAddress, cidr).hosts();
     }
 
     /**
      * Vérifie si deux sous-réseaux se chevauchent
      */
     public static boolean subnetsOverlap(String network1, int cidr1, String network2, int cidr2) {
-        long net1 = ipToLong(network1);
-        long net2 = ipToLong(network2);
-        long mask1 = ipToLong(cidrToSubnetMask(cidr1));
-        long mask2 = ipToLong(cidrToSubnetMask(cidr2));
-        
-        long broadcast1 = net1 | (~mask1 & 0xFFFFFFFFL);
-        long broadcast2 = net2 | (~mask2 & 0xFFFFFFFFL);
-        
-        return !(broadcast1 < net2 || broadcast2 < net1);
+        return Ipv4Prefix.of(network1, cidr1).overlaps(Ipv4Prefix.of(network2, cidr2));
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static void checkCidr(int cidr) {
+        if (cidr < 0 || cidr > 32) {
+            throw new IllegalArgumentException("CIDR doit être entre 0 et 32");
+        }
     }
 
     /**
-     * Formate une adresse MAC
+     * Formate une adresse MAC en "AA:BB:CC:DD:EE:FF" (chaîne inchangée si invalide)
      */
     public static String formatMAC(String mac) {
         if (mac == null) return null;
-        
-        String clean = mac.replaceAll("[^0-9A-Fa-f]", "");
-        if (clean.length() != 12) return mac;
-        
-        StringBuilder formatted = new StringBuilder();
-        for (int i = 0; i < 12; i += 2) {
-            if (i > 0) formatted.append(":");
-            formatted.append(clean.substring(i, i + 2).toUpperCase());
-        }
-        return formatted.toString();
+
+        long value = parseMAC(mac);
+        return value >= 0 ? formatMAC(value) : mac;
     }
 
     /**
@@ -0,0 +1,182 @@
+package com.ipam.util;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage long → long à adressage ouvert (sondage linéaire), sans
+ * boxing : clés et valeurs sont rangées dans deux tableaux primitifs. Les
+ * clés doivent être positives ou nulles (MAC sur 48 bits, IDs). La
+ * suppression recule les entrées suivantes au lieu de laisser des pierres
+ * tombales. Non synchronisé.
+ */
+public class LongLongHashMap {
+    /** Valeur renvoyée par get pour une clé absente */
+    public static final long MISSING = -1;
+
+    private static final long EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    public LongLongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Valeur associée à la clé, MISSING si absente
+     */
+    public long get(long key) {
+        if (key < 0) {
+            return MISSING;
+        }
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * Associe une valeur à la clé et renvoie l'ancienne valeur (MISSING si absente)
+     */
+    public long put(long key, long value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Clé négative interdite");
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Taux de remplissage maximal : 1/2
+        if (++size > (mask + 1) >>> 1) {
+            rehash(keys.length * 2);
+        }
+        return MISSING;
+    }
+
+    /**
+     * Retire la clé et renvoie sa valeur (MISSING si absente)
+     */
+    public long remove(long key) {
+        if (key < 0) {
+            return MISSING;
+        }
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+        long previous = values[slot];
+
+        // Recul des entrées suivantes de la même grappe
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next]);
+            // L'entrée peut combler le trou si sa position d'origine ne se trouve pas entre le trou et elle
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parcourt les entrées, dans un ordre quelconque
+     */
+    public void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Traitement d'une entrée (clé, valeur) sans boxing
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private int slot(long key) {
+        // Mélange de Stafford (variante 13 de MurmurHash3) : disperse les MAC consécutives d'un même constructeur
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (int) h & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < (long) expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ipam.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Étape de migration du schéma, identifiée par un numéro de version croissant.
+ * Une migration transactionnelle est appliquée en une seule transaction ;
+ * une migration par lots gère elle-même ses validations (réécriture de grosses
+ * tables) et doit pouvoir reprendre là où elle s'est arrêtée.
+ */
+public final class Migration {
+
+    /**
+     * Corps d'une migration
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn, Progress progress) throws SQLException;
+    }
+
+    /**
+     * Suivi de l'avancement des migrations longues
+     */
+    @FunctionalInterface
+    public interface Progress {
+        void update(long done, long total);
+    }
+
+    private final int version;
+    private final String description;
+    private final boolean batched;
+    private final Step step;
+
+    private Migration(int version, String description, boolean batched, Step step) {
+        if (version <= 0) {
+            throw new IllegalArgumentException("Version de migration invalide: " + version);
+        }
+        this.version = version;
+        this.description = description;
+        this.batched = batched;
+        this.step = step;
+    }
+
+    /**
+     * Migration composée d'instructions SQL, appliquée en une transaction
+     */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, false, (conn, progress) -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+            }
+        });
+    }
+
+    /**
+     * Migration Java appliquée en une transaction
+     */
+    public static Migration java(int version, String description, Step step) {
+        return new Migration(version, description, false, step);
+    }
+
+    /**
+     * Migration Java par lots : reçue en auto-commit, elle valide chaque lot elle-même
+     */
+    public static Migration batched(int version, String description, Step step) {
+        return new Migration(version, description, true, step);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isBatched() {
+        return batched;
+    }
+
+    void apply(Connection conn, Progress progress) throws SQLException {
+        step.apply(conn, progress);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("V%d - %s", version, description);
+    }
+}
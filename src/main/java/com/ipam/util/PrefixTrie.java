@@ -0,0 +1,317 @@
+package com.ipam.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Arbre radix binaire compressé (Patricia) de préfixes IPv4.
+ * Chaque nœud porte un préfixe (bits, longueur) ; les nœuds sans valeur ne
+ * servent qu'à séparer deux branches. Recherche, insertion et suppression
+ * parcourent au plus 33 nœuds, quel que soit le nombre de préfixes.
+ * Non synchronisé.
+ */
+public class PrefixTrie<V> {
+
+    private static final class Node<V> {
+        private final int bits;
+        private final int length;
+        private V value;
+        private Node<V> left;
+        private Node<V> right;
+
+        private Node(int bits, int length, V value) {
+            this.bits = bits;
+            this.length = length;
+            this.value = value;
+        }
+
+        private Node<V> child(int bit) {
+            return bit == 0 ? left : right;
+        }
+
+        private void setChild(int bit, Node<V> child) {
+            if (bit == 0) {
+                left = child;
+            } else {
+                right = child;
+            }
+        }
+
+        private int childCount() {
+            return (left != null ? 1 : 0) + (right != null ? 1 : 0);
+        }
+    }
+
+    private Node<V> root;
+    private int size;
+
+    /**
+     * Associe une valeur à un préfixe et renvoie l'ancienne valeur (ou null)
+     */
+    public V put(int network, int length, V value) {
+        checkLength(length);
+        if (value == null) {
+            throw new IllegalArgumentException("Valeur nulle interdite");
+        }
+        int key = network & mask(length);
+
+        Node<V> parent = null;
+        Node<V> node = root;
+        while (node != null) {
+            int common = commonLength(key, node.bits, Math.min(length, node.length));
+            if (common < node.length) {
+                // Le nœud n'est pas un préfixe de la clé : insérer au-dessus de lui
+                Node<V> inserted;
+                if (common == length) {
+                    inserted = new Node<>(key, length, value);
+                    attach(inserted, node);
+                } else {
+                    inserted = new Node<>(key & mask(common), common, null);
+                    attach(inserted, node);
+                    attach(inserted, new Node<>(key, length, value));
+                }
+                replaceChild(parent, key, inserted);
+                size++;
+                return null;
+            }
+            if (node.length == length) {
+                V previous = node.value;
+                node.value = value;
+                if (previous == null) {
+                    size++;
+                }
+                return previous;
+            }
+            parent = node;
+            node = node.child(bitAt(key, node.length));
+        }
+        replaceChild(parent, key, new Node<>(key, length, value));
+        size++;
+        return null;
+    }
+
+    /**
+     * Valeur associée exactement à ce préfixe
+     */
+    public V get(int network, int length) {
+        Node<V> node = find(network & mask(length), length);
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * Retire un préfixe et renvoie sa valeur (ou null)
+     */
+    public V remove(int network, int length) {
+        checkLength(length);
+        int key = network & mask(length);
+
+        Node<V> grandParent = null;
+        Node<V> parent = null;
+        Node<V> node = root;
+        while (node != null && node.length <= length
+                && commonLength(key, node.bits, node.length) == node.length) {
+            if (node.length == length) {
+                break;
+            }
+            grandParent = parent;
+            parent = node;
+            node = node.child(bitAt(key, node.length));
+        }
+        if (node == null || node.length != length || node.bits != key || node.value == null) {
+            return null;
+        }
+
+        V previous = node.value;
+        node.value = null;
+        size--;
+
+        // Compacter : un nœud sans valeur doit avoir deux enfants
+        int children = node.childCount();
+        if (children == 2) {
+            return previous;
+        }
+        Node<V> replacement = children == 1 ? (node.left != null ? node.left : node.right) : null;
+        replaceChild(parent, key, replacement);
+        if (replacement == null && parent != null && parent.value == null && parent.childCount() == 1) {
+            Node<V> remaining = parent.left != null ? parent.left : parent.right;
+            replaceChild(grandParent, parent.bits, remaining);
+        }
+        return previous;
+    }
+
+    /**
+     * Valeur du plus long préfixe contenant l'adresse (null si aucun)
+     */
+    public V longestMatch(int address) {
+        V best = null;
+        Node<V> node = root;
+        while (node != null && commonLength(address, node.bits, node.length) == node.length) {
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.length == 32) {
+                break;
+            }
+            node = node.child(bitAt(address, node.length));
+        }
+        return best;
+    }
+
+    /**
+     * Valeurs des préfixes contenant ce préfixe (lui-même compris), du plus large au plus spécifique
+     */
+    public List<V> covering(int network, int length) {
+        checkLength(length);
+        int key = network & mask(length);
+        List<V> result = new ArrayList<>();
+        Node<V> node = root;
+        while (node != null && node.length <= length
+                && commonLength(key, node.bits, node.length) == node.length) {
+            if (node.value != null) {
+                result.add(node.value);
+            }
+            if (node.length == length) {
+                break;
+            }
+            node = node.child(bitAt(key, node.length));
+        }
+        return result;
+    }
+
+    /**
+     * Valeurs des préfixes inclus dans ce préfixe (lui-même compris)
+     */
+    public List<V> covered(int network, int length) {
+        List<V> result = new ArrayList<>();
+        Node<V> top = subtree(network & mask(length), length);
+        if (top == null) {
+            return result;
+        }
+        Deque<Node<V>> stack = new ArrayDeque<>();
+        stack.push(top);
+        while (!stack.isEmpty()) {
+            Node<V> node = stack.pop();
+            if (node.value != null) {
+                result.add(node.value);
+            }
+            // Droite empilée d'abord : parcours par adresse croissante
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Valeurs des préfixes qui chevauchent ce préfixe : ceux qui le contiennent
+     * puis ceux qu'il contient
+     */
+    public List<V> overlapping(int network, int length) {
+        List<V> result = covering(network, length);
+        V exact = get(network, length);
+        for (V value : covered(network, length)) {
+            if (value != exact) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Vrai si au moins un préfixe chevauche celui-ci, sans rien allouer
+     */
+    public boolean overlaps(int network, int length) {
+        checkLength(length);
+        int key = network & mask(length);
+        Node<V> node = root;
+        while (node != null) {
+            int common = commonLength(key, node.bits, Math.min(length, node.length));
+            if (node.length >= length) {
+                // Sous-arbre inclus dans le préfixe : il contient au moins une valeur
+                return common == length;
+            }
+            if (common < node.length) {
+                return false;
+            }
+            if (node.value != null) {
+                return true;
+            }
+            node = node.child(bitAt(key, node.length));
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    private Node<V> find(int key, int length) {
+        Node<V> node = root;
+        while (node != null && node.length <= length
+                && commonLength(key, node.bits, node.length) == node.length) {
+            if (node.length == length) {
+                return node;
+            }
+            node = node.child(bitAt(key, node.length));
+        }
+        return null;
+    }
+
+    /**
+     * Premier nœud dont le préfixe est inclus dans (key, length)
+     */
+    private Node<V> subtree(int key, int length) {
+        Node<V> node = root;
+        while (node != null) {
+            int common = commonLength(key, node.bits, Math.min(length, node.length));
+            if (node.length >= length) {
+                return common == length ? node : null;
+            }
+            if (common < node.length) {
+                return null;
+            }
+            node = node.child(bitAt(key, node.length));
+        }
+        return null;
+    }
+
+    private void attach(Node<V> parent, Node<V> child) {
+        parent.setChild(bitAt(child.bits, parent.length), child);
+    }
+
+    private void replaceChild(Node<V> parent, int key, Node<V> child) {
+        if (parent == null) {
+            root = child;
+        } else {
+            parent.setChild(bitAt(key, parent.length), child);
+        }
+    }
+
+    private static int bitAt(int key, int index) {
+        return (key >>> (31 - index)) & 1;
+    }
+
+    private static int commonLength(int a, int b, int max) {
+        return Math.min(Integer.numberOfLeadingZeros(a ^ b), max);
+    }
+
+    private static int mask(int length) {
+        return length == 0 ? 0 : -1 << (32 - length);
+    }
+
+    private static void checkLength(int length) {
+        if (length < 0 || length > 32) {
+            throw new IllegalArgumentException("CIDR doit être entre 0 et 32");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ipam.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Première suite libre assez longue à partir d'une position tirée au hasard,
+ * en reprenant au début de la plage si besoin
+ */
+final class RandomStrategy implements AllocationStrategy {
+
+    @Override
+    public long select(FreeBitmap free, int count) {
+        long from = ThreadLocalRandom.current().nextLong(free.getFirst(), free.getLast() + 1);
+        long start = free.nextRun(from, count);
+        return start >= 0 ? start : free.nextRun(free.getFirst(), count);
+    }
+
+    @Override
+    public String getName() {
+        return "Adresse aléatoire";
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
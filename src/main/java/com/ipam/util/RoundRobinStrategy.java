@@ -0,0 +1,25 @@
+package com.ipam.util;
+
+/**
+ * Première suite libre assez longue après la dernière adresse prise, en
+ * reprenant au début de la plage une fois la fin atteinte
+ */
+final class RoundRobinStrategy implements AllocationStrategy {
+
+    @Override
+    public long select(FreeBitmap free, int count) {
+        long from = free.getLastTaken() + 1;
+        long start = free.nextRun(from, count);
+        return start >= 0 || from == free.getFirst() ? start : free.nextRun(free.getFirst(), count);
+    }
+
+    @Override
+    public String getName() {
+        return "À la suite de la dernière";
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
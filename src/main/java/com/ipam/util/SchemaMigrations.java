@@ -0,0 +1,465 @@
+package com.ipam.util;
+
+import com.ipam.model.IPStatus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Liste ordonnée des migrations du schéma IPAM.
+ * Ne jamais modifier une migration publiée : ajouter une nouvelle version.
+ */
+public final class SchemaMigrations {
+    private static final int BACKFILL_CHUNK_SIZE = 5000;
+
+    private SchemaMigrations() {}
+
+    public static List<Migration> all() {
+        return List.of(
+            Migration.sql(1, "Schéma initial",
+                """
+                CREATE TABLE IF NOT EXISTS subnets (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    network_address TEXT NOT NULL,
+                    subnet_mask TEXT NOT NULL,
+                    cidr INTEGER NOT NULL,
+                    description TEXT,
+                    vlan_id INTEGER,
+                    gateway TEXT,
+                    dns_servers TEXT,
+                    created_date TEXT NOT NULL,
+                    modified_date TEXT NOT NULL,
+                    UNIQUE(network_address, cidr)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS ip_addresses (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    ip_address TEXT NOT NULL,
+                    subnet_id INTEGER NOT NULL,
+                    status TEXT NOT NULL,
+                    assigned_to TEXT,
+                    mac_address TEXT,
+                    description TEXT,
+                    assigned_date TEXT,
+                    created_date TEXT NOT NULL,
+                    FOREIGN KEY (subnet_id) REFERENCES subnets(id) ON DELETE CASCADE,
+                    UNIQUE(ip_address)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS reservations (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    ip_address_id INTEGER NOT NULL,
+                    reserved_by TEXT NOT NULL,
+                    reason TEXT,
+                    expiration_date TEXT,
+                    created_date TEXT NOT NULL,
+                    FOREIGN KEY (ip_address_id) REFERENCES ip_addresses(id) ON DELETE CASCADE
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS audit_logs (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    action TEXT NOT NULL,
+                    entity_type TEXT NOT NULL,
+                    entity_id INTEGER NOT NULL,
+                    details TEXT,
+                    username TEXT NOT NULL,
+                    timestamp TEXT NOT NULL
+                )
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_ip_subnet ON ip_addresses(subnet_id)",
+                "CREATE INDEX IF NOT EXISTS idx_ip_status ON ip_addresses(status)",
+                "CREATE INDEX IF NOT EXISTS idx_audit_timestamp ON audit_logs(timestamp)"),
+
+            Migration.batched(2, "Colonnes numériques ip_num, network_num et broadcast_num",
+                SchemaMigrations::addNumericAddressColumns),
+
+            Migration.batched(3, "ip_addresses : ip_num obligatoire et unique à la place de l'adresse texte",
+                (conn, progress) -> new TableRewrite("ip_addresses",
+                    """
+                    CREATE TABLE %s (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        ip_address TEXT NOT NULL,
+                        subnet_id INTEGER NOT NULL,
+                        status TEXT NOT NULL,
+                        assigned_to TEXT,
+                        mac_address TEXT,
+                        description TEXT,
+                        assigned_date TEXT,
+                        created_date TEXT NOT NULL,
+                        ip_num INTEGER NOT NULL,
+                        FOREIGN KEY (subnet_id) REFERENCES subnets(id) ON DELETE CASCADE,
+                        UNIQUE(ip_num)
+                    )
+                    """,
+                    "id, ip_address, subnet_id, status, assigned_to, mac_address, description, "
+                        + "assigned_date, created_date, ip_num",
+                    "id, ip_address, subnet_id, status, assigned_to, mac_address, description, "
+                        + "assigned_date, created_date, ip_num",
+                    List.of(
+                        "CREATE INDEX IF NOT EXISTS idx_ip_subnet_num ON ip_addresses(subnet_id, ip_num)",
+                        "CREATE INDEX IF NOT EXISTS idx_ip_status ON ip_addresses(status)"))
+                    .run(conn, progress)),
+
+            Migration.java(4, "Bitmaps de statut des adresses (2 bits par adresse)",
+                (conn, progress) -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("""
+                            CREATE TABLE IF NOT EXISTS ip_status_bitmaps (
+                                subnet_id INTEGER NOT NULL,
+                                chunk_index INTEGER NOT NULL,
+                                bits BLOB NOT NULL,
+                                PRIMARY KEY (subnet_id, chunk_index),
+                                FOREIGN KEY (subnet_id) REFERENCES subnets(id) ON DELETE CASCADE
+                            ) WITHOUT ROWID
+                        """);
+                    }
+                    rebuildStatusBitmaps(conn);
+                }),
+
+            Migration.sql(5, "Mode de stockage des sous-réseaux (complet ou creux)",
+                "ALTER TABLE subnets ADD COLUMN storage_mode TEXT NOT NULL DEFAULT 'DENSE'"),
+
+            Migration.batched(6, "IPv6 : bornes et adresses sur 16 octets (BLOB indexés)",
+                SchemaMigrations::addIpv6Columns),
+
+            Migration.sql(7, "Pools de sous-réseaux (super-réseaux à découper)",
+                """
+                CREATE TABLE IF NOT EXISTS subnet_pools (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    name TEXT NOT NULL UNIQUE,
+                    network_address TEXT NOT NULL,
+                    cidr INTEGER NOT NULL,
+                    network_num INTEGER NOT NULL,
+                    broadcast_num INTEGER NOT NULL,
+                    description TEXT,
+                    created_date TEXT NOT NULL
+                )
+                """,
+                "ALTER TABLE subnets ADD COLUMN pool_id INTEGER REFERENCES subnet_pools(id)",
+                "CREATE INDEX IF NOT EXISTS idx_subnet_pool ON subnets(pool_id)"),
+
+            Migration.batched(8, "Adresses MAC sur 48 bits (colonne mac_num indexée)",
+                SchemaMigrations::addMacNumColumn),
+
+            // Les doublons hérités gardent leur texte mais ne sont plus indexés :
+            // seule la plus ancienne adresse conserve la MAC
+            Migration.sql(9, "Unicité des adresses MAC (index unique partiel)",
+                """
+                UPDATE ip_addresses SET mac_num = NULL
+                WHERE mac_num IS NOT NULL
+                  AND id NOT IN (SELECT MIN(id) FROM ip_addresses WHERE mac_num IS NOT NULL GROUP BY mac_num)
+                """,
+                "DROP INDEX IF EXISTS idx_ip_mac_num",
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_ip_mac_unique ON ip_addresses(mac_num) WHERE mac_num IS NOT NULL"),
+
+            // Index partiel : seules les attributions à durée limitée y figurent
+            Migration.sql(10, "Baux : date d'expiration des attributions",
+                "ALTER TABLE ip_addresses ADD COLUMN lease_expires TEXT",
+                "CREATE INDEX IF NOT EXISTS idx_ip_lease ON ip_addresses(lease_expires) WHERE lease_expires IS NOT NULL"),
+            Migration.sql(11, "Réservations : une par adresse, index des échéances",
+                "DELETE FROM reservations WHERE id NOT IN (SELECT MAX(id) FROM reservations GROUP BY ip_address_id)",
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_reservations_ip ON reservations(ip_address_id)",
+                "CREATE INDEX IF NOT EXISTS idx_reservations_expiration ON reservations(expiration_date) WHERE expiration_date IS NOT NULL"),
+            Migration.java(12, "Compteurs d'adresses par sous-réseau et par statut", (conn, progress) -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS subnet_usage (
+                            subnet_id INTEGER NOT NULL,
+                            status TEXT NOT NULL,
+                            ip_count INTEGER NOT NULL,
+                            PRIMARY KEY (subnet_id, status)
+                        ) WITHOUT ROWID
+                    """);
+                }
+                rebuildSubnetUsage(conn);
+            })
+        );
+    }
+
+    /**
+     * Ajoute les colonnes entières, les remplit par lots puis crée les index de plage
+     */
+    private static void addNumericAddressColumns(Connection conn, Migration.Progress progress) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!columnExists(conn, "ip_addresses", "ip_num")) {
+                stmt.execute("ALTER TABLE ip_addresses ADD COLUMN ip_num INTEGER");
+            }
+            if (!columnExists(conn, "subnets", "network_num")) {
+                stmt.execute("ALTER TABLE subnets ADD COLUMN network_num INTEGER");
+                stmt.execute("ALTER TABLE subnets ADD COLUMN broadcast_num INTEGER");
+            }
+        }
+
+        // Sous-réseaux : peu nombreux, un seul passage
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery(
+                 "SELECT id, network_address, cidr FROM subnets WHERE network_num IS NULL");
+             PreparedStatement update = conn.prepareStatement(
+                 "UPDATE subnets SET network_num = ?, broadcast_num = ? WHERE id = ?")) {
+            while (rs.next()) {
+                String network = rs.getString("network_address");
+                int cidr = rs.getInt("cidr");
+                update.setLong(1, IPCalculator.ipToLong(network));
+                update.setLong(2, IPCalculator.ipToLong(IPCalculator.getBroadcastAddress(network, cidr)));
+                update.setLong(3, rs.getLong("id"));
+                update.executeUpdate();
+            }
+        }
+
+        // Adresses : une transaction courte par lot
+        long total;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM ip_addresses WHERE ip_num IS NULL")) {
+            total = rs.next() ? rs.getLong(1) : 0;
+        }
+        long done = 0;
+        int chunk;
+        do {
+            chunk = backfillIpNumChunk(conn);
+            done += chunk;
+            progress.update(done, total);
+        } while (chunk == BACKFILL_CHUNK_SIZE);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ip_num ON ip_addresses(ip_num)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ip_subnet_num ON ip_addresses(subnet_id, ip_num)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_subnet_range ON subnets(network_num, broadcast_num)");
+        }
+    }
+
+    /**
+     * Bornes IPv6 des sous-réseaux, puis réécriture de ip_addresses : ip_num
+     * devient facultatif et ip_bytes porte les adresses IPv6 (une seule des
+     * deux colonnes renseignée par ligne)
+     */
+    private static void addIpv6Columns(Connection conn, Migration.Progress progress) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!columnExists(conn, "subnets", "network_bytes")) {
+                stmt.execute("ALTER TABLE subnets ADD COLUMN network_bytes BLOB");
+                stmt.execute("ALTER TABLE subnets ADD COLUMN last_bytes BLOB");
+            }
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_subnet_range6 ON subnets(network_bytes, last_bytes)");
+        }
+
+        if (columnExists(conn, "ip_addresses", "ip_bytes")) {
+            return;
+        }
+        new TableRewrite("ip_addresses",
+            """
+            CREATE TABLE %s (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                ip_address TEXT NOT NULL,
+                subnet_id INTEGER NOT NULL,
+                status TEXT NOT NULL,
+                assigned_to TEXT,
+                mac_address TEXT,
+                description TEXT,
+                assigned_date TEXT,
+                created_date TEXT NOT NULL,
+                ip_num INTEGER,
+                ip_bytes BLOB,
+                FOREIGN KEY (subnet_id) REFERENCES subnets(id) ON DELETE CASCADE,
+                UNIQUE(ip_num),
+                UNIQUE(ip_bytes),
+                CHECK ((ip_num IS NULL) <> (ip_bytes IS NULL))
+            )
+            """,
+            "id, ip_address, subnet_id, status, assigned_to, mac_address, description, "
+                + "assigned_date, created_date, ip_num",
+            "id, ip_address, subnet_id, status, assigned_to, mac_address, description, "
+                + "assigned_date, created_date, ip_num",
+            List.of(
+                "CREATE INDEX IF NOT EXISTS idx_ip_subnet_num ON ip_addresses(subnet_id, ip_num)",
+                "CREATE INDEX IF NOT EXISTS idx_ip_subnet_bytes ON ip_addresses(subnet_id, ip_bytes)",
+                "CREATE INDEX IF NOT EXISTS idx_ip_status ON ip_addresses(status)"))
+            .run(conn, progress);
+    }
+
+    /**
+     * Ajoute mac_num, la remplit par lots à partir du texte puis crée l'index.
+     * Les MAC illisibles restent à NULL et gardent leur texte d'origine.
+     */
+    private static void addMacNumColumn(Connection conn, Migration.Progress progress) throws SQLException {
+        if (!columnExists(conn, "ip_addresses", "mac_num")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE ip_addresses ADD COLUMN mac_num INTEGER");
+            }
+        }
+
+        long total;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT COUNT(*) FROM ip_addresses WHERE mac_address IS NOT NULL AND mac_num IS NULL")) {
+            total = rs.next() ? rs.getLong(1) : 0;
+        }
+        long done = 0;
+        long lastId = 0;
+        while (done < total) {
+            long[] chunk = backfillMacNumChunk(conn, lastId);
+            if (chunk[0] == 0) {
+                break;
+            }
+            done += chunk[0];
+            lastId = chunk[1];
+            progress.update(done, total);
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ip_mac_num ON ip_addresses(mac_num)");
+        }
+    }
+
+    /**
+     * Un lot de la conversion des MAC, par ID croissant (les MAC invalides
+     * restent à NULL : on avance sur l'ID pour ne pas les relire)
+     *
+     * @return {nombre de lignes lues, dernier ID lu}
+     */
+    private static long[] backfillMacNumChunk(Connection conn, long afterId) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement select = conn.prepareStatement(
+                 "SELECT id, mac_address FROM ip_addresses "
+                     + "WHERE id > ? AND mac_address IS NOT NULL AND mac_num IS NULL ORDER BY id LIMIT ?");
+             PreparedStatement update = conn.prepareStatement(
+                 "UPDATE ip_addresses SET mac_num = ?, mac_address = ? WHERE id = ?")) {
+            select.setLong(1, afterId);
+            select.setInt(2, BACKFILL_CHUNK_SIZE);
+            long count = 0;
+            long lastId = afterId;
+            boolean pending = false;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    lastId = rs.getLong("id");
+                    count++;
+                    long mac = IPCalculator.parseMAC(rs.getString("mac_address").trim());
+                    if (mac >= 0) {
+                        update.setLong(1, mac);
+                        update.setString(2, IPCalculator.formatMAC(mac));
+                        update.setLong(3, lastId);
+                        update.addBatch();
+                        pending = true;
+                    }
+                }
+            }
+            if (pending) {
+                update.executeBatch();
+            }
+            conn.commit();
+            return new long[] {count, lastId};
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static int backfillIpNumChunk(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement select = conn.prepareStatement(
+                 "SELECT id, ip_address FROM ip_addresses WHERE ip_num IS NULL LIMIT ?");
+             PreparedStatement update = conn.prepareStatement(
+                 "UPDATE ip_addresses SET ip_num = ? WHERE id = ?")) {
+            select.setInt(1, BACKFILL_CHUNK_SIZE);
+            int count = 0;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    update.setLong(1, IPCalculator.ipToLong(rs.getString("ip_address")));
+                    update.setLong(2, rs.getLong("id"));
+                    update.addBatch();
+                    count++;
+                }
+            }
+            if (count > 0) {
+                update.executeBatch();
+            }
+            conn.commit();
+            return count;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Recalcule les compteurs d'adresses par sous-réseau et par statut
+     * (les adresses disponibles ne sont pas comptées)
+     */
+    static void rebuildSubnetUsage(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM subnet_usage");
+            stmt.execute("""
+                INSERT INTO subnet_usage (subnet_id, status, ip_count)
+                SELECT subnet_id, status, COUNT(*) FROM ip_addresses
+                WHERE status <> 'AVAILABLE'
+                GROUP BY subnet_id, status
+            """);
+        }
+    }
+
+    /**
+     * Reconstruit les bitmaps de statut à partir des lignes d'adresses non disponibles
+     */
+    static void rebuildStatusBitmaps(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM ip_status_bitmaps");
+        }
+
+        String select = "SELECT subnet_id, ip_num, status FROM ip_addresses "
+            + "WHERE status <> 'AVAILABLE' ORDER BY subnet_id, ip_num";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(select);
+             PreparedStatement insert = conn.prepareStatement(
+                 "INSERT INTO ip_status_bitmaps (subnet_id, chunk_index, bits) VALUES (?, ?, ?)")) {
+            long subnetId = -1;
+            long chunkIndex = -1;
+            StatusBitmap bitmap = null;
+            while (rs.next()) {
+                long rowSubnet = rs.getLong("subnet_id");
+                long ipNum = rs.getLong("ip_num");
+                if (bitmap == null || rowSubnet != subnetId || StatusBitmap.chunkIndex(ipNum) != chunkIndex) {
+                    if (bitmap != null) {
+                        addChunk(insert, subnetId, chunkIndex, bitmap);
+                    }
+                    subnetId = rowSubnet;
+                    chunkIndex = StatusBitmap.chunkIndex(ipNum);
+                    bitmap = new StatusBitmap();
+                }
+                bitmap.set(StatusBitmap.offset(ipNum), IPStatus.valueOf(rs.getString("status")));
+            }
+            if (bitmap != null) {
+                addChunk(insert, subnetId, chunkIndex, bitmap);
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static void addChunk(PreparedStatement insert, long subnetId, long chunkIndex,
+                                 StatusBitmap bitmap) throws SQLException {
+        insert.setLong(1, subnetId);
+        insert.setLong(2, chunkIndex);
+        insert.setBytes(3, bitmap.toBytes());
+        insert.addBatch();
+    }
+
+    static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
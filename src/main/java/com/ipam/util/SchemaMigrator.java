@@ -0,0 +1,152 @@
+package com.ipam.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applique dans l'ordre les migrations dont la version est supérieure
+ * à celle enregistrée dans la table schema_version.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final long PROGRESS_LOG_INTERVAL_MS = 2000;
+
+    private final Connection connection;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(Connection connection, List<Migration> migrations) {
+        this.connection = connection;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if (this.migrations.get(i).getVersion() == this.migrations.get(i - 1).getVersion()) {
+                throw new IllegalStateException("Version de migration en double: " + this.migrations.get(i));
+            }
+        }
+    }
+
+    /**
+     * Applique les migrations en attente et retourne leur nombre
+     */
+    public int migrate() throws SQLException {
+        ensureVersionTable();
+        int current = getCurrentVersion();
+        int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+
+        if (current > latest) {
+            logger.warn("Schéma en version {} plus récente que l'application (V{})", current, latest);
+            return 0;
+        }
+
+        int applied = 0;
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+            apply(migration);
+            applied++;
+        }
+
+        if (applied > 0) {
+            logger.info("Schéma migré de V{} à V{} ({} migration(s))", current, latest, applied);
+        }
+        return applied;
+    }
+
+    /**
+     * Version actuelle du schéma (0 si aucune migration appliquée)
+     */
+    public int getCurrentVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void apply(Migration migration) throws SQLException {
+        logger.info("Application de la migration {}", migration);
+        long start = System.currentTimeMillis();
+        Migration.Progress progress = new LoggingProgress(migration);
+
+        if (migration.isBatched()) {
+            // Les lots sont validés au fil de l'eau ; la version n'est enregistrée qu'à la fin
+            migration.apply(connection, progress);
+            recordVersion(migration, System.currentTimeMillis() - start);
+        } else {
+            connection.setAutoCommit(false);
+            try {
+                migration.apply(connection, progress);
+                recordVersion(migration, System.currentTimeMillis() - start);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                logger.error("Échec de la migration {}", migration, e);
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        logger.info("Migration {} appliquée en {} ms", migration, System.currentTimeMillis() - start);
+    }
+
+    private void ensureVersionTable() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_on TEXT NOT NULL,
+                    duration_ms INTEGER NOT NULL
+                )
+            """);
+        }
+    }
+
+    private void recordVersion(Migration migration, long durationMs) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, applied_on, duration_ms) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setString(3, LocalDateTime.now().toString());
+            pstmt.setLong(4, durationMs);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Journalise l'avancement au plus toutes les deux secondes
+     */
+    private static final class LoggingProgress implements Migration.Progress {
+        private final Migration migration;
+        private long lastLog;
+
+        private LoggingProgress(Migration migration) {
+            this.migration = migration;
+        }
+
+        @Override
+        public void update(long done, long total) {
+            long now = System.currentTimeMillis();
+            if (done < total && now - lastLog < PROGRESS_LOG_INTERVAL_MS) {
+                return;
+            }
+            lastLog = now;
+            if (total > 0) {
+                logger.info("Migration V{}: {}/{} ({}%)", migration.getVersion(), done, total, done * 100 / total);
+            } else {
+                logger.info("Migration V{}: {} traités", migration.getVersion(), done);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ipam.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Unité de travail SQL exécutée sur une connexion fournie par l'appelant
+ */
+@FunctionalInterface
+public interface SqlWork<T> {
+    T execute(Connection conn) throws SQLException;
+}
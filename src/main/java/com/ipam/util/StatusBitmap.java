@@ -0,0 +1,151 @@
+package com.ipam.util;
+
+import com.ipam.model.IPStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Bloc de statuts compacté : 2 bits par adresse (code de IPStatus), 32 adresses
+ * par mot long. Un bloc couvre CHUNK_SIZE adresses alignées sur leur valeur
+ * numérique ; un bloc absent de la base équivaut à un bloc entièrement disponible.
+ */
+public final class StatusBitmap {
+    public static final int CHUNK_BITS = 10;
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final int ADDRESSES_PER_WORD = 32;
+    private static final int WORDS = CHUNK_SIZE / ADDRESSES_PER_WORD;
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private final long[] words;
+
+    public StatusBitmap() {
+        this.words = new long[WORDS];
+    }
+
+    /**
+     * Index du bloc contenant une adresse
+     */
+    public static long chunkIndex(long ipNum) {
+        return ipNum >>> CHUNK_BITS;
+    }
+
+    /**
+     * Position d'une adresse dans son bloc
+     */
+    public static int offset(long ipNum) {
+        return (int) (ipNum & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Première adresse couverte par un bloc
+     */
+    public static long chunkStart(long chunkIndex) {
+        return chunkIndex << CHUNK_BITS;
+    }
+
+    public IPStatus get(int offset) {
+        int shift = (offset & (ADDRESSES_PER_WORD - 1)) << 1;
+        return IPStatus.fromCode((int) (words[offset / ADDRESSES_PER_WORD] >>> shift));
+    }
+
+    public void set(int offset, IPStatus status) {
+        int index = offset / ADDRESSES_PER_WORD;
+        int shift = (offset & (ADDRESSES_PER_WORD - 1)) << 1;
+        words[index] = (words[index] & ~(0b11L << shift)) | ((long) status.getCode() << shift);
+    }
+
+    /**
+     * Nombre d'adresses du bloc ayant ce statut
+     */
+    public int count(IPStatus status) {
+        return count(status, 0, CHUNK_SIZE);
+    }
+
+    /**
+     * Nombre d'adresses ayant ce statut dans [from, to[
+     */
+    public int count(IPStatus status, int from, int to) {
+        int total = 0;
+        for (int w = from / ADDRESSES_PER_WORD; w < WORDS && w * ADDRESSES_PER_WORD < to; w++) {
+            total += Long.bitCount(matches(words[w], status) & rangeMask(w, from, to));
+        }
+        return total;
+    }
+
+    /**
+     * Première position de [from, to[ ayant ce statut, -1 si aucune
+     */
+    public int next(IPStatus status, int from, int to) {
+        for (int w = from / ADDRESSES_PER_WORD; w < WORDS && w * ADDRESSES_PER_WORD < to; w++) {
+            long found = matches(words[w], status) & rangeMask(w, from, to);
+            if (found != 0) {
+                return w * ADDRESSES_PER_WORD + (Long.numberOfTrailingZeros(found) >>> 1);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Vrai si toutes les adresses du bloc sont disponibles
+     */
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+
+    public static StatusBitmap fromBytes(byte[] bytes) {
+        StatusBitmap bitmap = new StatusBitmap();
+        if (bytes != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            for (int w = 0; w < WORDS && buffer.remaining() >= Long.BYTES; w++) {
+                bitmap.words[w] = buffer.getLong();
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Un bit de poids faible par paire de bits égale au code du statut
+     */
+    private static long matches(long word, IPStatus status) {
+        long low = word;
+        long high = word >>> 1;
+        return switch (status) {
+            case AVAILABLE -> ~(low | high) & LOW_BITS;
+            case ASSIGNED -> low & ~high & LOW_BITS;
+            case RESERVED -> ~low & high & LOW_BITS;
+            case BLOCKED -> low & high & LOW_BITS;
+        };
+    }
+
+    /**
+     * Bits de poids faible des positions du mot w comprises dans [from, to[
+     */
+    private static long rangeMask(int w, int from, int to) {
+        int base = w * ADDRESSES_PER_WORD;
+        int start = Math.max(from - base, 0);
+        int end = Math.min(to - base, ADDRESSES_PER_WORD);
+        if (end <= start) {
+            return 0;
+        }
+        return LOW_BITS & lowBits(end << 1) & ~lowBits(start << 1);
+    }
+
+    private static long lowBits(int n) {
+        return n >= Long.SIZE ? -1L : (1L << n) - 1;
+    }
+}
@@ -0,0 +1,229 @@
+package com.ipam.util;
+
+import com.ipam.model.Ipv4Prefix;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Table de correspondance adresse IPv4 → sous-réseau propriétaire, pour
+ * résoudre des millions d'adresses (journaux de pare-feu, exports NetFlow).
+ * <p>
+ * Les préfixes, éventuellement imbriqués, sont aplatis en intervalles
+ * disjoints [début, fin] → ID du sous-réseau le plus spécifique, rangés dans
+ * des tableaux primitifs triés. Une table de seaux couvrant la plage occupée
+ * (environ deux seaux par intervalle) borne la recherche dichotomique à un
+ * ou deux intervalles. Immuable une fois construite : partageable entre threads.
+ */
+public final class SubnetLookupTable {
+    /** Résultat pour une adresse qui n'appartient à aucun sous-réseau */
+    public static final long NO_SUBNET = -1;
+
+    // Taille des tranches traitées par tâche en mode parallèle
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    // Au plus 2^22 seaux (16 Mo)
+    private static final int MAX_BUCKET_BITS = 22;
+
+    // Bornes décalées de 2^31 : la comparaison signée des int suit l'ordre des adresses
+    private final int[] starts;
+    private final int[] ends;
+    private final long[] subnetIds;
+    // Seaux de 2^shift adresses à partir de base (adresses non signées)
+    private final long base;
+    private final int shift;
+    private final int[] buckets;
+
+    private SubnetLookupTable(int[] starts, int[] ends, long[] subnetIds) {
+        this.starts = starts;
+        this.ends = ends;
+        this.subnetIds = subnetIds;
+
+        int count = starts.length;
+        long low = count > 0 ? Integer.toUnsignedLong(starts[0] ^ Integer.MIN_VALUE) : 0;
+        long high = count > 0 ? Integer.toUnsignedLong(ends[count - 1] ^ Integer.MIN_VALUE) : 0;
+        int bucketBits = Math.min(MAX_BUCKET_BITS, 33 - Integer.numberOfLeadingZeros(Math.max(1, count)));
+        int rangeBits = 64 - Long.numberOfLeadingZeros(high - low);
+        this.shift = Math.max(0, rangeBits - bucketBits);
+        this.base = low;
+        this.buckets = buildBuckets(ends, low, high, shift);
+    }
+
+    /**
+     * Construit la table à partir des préfixes indexés par ID de sous-réseau
+     */
+    public static SubnetLookupTable build(Map<Long, Ipv4Prefix> prefixes) {
+        if (prefixes.size() >= 1 << 20) {
+            throw new IllegalArgumentException("Trop de sous-réseaux pour la table de correspondance");
+        }
+
+        // Tri par adresse puis du plus large au plus spécifique (index du préfixe dans les 20 bits bas)
+        long[] order = new long[prefixes.size()];
+        long[] ids = new long[prefixes.size()];
+        int count = 0;
+        for (Map.Entry<Long, Ipv4Prefix> entry : prefixes.entrySet()) {
+            ids[count] = entry.getKey();
+            order[count] = CidrAggregator.pack(entry.getValue()) << 20 | count;
+            count++;
+        }
+        Arrays.sort(order);
+
+        Builder builder = new Builder(count * 2 + 1);
+        long[] openEnds = new long[33];
+        long[] openIds = new long[33];
+        int depth = 0;
+        long cursor = 0; // Première adresse pas encore attribuée à un intervalle
+        for (long key : order) {
+            long packed = key >>> 20;
+            long first = CidrAggregator.network(packed);
+            long last = first + (1L << (32 - CidrAggregator.length(packed))) - 1;
+            long id = ids[(int) (key & 0xFFFFF)];
+
+            // Fermer les préfixes ouverts qui se terminent avant celui-ci
+            while (depth > 0 && openEnds[depth - 1] < first) {
+                depth--;
+                builder.add(cursor, openEnds[depth], openIds[depth]);
+                cursor = Math.max(cursor, openEnds[depth] + 1);
+            }
+            // Partie du préfixe englobant qui précède celui-ci
+            if (depth > 0) {
+                builder.add(cursor, first - 1, openIds[depth - 1]);
+            }
+            cursor = first;
+            if (depth == openEnds.length) {
+                throw new IllegalStateException("Préfixes dupliqués dans la table de correspondance");
+            }
+            openEnds[depth] = last;
+            openIds[depth] = id;
+            depth++;
+        }
+        while (depth > 0) {
+            depth--;
+            builder.add(cursor, openEnds[depth], openIds[depth]);
+            cursor = Math.max(cursor, openEnds[depth] + 1);
+        }
+        return builder.toTable();
+    }
+
+    /**
+     * ID du sous-réseau le plus spécifique contenant l'adresse, NO_SUBNET sinon
+     *
+     * @param address adresse IPv4 sur 32 bits (int non signé)
+     */
+    public long lookup(int address) {
+        int key = address ^ Integer.MIN_VALUE;
+        long offset = Integer.toUnsignedLong(address) - base;
+        if (offset < 0 || (offset >>> shift) >= buckets.length - 1) {
+            return NO_SUBNET;
+        }
+        int bucket = (int) (offset >>> shift);
+        int low = buckets[bucket];
+        int high = buckets[bucket + 1];
+        if (high == starts.length) {
+            high--;
+        }
+        // Dernier intervalle commençant au plus tard à l'adresse
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= key) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found >= 0 && ends[found] >= key ? subnetIds[found] : NO_SUBNET;
+    }
+
+    /**
+     * Résout un lot d'adresses sur le thread courant
+     */
+    public long[] lookupAll(int[] addresses) {
+        long[] result = new long[addresses.length];
+        lookupRange(addresses, result, 0, addresses.length);
+        return result;
+    }
+
+    /**
+     * Résout un lot d'adresses en parallèle, par tranches, sur le pool commun
+     */
+    public long[] lookupAllParallel(int[] addresses) {
+        long[] result = new long[addresses.length];
+        int chunks = (addresses.length + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * PARALLEL_CHUNK;
+            lookupRange(addresses, result, from, Math.min(addresses.length, from + PARALLEL_CHUNK));
+        });
+        return result;
+    }
+
+    /**
+     * Nombre d'intervalles disjoints
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    private void lookupRange(int[] addresses, long[] result, int from, int to) {
+        for (int i = from; i < to; i++) {
+            result[i] = lookup(addresses[i]);
+        }
+    }
+
+    /**
+     * buckets[b] : premier intervalle qui se termine au plus tôt au début du seau b
+     */
+    private static int[] buildBuckets(int[] ends, long low, long high, int shift) {
+        int count = (int) ((high - low) >>> shift) + 1;
+        int[] buckets = new int[count + 1];
+        int index = 0;
+        for (int bucket = 0; bucket < count; bucket++) {
+            int key = (int) (low + ((long) bucket << shift)) ^ Integer.MIN_VALUE;
+            while (index < ends.length && ends[index] < key) {
+                index++;
+            }
+            buckets[bucket] = index;
+        }
+        buckets[count] = ends.length;
+        return buckets;
+    }
+
+    /**
+     * Accumule les intervalles (ordonnés, disjoints) avant de figer la table
+     */
+    private static final class Builder {
+        private int[] starts;
+        private int[] ends;
+        private long[] subnetIds;
+        private int size;
+
+        Builder(int capacity) {
+            starts = new int[capacity];
+            ends = new int[capacity];
+            subnetIds = new long[capacity];
+        }
+
+        void add(long start, long end, long subnetId) {
+            if (start > end) {
+                return;
+            }
+            if (size == starts.length) {
+                int capacity = size * 2 + 1;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                subnetIds = Arrays.copyOf(subnetIds, capacity);
+            }
+            starts[size] = (int) start ^ Integer.MIN_VALUE;
+            ends[size] = (int) end ^ Integer.MIN_VALUE;
+            subnetIds[size] = subnetId;
+            size++;
+        }
+
+        SubnetLookupTable toTable() {
+            return new SubnetLookupTable(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size),
+                Arrays.copyOf(subnetIds, size));
+        }
+    }
+}
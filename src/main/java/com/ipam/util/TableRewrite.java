@@ -0,0 +1,207 @@
+package com.ipam.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Réécriture en ligne d'une table volumineuse : copie par lots vers une table
+ * temporaire (une transaction courte par lot) puis bascule dans une dernière
+ * transaction courte. Les modifications faites pendant la copie par d'autres
+ * connexions ou processus sont tracées par des triggers et rejouées lors de la
+ * bascule. La copie reprend là où elle s'était arrêtée en cas d'interruption.
+ * La table doit avoir une clé primaire entière nommée id.
+ */
+public class TableRewrite {
+    private static final Logger logger = LoggerFactory.getLogger(TableRewrite.class);
+
+    private static final int DEFAULT_CHUNK_SIZE = 10_000;
+    private static final String CHANGES_TABLE = "schema_rewrite_changes";
+
+    private final String table;
+    private final String target;
+    private final String createSql;
+    private final String columns;
+    private final String selectExpressions;
+    private final List<String> indexStatements;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * @param table             table à réécrire
+     * @param createSql         CREATE TABLE de la nouvelle structure, avec %s à la place du nom
+     * @param columns           colonnes de la nouvelle table alimentées par la copie
+     * @param selectExpressions expressions lues dans l'ancienne table, dans le même ordre
+     * @param indexStatements   index à recréer après la bascule
+     */
+    public TableRewrite(String table, String createSql, String columns,
+                        String selectExpressions, List<String> indexStatements) {
+        this.table = table;
+        this.target = table + "_rewrite";
+        this.createSql = createSql;
+        this.columns = columns;
+        this.selectExpressions = selectExpressions;
+        this.indexStatements = indexStatements;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Exécute la réécriture ; la connexion doit être en auto-commit
+     */
+    public void run(Connection conn, Migration.Progress progress) throws SQLException {
+        prepare(conn);
+
+        long total = count(conn, table);
+        long copied = count(conn, target);
+        long lastId = maxId(conn, target);
+        if (copied > 0) {
+            logger.info("Reprise de la réécriture de {} après {} lignes", table, copied);
+        }
+
+        String copySql = "INSERT INTO " + target + " (" + columns + ") SELECT " + selectExpressions
+            + " FROM " + table + " WHERE id > ? ORDER BY id LIMIT ?";
+        while (true) {
+            int inserted;
+            conn.setAutoCommit(false);
+            try (PreparedStatement copy = conn.prepareStatement(copySql)) {
+                copy.setLong(1, lastId);
+                copy.setInt(2, chunkSize);
+                inserted = copy.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            if (inserted == 0) {
+                break;
+            }
+            lastId = maxId(conn, target);
+            copied += inserted;
+            progress.update(Math.min(copied, total), total);
+        }
+
+        swap(conn);
+        progress.update(total, total);
+    }
+
+    /**
+     * Crée la table cible, la table de suivi et les triggers de capture
+     */
+    private void prepare(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + CHANGES_TABLE + " ("
+                + "table_name TEXT NOT NULL, row_id INTEGER NOT NULL, "
+                + "PRIMARY KEY (table_name, row_id)) WITHOUT ROWID");
+            if (!tableExists(conn, target)) {
+                stmt.execute(String.format(createSql, target));
+            }
+            String record = "INSERT OR IGNORE INTO " + CHANGES_TABLE + " (table_name, row_id) VALUES ('" + table + "', ";
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_rewrite_ai AFTER INSERT ON " + table
+                + " BEGIN " + record + "NEW.id); END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_rewrite_au AFTER UPDATE ON " + table
+                + " BEGIN " + record + "OLD.id); " + record + "NEW.id); END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_rewrite_ad AFTER DELETE ON " + table
+                + " BEGIN " + record + "OLD.id); END");
+        }
+    }
+
+    /**
+     * Rejoue les lignes modifiées pendant la copie puis remplace l'ancienne table
+     */
+    private void swap(Connection conn) throws SQLException {
+        String changed = "SELECT row_id FROM " + CHANGES_TABLE + " WHERE table_name = '" + table + "'";
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            int replayed = stmt.executeUpdate("DELETE FROM " + target + " WHERE id IN (" + changed + ")");
+            replayed += stmt.executeUpdate("INSERT INTO " + target + " (" + columns + ") SELECT "
+                + selectExpressions + " FROM " + table + " WHERE id IN (" + changed + ")");
+            stmt.execute("DROP TRIGGER IF EXISTS " + table + "_rewrite_ai");
+            stmt.execute("DROP TRIGGER IF EXISTS " + table + "_rewrite_au");
+            stmt.execute("DROP TRIGGER IF EXISTS " + table + "_rewrite_ad");
+            carrySequence(conn);
+            stmt.execute("DROP TABLE " + table);
+            stmt.execute("ALTER TABLE " + target + " RENAME TO " + table);
+            for (String index : indexStatements) {
+                stmt.execute(index);
+            }
+            stmt.execute("DELETE FROM " + CHANGES_TABLE + " WHERE table_name = '" + table + "'");
+            conn.commit();
+            logger.info("Table {} réécrite ({} modification(s) concurrente(s) rejouée(s))", table, replayed);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Reporte le compteur AUTOINCREMENT de l'ancienne table sur la nouvelle :
+     * sans lui, les id des dernières lignes supprimées seraient réattribués
+     * (et l'historique qui les référence pointerait vers d'autres lignes)
+     */
+    private void carrySequence(Connection conn) throws SQLException {
+        if (!tableExists(conn, "sqlite_sequence")) {
+            return;
+        }
+        long seq;
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT seq FROM sqlite_sequence WHERE name = ?")) {
+            pstmt.setString(1, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                seq = rs.getLong(1);
+            }
+        }
+        try (PreparedStatement update = conn.prepareStatement(
+                "UPDATE sqlite_sequence SET seq = MAX(seq, ?) WHERE name = ?")) {
+            update.setLong(1, seq);
+            update.setString(2, target);
+            if (update.executeUpdate() > 0 || !createSql.toUpperCase().contains("AUTOINCREMENT")) {
+                return;
+            }
+        }
+        // Nouvelle table encore vide : pas encore de ligne dans sqlite_sequence
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO sqlite_sequence (name, seq) VALUES (?, ?)")) {
+            insert.setString(1, target);
+            insert.setLong(2, seq);
+            insert.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String name) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static long count(Connection conn, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + name)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static long maxId(Connection conn, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + name)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.ipam.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Roue temporelle hiérarchique : échéances d'identifiants (baux) au pas de
+ * tickMillis. Chaque niveau compte 64 cases ; une échéance est rangée au
+ * niveau du groupe de 6 bits le plus haut où son tick diffère du tick
+ * courant, puis redescend d'un niveau quand sa case est atteinte (cascade).
+ * Planifier, replanifier et annuler coûtent O(1) ; chaque tick ne parcourt
+ * que les cases échues, quel que soit le nombre d'échéances en attente.
+ * L'annulation est paresseuse : seule la dernière échéance connue d'un
+ * identifiant est déclenchée, les entrées périmées sont ignorées au passage.
+ * Non synchronisé.
+ */
+public class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    private final long tickMillis;
+    // Cases créées à la première échéance du niveau
+    private final Bucket[][] levels = new Bucket[LEVELS][];
+    // Échéances déjà atteintes, déclenchées au prochain advance
+    private final Bucket due = new Bucket();
+    // Identifiant → tick de sa dernière échéance
+    private final LongLongHashMap deadlines = new LongLongHashMap();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Le pas de la roue doit être positif");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Planifie (ou replanifie) l'échéance d'un identifiant, arrondie au tick supérieur
+     */
+    public void schedule(long id, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        deadlines.put(id, tick);
+        place(id, tick);
+    }
+
+    /**
+     * Annule l'échéance d'un identifiant
+     *
+     * @return true si une échéance était planifiée
+     */
+    public boolean cancel(long id) {
+        return deadlines.remove(id) != LongLongHashMap.MISSING;
+    }
+
+    /**
+     * Échéance planifiée d'un identifiant (arrondie au tick), -1 si aucune
+     */
+    public long getDeadline(long id) {
+        long tick = deadlines.get(id);
+        return tick == LongLongHashMap.MISSING ? -1 : tick * tickMillis;
+    }
+
+    /**
+     * Nombre d'échéances planifiées
+     */
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Avance la roue jusqu'à nowMillis et transmet à expired chaque identifiant
+     * échu, retiré de la roue
+     *
+     * @return le nombre d'identifiants échus
+     */
+    public int advance(long nowMillis, LongConsumer expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        int fired = fire(due, expired);
+        while (currentTick < target) {
+            currentTick++;
+            // Cascade des niveaux dont la case courante commence à ce tick, du plus haut au plus bas
+            int aligned = Math.min(Long.numberOfTrailingZeros(currentTick) / SLOT_BITS, LEVELS - 1);
+            for (int level = aligned; level >= 1; level--) {
+                Bucket[] slots = levels[level];
+                Bucket bucket = slots != null ? slots[slot(currentTick, level)] : null;
+                if (bucket != null && bucket.size > 0) {
+                    long[] ids = bucket.ids;
+                    long[] ticks = bucket.ticks;
+                    int size = bucket.size;
+                    bucket.detach();
+                    for (int i = 0; i < size; i++) {
+                        if (deadlines.get(ids[i]) == ticks[i]) {
+                            place(ids[i], ticks[i]);
+                        }
+                    }
+                }
+            }
+            if (levels[0] != null) {
+                fired += fire(levels[0][slot(currentTick, 0)], expired);
+            }
+            fired += fire(due, expired);
+        }
+        return fired;
+    }
+
+    private void place(long id, long tick) {
+        if (tick <= currentTick) {
+            due.add(id, tick);
+            return;
+        }
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(tick ^ currentTick)) / SLOT_BITS;
+        Bucket[] slots = levels[level];
+        if (slots == null) {
+            slots = new Bucket[SLOTS];
+            levels[level] = slots;
+        }
+        int index = slot(tick, level);
+        if (slots[index] == null) {
+            slots[index] = new Bucket();
+        }
+        slots[index].add(id, tick);
+    }
+
+    private int fire(Bucket bucket, LongConsumer expired) {
+        if (bucket == null || bucket.size == 0) {
+            return 0;
+        }
+        long[] ids = bucket.ids;
+        long[] ticks = bucket.ticks;
+        int size = bucket.size;
+        bucket.detach();
+        int fired = 0;
+        for (int i = 0; i < size; i++) {
+            // Entrée périmée si l'échéance a été annulée ou replanifiée
+            if (deadlines.get(ids[i]) == ticks[i]) {
+                deadlines.remove(ids[i]);
+                expired.accept(ids[i]);
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) (tick >>> (level * SLOT_BITS)) & (SLOTS - 1);
+    }
+
+    /**
+     * Case de la roue : paires (identifiant, tick) dans deux tableaux extensibles
+     */
+    private static final class Bucket {
+        private static final int INITIAL_CAPACITY = 8;
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] ticks = new long[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(long id, long tick) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                ticks = Arrays.copyOf(ticks, size * 2);
+            }
+            ids[size] = id;
+            ticks[size] = tick;
+            size++;
+        }
+
+        /**
+         * Vide la case en lui donnant de nouveaux tableaux : l'appelant parcourt
+         * les anciens pendant que des entrées y sont rajoutées
+         */
+        private void detach() {
+            ids = new long[INITIAL_CAPACITY];
+            ticks = new long[INITIAL_CAPACITY];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.ipam.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * File d'écriture à écrivain unique avec validation groupée (group commit).
+ * Toutes les mutations sont exécutées par un seul thread qui regroupe les
+ * écritures en attente dans une même transaction : un seul fsync pour tout
+ * le lot. Chaque écriture s'exécute dans son propre savepoint, l'échec de
+ * l'une n'annule donc pas les autres. Le futur de l'appelant n'est complété
+ * qu'après le COMMIT du lot. Une écriture exclusive (executeExclusive)
+ * s'exécute seule, hors transaction de lot, et gère ses propres transactions.
+ */
+public class WriteQueue {
+    private static final Logger logger = LoggerFactory.getLogger(WriteQueue.class);
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final ConnectionPool pool;
+    private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Utilisés uniquement par le thread écrivain
+    private Connection current;
+
+    public WriteQueue(ConnectionPool pool) {
+        this.pool = pool;
+        this.writerThread = new Thread(this::run, "ipam-db-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Soumet une écriture et attend la validation de la transaction qui la contient
+     */
+    public <T> T execute(SqlWork<T> work) throws SQLException {
+        if (isWriterThread()) {
+            // Écriture imbriquée : elle rejoint la transaction en cours
+            return executeNested(work);
+        }
+        return await(enqueue(work, false));
+    }
+
+    /**
+     * Soumet une écriture exclusive et attend sa fin : elle s'exécute seule sur
+     * la connexion d'écriture, en mode auto-commit, entre deux lots. Réservée aux
+     * opérations qui valident elles-mêmes (migrations, réinitialisation).
+     */
+    public <T> T executeExclusive(SqlWork<T> work) throws SQLException {
+        if (isWriterThread()) {
+            throw new SQLException("Écriture exclusive impossible depuis une écriture en cours");
+        }
+        return await(enqueue(work, true));
+    }
+
+    private <T> T await(PendingWrite<T> pending) throws SQLException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return pending.future.get();
+                } catch (InterruptedException e) {
+                    if (!interrupted && pending.cancel()) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Attente de l'écriture interrompue", e);
+                    }
+                    // Déjà prise par le thread écrivain : son issue est celle de l'écriture
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException("Échec de l'écriture", cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Soumet une écriture sans attendre ; le futur est complété après le COMMIT
+     */
+    public <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        return enqueue(work, false).future;
+    }
+
+    private <T> PendingWrite<T> enqueue(SqlWork<T> work, boolean exclusive) {
+        PendingWrite<T> pending = new PendingWrite<>(work, exclusive);
+        if (!running) {
+            pending.future.completeExceptionally(new SQLException("La file d'écriture est arrêtée"));
+            return pending;
+        }
+        queue.add(pending);
+        return pending;
+    }
+
+    /**
+     * Indique si le thread courant est le thread écrivain
+     */
+    public boolean isWriterThread() {
+        return Thread.currentThread() == writerThread;
+    }
+
+    /**
+     * Termine les écritures en attente puis arrête le thread écrivain
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            logger.warn("Le thread d'écriture ne s'est pas arrêté dans le délai imparti");
+        }
+        PendingWrite<?> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new SQLException("La file d'écriture est arrêtée"));
+        }
+    }
+
+    private void run() {
+        List<PendingWrite<?>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite<?> first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                // Les écritures exclusives coupent le lot, dans l'ordre d'arrivée
+                int from = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (batch.get(i).exclusive) {
+                        if (i > from) {
+                            processBatch(batch.subList(from, i));
+                        }
+                        processExclusive(batch.get(i));
+                        from = i + 1;
+                    }
+                }
+                if (from < batch.size()) {
+                    processBatch(batch.subList(from, batch.size()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Erreur inattendue dans le thread d'écriture", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        logger.debug("Thread d'écriture arrêté");
+    }
+
+    /**
+     * Exécute un lot dans une seule transaction
+     */
+    private void processBatch(List<PendingWrite<?>> batch) {
+        List<PendingWrite<?>> applied = new ArrayList<>(batch.size());
+        try (Connection conn = pool.borrowWriter()) {
+            current = conn;
+            conn.setAutoCommit(false);
+            try {
+                for (PendingWrite<?> pending : batch) {
+                    if (!pending.start()) {
+                        continue; // annulée par l'appelant
+                    }
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        pending.run(conn);
+                        conn.releaseSavepoint(savepoint);
+                        applied.add(pending);
+                    } catch (Throwable t) {
+                        conn.rollback(savepoint);
+                        conn.releaseSavepoint(savepoint);
+                        pending.future.completeExceptionally(t);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                rollbackQuietly(conn);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                current = null;
+            }
+            for (PendingWrite<?> pending : applied) {
+                pending.complete();
+            }
+            if (batch.size() > 1) {
+                logger.debug("Validation groupée de {} écriture(s)", batch.size());
+            }
+        } catch (SQLException e) {
+            logger.error("Échec de la validation d'un lot de {} écriture(s)", batch.size(), e);
+            for (PendingWrite<?> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Exécute une écriture exclusive, seule et en mode auto-commit
+     */
+    private void processExclusive(PendingWrite<?> pending) {
+        if (!pending.start()) {
+            return; // annulée par l'appelant
+        }
+        try (Connection conn = pool.borrowWriter()) {
+            current = conn;
+            try {
+                pending.run(conn);
+            } finally {
+                if (!conn.getAutoCommit()) {
+                    rollbackQuietly(conn);
+                    conn.setAutoCommit(true);
+                }
+                current = null;
+            }
+            pending.complete();
+        } catch (Throwable t) {
+            pending.future.completeExceptionally(t);
+        }
+    }
+
+    private <T> T executeNested(SqlWork<T> work) throws SQLException {
+        Connection conn = current;
+        if (conn == null) {
+            throw new SQLException("Aucune transaction d'écriture en cours");
+        }
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            T result = work.execute(conn);
+            conn.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+            throw e;
+        }
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            logger.warn("Échec de l'annulation du lot: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Écriture en attente et son futur
+     */
+    private static final class PendingWrite<T> {
+        private final SqlWork<T> work;
+        private final boolean exclusive;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        // Prise par le thread écrivain ou annulation par l'appelant : la première l'emporte
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private T result;
+
+        private PendingWrite(SqlWork<T> work, boolean exclusive) {
+            this.work = work;
+            this.exclusive = exclusive;
+        }
+
+        private boolean start() {
+            return !future.isDone() && claimed.compareAndSet(false, true);
+        }
+
+        private boolean cancel() {
+            return claimed.compareAndSet(false, true) && future.cancel(false);
+        }
+
+        private void run(Connection conn) throws SQLException {
+            result = work.execute(conn);
+        }
+
+        private void complete() {
+            future.complete(result);
+        }
+    }
+}
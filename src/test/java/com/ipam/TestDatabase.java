@@ -0,0 +1,36 @@
+package com.ipam;
+
+import com.ipam.util.DatabaseManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Base de test : le fichier désigné par -Dipam.db.path (voir la configuration
+ * surefire du pom) est supprimé une fois par JVM, avant la première ouverture.
+ * Les classes de test partagent ensuite la même base et créent chacune leurs
+ * propres sous-réseaux.
+ */
+public final class TestDatabase {
+    private static boolean opened;
+
+    private TestDatabase() {
+    }
+
+    public static synchronized void open() throws SQLException {
+        if (!opened) {
+            Path db = Path.of(DatabaseManager.getDatabasePath());
+            try {
+                for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                    Files.deleteIfExists(Path.of(db + suffix));
+                }
+            } catch (IOException e) {
+                throw new SQLException("Impossible de supprimer la base de test " + db, e);
+            }
+            opened = true;
+        }
+        DatabaseManager.initialize();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ipam.bench;
+
+import com.ipam.util.AllocationStrategy;
+import com.ipam.util.FreeBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fragmentation et latence des stratégies d'attribution sur le bitmap d'un
+ * /16 soumis à un renouvellement continu : le taux d'occupation est maintenu
+ * autour de 85 % par 300 000 attributions et libérations aléatoires, un quart
+ * des demandes étant des blocs contigus de 4 à 64 adresses. Par stratégie :
+ * temps moyen de select + take, demandes de bloc refusées alors qu'il restait
+ * assez d'adresses libres, puis nombre de plages libres et plus grande plage
+ * en fin de parcours. Seul le choix en mémoire est mesuré : l'écriture en
+ * base qui suit coûte la même chose pour toutes les stratégies.
+ */
+public class AllocationStrategyBenchmark {
+    private static final long FIRST = 1;
+    private static final long LAST = 65_534;
+    private static final int STEPS = 300_000;
+    private static final double TARGET = 0.85;
+
+    public static void main(String[] args) throws Exception {
+        // Échauffement du JIT, non rapporté
+        churn(AllocationStrategy.FIRST_FIT, 0, false);
+        for (AllocationStrategy strategy : new AllocationStrategy[] {AllocationStrategy.FIRST_FIT,
+                AllocationStrategy.BEST_FIT, AllocationStrategy.RANDOM, AllocationStrategy.ROUND_ROBIN}) {
+            churn(strategy, 1, true);
+            churn(strategy, 2, true);
+        }
+    }
+
+    private static void churn(AllocationStrategy strategy, long seed, boolean report) throws Exception {
+        Random random = new Random(seed);
+        FreeBitmap free = new FreeBitmap(FIRST, LAST);
+        long capacity = LAST - FIRST + 1;
+        List<long[]> allocations = new ArrayList<>();
+        int[] requests = new int[2];
+        int[] refused = new int[2];
+        long[] selectNanos = new long[1];
+
+        double millis = BenchmarkSupport.millis(() -> {
+            for (int step = 0; step < STEPS; step++) {
+                long used = capacity - free.getFreeCount();
+                if (used < capacity * TARGET || allocations.isEmpty()) {
+                    int count = random.nextInt(4) == 0 ? 4 << random.nextInt(5) : 1;
+                    int kind = count == 1 ? 0 : 1;
+                    requests[kind]++;
+                    long start = System.nanoTime();
+                    long address = strategy.select(free, count);
+                    if (address >= 0) {
+                        free.take(address, count);
+                        allocations.add(new long[] {address, count});
+                    } else if (free.getFreeCount() >= count) {
+                        refused[kind]++;
+                    }
+                    selectNanos[0] += System.nanoTime() - start;
+                } else {
+                    int victim = random.nextInt(allocations.size());
+                    long[] allocation = allocations.get(victim);
+                    allocations.set(victim, allocations.get(allocations.size() - 1));
+                    allocations.remove(allocations.size() - 1);
+                    for (long address = allocation[0]; address < allocation[0] + allocation[1]; address++) {
+                        free.markFree(address);
+                    }
+                }
+            }
+        });
+
+        if (!report) {
+            return;
+        }
+        long runs = 0;
+        long largest = 0;
+        for (long start = free.nextFree(FIRST); start >= 0; start = free.nextFree(free.nextUsed(start))) {
+            runs++;
+            largest = Math.max(largest, free.nextUsed(start) - start);
+        }
+        BenchmarkSupport.report("%-28s graine %d : %6.0f ns/demande, blocs refusés %5.1f %% (%,d/%,d), "
+                + "%,6d plages libres, la plus grande %,d (%.0f ms)",
+            strategy.getName(), seed, (double) selectNanos[0] / (requests[0] + requests[1]),
+            100.0 * refused[1] / requests[1], refused[1], requests[1], runs, largest, millis);
+    }
+}
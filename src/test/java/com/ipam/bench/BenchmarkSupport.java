@@ -0,0 +1,89 @@
+package com.ipam.bench;
+
+import com.ipam.util.DatabaseManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Outils communs des bancs d'essai. JMH n'étant pas disponible hors ligne,
+ * ce sont de simples programmes main, hors de surefire (leur nom ne finit pas
+ * par Test). Lancement :
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.ipam.bench.ConnectionPoolBenchmark
+ * </pre>
+ * Chaque mesure est précédée d'un échauffement ; les chiffres absolus dépendent
+ * de la machine, seuls les rapports entre variantes comptent.
+ */
+final class BenchmarkSupport {
+
+    @FunctionalInterface
+    interface Task {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    interface Op {
+        void run(int i) throws Exception;
+    }
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Ouvre une base neuve pour le banc (dans java.io.tmpdir, sauf -Dipam.db.path)
+     */
+    static void openDatabase(String name) throws SQLException, IOException {
+        if (System.getProperty("ipam.db.path") == null) {
+            File dir = new File(System.getProperty("java.io.tmpdir"), "ipam-bench");
+            System.setProperty("ipam.db.path", new File(dir, name + ".db").getPath());
+        }
+        Path db = Path.of(System.getProperty("ipam.db.path"));
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(db + suffix));
+        }
+        DatabaseManager.initialize();
+    }
+
+    /**
+     * Débit de op sur ops itérations, après warmup itérations non mesurées
+     */
+    static double opsPerSecond(int warmup, int ops, Op op) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            op.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            op.run(i);
+        }
+        return ops / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Durée d'une exécution de task, en millisecondes
+     */
+    static double millis(Task task) throws Exception {
+        long start = System.nanoTime();
+        task.run();
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Meilleure durée sur runs exécutions, en millisecondes
+     */
+    static double bestMillis(int runs, Task task) throws Exception {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            best = Math.min(best, millis(task));
+        }
+        return best;
+    }
+
+    static void report(String format, Object... args) {
+        System.out.printf(format + "%n", args);
+    }
+}
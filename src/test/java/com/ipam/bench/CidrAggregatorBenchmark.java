@@ -0,0 +1,46 @@
+package com.ipam.bench;
+
+import com.ipam.util.CidrAggregator;
+
+import java.util.Random;
+
+/**
+ * Agrégation et complément sur un million de préfixes aléatoires : dispersés
+ * sur tout l'espace (/20 à /32, peu de fusions) et concentrés dans 10.0.0.0/8
+ * (/26 à /32, beaucoup de fusions et d'inclusions). Meilleure de cinq passes,
+ * le tri en place étant refait sur une copie à chaque passe.
+ */
+public class CidrAggregatorBenchmark {
+    private static final int PREFIXES = 1_000_000;
+    private static final int RUNS = 5;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(1);
+        long[] scattered = new long[PREFIXES];
+        long[] clustered = new long[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            scattered[i] = CidrAggregator.pack(random.nextLong() & 0xFFFFFFFFL, 20 + random.nextInt(13));
+            clustered[i] = CidrAggregator.pack((10L << 24) + random.nextInt(1 << 24), 26 + random.nextInt(7));
+        }
+        run("dispersés", scattered);
+        run("10.0.0.0/8", clustered);
+        System.out.println("(puits " + sink + ")");
+    }
+
+    private static void run(String name, long[] prefixes) throws Exception {
+        long[] summary = CidrAggregator.aggregate(prefixes.clone());
+        long[] free = CidrAggregator.complement(prefixes.clone(), 0, 0);
+
+        double aggregate = BenchmarkSupport.bestMillis(RUNS, () -> sink += CidrAggregator.aggregate(prefixes.clone()).length);
+        double complement = BenchmarkSupport.bestMillis(RUNS,
+            () -> sink += CidrAggregator.complement(prefixes.clone(), 0, 0).length);
+        double copy = BenchmarkSupport.bestMillis(RUNS, () -> sink += prefixes.clone().length);
+
+        BenchmarkSupport.report("%-11s %,d préfixes -> %,d agrégés en %.1f ms (%.0f ns/préfixe), "
+                + "%,d libres en %.1f ms (copie %.1f ms)",
+            name, prefixes.length, summary.length, aggregate, aggregate * 1e6 / prefixes.length,
+            free.length, complement, copy);
+    }
+}
@@ -0,0 +1,118 @@
+package com.ipam.bench;
+
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.model.IPAddress;
+import com.ipam.model.Subnet;
+import com.ipam.service.IPAddressService;
+import com.ipam.service.SubnetService;
+import com.ipam.util.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pool de connexions face à une connexion JDBC ouverte à chaque appel (le
+ * fonctionnement d'avant le pool), sur 40 x /24 = 10 160 adresses : lectures
+ * aléatoires par id et par adresse, puis cycles attribution / libération.
+ * La variante « par appel » reproduit les requêtes d'un assignIP d'alors :
+ * lecture, mise à jour et audit, chacun sur sa propre connexion.
+ */
+public class ConnectionPoolBenchmark {
+    private static final int SUBNETS = 40;
+    private static final int READS = 20_000;
+    private static final int CYCLES = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkSupport.openDatabase("connection-pool");
+        String url = "jdbc:sqlite:" + DatabaseManager.getDatabasePath();
+        SubnetService subnetService = new SubnetService();
+        IPAddressService ipAddressService = new IPAddressService();
+        IPAddressDAO ipAddressDAO = new IPAddressDAO();
+
+        double createMs = BenchmarkSupport.millis(() -> {
+            for (int i = 0; i < SUBNETS; i++) {
+                subnetService.createSubnet(new Subnet("10.1." + i + ".0", 24, "bench"));
+            }
+        });
+        List<IPAddress> ips = new ArrayList<>();
+        for (Subnet subnet : subnetService.getAllSubnets()) {
+            if (subnet.getDescription().equals("bench")) {
+                ips.addAll(ipAddressDAO.findAvailableBySubnet(subnet.getId()));
+            }
+        }
+        BenchmarkSupport.report("%d sous-réseaux /24 créés en %.0f ms, %d adresses", SUBNETS, createMs, ips.size());
+
+        Random random = new Random(1);
+        double perCallReads = BenchmarkSupport.opsPerSecond(READS / 10, READS, i -> {
+            IPAddress ip = ips.get(random.nextInt(ips.size()));
+            if (i % 2 == 0) {
+                readPerCall(url, "SELECT * FROM ip_addresses WHERE id = ?", ip.getId());
+            } else {
+                readPerCall(url, "SELECT * FROM ip_addresses WHERE ip_address = ?", ip.getIpAddress());
+            }
+        });
+        double pooledReads = BenchmarkSupport.opsPerSecond(READS / 10, READS, i -> {
+            IPAddress ip = ips.get(random.nextInt(ips.size()));
+            if (i % 2 == 0) {
+                ipAddressDAO.findById(ip.getId());
+            } else {
+                ipAddressDAO.findByIpAddress(ip.getIpAddress());
+            }
+        });
+        BenchmarkSupport.report("lectures findById/findByIpAddress : par appel %,.0f ops/s, pool %,.0f ops/s",
+            perCallReads, pooledReads);
+
+        double perCallCycles = BenchmarkSupport.opsPerSecond(CYCLES / 10, CYCLES, i -> {
+            IPAddress ip = ips.get(i % ips.size());
+            cyclePerCall(url, ip.getId(), "ASSIGNED", "bench");
+            cyclePerCall(url, ip.getId(), "AVAILABLE", null);
+        });
+        double pooledCycles = BenchmarkSupport.opsPerSecond(CYCLES / 10, CYCLES, i -> {
+            IPAddress ip = ips.get((i + CYCLES) % ips.size());
+            ipAddressService.assignIP(ip.getId(), "bench", null, null);
+            ipAddressService.releaseIP(ip.getId());
+        });
+        BenchmarkSupport.report("cycles assignIP + releaseIP : par appel %,.0f cycles/s, pool %,.0f cycles/s",
+            perCallCycles, pooledCycles);
+
+        DatabaseManager.closeConnection();
+    }
+
+    private static void readPerCall(String url, String sql, Object key) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setObject(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+
+    private static void cyclePerCall(String url, long id, String status, String assignedTo) throws SQLException {
+        readPerCall(url, "SELECT * FROM ip_addresses WHERE id = ?", id);
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "UPDATE ip_addresses SET status = ?, assigned_to = ? WHERE id = ?")) {
+            pstmt.setString(1, status);
+            pstmt.setString(2, assignedTo);
+            pstmt.setLong(3, id);
+            pstmt.executeUpdate();
+        }
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "INSERT INTO audit_logs (action, entity_type, entity_id, details, username, timestamp) "
+                     + "VALUES (?, 'IP', ?, 'bench', 'bench', ?)")) {
+            pstmt.setString(1, "ASSIGNED".equals(status) ? "ASSIGN" : "RELEASE");
+            pstmt.setLong(2, id);
+            pstmt.setString(3, LocalDateTime.now().toString());
+            pstmt.executeUpdate();
+        }
+    }
+}
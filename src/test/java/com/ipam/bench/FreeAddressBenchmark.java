@@ -0,0 +1,113 @@
+package com.ipam.bench;
+
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.model.Subnet;
+import com.ipam.service.FreeSpace;
+import com.ipam.service.IPAddressService;
+import com.ipam.service.SubnetService;
+import com.ipam.util.DatabaseManager;
+import com.ipam.util.FreeBitmap;
+import com.ipam.util.IPCalculator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * assignFirstAvailableIP sur un /16 presque plein (seules les 1 024 dernières
+ * adresses sont libres) : bitmap en mémoire plus UPDATE conditionnel, face à
+ * l'ancien chemin rejoué à l'identique (chargement de toutes les lignes
+ * AVAILABLE avec jointure, tri par texte, élément 0, puis assignIP et relecture).
+ * S'y ajoute le coût brut de nextFree sur un FreeBitmap de 65 536 adresses
+ * dont il ne reste que quelques bits libres.
+ */
+public class FreeAddressBenchmark {
+    private static final int FREE = 1024;
+    private static final int ASSIGNMENTS = 256;
+
+    private static final String LEGACY_SQL = """
+        SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
+        FROM ip_addresses ip
+        LEFT JOIN subnets s ON ip.subnet_id = s.id
+        WHERE ip.subnet_id = ? AND ip.status = 'AVAILABLE'
+        ORDER BY ip.ip_address
+    """;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkSupport.openDatabase("free-address");
+        SubnetService subnetService = new SubnetService();
+        IPAddressService ipService = new IPAddressService();
+        IPAddressDAO ipAddressDAO = new IPAddressDAO();
+
+        Subnet subnet = subnetService.createSubnet(new Subnet("10.60.0.0", 16, "bench"));
+        long subnetId = subnet.getId();
+        int toFill = (int) IPCalculator.getTotalHosts(16) - FREE;
+        double fill = BenchmarkSupport.millis(() -> {
+            for (int left = toFill; left > 0; left -= 4096) {
+                ipService.assignBlock(subnetId, Math.min(4096, left), false, List.of("bench"));
+            }
+        });
+        BenchmarkSupport.report("remplissage de %,d adresses en %.0f ms", toFill, fill);
+
+        // Le bitmap est relu depuis la base au premier appel, comme après un redémarrage
+        FreeSpace.getInstance().forget(subnetId);
+        double first = BenchmarkSupport.millis(
+            () -> sink += ipService.assignFirstAvailableIP(subnetId, "bench", null, null).getIpAddress().length());
+        double bitmap = BenchmarkSupport.millis(() -> {
+            for (int i = 0; i < ASSIGNMENTS; i++) {
+                sink += ipService.assignFirstAvailableIP(subnetId, "bench", null, null).getIpAddress().length();
+            }
+        });
+        double legacy = BenchmarkSupport.millis(() -> {
+            for (int i = 0; i < ASSIGNMENTS; i++) {
+                long ipId = legacyFirstAvailable(subnetId);
+                ipService.assignIP(ipId, "bench", null, null);
+                sink += ipAddressDAO.findById(ipId).getIpAddress().length();
+            }
+        });
+        BenchmarkSupport.report("premier appel (chargement du bitmap) : %.1f ms", first);
+        BenchmarkSupport.report("bitmap + UPDATE conditionnel : %.2f ms par attribution", bitmap / ASSIGNMENTS);
+        BenchmarkSupport.report("ancien chemin (lignes AVAILABLE triées) : %.2f ms par attribution", legacy / ASSIGNMENTS);
+
+        // nextFree seul : 65 536 adresses, 16 bits libres dispersés dans la moitié haute
+        FreeBitmap free = new FreeBitmap(0, 65_535);
+        Random random = new Random(1);
+        free.take(0, 65_536);
+        for (int i = 0; i < 16; i++) {
+            free.markFree(32_768 + random.nextInt(32_768));
+        }
+        double scan = 1e9 / BenchmarkSupport.opsPerSecond(1_000_000, 10_000_000, i -> sink += free.nextFree(i & 0x7FFF));
+        BenchmarkSupport.report("FreeBitmap.nextFree sur un /16 presque plein : %.1f ns", scan);
+        System.out.println("(puits " + sink + ")");
+        DatabaseManager.closeConnection();
+    }
+
+    /**
+     * Ancien assignFirstAvailableIP : toutes les lignes disponibles, triées par texte
+     */
+    private static long legacyFirstAvailable(long subnetId) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(LEGACY_SQL)) {
+            pstmt.setLong(1, subnetId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    for (int column = 1; column <= columns; column++) {
+                        sink += rs.getObject(column) != null ? 1 : 0;
+                    }
+                    ids.add(rs.getLong("id"));
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("Aucune adresse IP disponible dans ce sous-réseau");
+        }
+        return ids.get(0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.ipam.bench;
+
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.model.Subnet;
+import com.ipam.service.SubnetService;
+import com.ipam.util.DatabaseManager;
+import com.ipam.util.IPCalculator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Colonne ip_num face à l'ancien stockage TEXT, sur 16 x /16 (environ un
+ * million de lignes) : recherche ponctuelle d'une adresse (même requête
+ * préparée une fois, seule la colonne change ; puis le DAO complet), et chargement
+ * d'une page de 256 adresses triées d'un sous-réseau. La variante TEXT
+ * reprend les requêtes d'avant la migration (égalité sur ip_address, index
+ * unique recréé le temps du banc ; ORDER BY ip.ip_address avec OFFSET).
+ */
+public class NumericRangeBenchmark {
+    private static final int SUBNETS = 16;
+    private static final int PAGE_SIZE = 256;
+    private static final int LOOKUPS = 50_000;
+    private static final int PAGES = 500;
+
+    private static final String TEXT_LOOKUP = """
+        SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
+        FROM ip_addresses ip LEFT JOIN subnets s ON ip.subnet_id = s.id
+        WHERE ip.ip_address = ?
+        """;
+    private static final String NUM_LOOKUP = """
+        SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
+        FROM ip_addresses ip LEFT JOIN subnets s ON ip.subnet_id = s.id
+        WHERE ip.ip_num = ?
+        """;
+    private static final String TEXT_PAGE = """
+        SELECT ip.*, s.network_address || '/' || s.cidr as subnet_name
+        FROM ip_addresses ip LEFT JOIN subnets s ON ip.subnet_id = s.id
+        WHERE ip.subnet_id = ? ORDER BY ip.ip_address LIMIT ? OFFSET ?
+        """;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkSupport.openDatabase("numeric-range");
+        SubnetService subnetService = new SubnetService();
+        IPAddressDAO ipAddressDAO = new IPAddressDAO();
+
+        List<Subnet> subnets = new ArrayList<>();
+        double createMs = BenchmarkSupport.millis(() -> {
+            for (int i = 0; i < SUBNETS; i++) {
+                subnets.add(subnetService.createSubnet(new Subnet("172." + (16 + i) + ".0.0", 16, "bench")));
+            }
+        });
+        BenchmarkSupport.report("%d x /16 créés en %.1f s", SUBNETS, createMs / 1000);
+
+        execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_bench_ip_text ON ip_addresses(ip_address)");
+
+        Random random = new Random(1);
+        long first = IPCalculator.ipToLong("172.16.0.1");
+        long span = SUBNETS * 65536L - 2;
+        double textLookups;
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(TEXT_LOOKUP)) {
+            textLookups = BenchmarkSupport.opsPerSecond(LOOKUPS / 10, LOOKUPS, i -> {
+                pstmt.setString(1, IPCalculator.longToIp(first + random.nextLong(span)));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                }
+            });
+        }
+        double numLookups;
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(NUM_LOOKUP)) {
+            numLookups = BenchmarkSupport.opsPerSecond(LOOKUPS / 10, LOOKUPS, i -> {
+                pstmt.setLong(1, IPCalculator.ipToLong(IPCalculator.longToIp(first + random.nextLong(span))));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                }
+            });
+        }
+        double daoLookups = BenchmarkSupport.opsPerSecond(LOOKUPS / 10, LOOKUPS,
+            i -> ipAddressDAO.findByIpAddress(IPCalculator.longToIp(first + random.nextLong(span))));
+        BenchmarkSupport.report("recherche ponctuelle : TEXT %,.0f/s, ip_num %,.0f/s (findByIpAddress complet %,.0f/s)",
+            textLookups, numLookups, daoLookups);
+
+        double textPage;
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(TEXT_PAGE)) {
+            textPage = 1000 / BenchmarkSupport.opsPerSecond(PAGES / 10, PAGES, i -> {
+                pstmt.setLong(1, subnets.get(random.nextInt(SUBNETS)).getId());
+                pstmt.setInt(2, PAGE_SIZE);
+                pstmt.setInt(3, random.nextInt(65534 / PAGE_SIZE) * PAGE_SIZE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        // parcours complet de la page
+                    }
+                }
+            });
+        }
+        double numPage = 1000 / BenchmarkSupport.opsPerSecond(PAGES / 10, PAGES,
+            i -> ipAddressDAO.findBySubnetId(subnets.get(random.nextInt(SUBNETS)).getId(),
+                random.nextInt(65534 / PAGE_SIZE) * PAGE_SIZE, PAGE_SIZE));
+        BenchmarkSupport.report("page triée de %d adresses : ORDER BY ip_address %.2f ms, BETWEEN ip_num %.2f ms",
+            PAGE_SIZE, textPage, numPage);
+
+        execute("DROP INDEX IF EXISTS idx_bench_ip_text");
+        DatabaseManager.closeConnection();
+    }
+
+    private static void execute(String sql) throws Exception {
+        DatabaseManager.write(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sql);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.ipam.bench;
+
+import com.ipam.dao.SubnetDAO;
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.model.Subnet;
+import com.ipam.service.SubnetIndex;
+import com.ipam.util.DatabaseManager;
+import com.ipam.util.IPCalculator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Index Patricia des sous-réseaux face aux requêtes SQL sur les bornes
+ * numériques, avec 100 000 sous-réseaux /24 tirés au hasard : chargement de
+ * l'index, test de chevauchement d'un /24 et sous-réseau propriétaire d'une
+ * adresse (plus long préfixe).
+ */
+public class PrefixIndexBenchmark {
+    private static final int SUBNETS = 100_000;
+    private static final int QUERIES = 200_000;
+    private static final int SQL_QUERIES = 200;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkSupport.openDatabase("prefix-index");
+        SubnetDAO subnetDAO = new SubnetDAO();
+        Random random = new Random(1);
+
+        // /24 distincts de 1.0.0.0 à 223.255.255.0 (hors sous-réseaux d'exemple)
+        BitSet used = new BitSet(1 << 24);
+        for (Ipv4Prefix existing : subnetDAO.findAllPrefixes().values()) {
+            used.set(existing.networkInt() >>> 8);
+        }
+        List<Subnet> subnets = new ArrayList<>(SUBNETS);
+        while (subnets.size() < SUBNETS) {
+            int block = (1 << 16) + random.nextInt((223 << 16) - (1 << 16));
+            if (!used.get(block)) {
+                used.set(block);
+                Ipv4Prefix prefix = Ipv4Prefix.of(block << 8, 24);
+                Subnet subnet = new Subnet(prefix.getNetworkAddress(), 24, "bench");
+                subnet.setSubnetMask(prefix.getSubnetMask());
+                subnets.add(subnet);
+            }
+        }
+        double insertMs = BenchmarkSupport.millis(() -> DatabaseManager.write(conn -> subnetDAO.createAll(subnets)));
+        BenchmarkSupport.report("%,d sous-réseaux /24 insérés en %.0f ms", SUBNETS, insertMs);
+
+        double findAllMs = BenchmarkSupport.bestMillis(3, subnetDAO::findAll);
+        double loadMs = BenchmarkSupport.bestMillis(3, () -> {
+            SubnetIndex.invalidate();
+            SubnetIndex.getInstance();
+        });
+        SubnetIndex index = SubnetIndex.getInstance();
+        BenchmarkSupport.report("chargement : index %.0f ms (findAll() seul %.0f ms), %,d préfixes",
+            loadMs, findAllMs, index.size());
+
+        int[] addresses = new int[QUERIES];
+        Ipv4Prefix[] prefixes = new Ipv4Prefix[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            addresses[i] = (int) ((1L << 24) + Math.floorMod(random.nextLong(), 222L << 24));
+            prefixes[i] = Ipv4Prefix.of(addresses[i], 24);
+        }
+        int[] hits = new int[1];
+        double trieOverlaps = BenchmarkSupport.opsPerSecond(QUERIES, QUERIES,
+            i -> hits[0] += index.overlaps(prefixes[i]) ? 1 : 0);
+        double sqlOverlaps = BenchmarkSupport.opsPerSecond(SQL_QUERIES / 10, SQL_QUERIES,
+            i -> hits[0] += subnetDAO.findOverlapping(prefixes[i]).size());
+        BenchmarkSupport.report("chevauchement d'un /24 : index %.2f µs, SQL findOverlapping %.2f ms",
+            1e6 / trieOverlaps, 1e3 / sqlOverlaps);
+
+        double trieMatch = BenchmarkSupport.opsPerSecond(QUERIES, QUERIES,
+            i -> hits[0] += index.findLongestMatch(Integer.toUnsignedLong(addresses[i])) != null ? 1 : 0);
+        double sqlMatch = BenchmarkSupport.opsPerSecond(SQL_QUERIES / 10, SQL_QUERIES,
+            i -> hits[0] += subnetDAO.findContaining(IPCalculator.longToIp(Integer.toUnsignedLong(addresses[i]))).size());
+        BenchmarkSupport.report("plus long préfixe : index %.2f µs, SQL findContaining %.2f ms (%d réponses)",
+            1e6 / trieMatch, 1e3 / sqlMatch, hits[0]);
+
+        DatabaseManager.closeConnection();
+    }
+}
@@ -0,0 +1,94 @@
+package com.ipam.bench;
+
+import com.ipam.model.Subnet;
+import com.ipam.service.SubnetService;
+import com.ipam.util.DatabaseManager;
+import com.ipam.util.IPCalculator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * Durée de createSubnet pour un /24, un /20 et un /16 (gateway renseignée,
+ * meilleure de trois créations, le sous-réseau étant supprimé entre deux).
+ * Pour comparaison, l'ancienne génération (un INSERT en auto-commit par
+ * adresse, soit un fsync par ligne) est rejouée sur le /24 et le /20 ; sur un
+ * /16 elle prend plusieurs minutes et n'est lancée qu'avec -Dbench.legacy16=true.
+ */
+public class SubnetCreationBenchmark {
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkSupport.openDatabase("subnet-creation");
+        SubnetService subnetService = new SubnetService();
+        String url = "jdbc:sqlite:" + DatabaseManager.getDatabasePath();
+        boolean legacy16 = Boolean.getBoolean("bench.legacy16");
+
+        int octet = 0;
+        for (int cidr : new int[] {24, 20, 16}) {
+            String network = "10." + (100 + octet++) + ".0.0";
+            double batched = BenchmarkSupport.bestMillis(RUNS, () -> {
+                Subnet subnet = new Subnet(network, cidr, "bench");
+                subnet.setGateway(IPCalculator.getFirstUsableIp(network, cidr));
+                Subnet created = subnetService.createSubnet(subnet);
+                subnetService.deleteSubnet(created.getId());
+            });
+            String legacy = "-";
+            if (cidr > 16 || legacy16) {
+                long[] subnetId = new long[1];
+                legacy = String.format("%.0f ms", BenchmarkSupport.millis(() -> subnetId[0] = createPerRow(url, network, cidr)));
+                deletePerRow(url, subnetId[0]);
+            }
+            BenchmarkSupport.report("/%d (%,d adresses) : par lots %.0f ms, une transaction par ligne %s",
+                cidr, IPCalculator.getTotalHosts(cidr), batched, legacy);
+        }
+        DatabaseManager.closeConnection();
+    }
+
+    /**
+     * Ancienne génération : une connexion et un INSERT en auto-commit par adresse
+     */
+    private static long createPerRow(String url, String network, int cidr) throws Exception {
+        long subnetId;
+        String now = LocalDateTime.now().toString();
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO subnets (network_address, subnet_mask, cidr, description, created_date, "
+                + "modified_date, network_num, broadcast_num) VALUES ('" + network + "', '"
+                + IPCalculator.cidrToSubnetMask(cidr) + "', " + cidr + ", 'legacy', '" + now + "', '" + now + "', "
+                + IPCalculator.ipToLong(network) + ", "
+                + IPCalculator.ipToLong(IPCalculator.getBroadcastAddress(network, cidr)) + ")");
+            try (ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+                rs.next();
+                subnetId = rs.getLong(1);
+            }
+        }
+        long first = IPCalculator.ipToLong(IPCalculator.getFirstUsableIp(network, cidr));
+        long last = IPCalculator.ipToLong(IPCalculator.getLastUsableIp(network, cidr));
+        for (long ipNum = first; ipNum <= last; ipNum++) {
+            try (Connection conn = DriverManager.getConnection(url);
+                 PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO ip_addresses (ip_address, subnet_id, status, created_date, ip_num) "
+                         + "VALUES (?, ?, 'AVAILABLE', ?, ?)")) {
+                pstmt.setString(1, IPCalculator.longToIp(ipNum));
+                pstmt.setLong(2, subnetId);
+                pstmt.setString(3, now);
+                pstmt.setLong(4, ipNum);
+                pstmt.executeUpdate();
+            }
+        }
+        return subnetId;
+    }
+
+    private static void deletePerRow(String url, long subnetId) throws Exception {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM ip_addresses WHERE subnet_id = " + subnetId);
+            stmt.executeUpdate("DELETE FROM subnets WHERE id = " + subnetId);
+        }
+    }
+}
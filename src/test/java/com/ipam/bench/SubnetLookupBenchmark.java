@@ -0,0 +1,91 @@
+package com.ipam.bench;
+
+import com.ipam.model.Ipv4Prefix;
+import com.ipam.util.IPCalculator;
+import com.ipam.util.PrefixTrie;
+import com.ipam.util.SubnetLookupTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Résolution adresse → sous-réseau sur 100 000 préfixes imbriqués (/8 à /30
+ * dans 10.0.0.0/8 et 172.16.0.0/12) et 20 millions d'adresses, dont les trois
+ * quarts tombent dans un sous-réseau : table de correspondance (séquentielle
+ * et parallèle), PrefixTrie, et boucle isIpInSubnet sur la liste (sur un
+ * échantillon, extrapolé). Meilleure de cinq passes.
+ */
+public class SubnetLookupBenchmark {
+    private static final int PREFIXES = 100_000;
+    private static final int LOOKUPS = 20_000_000;
+    private static final int NAIVE_LOOKUPS = 200;
+    private static final int RUNS = 5;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(1);
+        Map<Long, Ipv4Prefix> prefixes = new HashMap<>();
+        PrefixTrie<Long> trie = new PrefixTrie<>();
+        List<Ipv4Prefix> list = new ArrayList<>();
+        int[] zones = {(int) IPCalculator.ipToLong("10.0.0.0"), (int) IPCalculator.ipToLong("172.16.0.0")};
+        int[] zoneLengths = {8, 12};
+        for (long id = 1; prefixes.size() < PREFIXES; id++) {
+            int zone = random.nextInt(2);
+            int length = zoneLengths[zone] + random.nextInt(31 - zoneLengths[zone]);
+            int network = (zones[zone] + random.nextInt(1 << (32 - zoneLengths[zone])))
+                & (int) IPCalculator.prefixMask(length);
+            if (trie.get(network, length) == null) {
+                Ipv4Prefix prefix = Ipv4Prefix.of(network, length);
+                trie.put(network, length, id);
+                prefixes.put(id, prefix);
+                list.add(prefix);
+            }
+        }
+
+        int[] addresses = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int zone = random.nextInt(4);
+            addresses[i] = zone < 3
+                ? zones[zone & 1] + random.nextInt(1 << (32 - zoneLengths[zone & 1]))
+                : random.nextInt();
+        }
+
+        SubnetLookupTable[] table = new SubnetLookupTable[1];
+        double build = BenchmarkSupport.bestMillis(RUNS, () -> table[0] = SubnetLookupTable.build(prefixes));
+        BenchmarkSupport.report("construction : %,d préfixes -> %,d intervalles en %.1f ms",
+            PREFIXES, table[0].size(), build);
+
+        report("table (1 thread)", BenchmarkSupport.bestMillis(RUNS, () -> sink += table[0].lookupAll(addresses)[0]));
+        report("table (parallèle, " + Runtime.getRuntime().availableProcessors() + " coeur(s))",
+            BenchmarkSupport.bestMillis(RUNS, () -> sink += table[0].lookupAllParallel(addresses)[0]));
+        report("PrefixTrie", BenchmarkSupport.bestMillis(RUNS, () -> {
+            for (int address : addresses) {
+                Long id = trie.longestMatch(address);
+                sink += id != null ? id : 0;
+            }
+        }));
+
+        double naive = BenchmarkSupport.bestMillis(RUNS, () -> {
+            for (int i = 0; i < NAIVE_LOOKUPS; i++) {
+                String ip = IPCalculator.longToIp(Integer.toUnsignedLong(addresses[i]));
+                for (Ipv4Prefix prefix : list) {
+                    if (IPCalculator.isIpInSubnet(ip, prefix.getNetworkAddress(), prefix.getLength())) {
+                        sink++;
+                    }
+                }
+            }
+        });
+        BenchmarkSupport.report("%-32s %,12.2f ms par adresse, soit %,.1f h pour %,d adresses",
+            "isIpInSubnet (liste)", naive / NAIVE_LOOKUPS, naive * LOOKUPS / NAIVE_LOOKUPS / 3.6e6, LOOKUPS);
+        System.out.println("(puits " + sink + ")");
+    }
+
+    private static void report(String name, double millis) {
+        BenchmarkSupport.report("%-32s %,12.1f ms pour %,d adresses, %8.2f M/s",
+            name, millis, LOOKUPS, LOOKUPS / millis / 1e3);
+    }
+}
@@ -0,0 +1,143 @@
+package com.ipam.dao;
+
+import com.ipam.TestDatabase;
+import com.ipam.model.IPAddress;
+import com.ipam.model.IPStatus;
+import com.ipam.model.StorageMode;
+import com.ipam.model.Subnet;
+import com.ipam.service.IPAddressService;
+import com.ipam.service.SubnetService;
+import com.ipam.util.IPCalculator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pagination des adresses d'un /20 aux lignes attribuées et réservées
+ * éparpillées (grappes en début et en fin de plage, suites consécutives,
+ * adresses isolées), comparée à une énumération naïve de la plage : même
+ * adresse, même statut à chaque position, en mode creux comme en mode dense.
+ */
+class IPAddressDAOTest {
+    private static final int[][] PAGES = {
+        {0, 1}, {0, 50}, {0, 4094}, {0, 10_000}, {1, 1}, {37, 100}, {255, 256}, {256, 256},
+        {1000, 777}, {2047, 2}, {4000, 200}, {4093, 1}, {4093, 10}, {4094, 1}, {5000, 10}, {-1, 10}, {10, 0},
+    };
+
+    private final SubnetService subnetService = new SubnetService();
+    private final IPAddressService ipAddressService = new IPAddressService();
+    private final IPAddressDAO ipAddressDAO = new IPAddressDAO();
+
+    @BeforeAll
+    static void openDatabase() throws Exception {
+        TestDatabase.open();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"10.238.0.0, SPARSE", "10.238.16.0, DENSE"})
+    void pagesMatchNaiveEnumeration(String network, StorageMode mode) throws Exception {
+        Subnet subnet = new Subnet(network, 20, "pagination");
+        subnet.setStorageMode(mode);
+        subnet = subnetService.createSubnet(subnet);
+        assertEquals(mode, subnet.getStorageMode());
+        long first = subnet.getPrefix().first() + 1;
+        long last = subnet.getPrefix().last() - 1;
+
+        TreeMap<Long, IPStatus> used = new TreeMap<>();
+        Random random = new Random(20);
+        for (long ipNum = first; ipNum < first + 5; ipNum++) {
+            used.put(ipNum, IPStatus.ASSIGNED);
+        }
+        for (long ipNum = last - 3; ipNum <= last; ipNum++) {
+            used.put(ipNum, IPStatus.RESERVED);
+        }
+        for (long ipNum = first + 250; ipNum < first + 262; ipNum++) {
+            used.put(ipNum, random.nextBoolean() ? IPStatus.ASSIGNED : IPStatus.RESERVED);
+        }
+        while (used.size() < 200) {
+            used.put(first + random.nextInt((int) (last - first + 1)),
+                random.nextInt(3) == 0 ? IPStatus.RESERVED : IPStatus.ASSIGNED);
+        }
+        for (var entry : used.entrySet()) {
+            Long ipId = idOf(subnet, entry.getKey());
+            if (entry.getValue() == IPStatus.ASSIGNED) {
+                ipAddressService.assignIP(ipId, "poste", null, null);
+            } else {
+                ipAddressService.reserveIP(ipId, "réservée");
+            }
+        }
+        if (mode == StorageMode.SPARSE) {
+            assertEquals(used.size(), ipAddressDAO.countBySubnetId(subnet.getId()));
+        }
+
+        List<Long> all = new ArrayList<>();
+        List<Long> available = new ArrayList<>();
+        for (long ipNum = first; ipNum <= last; ipNum++) {
+            all.add(ipNum);
+            if (!used.containsKey(ipNum)) {
+                available.add(ipNum);
+            }
+        }
+
+        for (int[] page : PAGES) {
+            String label = network + " offset " + page[0] + " limit " + page[1];
+            assertPage(page(all, page[0], page[1]), used,
+                ipAddressDAO.findBySubnetId(subnet.getId(), page[0], page[1]), subnet, label);
+            assertPage(page(available, page[0], page[1]), used,
+                ipAddressDAO.findAvailableBySubnet(subnet.getId(), page[0], page[1]), subnet, "disponibles " + label);
+        }
+
+        // Parcours complet page par page, sans trou ni doublon
+        List<String> walked = new ArrayList<>();
+        for (long offset = 0; ; offset += 300) {
+            List<IPAddress> rows = ipAddressDAO.findAvailableBySubnet(subnet.getId(), offset, 300);
+            if (rows.isEmpty()) {
+                break;
+            }
+            rows.forEach(ip -> walked.add(ip.getIpAddress()));
+        }
+        assertEquals(available.stream().map(IPCalculator::longToIp).toList(), walked);
+    }
+
+    /**
+     * Même adresse et même statut à chaque position ; les adresses occupées
+     * sont des lignes stockées, les disponibles en mode creux sont synthétisées
+     */
+    private static void assertPage(List<Long> expected, TreeMap<Long, IPStatus> used, List<IPAddress> actual,
+                                   Subnet subnet, String label) {
+        assertEquals(expected.size(), actual.size(), label);
+        for (int i = 0; i < expected.size(); i++) {
+            long ipNum = expected.get(i);
+            IPAddress ip = actual.get(i);
+            String where = label + " position " + i;
+            assertEquals(IPCalculator.longToIp(ipNum), ip.getIpAddress(), where);
+            assertEquals(used.getOrDefault(ipNum, IPStatus.AVAILABLE), ip.getStatus(), where);
+            assertEquals(subnet.getId(), ip.getSubnetId(), where);
+            if (used.containsKey(ipNum)) {
+                assertNotNull(ip.getId(), where);
+            } else if (subnet.isSparse()) {
+                assertNull(ip.getId(), where);
+            }
+        }
+    }
+
+    private static List<Long> page(List<Long> list, long offset, int limit) {
+        if (offset < 0 || limit <= 0 || offset >= list.size()) {
+            return List.of();
+        }
+        return list.subList((int) offset, (int) Math.min(list.size(), offset + limit));
+    }
+
+    private Long idOf(Subnet subnet, long ipNum) throws Exception {
+        String address = IPCalculator.longToIp(ipNum);
+        IPAddress stored = ipAddressDAO.findByIpAddress(address);
+        return stored != null ? stored.getId() : ipAddressService.materialize(new IPAddress(address, subnet.getId()));
+    }
+}
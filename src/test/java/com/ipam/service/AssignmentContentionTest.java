@@ -0,0 +1,133 @@
+package com.ipam.service;
+
+import com.ipam.TestDatabase;
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.dao.IPStatusBitmapDAO;
+import com.ipam.dao.SubnetUsageDAO;
+import com.ipam.model.IPAddress;
+import com.ipam.model.IPStatus;
+import com.ipam.model.Subnet;
+import com.ipam.model.SubnetUsage;
+import com.ipam.util.AllocationStrategy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Attributions concurrentes sur un même sous-réseau : assignIP sur des
+ * adresses tirées au hasard, assignAvailableIP et assignBlock. Chaque adresse
+ * attribuée doit avoir un seul gagnant, celui dont le nom est en base, et les
+ * compteurs (subnet_usage, bitmaps de statut) doivent concorder.
+ */
+class AssignmentContentionTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 150;
+
+    private final SubnetService subnetService = new SubnetService();
+    private final IPAddressService ipAddressService = new IPAddressService();
+    private final IPAddressDAO ipAddressDAO = new IPAddressDAO();
+
+    @BeforeAll
+    static void openDatabase() throws Exception {
+        TestDatabase.open();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"10.200.0.0, 22", "10.202.0.0, 15"})
+    void everyAddressHasExactlyOneWinner(String network, int cidr) throws Exception {
+        Subnet subnet = subnetService.createSubnet(new Subnet(network, cidr, "contention"));
+        // Adresses disputées par assignIP : les 512 premières (matérialisées en mode creux)
+        List<Long> contested = new ArrayList<>();
+        for (IPAddress ip : ipAddressDAO.findAvailableBySubnet(subnet.getId(), 0, 512)) {
+            contested.add(ip.getId() != null ? ip.getId() : ipAddressService.materialize(ip));
+        }
+
+        Map<String, String> winners = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger lost = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int op = 0; op < OPERATIONS_PER_THREAD; op++) {
+                    String owner = "t" + thread + "-" + op;
+                    List<String> won = new ArrayList<>();
+                    try {
+                        switch (op % 3) {
+                            case 0 -> {
+                                Long ipId = contested.get(random.nextInt(contested.size()));
+                                ipAddressService.assignIP(ipId, owner, null, null);
+                                won.add(ipAddressDAO.findById(ipId).getIpAddress());
+                            }
+                            case 1 -> won.add(ipAddressService.assignAvailableIP(subnet.getId(),
+                                AllocationStrategy.FIRST_FIT, owner, null, null).getIpAddress());
+                            default -> {
+                                for (IPAddress ip : ipAddressService.assignBlock(subnet.getId(), 4, false, List.of(owner))) {
+                                    won.add(ip.getIpAddress());
+                                }
+                            }
+                        }
+                    } catch (IllegalStateException e) {
+                        // Adresse prise par un autre thread ou sous-réseau plein : course perdue
+                        lost.incrementAndGet();
+                    }
+                    for (String address : won) {
+                        if (winners.putIfAbsent(address, owner) != null) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+        System.out.printf("%s/%d (%s): %d attributions, %d échecs (adresse prise ou sous-réseau plein), %.0f attributions/s sur %d threads%n",
+            network, cidr, subnet.getStorageMode(), winners.size(), lost.get(), winners.size() / seconds, THREADS);
+
+        assertEquals(0, duplicates.get(), "adresse attribuée à plusieurs appelants");
+        assertFalse(winners.isEmpty());
+
+        // Chaque adresse ASSIGNED en base est celle d'un seul gagnant, et réciproquement
+        List<IPAddress> assigned = new ArrayList<>();
+        for (IPAddress ip : ipAddressDAO.findBySubnetId(subnet.getId())) {
+            if (ip.getStatus() == IPStatus.ASSIGNED) {
+                assigned.add(ip);
+            }
+        }
+        assertEquals(winners.size(), assigned.size());
+        for (IPAddress ip : assigned) {
+            assertEquals(winners.get(ip.getIpAddress()), ip.getAssignedTo(), ip.getIpAddress());
+        }
+
+        SubnetUsage usage = new SubnetUsageDAO().findBySubnetId(subnet.getId());
+        assertEquals(winners.size(), usage.getCount(IPStatus.ASSIGNED));
+        Map<IPStatus, Long> bitmapCounts = new IPStatusBitmapDAO().countByStatus(subnet.getId(), usage.getUsableHosts());
+        assertEquals(winners.size(), bitmapCounts.get(IPStatus.ASSIGNED));
+        assertEquals(List.of(), new SubnetUsageDAO().findMismatches());
+    }
+}
@@ -0,0 +1,111 @@
+package com.ipam.service;
+
+import com.ipam.TestDatabase;
+import com.ipam.dao.AuditLogDAO;
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.model.AuditLog;
+import com.ipam.model.IPAddress;
+import com.ipam.model.IPStatus;
+import com.ipam.model.Subnet;
+import com.ipam.util.IPCalculator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Libération en attente du verrou du sous-réseau pendant qu'une autre
+ * opération libère puis réattribue l'adresse : elle doit agir sur
+ * l'attribution en base (audit et index MAC compris), jamais sur celle lue
+ * avant l'attente. Une écriture conditionnelle fondée sur une lecture
+ * périmée ne doit rien toucher.
+ */
+class ReleaseRaceTest {
+    private static final String MAC_A = "02:00:00:00:00:0a";
+    private static final String MAC_B = "02:00:00:00:00:0b";
+
+    private final SubnetService subnetService = new SubnetService();
+    private final IPAddressService ipAddressService = new IPAddressService();
+    private final IPAddressDAO ipAddressDAO = new IPAddressDAO();
+
+    @BeforeAll
+    static void openDatabase() throws Exception {
+        TestDatabase.open();
+    }
+
+    @Test
+    void waitingReleaseActsOnTheCurrentAssignment() throws Exception {
+        Subnet subnet = subnetService.createSubnet(new Subnet("10.220.0.0", 24, "libération"));
+        Long ipId = ipAddressDAO.findByIpAddress("10.220.0.10").getId();
+        ipAddressService.assignIP(ipId, "A", MAC_A, null);
+
+        ReentrantLock lock = (ReentrantLock) SubnetLocks.forSubnet(subnet.getId());
+        lock.lock();
+        CompletableFuture<Void> stale;
+        try {
+            stale = CompletableFuture.runAsync(() -> {
+                try {
+                    ipAddressService.releaseIP(ipId);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            // L'appel concurrent a lu l'attribution de A et attend le verrou
+            while (!lock.hasQueuedThreads()) {
+                Thread.onSpinWait();
+            }
+            ipAddressService.releaseIP(ipId);
+            ipAddressService.assignIP(ipId, "B", MAC_B, null);
+        } finally {
+            lock.unlock();
+        }
+        stale.get(30, TimeUnit.SECONDS);
+
+        IPAddress ip = ipAddressDAO.findById(ipId);
+        assertEquals(IPStatus.AVAILABLE, ip.getStatus());
+        List<String> releases = new ArrayList<>();
+        for (AuditLog log : new AuditLogDAO().findByAction("RELEASE", 1000)) {
+            if (ipId.equals(log.getEntityId())) {
+                releases.add(log.getDetails());
+            }
+        }
+        assertEquals(2, releases.size(), releases.toString());
+        assertTrue(releases.stream().anyMatch(details -> details.contains("assignée à B")), releases.toString());
+        assertTrue(releases.stream().anyMatch(details -> details.contains("assignée à A")), releases.toString());
+        assertNull(MacIndex.getInstance().findOwner(IPCalculator.parseMAC(MAC_A)));
+        assertNull(MacIndex.getInstance().findOwner(IPCalculator.parseMAC(MAC_B)));
+    }
+
+    @Test
+    void staleConditionalWritesTouchNothing() throws Exception {
+        for (String network : new String[] {"10.221.0.0/24", "10.222.0.0/15"}) {
+            String[] parts = network.split("/");
+            Subnet subnet = subnetService.createSubnet(new Subnet(parts[0], Integer.parseInt(parts[1]), "libération"));
+            String address = IPCalculator.longToIp(IPCalculator.ipToLong(parts[0]) + 10);
+            IPAddress synthesized = ipAddressDAO.findByIpAddress(address);
+            Long ipId = synthesized != null ? synthesized.getId()
+                : ipAddressService.materialize(new IPAddress(address, subnet.getId()));
+
+            ipAddressService.assignIP(ipId, "A", null, null);
+            IPAddress readByA = ipAddressDAO.findById(ipId);
+            ipAddressService.releaseIP(ipId);
+            ipId = ipAddressDAO.findByIpAddress(address) != null ? ipId
+                : ipAddressService.materialize(new IPAddress(address, subnet.getId()));
+            ipAddressService.assignIP(ipId, "B", null, null);
+
+            IPAddress released = ipAddressDAO.findById(ipId);
+            released.setStatus(IPStatus.AVAILABLE);
+            released.setAssignedTo(null);
+            released.setAssignedDate(null);
+            assertFalse(ipAddressDAO.updateIfUnchanged(released, IPStatus.ASSIGNED, readByA.getAssignedDate()));
+            assertFalse(ipAddressDAO.deleteIfUnchanged(ipId, IPStatus.ASSIGNED, readByA.getAssignedDate()));
+            assertEquals("B", ipAddressDAO.findById(ipId).getAssignedTo(), network);
+        }
+    }
+}
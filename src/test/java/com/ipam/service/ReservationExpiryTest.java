@@ -0,0 +1,186 @@
+package com.ipam.service;
+
+import com.ipam.TestDatabase;
+import com.ipam.dao.AuditLogDAO;
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.dao.IPStatusBitmapDAO;
+import com.ipam.dao.ReservationDAO;
+import com.ipam.dao.SubnetUsageDAO;
+import com.ipam.model.AuditLog;
+import com.ipam.model.IPAddress;
+import com.ipam.model.IPStatus;
+import com.ipam.model.Reservation;
+import com.ipam.model.StorageMode;
+import com.ipam.model.Subnet;
+import com.ipam.model.SubnetUsage;
+import com.ipam.util.DatabaseManager;
+import com.ipam.util.IPCalculator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Réservations avec échéance : la réservation est écrite dans la transaction
+ * qui réserve l'adresse, et les réservations échues sont retirées par lots de
+ * BATCH_SIZE (500). En mode creux les lignes libérées sont supprimées, en
+ * mode dense elles sont remises à zéro ; une réservation dont l'adresse n'est
+ * plus réservée est retirée sans toucher l'adresse.
+ */
+class ReservationExpiryTest {
+    private static final int DENSE_RESERVED = 300;
+    private static final int SPARSE_RESERVED = 300;
+
+    private final SubnetService subnetService = new SubnetService();
+    private final IPAddressService ipAddressService = new IPAddressService();
+    private final ReservationService reservationService = new ReservationService();
+    private final IPAddressDAO ipAddressDAO = new IPAddressDAO();
+    private final ReservationDAO reservationDAO = new ReservationDAO();
+    private final SubnetUsageDAO usageDAO = new SubnetUsageDAO();
+
+    @BeforeAll
+    static void openDatabase() throws Exception {
+        TestDatabase.open();
+    }
+
+    @Test
+    void reservationIsWrittenWithTheAddress() throws Exception {
+        Subnet subnet = subnetService.createSubnet(new Subnet("10.233.0.0", 24, "réservation"));
+        Long ipId = ipAddressDAO.findByIpAddress("10.233.0.10").getId();
+        LocalDateTime expiration = LocalDateTime.now().plusDays(3).withNano(0);
+
+        // Annulée avec la transaction englobante : ni l'adresse ni la réservation ne restent
+        assertThrows(IllegalStateException.class, () -> DatabaseManager.write(conn -> {
+            ipAddressService.reserveIP(ipId, "test", "annulée", expiration);
+            throw new IllegalStateException("annulation");
+        }));
+        FreeSpace.getInstance().forget(subnet.getId());
+        assertEquals(IPStatus.AVAILABLE, ipAddressDAO.findById(ipId).getStatus());
+        assertNull(reservationDAO.findByIpAddressId(ipId));
+
+        Reservation reservation = ipAddressService.reserveIP(ipId, "test", "maintenance", expiration);
+        assertEquals(IPStatus.RESERVED, ipAddressDAO.findById(ipId).getStatus());
+        Reservation stored = reservationDAO.findByIpAddressId(ipId);
+        assertNotNull(stored);
+        assertEquals(expiration, stored.getExpirationDate());
+        assertEquals(reservation.getExpirationDate(), stored.getExpirationDate());
+
+        // Une adresse déjà réservée n'obtient pas une seconde réservation
+        assertThrows(IllegalStateException.class,
+            () -> ipAddressService.reserveIP(ipId, "autre", "doublon", expiration.plusDays(1)));
+        assertEquals("maintenance", reservationDAO.findByIpAddressId(ipId).getReason());
+        assertConsistent(subnet, 0, 1);
+    }
+
+    @Test
+    void expiredReservationsAreReleasedInBatches() throws Exception {
+        Subnet dense = subnetService.createSubnet(new Subnet("10.234.0.0", 22, "réservations denses"));
+        Subnet sparse = subnetService.createSubnet(new Subnet("10.236.0.0", 15, "réservations creuses"));
+        assertEquals(StorageMode.DENSE, dense.getStorageMode());
+        assertEquals(StorageMode.SPARSE, sparse.getStorageMode());
+        LocalDateTime now = LocalDateTime.now();
+
+        // Échéances des adresses denses d'abord : le premier lot les prend toutes avec 200 creuses
+        List<String> denseAddresses = new ArrayList<>();
+        for (int i = 0; i < DENSE_RESERVED; i++) {
+            String address = IPCalculator.longToIp(IPCalculator.ipToLong("10.234.0.1") + 3L * i);
+            reserveExpired(ipAddressDAO.findByIpAddress(address).getId(), now.minusHours(2).plusSeconds(i));
+            denseAddresses.add(address);
+        }
+        List<String> sparseAddresses = new ArrayList<>();
+        for (int i = 0; i < SPARSE_RESERVED; i++) {
+            String address = IPCalculator.longToIp(IPCalculator.ipToLong("10.236.0.1") + 401L * i);
+            Long ipId = ipAddressService.materialize(new IPAddress(address, sparse.getId()));
+            reserveExpired(ipId, now.minusHours(1).plusSeconds(i));
+            sparseAddresses.add(address);
+        }
+
+        // Réservations périmées, dans le second lot : adresses attribuées ou disponibles
+        List<Long> staleIds = new ArrayList<>();
+        for (String address : List.of("10.234.3.200", "10.234.3.201")) {
+            Long ipId = ipAddressDAO.findByIpAddress(address).getId();
+            ipAddressService.assignIP(ipId, "poste", null, null);
+            staleIds.add(ipId);
+        }
+        Long sparseAssigned = ipAddressService.materialize(new IPAddress("10.237.255.1", sparse.getId()));
+        ipAddressService.assignIP(sparseAssigned, "poste", null, null);
+        staleIds.add(sparseAssigned);
+        staleIds.add(ipAddressDAO.findByIpAddress("10.234.3.202").getId());
+        for (Long ipId : staleIds) {
+            reservationDAO.save(new Reservation(ipId, "test", "périmée", now.minusMinutes(1)));
+        }
+        assertConsistent(dense, 2, DENSE_RESERVED);
+        assertConsistent(sparse, 1, SPARSE_RESERVED);
+
+        int total = DENSE_RESERVED + SPARSE_RESERVED + staleIds.size();
+        assertEquals(total, reservationService.releaseExpired());
+        assertEquals(0, reservationService.releaseExpired());
+        assertTrue(reservationService.getExpiredReservations().isEmpty());
+
+        // Une entrée d'audit par sous-réseau et par lot : un lot pour le dense, deux pour le creux
+        Map<Long, Long> audits = new HashMap<>();
+        for (AuditLog log : new AuditLogDAO().findByAction("EXPIRE", 1000)) {
+            if ("SUBNET".equals(log.getEntityType())) {
+                audits.merge(log.getEntityId(), 1L, Long::sum);
+            }
+        }
+        assertEquals(1L, audits.get(dense.getId()));
+        assertEquals(2L, audits.get(sparse.getId()));
+
+        for (String address : denseAddresses) {
+            IPAddress ip = ipAddressDAO.findByIpAddress(address);
+            assertNotNull(ip, address);
+            assertEquals(IPStatus.AVAILABLE, ip.getStatus(), address);
+            assertNull(ip.getAssignedTo(), address);
+            assertNull(ip.getDescription(), address);
+            assertNull(reservationDAO.findByIpAddressId(ip.getId()), address);
+        }
+        for (String address : sparseAddresses) {
+            assertNull(ipAddressDAO.findByIpAddress(address), address);
+        }
+        for (Long ipId : staleIds) {
+            assertNull(reservationDAO.findByIpAddressId(ipId));
+        }
+        assertEquals(IPStatus.ASSIGNED, ipAddressDAO.findById(staleIds.get(0)).getStatus());
+        assertEquals(IPStatus.ASSIGNED, ipAddressDAO.findById(staleIds.get(1)).getStatus());
+        assertEquals(IPStatus.ASSIGNED, ipAddressDAO.findById(sparseAssigned).getStatus());
+        assertEquals("poste", ipAddressDAO.findById(sparseAssigned).getAssignedTo());
+        assertEquals(IPStatus.AVAILABLE, ipAddressDAO.findById(staleIds.get(3)).getStatus());
+
+        assertEquals(1, ipAddressDAO.countBySubnetId(sparse.getId()));
+        assertConsistent(dense, 2, 0);
+        assertConsistent(sparse, 1, 0);
+
+        // Les adresses libérées sont de nouveau attribuables
+        FreeSpace.getInstance().forget(sparse.getId());
+        assertEquals("10.236.0.1", ipAddressService.assignFirstAvailableIP(sparse.getId(), "poste", null, null)
+            .getIpAddress());
+    }
+
+    /**
+     * Réserve l'adresse puis fait passer son échéance (reserveIP n'accepte qu'une échéance future)
+     */
+    private void reserveExpired(Long ipId, LocalDateTime expiration) throws Exception {
+        ipAddressService.reserveIP(ipId, "test", "échue", LocalDateTime.now().plusDays(1));
+        assertTrue(reservationDAO.updateExpiration(ipId, expiration));
+    }
+
+    /**
+     * Les compteurs et les bitmaps de statut concordent avec les attendus
+     */
+    private void assertConsistent(Subnet subnet, long assigned, long reserved) throws Exception {
+        SubnetUsage usage = usageDAO.findBySubnetId(subnet.getId());
+        Map<IPStatus, Long> bitmap = new IPStatusBitmapDAO().countByStatus(subnet.getId(), usage.getUsableHosts());
+        assertEquals(assigned, usage.getCount(IPStatus.ASSIGNED), subnet.getNetworkCidr());
+        assertEquals(reserved, usage.getCount(IPStatus.RESERVED), subnet.getNetworkCidr());
+        assertEquals(assigned, bitmap.getOrDefault(IPStatus.ASSIGNED, 0L), subnet.getNetworkCidr());
+        assertEquals(reserved, bitmap.getOrDefault(IPStatus.RESERVED, 0L), subnet.getNetworkCidr());
+        assertEquals(List.of(), usageDAO.findMismatches());
+    }
+}
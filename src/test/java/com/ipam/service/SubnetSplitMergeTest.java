@@ -0,0 +1,163 @@
+package com.ipam.service;
+
+import com.ipam.TestDatabase;
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.dao.IPStatusBitmapDAO;
+import com.ipam.dao.SubnetUsageDAO;
+import com.ipam.model.IPAddress;
+import com.ipam.model.IPStatus;
+import com.ipam.model.StorageMode;
+import com.ipam.model.Subnet;
+import com.ipam.model.SubnetUsage;
+import com.ipam.util.IPCalculator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Découpage puis fusion d'un sous-réseau portant une gateway, une attribution
+ * avec bail, une réservation et une attribution simple : chaque adresse doit
+ * suivre son sous-réseau avec son statut, et les lignes stockées, les
+ * compteurs et les bitmaps de chaque sous-réseau doivent concorder.
+ */
+class SubnetSplitMergeTest {
+    private final SubnetService subnetService = new SubnetService();
+    private final IPAddressService ipAddressService = new IPAddressService();
+    private final IPAddressDAO ipAddressDAO = new IPAddressDAO();
+    private final SubnetUsageDAO usageDAO = new SubnetUsageDAO();
+
+    @BeforeAll
+    static void openDatabase() throws Exception {
+        TestDatabase.open();
+    }
+
+    /**
+     * @param boundary adresse utilisable du parent qui devient le broadcast du premier enfant
+     */
+    @ParameterizedTest
+    @CsvSource({
+        "10.210.0.0, 23, 24, 10.210.0.1, 10.210.0.10, 10.210.1.20, 10.210.1.200, 10.210.0.255",
+        "10.212.0.0, 15, 16, 10.212.0.1, 10.212.0.10, 10.213.1.20, 10.213.200.7, 10.212.255.255",
+    })
+    void splitThenMergeKeepsRowsCountersAndBitmaps(String network, int cidr, int childCidr, String gateway,
+                                                   String leased, String reserved, String assigned,
+                                                   String boundary) throws Exception {
+        Subnet parent = new Subnet(network, cidr, "découpage");
+        parent.setGateway(gateway);
+        parent = subnetService.createSubnet(parent);
+        StorageMode mode = parent.getStorageMode();
+        assertEquals(cidr < 16 ? StorageMode.SPARSE : StorageMode.DENSE, mode);
+
+        Long leasedId = idOf(parent, leased);
+        ipAddressService.assignIP(leasedId, "bail", null, null, Duration.ofHours(1));
+        LocalDateTime leaseExpires = ipAddressDAO.findById(leasedId).getLeaseExpires();
+        assertNotNull(leaseExpires);
+        ipAddressService.reserveIP(idOf(parent, reserved), "réservée");
+        ipAddressService.assignIP(idOf(parent, assigned), "fixe", null, null);
+
+        Map<String, IPStatus> used = new HashMap<>();
+        used.put(gateway, IPStatus.RESERVED);
+        used.put(leased, IPStatus.ASSIGNED);
+        used.put(reserved, IPStatus.RESERVED);
+        used.put(assigned, IPStatus.ASSIGNED);
+        assertConsistent(List.of(parent), used);
+
+        // Une adresse occupée qui deviendrait le broadcast d'un enfant bloque le découpage
+        Long boundaryId = idOf(parent, boundary);
+        ipAddressService.assignIP(boundaryId, "bord", null, null);
+        Long parentId = parent.getId();
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+            () -> subnetService.splitSubnet(parentId, childCidr));
+        assertTrue(rejected.getMessage().contains(boundary), rejected.getMessage());
+        assertNotNull(subnetService.getSubnetById(parentId));
+        used.put(boundary, IPStatus.ASSIGNED);
+        assertConsistent(List.of(parent), used);
+        ipAddressService.releaseIP(boundaryId);
+        used.remove(boundary);
+
+        List<Subnet> children = subnetService.splitSubnet(parentId, childCidr);
+        assertEquals(2, children.size());
+        assertNull(subnetService.getSubnetById(parentId));
+        assertEquals(gateway, children.get(0).getGateway());
+        assertNull(children.get(1).getGateway());
+        for (Subnet child : children) {
+            assertEquals(mode, child.getStorageMode());
+        }
+        assertConsistent(children, used);
+        assertEquals(leaseExpires, ipAddressDAO.findByIpAddress(leased).getLeaseExpires());
+        assertEquals("bail", ipAddressDAO.findByIpAddress(leased).getAssignedTo());
+
+        Subnet merged = subnetService.mergeSubnets(List.of(children.get(1).getId(), children.get(0).getId()));
+        assertEquals(network, merged.getNetworkAddress());
+        assertEquals(cidr, merged.getCidr());
+        assertEquals(gateway, merged.getGateway());
+        assertEquals(mode, merged.getStorageMode());
+        for (Subnet child : children) {
+            assertNull(subnetService.getSubnetById(child.getId()));
+        }
+        assertConsistent(List.of(merged), used);
+        assertEquals(leaseExpires, ipAddressDAO.findByIpAddress(leased).getLeaseExpires());
+
+        // Le sous-réseau fusionné reste utilisable : son bitmap en mémoire est rechargé
+        IPAddress next = ipAddressService.assignFirstAvailableIP(merged.getId(), "après", null, null);
+        assertFalse(used.containsKey(next.getIpAddress()));
+        used.put(next.getIpAddress(), IPStatus.ASSIGNED);
+        assertConsistent(List.of(merged), used);
+    }
+
+    /**
+     * ID d'une adresse, sa ligne étant créée si elle n'est pas stockée (mode creux)
+     */
+    private Long idOf(Subnet subnet, String address) throws Exception {
+        IPAddress stored = ipAddressDAO.findByIpAddress(address);
+        return stored != null ? stored.getId() : ipAddressService.materialize(new IPAddress(address, subnet.getId()));
+    }
+
+    /**
+     * Chaque adresse occupée appartient au sous-réseau qui la contient, avec
+     * son statut ; les lignes stockées, subnet_usage et les bitmaps de chaque
+     * sous-réseau concordent
+     */
+    private void assertConsistent(List<Subnet> subnets, Map<String, IPStatus> used) throws Exception {
+        for (Subnet subnet : subnets) {
+            List<String> inside = new ArrayList<>();
+            Map<IPStatus, Long> expected = new HashMap<>();
+            for (Map.Entry<String, IPStatus> entry : used.entrySet()) {
+                if (subnet.getPrefix().contains(IPCalculator.ipToLong(entry.getKey()))) {
+                    inside.add(entry.getKey());
+                    expected.merge(entry.getValue(), 1L, Long::sum);
+                }
+            }
+            for (String address : inside) {
+                IPAddress ip = ipAddressDAO.findByIpAddress(address);
+                assertNotNull(ip, address);
+                assertEquals(subnet.getId(), ip.getSubnetId(), address);
+                assertEquals(used.get(address), ip.getStatus(), address);
+            }
+
+            long usable = subnet.getPrefix().size() - 2;
+            long stored = subnet.isSparse() ? inside.size() : usable;
+            assertEquals(stored, ipAddressDAO.countBySubnetId(subnet.getId()), subnet.getNetworkCidr());
+            assertNull(ipAddressDAO.findByIpAddress(subnet.getNetworkAddress()));
+            assertNull(ipAddressDAO.findByIpAddress(subnet.getPrefix().getBroadcastAddress()));
+
+            SubnetUsage usage = usageDAO.findBySubnetId(subnet.getId());
+            Map<IPStatus, Long> bitmap = new IPStatusBitmapDAO().countByStatus(subnet.getId(), usage.getUsableHosts());
+            for (IPStatus status : List.of(IPStatus.ASSIGNED, IPStatus.RESERVED)) {
+                long count = expected.getOrDefault(status, 0L);
+                assertEquals(count, usage.getCount(status), subnet.getNetworkCidr() + " " + status);
+                assertEquals(count, bitmap.getOrDefault(status, 0L), subnet.getNetworkCidr() + " " + status);
+            }
+        }
+        assertEquals(List.of(), usageDAO.findMismatches());
+    }
+}
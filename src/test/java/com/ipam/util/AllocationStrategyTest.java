@@ -0,0 +1,134 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stratégies d'attribution sur des bitmaps fragmentés : chaque choix doit
+ * désigner une suite libre de la bonne longueur, puis le comportement propre
+ * à chaque stratégie (reprise au début pour le tourniquet, arrêt anticipé
+ * du best-fit sur une plage exacte)
+ */
+class AllocationStrategyTest {
+    private static final long FIRST = IPCalculator.ipToLong("10.0.0.1");
+    private static final List<AllocationStrategy> STRATEGIES = List.of(AllocationStrategy.FIRST_FIT,
+        AllocationStrategy.BEST_FIT, AllocationStrategy.RANDOM, AllocationStrategy.ROUND_ROBIN);
+
+    @Test
+    void everyStrategySelectsAFreeRun() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            int size = 1 + random.nextInt(600);
+            FreeBitmap free = new FreeBitmap(FIRST, FIRST + size - 1);
+            for (int i = random.nextInt(size); i > 0; i--) {
+                free.markUsed(FIRST + random.nextInt(size));
+            }
+            int count = 1 + random.nextInt(8);
+            boolean exists = free.nextRun(FIRST, count) >= 0;
+
+            for (AllocationStrategy strategy : STRATEGIES) {
+                long start = strategy.select(free, count);
+                assertEquals(exists, start >= 0, strategy.getName());
+                if (start >= 0) {
+                    assertTrue(free.nextUsed(start) - start >= count && free.isFree(start), strategy.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void firstFitTakesTheLowestRun() {
+        FreeBitmap free = new FreeBitmap(FIRST, FIRST + 99);
+        free.take(FIRST + 2, 1);
+        free.take(FIRST + 10, 1);
+        assertEquals(FIRST, AllocationStrategy.FIRST_FIT.select(free, 2));
+        assertEquals(FIRST + 3, AllocationStrategy.FIRST_FIT.select(free, 3));
+        assertEquals(FIRST + 11, AllocationStrategy.FIRST_FIT.select(free, 8));
+        assertEquals(-1, AllocationStrategy.FIRST_FIT.select(free, 90));
+    }
+
+    @Test
+    void roundRobinContinuesAfterLastTakenThenWrapsAround() {
+        AllocationStrategy strategy = AllocationStrategy.ROUND_ROBIN;
+        FreeBitmap free = new FreeBitmap(FIRST, FIRST + 9);
+
+        // Une adresse libérée n'est pas reprise avant le tour suivant
+        for (int i = 0; i < 8; i++) {
+            long address = strategy.select(free, 1);
+            assertEquals(FIRST + i, address);
+            free.take(address, 1);
+        }
+        free.markFree(FIRST + 2);
+        assertEquals(FIRST + 8, strategy.select(free, 1));
+        free.take(FIRST + 8, 1);
+        assertEquals(FIRST + 9, strategy.select(free, 1));
+        free.take(FIRST + 9, 1);
+
+        // Fin de plage atteinte : reprise au début
+        assertEquals(FIRST + 9, free.getLastTaken());
+        assertEquals(FIRST + 2, strategy.select(free, 1));
+        free.take(FIRST + 2, 1);
+        assertEquals(-1, strategy.select(free, 1));
+
+        // Suite trop longue pour la fin de plage : prise au début, sans chevaucher la limite
+        FreeBitmap tail = new FreeBitmap(FIRST, FIRST + 9);
+        tail.take(FIRST + 4, 3);
+        assertEquals(FIRST, strategy.select(tail, 4));
+        assertEquals(-1, strategy.select(tail, 5));
+    }
+
+    @Test
+    void bestFitPrefersTheSmallestRun() {
+        FreeBitmap free = new FreeBitmap(FIRST, FIRST + 99);
+        // Plages libres : [0,9] (10), [11,14] (4), [16,21] (6), [23,26] (4), [28,99] (72)
+        free.take(FIRST + 10, 1);
+        free.take(FIRST + 15, 1);
+        free.take(FIRST + 22, 1);
+        free.take(FIRST + 27, 1);
+        assertEquals(FIRST + 16, AllocationStrategy.BEST_FIT.select(free, 5));
+        assertEquals(FIRST, AllocationStrategy.BEST_FIT.select(free, 7));
+        assertEquals(FIRST + 28, AllocationStrategy.BEST_FIT.select(free, 11));
+        assertEquals(FIRST + 11, AllocationStrategy.BEST_FIT.select(free, 3));
+        assertEquals(-1, AllocationStrategy.BEST_FIT.select(free, 73));
+    }
+
+    @Test
+    void bestFitStopsAtTheFirstExactFit() {
+        CountingBitmap free = new CountingBitmap(FIRST, FIRST + 65_533);
+        // Plages libres : [0,9], [11,13] (exactement 3), puis une centaine de plages de 2 et une grande
+        free.take(FIRST + 10, 1);
+        for (long address = FIRST + 14; address < FIRST + 314; address += 3) {
+            free.take(address, 1);
+        }
+
+        free.scans = 0;
+        assertEquals(FIRST + 11, AllocationStrategy.BEST_FIT.select(free, 3));
+        assertEquals(2, free.scans, "la recherche aurait dû s'arrêter sur la plage exacte");
+
+        // Sans plage exacte, toutes les plages sont mesurées
+        free.scans = 0;
+        assertEquals(FIRST, AllocationStrategy.BEST_FIT.select(free, 4));
+        assertTrue(free.scans > 100);
+    }
+
+    /**
+     * Compte les plages libres mesurées (appels à nextUsed)
+     */
+    private static final class CountingBitmap extends FreeBitmap {
+        int scans;
+
+        CountingBitmap(long first, long last) {
+            super(first, last);
+        }
+
+        @Override
+        public long nextUsed(long from) {
+            scans++;
+            return super.nextUsed(from);
+        }
+    }
+}
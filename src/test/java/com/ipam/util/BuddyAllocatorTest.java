@@ -0,0 +1,155 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BuddyAllocator face à un BitSet des adresses occupées d'un /16 : placement
+ * first-fit (plus petit bloc aligné entièrement libre d'adresse la plus
+ * basse) et best-fit (découpe du plus petit bloc libre maximal), réservation
+ * et libération idempotentes, nombre d'adresses et de blocs libres
+ */
+class BuddyAllocatorTest {
+    private static final long BASE = IPCalculator.ipToLong("10.0.0.0");
+    private static final int BASE_LENGTH = 16;
+    private static final int SPAN = 1 << 16;
+
+    @Test
+    void matchesBitSetModel() {
+        Random random = new Random(1);
+        BuddyAllocator allocator = new BuddyAllocator(BASE, BASE_LENGTH);
+        BitSet used = new BitSet(SPAN);
+
+        for (int step = 0; step < 20_000; step++) {
+            int length = 18 + random.nextInt(15);
+            int action = random.nextInt(10);
+            if (action < 4) {
+                boolean bestFit = random.nextBoolean();
+                long expected = bestFit ? naiveBestFit(used, length) : naiveFirstFit(used, length);
+                long network = allocator.allocate(length, bestFit);
+                assertEquals(expected, network, (bestFit ? "best-fit /" : "first-fit /") + length);
+                if (network >= 0) {
+                    set(used, network, length, true);
+                }
+            } else {
+                long network = BASE + (random.nextInt(SPAN) & (int) IPCalculator.prefixMask(length));
+                int offset = (int) (network - BASE);
+                int size = 1 << (32 - length);
+                int alreadyUsed = used.get(offset, offset + size).cardinality();
+                if (action < 7) {
+                    assertEquals(size - alreadyUsed, allocator.reserve(network, length));
+                    set(used, network, length, true);
+                } else {
+                    assertEquals(alreadyUsed, allocator.release(network, length));
+                    set(used, network, length, false);
+                }
+            }
+
+            assertEquals(SPAN - used.cardinality(), allocator.getFreeAddresses());
+            if (step % 50 == 0) {
+                List<long[]> blocks = maximalFreeBlocks(used);
+                assertEquals(blocks.size(), allocator.getFreeBlockCount());
+                int largest = blocks.stream().mapToInt(block -> (int) block[1]).min().orElse(-1);
+                assertEquals(largest, allocator.getLargestFreeLength());
+                for (int query = 0; query < 20; query++) {
+                    int queryLength = BASE_LENGTH + random.nextInt(17);
+                    long network = BASE + (random.nextInt(SPAN) & (int) IPCalculator.prefixMask(queryLength));
+                    int offset = (int) (network - BASE);
+                    boolean allFree = used.nextSetBit(offset) < 0 || used.nextSetBit(offset) >= offset + (1 << (32 - queryLength));
+                    assertEquals(allFree, allocator.isFree(network, queryLength));
+                }
+            }
+        }
+    }
+
+    @Test
+    void releasingOverlappingBlocksNeverOvercounts() {
+        BuddyAllocator allocator = new BuddyAllocator(BASE, BASE_LENGTH);
+        long slash24 = IPCalculator.ipToLong("10.0.17.0");
+        long slash20 = IPCalculator.ipToLong("10.0.16.0");
+        assertEquals(256, allocator.reserve(slash24, 24));
+        assertEquals(4096 - 256, allocator.reserve(slash20, 20));
+
+        assertEquals(4096, allocator.release(slash20, 20));
+        assertEquals(0, allocator.release(slash24, 24));
+        assertEquals(0, allocator.release(slash20, 20));
+        assertEquals(SPAN, allocator.getFreeAddresses());
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(BASE_LENGTH, allocator.getLargestFreeLength());
+
+        // Bloc englobant des blocs déjà libres : seule la partie occupée est comptée
+        assertEquals(BASE, allocator.allocate(24, false));
+        assertEquals(BASE + 256, allocator.allocate(24, false));
+        assertEquals(256, allocator.release(BASE + 256, 24));
+        assertEquals(256, allocator.release(BASE, 20));
+        assertEquals(SPAN, allocator.getFreeAddresses());
+        assertEquals(1, allocator.getFreeBlockCount());
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.release(IPCalculator.ipToLong("10.1.0.0"), 24));
+        assertThrows(IllegalArgumentException.class, () -> allocator.release(BASE, 15));
+    }
+
+    /**
+     * Plus petit bloc aligné entièrement libre de la longueur demandée, -1 s'il n'y en a pas
+     */
+    private static long naiveFirstFit(BitSet used, int length) {
+        int size = 1 << (32 - length);
+        for (int offset = 0; offset < SPAN; offset += size) {
+            int next = used.nextSetBit(offset);
+            if (next < 0 || next >= offset + size) {
+                return BASE + offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Début du plus petit bloc libre maximal qui peut contenir la longueur
+     * demandée (le plus bas à taille égale), -1 s'il n'y en a pas
+     */
+    private static long naiveBestFit(BitSet used, int length) {
+        long best = -1;
+        int bestLength = -1;
+        for (long[] block : maximalFreeBlocks(used)) {
+            if (block[1] <= length && block[1] > bestLength) {
+                best = block[0];
+                bestLength = (int) block[1];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plus grands blocs alignés entièrement libres, par adresse croissante : {réseau, longueur}
+     */
+    private static List<long[]> maximalFreeBlocks(BitSet used) {
+        List<long[]> blocks = new ArrayList<>();
+        int offset = used.nextClearBit(0);
+        while (offset < SPAN) {
+            for (int hostBits = 32 - BASE_LENGTH; hostBits >= 0; hostBits--) {
+                int size = 1 << hostBits;
+                if ((offset & (size - 1)) == 0) {
+                    int next = used.nextSetBit(offset);
+                    if (next < 0 || next >= offset + size) {
+                        blocks.add(new long[] {BASE + offset, 32 - hostBits});
+                        offset += size;
+                        break;
+                    }
+                }
+            }
+            offset = used.nextClearBit(offset);
+        }
+        return blocks;
+    }
+
+    private static void set(BitSet used, long network, int length, boolean value) {
+        int offset = (int) (network - BASE);
+        used.set(offset, offset + (1 << (32 - length)), value);
+    }
+}
@@ -0,0 +1,140 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agrégation et complément face à un modèle naïf : les adresses d'un /16
+ * dans un BitSet, et la couverture minimale calculée comme l'ensemble des
+ * plus grands blocs alignés entièrement couverts (elle est unique)
+ */
+class CidrAggregatorTest {
+    private static final long BASE = IPCalculator.ipToLong("10.0.0.0");
+    private static final int SPAN = 1 << 16;
+
+    @Test
+    void aggregateMatchesMaximalBlocks() {
+        Random random = new Random(1);
+        for (int round = 0; round < 300; round++) {
+            long[] input = randomPrefixes(random, 1 + random.nextInt(200), 16 + random.nextInt(8));
+            BitSet covered = cover(input);
+
+            long[] summary = CidrAggregator.aggregate(input.clone());
+
+            assertSortedAndDisjoint(summary);
+            assertEquals(covered, cover(summary));
+            assertArrayEquals(maximalBlocks(covered), summary);
+        }
+    }
+
+    @Test
+    void complementMatchesUncoveredAddresses() {
+        Random random = new Random(2);
+        for (int round = 0; round < 300; round++) {
+            long[] input = randomPrefixes(random, random.nextInt(100), 16 + random.nextInt(8));
+            BitSet free = cover(input);
+            free.flip(0, SPAN);
+
+            long[] gaps = CidrAggregator.complement(input.clone(), BASE, 16);
+
+            assertSortedAndDisjoint(gaps);
+            assertEquals(free, cover(gaps));
+            assertArrayEquals(maximalBlocks(free), gaps);
+        }
+    }
+
+    @Test
+    void complementIgnoresPrefixesOutsideTheSpace() {
+        long[] input = {
+            CidrAggregator.pack(IPCalculator.ipToLong("9.255.255.0"), 24),
+            CidrAggregator.pack(IPCalculator.ipToLong("10.0.0.0"), 17),
+            CidrAggregator.pack(IPCalculator.ipToLong("10.1.0.0"), 24),
+        };
+        assertArrayEquals(new long[] {CidrAggregator.pack(IPCalculator.ipToLong("10.0.128.0"), 17)},
+            CidrAggregator.complement(input, BASE, 16));
+
+        long[] wider = {CidrAggregator.pack(IPCalculator.ipToLong("10.0.0.0"), 8)};
+        assertEquals(0, CidrAggregator.complement(wider, BASE, 16).length);
+    }
+
+    @Test
+    void addressSpaceEdges() {
+        long[] halves = {
+            CidrAggregator.pack(IPCalculator.ipToLong("128.0.0.0"), 1),
+            CidrAggregator.pack(0, 1),
+        };
+        assertArrayEquals(new long[] {CidrAggregator.pack(0, 0)}, CidrAggregator.aggregate(halves));
+
+        long[] top = {CidrAggregator.pack(IPCalculator.ipToLong("255.255.255.255"), 32)};
+        assertArrayEquals(top, CidrAggregator.aggregate(top.clone()));
+        long[] rest = CidrAggregator.complement(top.clone(), 0, 0);
+        assertEquals(32, rest.length);
+        assertEquals(CidrAggregator.pack(0, 1), rest[0]);
+        assertEquals(CidrAggregator.pack(IPCalculator.ipToLong("255.255.255.254"), 32), rest[31]);
+
+        assertEquals(0, CidrAggregator.aggregate(new long[0]).length);
+        assertArrayEquals(new long[] {CidrAggregator.pack(0, 0)}, CidrAggregator.complement(new long[0], 0, 0));
+    }
+
+    @Test
+    void packClearsHostBits() {
+        long packed = CidrAggregator.pack(IPCalculator.ipToLong("10.1.2.3"), 16);
+        assertEquals(IPCalculator.ipToLong("10.1.0.0"), CidrAggregator.network(packed));
+        assertEquals(16, CidrAggregator.length(packed));
+        assertThrows(IllegalArgumentException.class, () -> CidrAggregator.pack(0, 33));
+    }
+
+    /**
+     * Préfixes aléatoires du /16, de longueur minLength à 32 ; les doublons et
+     * les inclusions sont volontairement fréquents
+     */
+    private static long[] randomPrefixes(Random random, int count, int minLength) {
+        long[] prefixes = new long[count];
+        for (int i = 0; i < count; i++) {
+            int length = minLength + random.nextInt(33 - minLength);
+            prefixes[i] = CidrAggregator.pack(BASE + random.nextInt(SPAN), length);
+        }
+        return prefixes;
+    }
+
+    private static BitSet cover(long[] packed) {
+        BitSet bits = new BitSet(SPAN);
+        for (long p : packed) {
+            long first = CidrAggregator.network(p) - BASE;
+            long size = 1L << (32 - CidrAggregator.length(p));
+            bits.set((int) first, (int) (first + size));
+        }
+        return bits;
+    }
+
+    private static long[] maximalBlocks(BitSet bits) {
+        List<Long> blocks = new ArrayList<>();
+        int address = bits.nextSetBit(0);
+        while (address >= 0) {
+            for (int hostBits = 16; hostBits >= 0; hostBits--) {
+                int start = address & -(1 << hostBits);
+                int end = start + (1 << hostBits);
+                if (start == address && bits.nextClearBit(start) >= end) {
+                    blocks.add(CidrAggregator.pack(BASE + start, 32 - hostBits));
+                    address = end;
+                    break;
+                }
+            }
+            address = address < SPAN ? bits.nextSetBit(address) : -1;
+        }
+        return blocks.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void assertSortedAndDisjoint(long[] packed) {
+        for (int i = 1; i < packed.length; i++) {
+            long previousEnd = CidrAggregator.network(packed[i - 1]) + (1L << (32 - CidrAggregator.length(packed[i - 1])));
+            assertTrue(CidrAggregator.network(packed[i]) >= previousEnd, "blocs non triés ou chevauchants");
+        }
+    }
+}
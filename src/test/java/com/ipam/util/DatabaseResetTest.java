@@ -0,0 +1,64 @@
+package com.ipam.util;
+
+import com.ipam.TestDatabase;
+import com.ipam.dao.IPAddressDAO;
+import com.ipam.model.IPAddress;
+import com.ipam.model.PrefixAllocationStrategy;
+import com.ipam.model.Subnet;
+import com.ipam.model.SubnetPool;
+import com.ipam.service.IPAddressService;
+import com.ipam.service.SubnetService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Réinitialisation de la base : les index et espaces libres en mémoire
+ * (préfixes, MAC, bitmaps d'adresses libres, pools, baux) ne doivent rien
+ * garder de l'ancienne base. Les identifiants repartant de zéro, le même
+ * scénario rejoué après une réinitialisation retrouve les mêmes identifiants :
+ * un état périmé se verrait aussitôt.
+ */
+class DatabaseResetTest {
+    private static final String MAC = "AA:BB:CC:00:23:01";
+
+    private final SubnetService subnetService = new SubnetService();
+    private final IPAddressService ipAddressService = new IPAddressService();
+
+    @BeforeAll
+    static void openDatabase() throws Exception {
+        TestDatabase.open();
+    }
+
+    @Test
+    void resetForgetsInMemoryState() throws Exception {
+        DatabaseManager.resetDatabase();
+        List<Object> first = populate();
+
+        DatabaseManager.resetDatabase();
+        assertFalse(subnetService.checkOverlap("10.230.0.0", 24));
+        assertTrue(subnetService.getAllPools().isEmpty());
+
+        assertEquals(first, populate());
+    }
+
+    /**
+     * Un sous-réseau et un pool, une attribution avec MAC et bail, un découpage de pool
+     */
+    private List<Object> populate() throws Exception {
+        Subnet subnet = subnetService.createSubnet(new Subnet("10.230.0.0", 24, "réinitialisation"));
+        IPAddress assigned = ipAddressService.assignFirstAvailableIP(subnet.getId(), "poste", MAC, null);
+        Long leasedId = new IPAddressDAO().findByIpAddress("10.230.0.100").getId();
+        ipAddressService.assignIP(leasedId, "bail", null, null, Duration.ofHours(1));
+
+        SubnetPool pool = subnetService.createPool(new SubnetPool("reset", "10.231.0.0", 16, null));
+        Subnet child = subnetService.allocateChildSubnet(pool, 24, PrefixAllocationStrategy.FIRST_FIT);
+
+        return List.of(subnet.getId(), assigned.getId(), assigned.getIpAddress(), leasedId,
+            pool.getId(), child.getId(), child.getNetworkCidr());
+    }
+}
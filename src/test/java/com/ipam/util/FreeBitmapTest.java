@@ -0,0 +1,179 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FreeBitmap face à un tableau de booléens parcouru en entier, sur des
+ * tailles qui laissent un mot ou une page de queue partiels (leurs bits hors
+ * plage doivent compter comme occupés) ou qui tombent pile sur un mot ou une
+ * page ; seules les pages touchées des grandes plages creuses sont allouées
+ */
+class FreeBitmapTest {
+    private static final long FIRST = IPCalculator.ipToLong("10.0.0.1");
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 63, 64, 65, 127, 4095, 4096, 4097, 8192, 12_289, 65_534})
+    void matchesNaiveScan(int size) {
+        Random random = new Random(size);
+        FreeBitmap bitmap = new FreeBitmap(FIRST, FIRST + size - 1);
+        boolean[] free = new boolean[size];
+        Arrays.fill(free, true);
+
+        for (int round = 0; round < 40; round++) {
+            // Densités variées : des bits isolés aux longues plages
+            int changes = 1 + random.nextInt(Math.max(1, size / 4));
+            boolean towardsFree = round % 4 == 3;
+            for (int i = 0; i < changes; i++) {
+                int offset = random.nextInt(size);
+                if (towardsFree) {
+                    assertEquals(!free[offset], bitmap.markFree(FIRST + offset));
+                    free[offset] = true;
+                } else {
+                    assertEquals(free[offset], bitmap.markUsed(FIRST + offset));
+                    free[offset] = false;
+                }
+            }
+            assertEquals(countFree(free), bitmap.getFreeCount());
+
+            for (int query = 0; query < 50; query++) {
+                long from = FIRST - 2 + random.nextInt(size + 4);
+                assertEquals(naiveNextFree(free, from), bitmap.nextFree(from), () -> "nextFree(" + from + ")");
+                assertEquals(naiveNextUsed(free, from), bitmap.nextUsed(from), () -> "nextUsed(" + from + ")");
+                int count = 1 + random.nextInt(Math.min(size, 70));
+                assertEquals(naiveNextRun(free, from, count), bitmap.nextRun(from, count),
+                    () -> "nextRun(" + from + ", " + count + ")");
+                long address = FIRST + random.nextInt(size);
+                assertEquals(free[(int) (address - FIRST)], bitmap.isFree(address));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 63, 65, 4097})
+    void tailBitsCountAsUsed(int size) {
+        long last = FIRST + size - 1;
+        FreeBitmap bitmap = new FreeBitmap(FIRST, last);
+
+        // Entièrement libre : la première adresse occupée est juste après la plage
+        assertEquals(last + 1, bitmap.nextUsed(FIRST));
+        assertEquals(last + 1, bitmap.nextUsed(last));
+        assertEquals(FIRST, bitmap.nextRun(FIRST, size));
+        assertEquals(-1, bitmap.nextRun(FIRST, size + 1));
+
+        // Entièrement prise : aucune adresse libre, même dans les bits de queue
+        bitmap.take(FIRST, size);
+        assertEquals(0, bitmap.getFreeCount());
+        assertEquals(-1, bitmap.nextFree(FIRST));
+        assertEquals(-1, bitmap.takeFirst());
+        assertEquals(FIRST, bitmap.nextUsed(FIRST));
+
+        assertFalse(bitmap.markFree(last + 1));
+        assertFalse(bitmap.markUsed(FIRST - 1));
+        assertFalse(bitmap.isFree(last + 1));
+        assertEquals(0, bitmap.getFreeCount());
+    }
+
+    @Test
+    void takeFirstAndTake() {
+        FreeBitmap bitmap = new FreeBitmap(FIRST, FIRST + 199);
+        assertEquals(FIRST - 1, bitmap.getLastTaken());
+        assertEquals(FIRST, bitmap.takeFirst());
+        assertEquals(FIRST, bitmap.getLastTaken());
+
+        bitmap.take(FIRST + 60, 10);
+        assertEquals(FIRST + 69, bitmap.getLastTaken());
+        assertEquals(FIRST + 1, bitmap.nextFree(FIRST));
+        assertEquals(FIRST + 60, bitmap.nextUsed(FIRST + 1));
+        assertEquals(FIRST + 70, bitmap.nextRun(FIRST + 10, 60));
+        assertEquals(189, bitmap.getFreeCount());
+
+        assertThrows(IllegalStateException.class, () -> bitmap.take(FIRST + 59, 2));
+        assertThrows(IllegalArgumentException.class, () -> new FreeBitmap(FIRST, FIRST - 1));
+        assertThrows(IllegalArgumentException.class, () -> new FreeBitmap(0, 1L << 32));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {8, 0})
+    void sparseRangeAllocatesTouchedPagesOnly(int cidr) {
+        long first = cidr == 0 ? 1 : IPCalculator.ipToLong("10.0.0.1");
+        long last = cidr == 0 ? 0xFFFFFFFEL : IPCalculator.ipToLong("10.255.255.254");
+        FreeBitmap bitmap = new FreeBitmap(first, last);
+        long size = last - first + 1;
+        // Seule la page de queue, partielle, est allouée
+        assertEquals(1, bitmap.getAllocatedPages());
+
+        long[] used = {first, first + 4095, first + 4096, first + size / 2, last - 5000, last};
+        for (long address : used) {
+            assertTrue(bitmap.markUsed(address));
+        }
+        assertEquals(5, bitmap.getAllocatedPages());
+        assertEquals(size - used.length, bitmap.getFreeCount());
+
+        assertEquals(first + 1, bitmap.nextFree(first));
+        assertEquals(first + 4095, bitmap.nextUsed(first + 1));
+        assertEquals(first + 4097, bitmap.nextFree(first + 4095));
+        assertEquals(first + size / 2, bitmap.nextUsed(first + 4097));
+        assertEquals(last - 5000, bitmap.nextUsed(first + size / 2 + 1));
+        assertEquals(last, bitmap.nextUsed(last - 4999));
+        assertEquals(-1, bitmap.nextFree(last));
+        assertEquals(first + 4097, bitmap.nextRun(first, 100_000));
+        assertEquals(last - 4999, bitmap.nextRun(last - 5000, 4999));
+        assertEquals(-1, bitmap.nextRun(last - 5000, 5000));
+
+        // Une page redevenue entièrement libre est rendue
+        assertTrue(bitmap.markFree(first + size / 2));
+        assertTrue(bitmap.markFree(last - 5000));
+        assertEquals(3, bitmap.getAllocatedPages());
+        assertEquals(last, bitmap.nextUsed(first + 4097));
+        for (long address : new long[] {first, first + 4095, first + 4096, last}) {
+            bitmap.markFree(address);
+        }
+        assertEquals(1, bitmap.getAllocatedPages());
+        assertEquals(size, bitmap.getFreeCount());
+        assertEquals(last + 1, bitmap.nextUsed(first));
+    }
+
+    private static long countFree(boolean[] free) {
+        long count = 0;
+        for (boolean bit : free) {
+            count += bit ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static long naiveNextFree(boolean[] free, long from) {
+        for (long address = Math.max(from, FIRST); address < FIRST + free.length; address++) {
+            if (free[(int) (address - FIRST)]) {
+                return address;
+            }
+        }
+        return -1;
+    }
+
+    private static long naiveNextUsed(boolean[] free, long from) {
+        for (long address = Math.max(from, FIRST); address < FIRST + free.length; address++) {
+            if (!free[(int) (address - FIRST)]) {
+                return address;
+            }
+        }
+        return FIRST + free.length;
+    }
+
+    private static long naiveNextRun(boolean[] free, long from, int count) {
+        int run = 0;
+        for (long address = Math.max(from, FIRST); address < FIRST + free.length; address++) {
+            run = free[(int) (address - FIRST)] ? run + 1 : 0;
+            if (run == count) {
+                return address - count + 1;
+            }
+        }
+        return -1;
+    }
+}
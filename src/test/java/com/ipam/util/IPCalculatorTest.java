@@ -0,0 +1,207 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Codec IPv4 sans allocation face à l'ancienne implémentation (LegacyIPv4),
+ * cas limites du parseur IPv6 (notation mixte) et notations MAC acceptées
+ */
+class IPCalculatorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "0.0.0.0", "255.255.255.255", "192.168.1.1", "10.0.0.010", "001.002.003.004", "000.000.000.000",
+        "099.199.249.255", "1.2.3.04", "256.1.1.1", "1.1.1.256", "1.1.1.300", "1.1.1.999", "1.1.1.0255",
+        "1.1.1.", "1.1.1.1.", ".1.1.1.1", "1..1.1", "1.1.1", "1.1.1.1.1", "1.1.1.1 ", " 1.1.1.1", "1.1.1.1\n",
+        "+1.1.1.1", "-1.1.1.1", "1.1.1.a", "a.b.c.d", "", "1", "...", "1.2.3.4/24", "0x1.2.3.4",
+        "::ffff:1.2.3.4", "1.2.3.4::", "１.2.3.4"})
+    void parseMatchesLegacy(String text) {
+        assertEquals(LegacyIPv4.isValidIP(text), IPCalculator.isValidIP(text), text);
+        long expected;
+        try {
+            expected = LegacyIPv4.ipToLong(text);
+        } catch (IllegalArgumentException e) {
+            expected = -1;
+        }
+        assertEquals(expected, IPCalculator.parseIPv4(text), text);
+        if (expected < 0) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> IPCalculator.ipToLong(text));
+            assertEquals("Adresse IP invalide: " + text, e.getMessage());
+        } else {
+            assertEquals(expected, IPCalculator.ipToLong(text));
+        }
+    }
+
+    @Test
+    void nullIsInvalid() {
+        assertFalse(IPCalculator.isValidIP(null));
+        assertThrows(IllegalArgumentException.class, () -> IPCalculator.ipToLong(null));
+    }
+
+    @Test
+    void randomTextMatchesLegacy() {
+        Random random = new Random(1);
+        String alphabet = "0123456789012345678901234567890123456789....x ";
+        StringBuilder text = new StringBuilder();
+        for (int round = 0; round < 200_000; round++) {
+            text.setLength(0);
+            int length = 1 + random.nextInt(17);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String candidate = text.toString();
+            long expected = LegacyIPv4.isValidIP(candidate) ? LegacyIPv4.ipToLong(candidate) : -1;
+            assertEquals(expected, IPCalculator.parseIPv4(candidate), candidate);
+        }
+    }
+
+    @Test
+    void formatRoundTrip() {
+        Random random = new Random(2);
+        char[] buffer = new char[4 + IPCalculator.MAX_IPV4_LENGTH];
+        StringBuilder builder = new StringBuilder();
+        for (int round = 0; round < 200_000; round++) {
+            long ip = round < 4 ? new long[] {0, 0xFFFFFFFFL, 0x0A000001L, 0x64646464L}[round]
+                : random.nextLong() & 0xFFFFFFFFL;
+            String expected = LegacyIPv4.longToIp(ip);
+            assertEquals(expected, IPCalculator.longToIp(ip));
+
+            buffer[0] = '[';
+            int end = IPCalculator.formatIPv4(ip, buffer, 1);
+            assertEquals(expected, new String(buffer, 1, end - 1));
+            assertEquals(ip, IPCalculator.parseIPv4(new String(buffer, 0, end), 1, end));
+
+            builder.setLength(0);
+            assertEquals(expected, IPCalculator.appendIPv4(builder.append(""), ip).toString());
+            assertEquals(ip, IPCalculator.parseIPv4(builder));
+        }
+    }
+
+    @Test
+    void parseWithinLargerText() {
+        String line = "gw=192.168.010.001;";
+        assertEquals(LegacyIPv4.ipToLong("192.168.010.001"), IPCalculator.parseIPv4(line, 3, 18));
+        assertEquals(-1, IPCalculator.parseIPv4(line, 3, 19));
+        assertEquals(-1, IPCalculator.parseIPv4(line, 2, 18));
+    }
+
+    @Test
+    void prefixArithmeticMatchesLegacy() {
+        Random random = new Random(3);
+        for (int cidr = 0; cidr <= 32; cidr++) {
+            assertEquals(LegacyIPv4.cidrToSubnetMask(cidr), IPCalculator.cidrToSubnetMask(cidr));
+            assertEquals(cidr, IPCalculator.subnetMaskToCidr(IPCalculator.cidrToSubnetMask(cidr)));
+        }
+        for (int round = 0; round < 20_000; round++) {
+            String ip = LegacyIPv4.longToIp(random.nextLong() & 0xFFFFFFFFL);
+            String other = LegacyIPv4.longToIp(random.nextLong() & 0xFFFFFFFFL);
+            int cidr = random.nextInt(33);
+            int otherCidr = random.nextInt(33);
+            String network = LegacyIPv4.getNetworkAddress(ip, cidr);
+            String otherNetwork = LegacyIPv4.getNetworkAddress(other, otherCidr);
+
+            assertEquals(network, IPCalculator.getNetworkAddress(ip, cidr));
+            assertEquals(LegacyIPv4.getBroadcastAddress(network, cidr), IPCalculator.getBroadcastAddress(network, cidr));
+            assertEquals(LegacyIPv4.isIpInSubnet(other, network, cidr), IPCalculator.isIpInSubnet(other, network, cidr));
+            assertEquals(LegacyIPv4.subnetsOverlap(network, cidr, otherNetwork, otherCidr),
+                IPCalculator.subnetsOverlap(network, cidr, otherNetwork, otherCidr), network + "/" + cidr + " " + otherNetwork + "/" + otherCidr);
+        }
+        assertThrows(IllegalArgumentException.class, () -> IPCalculator.cidrToSubnetMask(33));
+        assertThrows(IllegalArgumentException.class, () -> IPCalculator.getNetworkAddress("1.2.3.4", -1));
+    }
+
+    @Test
+    void ipv6MixedNotation() {
+        assertIpv6(0, 0x0000FFFFC0A80101L, "::ffff:192.168.1.1");
+        assertIpv6(0, 0x01020304L, "::1.2.3.4");
+        assertIpv6(0x0001000200030004L, 0x0005000601020304L, "1:2:3:4:5:6:1.2.3.4");
+        assertIpv6(0x0001000000000000L, 0x01020304L, "1::1.2.3.4");
+        assertIpv6(0x20010DB800000000L, 0x0000FFFF0A000000L, "2001:db8::ffff:10.0.0.0");
+
+        for (String invalid : new String[] {
+                "1:2:3:4:5:6:7:1.2.3.4", "::ffff:1.2.3", "::ffff:1.2.3.256", "::ffff:1.2.3.4.", "1.2.3.4::",
+                "::1.2.3.4:5", "::ffff:1.2.3.4/64", "1:2:3:4:5:6:7:8:1.2.3.4", ":1.2.3.4", "::1.2..4"}) {
+            assertFalse(IPCalculator.parseIPv6(invalid, new long[2]), invalid);
+            assertFalse(IPCalculator.isValidIPv6(invalid), invalid);
+        }
+    }
+
+    @Test
+    void ipv6CanonicalForm() {
+        long[] out = new long[2];
+        assertTrue(IPCalculator.parseIPv6("2001:0DB8:0000:0000:0000:0000:0000:0001", out));
+        assertEquals("2001:db8::1", IPCalculator.formatIPv6(out[0], out[1]));
+        assertTrue(IPCalculator.parseIPv6("::ffff:192.168.1.1", out));
+        assertEquals("::ffff:c0a8:101", IPCalculator.formatIPv6(out[0], out[1]));
+        assertTrue(IPCalculator.parseIPv6("1:0:0:1:0:0:0:1", out));
+        assertEquals("1:0:0:1::1", IPCalculator.formatIPv6(out[0], out[1]));
+        assertTrue(IPCalculator.parseIPv6("1:0:2:3:4:5:6:7", out));
+        assertEquals("1:0:2:3:4:5:6:7", IPCalculator.formatIPv6(out[0], out[1]));
+        assertEquals("::", IPCalculator.formatIPv6(0, 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "00:1A:2B:3C:4D:5E", "00-1A-2B-3C-4D-5E", "001A.2B3C.4D5E", "001A2B3C4D5E",
+        "00:1a:2b:3c:4d:5e", "00-1a-2B-3c-4D-5e", "001a.2b3c.4d5e", "001a2B3c4D5e"})
+    void parseMACNotations(String text) {
+        assertEquals(0x001A2B3C4D5EL, IPCalculator.parseMAC(text), text);
+        assertTrue(IPCalculator.isValidMAC(text), text);
+        assertEquals("00:1A:2B:3C:4D:5E", IPCalculator.formatMAC(IPCalculator.parseMAC(text)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        // Séparateurs mélangés ou inattendus
+        "00:1A-2B:3C:4D:5E", "00-1A:2B-3C-4D-5E", "00:1A:2B:3C:4D-5E", "00.1A.2B.3C.4D.5E", "00 1A 2B 3C 4D 5E",
+        "001A:2B3C:4D5E", "001A-2B3C-4D5E", "001A.2B3C-4D5E", "001A.2B3C:4D5E",
+        // Groupes de mauvaise longueur
+        "0:01A:2B:3C:4D:5E", "00:1A2:B:3C:4D:5E", "00:1A:2B:3C:4D5:E", "001:A2:B3:C4:D5:E",
+        "001A2.B3C.4D5E", "001.A2B3C.4D5E", "001A.2B3C4.D5E", "00:1A:2B:3C:4D:5", "00:1A:2B:3C:4D:5E:",
+        "00:1A:2B:3C:4D:5E:6F", "001A.2B3C.4D5", "001A.2B3C.4D5E.", "001A2B3C4D5", "001A2B3C4D5E6",
+        // Chiffres non hexadécimaux
+        "00:1A:2B:3C:4D:5G", "0G:1A:2B:3C:4D:5E", "001A.2B3C.4D5Z", "001A2B3C4D5x", "+01A2B3C4D5E",
+        "00:1A:2B:3C:4D: E", "00:1A:2B:3C:4D:５E", "0x1A2B3C4D5E",
+        "", "00:1A:2B:3C:4D:5E ", " 001A2B3C4D5E"})
+    void parseMACRejects(String text) {
+        assertEquals(-1, IPCalculator.parseMAC(text), text);
+        assertFalse(IPCalculator.isValidMAC(text), text);
+    }
+
+    @Test
+    void macRoundTrip() {
+        assertFalse(IPCalculator.isValidMAC(null));
+        assertEquals("00:00:00:00:00:00", IPCalculator.formatMAC(0));
+        assertEquals("FF:FF:FF:FF:FF:FF", IPCalculator.formatMAC(0xFFFFFFFFFFFFL));
+        assertEquals(0xFFFFFFFFFFFFL, IPCalculator.parseMAC("ff:ff:ff:ff:ff:ff"));
+
+        Random random = new Random(4);
+        for (int round = 0; round < 100_000; round++) {
+            long mac = random.nextLong() & 0xFFFFFFFFFFFFL;
+            String formatted = IPCalculator.formatMAC(mac);
+            assertEquals(IPCalculator.MAC_LENGTH, formatted.length());
+            assertEquals(mac, IPCalculator.parseMAC(formatted), formatted);
+            assertEquals(formatted, IPCalculator.formatMAC(IPCalculator.parseMAC(formatted)));
+
+            String bare = formatted.replace(":", "");
+            String lower = formatted.toLowerCase().replace(':', '-');
+            String cisco = bare.substring(0, 4) + "." + bare.substring(4, 8) + "." + bare.substring(8);
+            for (String text : new String[] {bare, lower, cisco}) {
+                assertEquals(formatted, IPCalculator.formatMAC(IPCalculator.parseMAC(text)), text);
+            }
+        }
+    }
+
+    private static void assertIpv6(long high, long low, String text) {
+        long[] out = new long[2];
+        assertTrue(IPCalculator.parseIPv6(text, out), text);
+        assertEquals(high, out[0], text);
+        assertEquals(low, out[1], text);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ipam.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Ancienne implémentation IPv4 d'IPCalculator (regex, split, String.format),
+ * gardée comme référence pour les tests d'équivalence et les bancs d'essai
+ */
+public final class LegacyIPv4 {
+    private static final Pattern IP_PATTERN = Pattern.compile(
+        "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$"
+    );
+
+    private LegacyIPv4() {
+    }
+
+    public static boolean isValidIP(String ip) {
+        return ip != null && IP_PATTERN.matcher(ip).matches();
+    }
+
+    public static long ipToLong(String ip) {
+        if (!isValidIP(ip)) {
+            throw new IllegalArgumentException("Adresse IP invalide: " + ip);
+        }
+        String[] octets = ip.split("\\.");
+        long result = 0;
+        for (int i = 0; i < 4; i++) {
+            result = (result << 8) | Integer.parseInt(octets[i]);
+        }
+        return result;
+    }
+
+    public static String longToIp(long ip) {
+        return String.format("%d.%d.%d.%d",
+            (ip >> 24) & 0xFF,
+            (ip >> 16) & 0xFF,
+            (ip >> 8) & 0xFF,
+            ip & 0xFF
+        );
+    }
+
+    public static String cidrToSubnetMask(int cidr) {
+        if (cidr < 0 || cidr > 32) {
+            throw new IllegalArgumentException("CIDR doit être entre 0 et 32");
+        }
+        long mask = ((1L << cidr) - 1) << (32 - cidr);
+        return longToIp(mask);
+    }
+
+    public static String getNetworkAddress(String ip, int cidr) {
+        return longToIp(ipToLong(ip) & ipToLong(cidrToSubnetMask(cidr)));
+    }
+
+    public static String getBroadcastAddress(String networkAddress, int cidr) {
+        long maskLong = ipToLong(cidrToSubnetMask(cidr));
+        return longToIp(ipToLong(networkAddress) | (~maskLong & 0xFFFFFFFFL));
+    }
+
+    public static boolean isIpInSubnet(String ip, String networkAddress, int cidr) {
+        long maskLong = ipToLong(cidrToSubnetMask(cidr));
+        return (ipToLong(ip) & maskLong) == (ipToLong(networkAddress) & maskLong);
+    }
+
+    public static boolean subnetsOverlap(String network1, int cidr1, String network2, int cidr2) {
+        long net1 = ipToLong(network1);
+        long net2 = ipToLong(network2);
+        long mask1 = ipToLong(cidrToSubnetMask(cidr1));
+        long mask2 = ipToLong(cidrToSubnetMask(cidr2));
+        long broadcast1 = net1 | (~mask1 & 0xFFFFFFFFL);
+        long broadcast2 = net2 | (~mask2 & 0xFFFFFFFFL);
+        return !(broadcast1 < net2 || broadcast2 < net1);
+    }
+}
@@ -0,0 +1,137 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PrefixTrie face à un modèle naïf (liste de préfixes parcourue en entier),
+ * sur des préfixes serrés dans un /12 pour multiplier les inclusions
+ */
+class PrefixTrieTest {
+    private static final int BASE = (int) IPCalculator.ipToLong("10.16.0.0");
+
+    @Test
+    void matchesBruteForceModel() {
+        Random random = new Random(1);
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        Map<Long, String> model = new HashMap<>();
+
+        for (int round = 0; round < 200; round++) {
+            for (int op = 0; op < 50; op++) {
+                int length = 12 + random.nextInt(21);
+                int network = randomAddress(random) & (int) IPCalculator.prefixMask(length);
+                long key = key(network, length);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(model.remove(key), trie.remove(network, length));
+                } else {
+                    String value = network + "/" + length + "#" + round;
+                    assertEquals(model.put(key, value), trie.put(network, length, value));
+                }
+            }
+            assertEquals(model.size(), trie.size());
+
+            for (int query = 0; query < 100; query++) {
+                int address = randomAddress(random);
+                assertEquals(naiveLongestMatch(model, address), trie.longestMatch(address));
+
+                int length = 12 + random.nextInt(21);
+                int network = address & (int) IPCalculator.prefixMask(length);
+                assertEquals(model.get(key(network, length)), trie.get(network, length));
+
+                List<String> covering = naive(model, network, length, Relation.COVERING);
+                assertEquals(covering, trie.covering(network, length));
+                List<String> covered = naive(model, network, length, Relation.COVERED);
+                assertEquals(new HashSet<>(covered), new HashSet<>(trie.covered(network, length)));
+                assertEquals(covered.size(), trie.covered(network, length).size());
+
+                List<String> overlapping = naive(model, network, length, Relation.OVERLAPPING);
+                assertEquals(new HashSet<>(overlapping), new HashSet<>(trie.overlapping(network, length)));
+                assertEquals(overlapping.size(), trie.overlapping(network, length).size());
+                assertEquals(!overlapping.isEmpty(), trie.overlaps(network, length));
+            }
+        }
+
+        // Vidage complet : l'arbre redevient vide
+        for (Long key : new ArrayList<>(model.keySet())) {
+            assertNotNull(trie.remove((int) (key >>> 6), (int) (key & 63)));
+        }
+        assertEquals(0, trie.size());
+        assertNull(trie.longestMatch(BASE));
+        assertFalse(trie.overlaps(0, 0));
+    }
+
+    @Test
+    void defaultRouteAndHostRoutes() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put(0, 0, "default");
+        trie.put(BASE, 32, "host");
+        assertEquals("host", trie.longestMatch(BASE));
+        assertEquals("default", trie.longestMatch(BASE + 1));
+        assertEquals(List.of("default", "host"), trie.covering(BASE, 32));
+        assertTrue(trie.overlaps(BASE, 24));
+        assertEquals("default", trie.remove(0, 0));
+        assertFalse(trie.overlaps(BASE + 256, 24));
+        assertThrows(IllegalArgumentException.class, () -> trie.put(BASE, 33, "x"));
+        assertThrows(IllegalArgumentException.class, () -> trie.put(BASE, 24, null));
+    }
+
+    private enum Relation { COVERING, COVERED, OVERLAPPING }
+
+    private static int randomAddress(Random random) {
+        return BASE + random.nextInt(1 << 20);
+    }
+
+    private static long key(int network, int length) {
+        return (Integer.toUnsignedLong(network) << 6) | length;
+    }
+
+    private static String naiveLongestMatch(Map<Long, String> model, int address) {
+        String best = null;
+        int bestLength = -1;
+        for (Map.Entry<Long, String> entry : model.entrySet()) {
+            int network = (int) (entry.getKey() >>> 6);
+            int length = (int) (entry.getKey() & 63);
+            if (length > bestLength && (address & (int) IPCalculator.prefixMask(length)) == network) {
+                best = entry.getValue();
+                bestLength = length;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Préfixes du modèle en relation avec network/length ; COVERING est trié du plus large au plus spécifique
+     */
+    private static List<String> naive(Map<Long, String> model, int network, int length, Relation relation) {
+        List<Map.Entry<Long, String>> matches = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : model.entrySet()) {
+            int other = (int) (entry.getKey() >>> 6);
+            int otherLength = (int) (entry.getKey() & 63);
+            boolean covers = otherLength <= length && (network & (int) IPCalculator.prefixMask(otherLength)) == other;
+            boolean covered = otherLength >= length && (other & (int) IPCalculator.prefixMask(length)) == network;
+            boolean keep = switch (relation) {
+                case COVERING -> covers;
+                case COVERED -> covered;
+                case OVERLAPPING -> covers || covered;
+            };
+            if (keep) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator.comparingLong(entry -> entry.getKey() & 63));
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : matches) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ipam.util;
+
+import com.ipam.model.IPStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusBitmapTest {
+    private static final int SIZE = StatusBitmap.CHUNK_SIZE;
+
+    @Test
+    void setAndGetRoundTrip() {
+        Random random = new Random(1);
+        StatusBitmap bitmap = new StatusBitmap();
+        IPStatus[] expected = fill(bitmap, random, 0.5);
+        for (int offset = 0; offset < SIZE; offset++) {
+            assertEquals(expected[offset], bitmap.get(offset), "offset " + offset);
+        }
+        // Réécriture d'une position déjà occupée : les voisines ne bougent pas
+        bitmap.set(31, IPStatus.AVAILABLE);
+        bitmap.set(32, IPStatus.BLOCKED);
+        expected[31] = IPStatus.AVAILABLE;
+        expected[32] = IPStatus.BLOCKED;
+        for (int offset = 0; offset < SIZE; offset++) {
+            assertEquals(expected[offset], bitmap.get(offset), "offset " + offset);
+        }
+    }
+
+    @Test
+    void countAndNextMatchNaiveScan() {
+        Random random = new Random(2);
+        for (double density : new double[] {0.0, 0.01, 0.3, 0.9, 1.0}) {
+            StatusBitmap bitmap = new StatusBitmap();
+            IPStatus[] expected = fill(bitmap, random, density);
+            for (int round = 0; round < 400; round++) {
+                int from;
+                int to;
+                switch (round % 4) {
+                    case 0 -> { // plage quelconque
+                        from = random.nextInt(SIZE + 1);
+                        to = from + random.nextInt(SIZE - from + 1);
+                    }
+                    case 1 -> { // jusqu'à la fin du bloc
+                        from = random.nextInt(SIZE + 1);
+                        to = SIZE;
+                    }
+                    case 2 -> { // à l'intérieur d'un seul mot
+                        int word = random.nextInt(SIZE / 32) * 32;
+                        from = word + random.nextInt(32);
+                        to = from + random.nextInt(word + 32 - from + 1);
+                    }
+                    default -> { // bornes sur des frontières de mots
+                        from = random.nextInt(SIZE / 32 + 1) * 32;
+                        to = from + random.nextInt((SIZE - from) / 32 + 1) * 32;
+                    }
+                }
+                for (IPStatus status : IPStatus.values()) {
+                    String range = status + " [" + from + ", " + to + "[ densité " + density;
+                    assertEquals(naiveCount(expected, status, from, to), bitmap.count(status, from, to), range);
+                    assertEquals(naiveNext(expected, status, from, to), bitmap.next(status, from, to), range);
+                }
+            }
+            for (IPStatus status : IPStatus.values()) {
+                assertEquals(naiveCount(expected, status, 0, SIZE), bitmap.count(status));
+            }
+        }
+    }
+
+    @Test
+    void emptyRangesFindNothing() {
+        StatusBitmap bitmap = new StatusBitmap();
+        assertEquals(0, bitmap.count(IPStatus.AVAILABLE, 5, 5));
+        assertEquals(-1, bitmap.next(IPStatus.AVAILABLE, 5, 5));
+        assertEquals(-1, bitmap.next(IPStatus.AVAILABLE, SIZE, SIZE));
+        assertEquals(SIZE, bitmap.count(IPStatus.AVAILABLE));
+        assertEquals(0, bitmap.next(IPStatus.AVAILABLE, 0, SIZE));
+        assertEquals(-1, bitmap.next(IPStatus.ASSIGNED, 0, SIZE));
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        StatusBitmap bitmap = new StatusBitmap();
+        assertTrue(bitmap.isEmpty());
+        IPStatus[] expected = fill(bitmap, new Random(3), 0.2);
+        assertFalse(bitmap.isEmpty());
+        StatusBitmap copy = StatusBitmap.fromBytes(bitmap.toBytes());
+        for (int offset = 0; offset < SIZE; offset++) {
+            assertEquals(expected[offset], copy.get(offset));
+        }
+        assertTrue(StatusBitmap.fromBytes(null).isEmpty());
+    }
+
+    @Test
+    void chunkArithmetic() {
+        long ipNum = IPCalculator.ipToLong("10.1.7.200");
+        long chunk = StatusBitmap.chunkIndex(ipNum);
+        assertEquals(ipNum, StatusBitmap.chunkStart(chunk) + StatusBitmap.offset(ipNum));
+        assertTrue(StatusBitmap.offset(ipNum) < SIZE);
+    }
+
+    /**
+     * Statuts aléatoires, non disponibles avec la probabilité density
+     */
+    private static IPStatus[] fill(StatusBitmap bitmap, Random random, double density) {
+        IPStatus[] statuses = new IPStatus[SIZE];
+        for (int offset = 0; offset < SIZE; offset++) {
+            statuses[offset] = random.nextDouble() < density
+                ? IPStatus.fromCode(1 + random.nextInt(3))
+                : IPStatus.AVAILABLE;
+            bitmap.set(offset, statuses[offset]);
+        }
+        return statuses;
+    }
+
+    private static int naiveCount(IPStatus[] statuses, IPStatus status, int from, int to) {
+        int count = 0;
+        for (int offset = from; offset < to; offset++) {
+            if (statuses[offset] == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int naiveNext(IPStatus[] statuses, IPStatus status, int from, int to) {
+        for (int offset = from; offset < to; offset++) {
+            if (statuses[offset] == status) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ipam.util;
+
+import com.ipam.model.Ipv4Prefix;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Table de correspondance face au PrefixTrie (plus long préfixe) sur des
+ * préfixes imbriqués aléatoires, en sondant les bornes de chaque préfixe
+ * et des adresses quelconques
+ */
+class SubnetLookupTableTest {
+
+    @Test
+    void matchesPrefixTrieOnRandomNestedPrefixes() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            // Une zone étroite et une zone sur tout l'espace : inclusions fréquentes et rares
+            int zoneBits = round % 2 == 0 ? 20 : 32;
+            int zone = random.nextInt() & (int) IPCalculator.prefixMask(32 - zoneBits);
+            Map<Long, Ipv4Prefix> prefixes = new HashMap<>();
+            PrefixTrie<Long> trie = new PrefixTrie<>();
+            int count = 1 + random.nextInt(2000);
+            for (long id = 1; id <= count; id++) {
+                int length = 32 - zoneBits + random.nextInt(zoneBits + 1);
+                int network = (zone | random.nextInt() & (int) ~IPCalculator.prefixMask(32 - zoneBits))
+                    & (int) IPCalculator.prefixMask(length);
+                if (trie.get(network, length) == null) {
+                    trie.put(network, length, id);
+                    prefixes.put(id, Ipv4Prefix.of(network, length));
+                }
+            }
+
+            SubnetLookupTable table = SubnetLookupTable.build(prefixes);
+
+            for (Ipv4Prefix prefix : prefixes.values()) {
+                int first = (int) prefix.first();
+                int last = first + (int) ((1L << (32 - prefix.getLength())) - 1);
+                for (int address : new int[] {first - 1, first, first + 1, last - 1, last, last + 1}) {
+                    assertEquals(expected(trie, address), table.lookup(address), () -> IPCalculator.longToIp(
+                        Integer.toUnsignedLong(address)));
+                }
+            }
+            int[] addresses = new int[10_000];
+            for (int i = 0; i < addresses.length; i++) {
+                addresses[i] = zone | random.nextInt() & (int) ~IPCalculator.prefixMask(32 - zoneBits);
+            }
+            long[] resolved = table.lookupAll(addresses);
+            for (int i = 0; i < addresses.length; i++) {
+                assertEquals(expected(trie, addresses[i]), resolved[i]);
+            }
+        }
+    }
+
+    @Test
+    void parallelLookupMatchesSequential() {
+        Random random = new Random(2);
+        Map<Long, Ipv4Prefix> prefixes = new HashMap<>();
+        for (long id = 1; id <= 5000; id++) {
+            prefixes.put(id, Ipv4Prefix.of((int) ((10L << 24) + (id << 8)), 24));
+        }
+        prefixes.put(0L, Ipv4Prefix.of((int) (10L << 24), 8));
+        SubnetLookupTable table = SubnetLookupTable.build(prefixes);
+
+        int[] addresses = new int[300_000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = (int) (9L << 24) + random.nextInt(3 << 24);
+        }
+        assertArrayEquals(table.lookupAll(addresses), table.lookupAllParallel(addresses));
+    }
+
+    @Test
+    void addressSpaceEdges() {
+        Map<Long, Ipv4Prefix> prefixes = new HashMap<>();
+        prefixes.put(1L, Ipv4Prefix.of(0, 0));
+        prefixes.put(2L, Ipv4Prefix.of(-1, 32));
+        prefixes.put(3L, Ipv4Prefix.of(0, 32));
+        SubnetLookupTable table = SubnetLookupTable.build(prefixes);
+        assertEquals(3, table.lookup(0));
+        assertEquals(1, table.lookup(1));
+        assertEquals(1, table.lookup(Integer.MIN_VALUE));
+        assertEquals(1, table.lookup(-2));
+        assertEquals(2, table.lookup(-1));
+
+        SubnetLookupTable empty = SubnetLookupTable.build(Map.of());
+        assertEquals(0, empty.size());
+        assertEquals(SubnetLookupTable.NO_SUBNET, empty.lookup(0));
+        assertEquals(SubnetLookupTable.NO_SUBNET, empty.lookup(-1));
+    }
+
+    private static long expected(PrefixTrie<Long> trie, int address) {
+        Long id = trie.longestMatch(address);
+        return id != null ? id : SubnetLookupTable.NO_SUBNET;
+    }
+}
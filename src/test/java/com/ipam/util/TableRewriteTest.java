@@ -0,0 +1,69 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableRewriteTest {
+    private static final String CREATE = "CREATE TABLE %s (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT, name_len INTEGER)";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsAutoincrementHighWaterMark() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("rewrite.db"));
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT)");
+            for (int i = 1; i <= 10; i++) {
+                stmt.executeUpdate("INSERT INTO items (name) VALUES ('item" + i + "')");
+            }
+            stmt.executeUpdate("DELETE FROM items WHERE id > 7");
+
+            TableRewrite rewrite = new TableRewrite("items", CREATE, "id, name, name_len",
+                "id, name, LENGTH(name)", List.of("CREATE INDEX idx_items_name ON items(name)"));
+            rewrite.setChunkSize(3);
+            rewrite.run(conn, (done, total) -> { });
+
+            assertEquals(7, scalar(stmt, "SELECT COUNT(*) FROM items"));
+            assertEquals(5, scalar(stmt, "SELECT name_len FROM items WHERE id = 1"));
+            stmt.executeUpdate("INSERT INTO items (name) VALUES ('new')");
+            assertEquals(11, scalar(stmt, "SELECT id FROM items WHERE name = 'new'"));
+            assertEquals(1, scalar(stmt, "SELECT COUNT(*) FROM sqlite_sequence WHERE name = 'items'"));
+        }
+    }
+
+    @Test
+    void keepsHighWaterMarkOfEmptiedTable() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("empty.db"));
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT)");
+            for (int i = 1; i <= 4; i++) {
+                stmt.executeUpdate("INSERT INTO items (name) VALUES ('item" + i + "')");
+            }
+            stmt.executeUpdate("DELETE FROM items");
+
+            new TableRewrite("items", CREATE, "id, name, name_len", "id, name, LENGTH(name)", List.of())
+                .run(conn, (done, total) -> { });
+
+            stmt.executeUpdate("INSERT INTO items (name) VALUES ('new')");
+            assertEquals(5, scalar(stmt, "SELECT id FROM items WHERE name = 'new'"));
+        }
+    }
+
+    private static long scalar(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+}
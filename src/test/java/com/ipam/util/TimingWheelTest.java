@@ -0,0 +1,210 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roue temporelle : chaque échéance doit être déclenchée une seule fois, au
+ * premier advance qui l'atteint, ni avant ni après, y compris de part et
+ * d'autre des changements de niveau (63/64/4096... ticks), après
+ * replanification ou annulation, pour une échéance déjà passée et après une
+ * longue période sans advance
+ */
+class TimingWheelTest {
+    private static final long TICK = 10;
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 62, 63, 64, 4000, 4095, 262_143, 1_000_003})
+    void deadlinesAcrossLevelBoundaries(long startTick) {
+        long now = startTick * TICK;
+        TimingWheel wheel = new TimingWheel(TICK, now);
+        Map<Long, Long> expected = new HashMap<>();
+        long id = 0;
+        for (long delay : new long[] {1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 8192,
+                262_143, 262_144, 262_145, 300_000}) {
+            // Échéance relative au tick de départ et au bord absolu suivant du niveau
+            for (long tick : new long[] {startTick + delay, (startTick | (delay - 1)) + 1}) {
+                if (tick > startTick && !expected.containsValue(tick)) {
+                    wheel.schedule(id, tick * TICK);
+                    expected.put(id++, tick);
+                }
+            }
+        }
+        assertEquals(expected.size(), wheel.size());
+
+        // Avance tick par tick : chaque identifiant tombe exactement à son tick
+        Map<Long, Long> firedAt = new HashMap<>();
+        long last = startTick + 300_001;
+        for (long tick = startTick + 1; tick <= last; tick++) {
+            long current = tick;
+            wheel.advance(tick * TICK, fired -> assertNull(firedAt.put(fired, current), "déclenché deux fois"));
+        }
+        assertEquals(expected, firedAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesRoundUpToTheNextTick() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 15);
+        assertEquals(20, wheel.getDeadline(1));
+        assertEquals(0, wheel.advance(19, id -> fail("déclenché avant son échéance")));
+        List<Long> fired = new ArrayList<>();
+        assertEquals(1, wheel.advance(20, fired::add));
+        assertEquals(List.of(1L), fired);
+        assertEquals(-1, wheel.getDeadline(1));
+    }
+
+    @Test
+    void rescheduleKeepsOnlyTheLatestDeadline() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 100 * TICK);
+        wheel.schedule(1, 5000 * TICK);   // Repoussée d'un niveau
+        wheel.schedule(2, 5000 * TICK);
+        wheel.schedule(2, 50 * TICK);     // Avancée
+        wheel.schedule(3, 70 * TICK);
+        wheel.schedule(3, 70 * TICK);     // Même échéance, deux entrées
+        assertEquals(3, wheel.size());
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(100 * TICK, fired::add);
+        assertEquals(List.of(2L, 3L), fired);
+        assertEquals(5000 * TICK, wheel.getDeadline(1));
+
+        fired.clear();
+        wheel.advance(4999 * TICK, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(5000 * TICK, fired::add);
+        assertEquals(List.of(1L), fired);
+
+        // Replanifiée puis ramenée à l'échéance initiale : une seule expiration
+        wheel.schedule(4, 6000 * TICK);
+        wheel.schedule(4, 9000 * TICK);
+        wheel.schedule(4, 6000 * TICK);
+        fired.clear();
+        wheel.advance(10_000 * TICK, fired::add);
+        assertEquals(List.of(4L), fired);
+    }
+
+    @Test
+    void cancelledDeadlinesNeverFire() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 63 * TICK);
+        wheel.schedule(2, 64 * TICK);
+        wheel.schedule(3, 4096 * TICK);
+        assertTrue(wheel.cancel(2));
+        assertTrue(wheel.cancel(3));
+        assertFalse(wheel.cancel(3));
+        assertFalse(wheel.cancel(99));
+        assertEquals(1, wheel.size());
+        assertEquals(-1, wheel.getDeadline(3));
+
+        // Annulée puis replanifiée plus tard : l'ancienne entrée ne déclenche rien
+        wheel.schedule(3, 8000 * TICK);
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(4096 * TICK, fired::add);
+        assertEquals(List.of(1L), fired);
+        wheel.advance(8000 * TICK, fired::add);
+        assertEquals(List.of(1L, 3L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvance() {
+        TimingWheel wheel = new TimingWheel(TICK, 1000 * TICK);
+        wheel.schedule(1, 0);
+        wheel.schedule(2, 999 * TICK);
+        wheel.schedule(3, 1000 * TICK);   // Le tick courant est déjà atteint
+        wheel.schedule(4, 1001 * TICK);
+
+        // Sans avancer l'heure
+        Set<Long> fired = new HashSet<>();
+        assertEquals(3, wheel.advance(1000 * TICK, fired::add));
+        assertEquals(Set.of(1L, 2L, 3L), fired);
+
+        // Heure qui recule : rien de plus n'est déclenché
+        assertEquals(0, wheel.advance(500 * TICK, fired::add));
+        assertEquals(1, wheel.advance(1001 * TICK, fired::add));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), fired);
+
+        // Échéance passée planifiée pendant la cascade d'un niveau supérieur
+        wheel.schedule(5, 5000 * TICK);
+        wheel.advance(4095 * TICK, id -> fail("déclenché avant son échéance"));
+        wheel.schedule(5, 10);
+        assertEquals(1, wheel.advance(4095 * TICK, fired::add));
+        assertTrue(fired.contains(5L));
+    }
+
+    @Test
+    void longIdleGapFiresEverythingOnce() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        Random random = new Random(1);
+        Map<Long, Long> expected = new HashMap<>();
+        for (long id = 0; id < 10_000; id++) {
+            long tick = 1 + (random.nextInt(4) == 0 ? random.nextInt(64) : random.nextInt(5_000_000));
+            wheel.schedule(id, tick * TICK);
+            expected.put(id, tick);
+        }
+        wheel.schedule(20_000, 6_000_000 * TICK);
+
+        // Une seule avance de cinq millions de ticks
+        Set<Long> fired = new HashSet<>();
+        assertEquals(10_000, wheel.advance(5_000_000 * TICK, id -> assertTrue(fired.add(id))));
+        assertEquals(expected.keySet(), fired);
+        assertEquals(1, wheel.size());
+
+        // La roue reste cohérente après le saut
+        wheel.schedule(20_001, 5_000_064 * TICK);
+        List<Long> next = new ArrayList<>();
+        wheel.advance(5_000_063 * TICK, next::add);
+        assertTrue(next.isEmpty());
+        wheel.advance(5_000_064 * TICK, next::add);
+        assertEquals(List.of(20_001L), next);
+        wheel.advance(6_000_000 * TICK, next::add);
+        assertEquals(List.of(20_001L, 20_000L), next);
+    }
+
+    @Test
+    void matchesModelUnderRandomOperations() {
+        Random random = new Random(2);
+        long now = 123_456;
+        TimingWheel wheel = new TimingWheel(TICK, now);
+        Map<Long, Long> model = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            long id = random.nextInt(500);
+            if (action < 5) {
+                long deadline = now - 100 + (long) (Math.pow(random.nextDouble(), 4) * 400_000 * TICK);
+                wheel.schedule(id, deadline);
+                model.put(id, Math.floorDiv(deadline + TICK - 1, TICK));
+            } else if (action < 7) {
+                assertEquals(model.remove(id) != null, wheel.cancel(id));
+            } else {
+                now += random.nextInt(4) == 0 ? random.nextInt(100_000) : random.nextInt(3 * (int) TICK);
+                long target = Math.floorDiv(now, TICK);
+                Set<Long> expected = new HashSet<>();
+                model.forEach((key, tick) -> {
+                    if (tick <= target) {
+                        expected.add(key);
+                    }
+                });
+                Set<Long> fired = new HashSet<>();
+                wheel.advance(now, key -> assertTrue(fired.add(key), "déclenché deux fois"));
+                assertEquals(expected, fired);
+                model.keySet().removeAll(fired);
+            }
+            assertEquals(model.size(), wheel.size());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.ipam.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteQueueTest {
+    @TempDir
+    Path dir;
+
+    private ConnectionPool pool;
+    private WriteQueue queue;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("queue.db"), 2, 60_000);
+        queue = new WriteQueue(pool);
+        queue.execute(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE t (v INTEGER)");
+            }
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+        pool.shutdown();
+    }
+
+    @Test
+    void interruptedWhileQueuedIsNeverCommitted() throws Exception {
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> blocker = queue.submit(conn -> {
+            blocking.countDown();
+            awaitQuietly(release);
+            return null;
+        });
+        assertTrue(blocking.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread caller = new Thread(() -> {
+            try {
+                queue.execute(conn -> insert(conn, 1));
+            } catch (Throwable t) {
+                failure.set(t);
+                stillInterrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        caller.start();
+        Thread.sleep(100);
+        caller.interrupt();
+        caller.join(5_000);
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+
+        assertInstanceOf(SQLException.class, failure.get());
+        assertTrue(stillInterrupted.get());
+        assertEquals(0, count());
+    }
+
+    @Test
+    void interruptedWhileRunningReturnsTheCommittedResult() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Object> result = new AtomicReference<>();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread caller = new Thread(() -> {
+            try {
+                result.set(queue.execute(conn -> {
+                    running.countDown();
+                    awaitQuietly(release);
+                    return insert(conn, 2);
+                }));
+            } catch (Throwable t) {
+                result.set(t);
+            }
+            stillInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+        caller.start();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        Thread.sleep(100);
+        release.countDown();
+        caller.join(5_000);
+
+        assertEquals(1, result.get());
+        assertTrue(stillInterrupted.get());
+        assertEquals(1, count());
+    }
+
+    @Test
+    void exclusiveWriteRunsAloneBetweenBatches() throws Exception {
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> blocker = queue.submit(conn -> {
+            blocking.countDown();
+            awaitQuietly(release);
+            return null;
+        });
+        assertTrue(blocking.await(5, TimeUnit.SECONDS));
+
+        // En file derrière le lot en cours : une écriture, l'exclusive, puis une autre écriture
+        CompletableFuture<Integer> before = queue.submit(conn -> insert(conn, 1));
+        AtomicReference<Object> exclusive = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                exclusive.set(queue.executeExclusive(conn -> {
+                    boolean autoCommit = conn.getAutoCommit();
+                    // Validée par l'écriture elle-même, sans attendre le reste de la file
+                    conn.setAutoCommit(false);
+                    insert(conn, 2);
+                    conn.commit();
+                    conn.setAutoCommit(true);
+                    return autoCommit ? count() : -1L;
+                }));
+            } catch (Throwable t) {
+                exclusive.set(t);
+            }
+        });
+        caller.start();
+        while (caller.getState() != Thread.State.WAITING && caller.isAlive()) {
+            Thread.sleep(5);
+        }
+        CompletableFuture<Integer> after = queue.submit(conn -> insert(conn, 3));
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        caller.join(5_000);
+
+        assertEquals(1, before.get(5, TimeUnit.SECONDS));
+        assertEquals(1, after.get(5, TimeUnit.SECONDS));
+        // L'écriture précédente était validée, la suivante pas encore
+        assertEquals(2L, exclusive.get());
+        assertEquals(3, count());
+    }
+
+    @Test
+    void exclusiveWriteLeftInTransactionIsRolledBack() throws Exception {
+        assertThrows(IllegalStateException.class, () -> queue.executeExclusive(conn -> {
+            conn.setAutoCommit(false);
+            insert(conn, 1);
+            throw new IllegalStateException("échec");
+        }));
+        assertEquals(0, count());
+        Integer inserted = queue.execute(conn -> insert(conn, 2));
+        assertEquals(1, inserted);
+        assertEquals(1, count());
+    }
+
+    private static Integer insert(Connection conn, int value) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            return stmt.executeUpdate("INSERT INTO t (v) VALUES (" + value + ")");
+        }
+    }
+
+    private long count() throws SQLException {
+        try (Connection conn = pool.borrowReader();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}